@@ -0,0 +1,23 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.cycles")
+public class CycleDetectionProperties {
+
+    // Defaults for a job started without parameters
+    private int maxLength = 4;
+    private int maxCycles = 50_000;
+
+    // Nodes one start may expand before its search is cut short
+    private int budgetPerStart = 200_000;
+
+    // Cycles per UNWIND statement when writing results back
+    private int writeBatchSize = 1_000;
+}
@@ -0,0 +1,19 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.cache")
+public class GraphCacheProperties {
+
+    // Serve relationship graphs from memory until a write touches them
+    private boolean enabled = true;
+
+    // Upper bound on cached graphs; least recently used entries are evicted first
+    private int maxEntries = 2_000;
+}
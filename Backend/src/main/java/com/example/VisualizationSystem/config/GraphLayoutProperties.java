@@ -0,0 +1,28 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.layout")
+public class GraphLayoutProperties {
+
+    // Force-directed steps; the move limit cools to zero over them
+    private int iterations = 300;
+
+    // Barnes-Hut opening angle: larger is faster and coarser, 0 is exact
+    private double theta = 0.9;
+
+    // Ideal distance between linked nodes, in the frontend's pixel units
+    private double edgeLength = 120;
+
+    // Pull towards the centre that keeps unconnected parts from drifting apart
+    private double gravity = 0.2;
+
+    // Graphs with fewer nodes are laid out on the request thread
+    private int parallelThreshold = 1_000;
+}
@@ -0,0 +1,22 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.projection")
+public class GraphProjectionProperties {
+
+    // Hold an in-process CSR copy of the graph and answer neighbourhood queries from it
+    private boolean enabled = false;
+
+    // Quiet period after the last write before the projection is rebuilt
+    private long rebuildDelayMs = 2_000;
+
+    // Least time between the starts of two write-triggered full rebuilds; bulk reloads rebuild at once
+    private long minRebuildIntervalMs = 60_000;
+}
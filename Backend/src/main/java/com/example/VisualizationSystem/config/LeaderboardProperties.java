@@ -0,0 +1,16 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "leaderboard")
+public class LeaderboardProperties {
+
+    // Keys kept per leaderboard; more keys make the top entries of high-cardinality boards tighter
+    private int capacity = 1_000;
+}
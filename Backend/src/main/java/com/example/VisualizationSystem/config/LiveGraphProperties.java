@@ -0,0 +1,26 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.live")
+public class LiveGraphProperties {
+
+    // Open subscriptions across all clients, and node ids one subscription may watch
+    private int maxSubscribers = 1_000;
+    private int maxIdsPerSubscriber = 500;
+
+    // Deltas held per subscriber while it is slow to read; the oldest are dropped beyond this
+    private int bufferSize = 256;
+
+    // Comment line sent to every subscriber so proxies keep idle connections open
+    private int heartbeatSeconds = 25;
+
+    // Connections are closed after this long; EventSource clients reconnect on their own
+    private long timeoutMinutes = 30;
+}
@@ -0,0 +1,32 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "graph.risk")
+public class RiskScoringProperties {
+
+    // Score every user again once a pipeline run / sample load has finished
+    private boolean runAfterPipeline = true;
+
+    // PageRank: probability of following an edge rather than jumping to a random user
+    private double damping = 0.85;
+
+    // Share of a user's rank passed along transfers when it also has SAME_* links
+    private double transferShare = 0.7;
+
+    // Stop once the L1 change of the rank vector drops below this, or after maxIterations
+    private double tolerance = 1e-6;
+    private int maxIterations = 100;
+
+    // Weight of PageRank against weighted degree in the 0..100 risk score
+    private double pageRankWeight = 0.6;
+
+    // Users per UNWIND statement when writing scores back
+    private int writeBatchSize = 5_000;
+}
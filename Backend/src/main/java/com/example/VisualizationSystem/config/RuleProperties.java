@@ -0,0 +1,59 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rules")
+public class RuleProperties {
+
+    // Screen new transactions and generated pipeline data
+    private boolean enabled = true;
+
+    // A rule hits when all of its conditions hold; see rules.Feature for the feature names
+    private List<Definition> definitions = new ArrayList<>(List.of(
+            new Definition("large-amount-new-device",
+                    "Large amount sent from a device the sender has not used before", true, List.of(
+                    new Condition("amount", ">", 10_000),
+                    new Condition("newDeviceForSender", "==", 1))),
+            new Definition("very-large-amount",
+                    "Amount above the single-transaction review threshold", true, List.of(
+                    new Condition("amount", ">=", 45_000))),
+            new Definition("shared-ip-cluster",
+                    "IP address used by many different senders", true, List.of(
+                    new Condition("ipClusterSize", ">=", 10))),
+            new Definition("sender-burst",
+                    "Sender made several transactions in the last five minutes", true, List.of(
+                    new Condition("senderTxns5m", ">=", 5)))
+    ));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Definition {
+        private String id;
+        private String description;
+        private boolean flag = true;         // false: record the reason without flagging
+        private List<Condition> conditions = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Condition {
+        private String feature;
+        private String op;                   // >, >=, <, <=, ==, !=
+        private double value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "similarity")
+public class SimilarityProperties {
+
+    // LSH banding of the MinHash signature (bands x rows hashes); pairs above roughly
+    // (1/bands)^(1/rows) Jaccard similarity are likely to share a bucket
+    private int bands = 16;
+    private int rows = 4;
+
+    // Bucket members scored per lookup; bounds the work when a hot device fills a bucket
+    private int maxCandidates = 2_000;
+}
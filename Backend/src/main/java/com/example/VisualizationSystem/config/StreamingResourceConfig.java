@@ -0,0 +1,67 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Closes resources handed to a streaming response body once the request's async
+ * processing ends — completed, timed out, failed, or the body never ran at all.
+ */
+@Slf4j
+@Configuration
+public class StreamingResourceConfig implements WebMvcConfigurer {
+
+    private static final String RESOURCES = StreamingResourceConfig.class.getName() + ".resources";
+
+    /**
+     * Registers {@code resource} to be closed when the current request completes.
+     * Outside a request nothing is registered and the caller stays responsible for it.
+     */
+    public static void closeOnCompletion(AutoCloseable resource) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<AutoCloseable> resources =
+                (List<AutoCloseable>) attributes.getAttribute(RESOURCES, RequestAttributes.SCOPE_REQUEST);
+        if (resources == null) {
+            resources = new ArrayList<>();
+            attributes.setAttribute(RESOURCES, resources, RequestAttributes.SCOPE_REQUEST);
+        }
+        resources.add(resource);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                @SuppressWarnings("unchecked")
+                List<AutoCloseable> resources =
+                        (List<AutoCloseable>) request.getAttribute(RESOURCES, RequestAttributes.SCOPE_REQUEST);
+                if (resources == null) {
+                    return;
+                }
+                request.removeAttribute(RESOURCES, RequestAttributes.SCOPE_REQUEST);
+                for (AutoCloseable resource : resources) {
+                    try {
+                        resource.close();
+                    } catch (Exception e) {
+                        log.warn("Failed to close streaming resource", e);
+                    }
+                }
+            }
+        });
+    }
+}
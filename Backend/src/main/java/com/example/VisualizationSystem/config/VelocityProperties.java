@@ -0,0 +1,19 @@
+package com.example.VisualizationSystem.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "velocity")
+public class VelocityProperties {
+
+    // Keys tracked per dimension; the least recently active are evicted beyond this
+    private int maxKeysPerDimension = 100_000;
+
+    // How often keys with nothing left in the last hour are dropped
+    private long sweepIntervalMs = 60_000;
+}
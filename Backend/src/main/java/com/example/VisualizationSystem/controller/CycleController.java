@@ -0,0 +1,109 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.CycleJobResponse;
+import com.example.VisualizationSystem.dto.CycleResponse;
+import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.service.CycleDetectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST API controller for transfer cycles: money that returns to where it started
+ * through a chain of TRANSFERRED_TO relationships.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/cycles")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CycleController {
+
+    private final CycleDetectionService cycleDetectionService;
+
+    private static final int MAX_LENGTH = 6;
+    private static final int MAX_CYCLES = 1_000_000;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Starts a detection job that replaces the stored cycles when it completes.
+     *
+     * @param maxLength Longest cycle, in users (2-6)
+     * @param minAmount Skip transfers whose total amount is below this
+     * @param since Skip transfers whose last transaction is before this
+     * @param until Skip transfers whose first transaction is after this
+     * @param maxCycles Stop after this many cycles
+     * @return Job status at the time of the request
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<CycleJobResponse> startJob(
+            @RequestParam(required = false) Integer maxLength,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(required = false) Integer maxCycles) {
+
+        log.info("Cycle detection requested (maxLength={}, minAmount={}, since={}, until={})",
+                maxLength, minAmount, since, until);
+
+        if (maxLength != null && (maxLength < 2 || maxLength > MAX_LENGTH)) {
+            throw new BadRequestException("maxLength must be between 2 and " + MAX_LENGTH);
+        }
+        if (maxCycles != null && (maxCycles < 1 || maxCycles > MAX_CYCLES)) {
+            throw new BadRequestException("maxCycles must be between 1 and " + MAX_CYCLES);
+        }
+        if (minAmount != null && minAmount < 0) {
+            throw new BadRequestException("minAmount must not be negative");
+        }
+        if (since != null && until != null && since.isAfter(until)) {
+            throw new BadRequestException("since must not be after until");
+        }
+        return ResponseEntity.accepted()
+                .body(cycleDetectionService.start(maxLength, minAmount, since, until, maxCycles));
+    }
+
+    /**
+     * Retrieves the running job's progress, or the outcome of the last one.
+     *
+     * @return Job status
+     */
+    @GetMapping("/jobs/current")
+    public ResponseEntity<CycleJobResponse> getJob() {
+        return ResponseEntity.ok(cycleDetectionService.status());
+    }
+
+    /**
+     * Cancels the running job; the cycles stored by earlier jobs are kept.
+     *
+     * @return Job status at the time of the request
+     */
+    @DeleteMapping("/jobs/current")
+    public ResponseEntity<CycleJobResponse> cancelJob() {
+        return ResponseEntity.accepted().body(cycleDetectionService.cancel());
+    }
+
+    /**
+     * Lists the stored cycles a user takes part in, largest total amount first.
+     *
+     * @param userId User identifier
+     * @param page Page number (0-based)
+     * @param size Cycles per page
+     * @return Page of cycles with per-hop amounts
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<PageResponse<CycleResponse>> getCyclesOfUser(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(cycleDetectionService.getCyclesOfUser(userId, page, size));
+    }
+}
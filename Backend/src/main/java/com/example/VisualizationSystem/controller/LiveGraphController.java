@@ -0,0 +1,65 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.config.LiveGraphProperties;
+import com.example.VisualizationSystem.dto.LiveGraphStatsResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.service.LiveGraphService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST API controller for live graph updates: clients watch node ids and receive the
+ * nodes and edges each write adds or removes around them as Server-Sent Events.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/live")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class LiveGraphController {
+
+    private final LiveGraphService liveGraphService;
+    private final LiveGraphProperties props;
+
+    /**
+     * Opens an event stream for writes touching the given users or transactions.
+     * Events: {@code subscribed} once, then {@code delta} per matching write,
+     * {@code overflow} when deltas were dropped for a slow reader and {@code reload}
+     * after a bulk reload; the last two mean the client should re-fetch its graph.
+     *
+     * @param ids User and transaction ids to watch
+     * @return Server-Sent Events stream
+     */
+    @GetMapping(value = "/graph", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam List<String> ids) {
+        Set<String> watched = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null || id.isBlank()) {
+                throw new BadRequestException("ids must not contain blank ids");
+            }
+            watched.add(id.trim());
+        }
+        if (watched.isEmpty() || watched.size() > props.getMaxIdsPerSubscriber()) {
+            throw new BadRequestException("ids must name between 1 and " + props.getMaxIdsPerSubscriber() + " nodes");
+        }
+        return liveGraphService.subscribe(watched);
+    }
+
+    /**
+     * Retrieves subscription and delivery counters.
+     *
+     * @return Live update statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<LiveGraphStatsResponse> getStats() {
+        return ResponseEntity.ok(liveGraphService.stats());
+    }
+}
@@ -1,18 +1,35 @@
 package com.example.VisualizationSystem.controller;
 
+import com.example.VisualizationSystem.dto.BatchGraphRequest;
+import com.example.VisualizationSystem.exception.BadRequestException;
 import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.NeighborSource;
+import com.example.VisualizationSystem.graph.TransferPathSearch;
+import com.example.VisualizationSystem.service.BatchGraphService;
+import com.example.VisualizationSystem.service.CompactGraphEncoder;
+import com.example.VisualizationSystem.service.GraphExpansionService;
+import com.example.VisualizationSystem.service.GraphStreamService;
+import com.example.VisualizationSystem.service.MoneyFlowService;
 import com.example.VisualizationSystem.service.TransactionRelationshipService;
+import com.example.VisualizationSystem.service.TransferWindowService;
 import com.example.VisualizationSystem.service.UserRelationshipService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * REST API controller for managing relationships in the graph database.
  * Provides endpoints to retrieve connection graphs for users and transactions.
+ * Graph endpoints answer in the compact columnar form when {@code Accept} asks for
+ * {@value CompactGraphEncoder#COMPACT_JSON_VALUE} or {@code application/cbor}.
  */
 @Slf4j
 @RestController
@@ -23,31 +40,66 @@ public class RelationshipController {
 
     private final UserRelationshipService userRelationshipService;
     private final TransactionRelationshipService transactionRelationshipService;
+    private final GraphExpansionService graphExpansionService;
+    private final GraphStreamService graphStreamService;
+    private final CompactGraphEncoder compactGraphEncoder;
+    private final BatchGraphService batchGraphService;
+    private final MoneyFlowService moneyFlowService;
+    private final TransferWindowService transferWindowService;
+
+    private static final int MAX_DEPTH = 4;
+    private static final int MAX_NODES = 5_000;
+    private static final int MAX_FANOUT = 1_000;
+    private static final int MAX_PEER_LIMIT = 500;
+    private static final int MAX_BATCH_SEEDS = 50;
+    private static final int MAX_PATH_HOPS = 6;
+    private static final int MAX_PATHS = 20;
+    private static final int MAX_PATH_BUDGET = 200_000;
+    private static final int MAX_TRANSFERS = 500;
+    private static final int MIN_LOD_NODES = 20;
+    private static final int MAX_CLUSTER_EXPAND = 500;
 
     /**
      * Retrieves the relationship graph for a specific user.
      * Returns all connected nodes and relationships.
      * 
+     * Above {@code maxNodes}, transactions and payment peers are folded into cluster nodes
+     * that expand through {@code /users/{id}/clusters}.
+     * With {@code layout} set, node positions are included under {@code positions}.
+     *
      * @param id User identifier
+     * @param maxNodes Node budget for the level-of-detail view; 0 returns the full graph
+     * @param layout Whether to include server-computed node positions
+     * @param accept Accept header; selects the compact form
      * @return Graph structure containing nodes and relationships
      */
     @GetMapping("/users/{id}")
-    public ResponseEntity<Map<String, Object>> getUserRelationships(@PathVariable String id) {
+    public ResponseEntity<?> getUserRelationships(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int maxNodes,
+            @RequestParam(defaultValue = "false") boolean layout,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         log.info("Fetching relationship graph for user: {}", id);
         
         if (id == null || id.trim().isEmpty()) {
             throw new ResourceNotFoundException("User ID cannot be empty");
         }
+
+        validateLodBudget(maxNodes);
         
         try {
-            Map<String, Object> graph = userRelationshipService.getUserGraph(id);
+            Map<String, Object> graph = layout
+                    ? userRelationshipService.getUserGraphWithLayout(id, maxNodes)
+                    : maxNodes > 0
+                    ? userRelationshipService.getUserGraph(id, maxNodes)
+                    : userRelationshipService.getUserGraph(id);
             
-            if (graph == null || graph.isEmpty()) {
+            if (isMissing(graph)) {
                 throw new ResourceNotFoundException("User", "id", id);
             }
             
             log.info("Successfully retrieved graph for user: {}", id);
-            return ResponseEntity.ok(graph);
+            return respond(graph, accept);
             
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -59,28 +111,44 @@ public class RelationshipController {
 
     /**
      * Retrieves the relationship graph for a specific transaction.
-     * Returns all connected nodes and relationships.
+     * Same-IP and same-device peers are capped per category; the rest can be
+     * collapsed into a cluster node carrying count, amount sum and status mix.
      * 
      * @param id Transaction identifier
+     * @param peerLimit Maximum peers shown per category (same IP / same device)
+     * @param cluster Whether to add a cluster node for the peers left out
+     * @param layout Whether to include server-computed node positions
+     * @param accept Accept header; selects the compact form
      * @return Graph structure containing nodes and relationships
      */
     @GetMapping("/transactions/{id}")
-    public ResponseEntity<Map<String, Object>> getTransactionRelationships(@PathVariable String id) {
+    public ResponseEntity<?> getTransactionRelationships(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "25") int peerLimit,
+            @RequestParam(defaultValue = "true") boolean cluster,
+            @RequestParam(defaultValue = "false") boolean layout,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         log.info("Fetching relationship graph for transaction: {}", id);
         
         if (id == null || id.trim().isEmpty()) {
             throw new ResourceNotFoundException("Transaction ID cannot be empty");
         }
+
+        if (peerLimit < 0 || peerLimit > MAX_PEER_LIMIT) {
+            throw new BadRequestException("peerLimit must be between 0 and " + MAX_PEER_LIMIT);
+        }
         
         try {
-            Map<String, Object> graph = transactionRelationshipService.getTransactionGraph(id);
+            Map<String, Object> graph = layout
+                    ? transactionRelationshipService.getTransactionGraphWithLayout(id, peerLimit, cluster)
+                    : transactionRelationshipService.getTransactionGraph(id, peerLimit, cluster);
             
-            if (graph == null || graph.isEmpty()) {
+            if (isMissing(graph)) {
                 throw new ResourceNotFoundException("Transaction", "id", id);
             }
             
             log.info("Successfully retrieved graph for transaction: {}", id);
-            return ResponseEntity.ok(graph);
+            return respond(graph, accept);
             
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -90,4 +158,383 @@ public class RelationshipController {
         }
     }
 
+    /**
+     * Streams the relationship graph of a user element by element.
+     * Same graph as {@code /users/{id}}, written as Cytoscape-style elements while the
+     * query runs; payment summaries follow the last element.
+     *
+     * With {@code maxNodes} or {@code layout} set the graph is assembled first and written
+     * in one go, with the positions in the summary.
+     *
+     * @param id User identifier
+     * @param maxNodes Node budget for the level-of-detail view; 0 streams the full graph
+     * @param layout Whether to include server-computed node positions
+     * @param format Framing of the stream (ndjson/json)
+     * @return Streamed graph elements followed by the summary
+     */
+    @GetMapping("/users/{id}/stream")
+    public ResponseEntity<StreamingResponseBody> streamUserRelationships(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int maxNodes,
+            @RequestParam(defaultValue = "false") boolean layout,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("Streaming relationship graph for user: {} as {}", id, format);
+
+        if (id == null || id.trim().isEmpty()) {
+            throw new ResourceNotFoundException("User ID cannot be empty");
+        }
+
+        validateLodBudget(maxNodes);
+        GraphStreamService.Format streamFormat = GraphStreamService.Format.parse(format);
+
+        StreamingResponseBody body;
+        if (maxNodes > 0 || layout) {
+            Map<String, Object> graph = layout
+                    ? userRelationshipService.getUserGraphWithLayout(id, maxNodes)
+                    : userRelationshipService.getUserGraph(id, maxNodes);
+            if (isMissing(graph)) {
+                throw new ResourceNotFoundException("User", "id", id);
+            }
+            body = graphStreamService.streamGraph(graph, streamFormat);
+        } else {
+            body = graphStreamService.streamUserGraph(id, streamFormat);
+        }
+        return ResponseEntity.ok()
+                .contentType(streamFormat.mediaType())
+                .body(body);
+    }
+
+    /**
+     * Expands one cluster node of a summarized user graph into its members.
+     *
+     * @param id User identifier
+     * @param groupBy counterparty, status or paymentMethod, as on the cluster node
+     * @param key Group key from the cluster node
+     * @param limit Maximum members returned; the rest stay in a smaller cluster
+     * @param accept Accept header; selects the compact form
+     * @return Members with their edges, replacing the cluster node {@code clusterId}
+     */
+    @GetMapping("/users/{id}/clusters")
+    public ResponseEntity<?> expandUserCluster(
+            @PathVariable String id,
+            @RequestParam String groupBy,
+            @RequestParam String key,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.info("Expanding {} cluster '{}' of user {}", groupBy, key, id);
+
+        if (!Set.of("counterparty", "status", "paymentMethod").contains(groupBy)) {
+            throw new BadRequestException("groupBy must be 'counterparty', 'status' or 'paymentMethod'");
+        }
+        if (limit < 1 || limit > MAX_CLUSTER_EXPAND) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_CLUSTER_EXPAND);
+        }
+        return respond(userRelationshipService.expandCluster(id, groupBy, key, limit), accept);
+    }
+
+    /**
+     * Streams the relationship graph of a transaction element by element.
+     * Same graph as {@code /transactions/{id}}; cluster nodes and the peer summary
+     * follow the sampled peers. With {@code layout} set the graph is assembled first and
+     * written in one go, with the positions in the summary.
+     *
+     * @param id Transaction identifier
+     * @param peerLimit Maximum peers shown per category (same IP / same device)
+     * @param cluster Whether to add a cluster node for the peers left out
+     * @param layout Whether to include server-computed node positions
+     * @param format Framing of the stream (ndjson/json)
+     * @return Streamed graph elements followed by the summary
+     */
+    @GetMapping("/transactions/{id}/stream")
+    public ResponseEntity<StreamingResponseBody> streamTransactionRelationships(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "25") int peerLimit,
+            @RequestParam(defaultValue = "true") boolean cluster,
+            @RequestParam(defaultValue = "false") boolean layout,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("Streaming relationship graph for transaction: {} as {}", id, format);
+
+        if (id == null || id.trim().isEmpty()) {
+            throw new ResourceNotFoundException("Transaction ID cannot be empty");
+        }
+
+        if (peerLimit < 0 || peerLimit > MAX_PEER_LIMIT) {
+            throw new BadRequestException("peerLimit must be between 0 and " + MAX_PEER_LIMIT);
+        }
+
+        GraphStreamService.Format streamFormat = GraphStreamService.Format.parse(format);
+
+        StreamingResponseBody body;
+        if (layout) {
+            Map<String, Object> graph = transactionRelationshipService
+                    .getTransactionGraphWithLayout(id, peerLimit, cluster);
+            if (isMissing(graph)) {
+                throw new ResourceNotFoundException("Transaction", "id", id);
+            }
+            body = graphStreamService.streamGraph(graph, streamFormat);
+        } else {
+            body = graphStreamService.streamTransactionGraph(id, peerLimit, cluster, streamFormat);
+        }
+        return ResponseEntity.ok()
+                .contentType(streamFormat.mediaType())
+                .body(body);
+    }
+
+    /**
+     * Expands the graph around a user over several hops.
+     * The traversal is breadth-first and bounded by depth, total node budget and
+     * per-node fan-out; nodes whose neighbours were cut are listed as truncated.
+     *
+     * @param id User identifier
+     * @param depth Number of hops (1-4)
+     * @param maxNodes Maximum number of nodes in the result
+     * @param fanout Maximum neighbours taken from each expanded node
+     * @param types Relationship types to follow (default: all)
+     * @param accept Accept header; selects the compact form
+     * @return Multi-hop graph with truncation details
+     */
+    @GetMapping("/users/{id}/expand")
+    public ResponseEntity<?> expandUser(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "2") int depth,
+            @RequestParam(defaultValue = "300") int maxNodes,
+            @RequestParam(defaultValue = "50") int fanout,
+            @RequestParam(required = false) List<String> types,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        log.info("Expanding user {} - depth: {}, maxNodes: {}, fanout: {}, types: {}",
+                id, depth, maxNodes, fanout, types);
+
+        validateExpansion(depth, maxNodes, fanout);
+        return respond(graphExpansionService.expand(
+                id, NeighborSource.USER, depth, maxNodes, fanout, parseTypes(types)), accept);
+    }
+
+    /**
+     * Expands the graph around a transaction over several hops.
+     *
+     * @param id Transaction identifier
+     * @param depth Number of hops (1-4)
+     * @param maxNodes Maximum number of nodes in the result
+     * @param fanout Maximum neighbours taken from each expanded node
+     * @param types Relationship types to follow (default: all)
+     * @param accept Accept header; selects the compact form
+     * @return Multi-hop graph with truncation details
+     */
+    @GetMapping("/transactions/{id}/expand")
+    public ResponseEntity<?> expandTransaction(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "2") int depth,
+            @RequestParam(defaultValue = "300") int maxNodes,
+            @RequestParam(defaultValue = "50") int fanout,
+            @RequestParam(required = false) List<String> types,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        log.info("Expanding transaction {} - depth: {}, maxNodes: {}, fanout: {}, types: {}",
+                id, depth, maxNodes, fanout, types);
+
+        validateExpansion(depth, maxNodes, fanout);
+        return respond(graphExpansionService.expand(
+                id, NeighborSource.TRANSACTION, depth, maxNodes, fanout, parseTypes(types)), accept);
+    }
+
+    /**
+     * Retrieves the relationship graphs of several users and transactions as one graph.
+     * Nodes shared by several neighbourhoods appear once; {@code membership} lists the
+     * seeds each node belongs to. Unknown ids are reported in {@code missing}.
+     *
+     * @param request User and transaction ids, plus the peer settings for transactions
+     * @param accept Accept header; selects the compact form
+     * @return Merged graph with per-seed membership and summaries
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getBatchRelationships(
+            @RequestBody BatchGraphRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        Set<String> userIds = seedIds(request.getUserIds(), "userIds");
+        Set<String> transactionIds = seedIds(request.getTransactionIds(), "transactionIds");
+        int seeds = userIds.size() + transactionIds.size();
+        if (seeds == 0 || seeds > MAX_BATCH_SEEDS) {
+            throw new BadRequestException("Batch must name between 1 and " + MAX_BATCH_SEEDS + " seeds");
+        }
+
+        int peerLimit = request.getPeerLimit() != null ? request.getPeerLimit() : 25;
+        if (peerLimit < 0 || peerLimit > MAX_PEER_LIMIT) {
+            throw new BadRequestException("peerLimit must be between 0 and " + MAX_PEER_LIMIT);
+        }
+        boolean cluster = request.getCluster() == null || request.getCluster();
+
+        log.info("Fetching batch graph for {} users and {} transactions", userIds.size(), transactionIds.size());
+        return respond(batchGraphService.getGraphs(userIds, transactionIds, peerLimit, cluster), accept);
+    }
+
+    /**
+     * Finds the paths money can take from one user to another over TRANSFERRED_TO.
+     * The search is bounded by hop count and a node-visit budget; when the budget runs
+     * out the best paths found so far are returned and {@code budgetExhausted} is set.
+     * Without a projection the search falls back to Cypher, which caps the hops lower,
+     * counts the budget in paths and gives up with {@code timedOut} after a few seconds.
+     *
+     * @param from Sending user
+     * @param to Receiving user
+     * @param maxHops Maximum transfers on a path (1-6)
+     * @param k Number of paths to return (1-20)
+     * @param mode shortest (fewest hops first) or heaviest (largest bottleneck amount first)
+     * @param minAmount Skip transfers whose total amount is below this
+     * @param since Skip transfers whose last transaction is before this
+     * @param until Skip transfers whose first transaction is after this
+     * @param budget Maximum nodes visited by the search (paths enumerated on the Cypher fallback)
+     * @param accept Accept header; selects the compact form
+     * @return Ranked paths with per-hop amounts, plus the paths as a graph
+     */
+    @GetMapping("/paths")
+    public ResponseEntity<?> findMoneyFlowPaths(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "4") int maxHops,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "shortest") String mode,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(defaultValue = "20000") int budget,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        log.info("Finding {} money-flow paths {} -> {} within {} hops", mode, from, to, maxHops);
+
+        if (from.isBlank() || to.isBlank()) {
+            throw new BadRequestException("from and to must be user ids");
+        }
+        if (from.equals(to)) {
+            throw new BadRequestException("from and to must be different users");
+        }
+        if (maxHops < 1 || maxHops > MAX_PATH_HOPS) {
+            throw new BadRequestException("maxHops must be between 1 and " + MAX_PATH_HOPS);
+        }
+        if (k < 1 || k > MAX_PATHS) {
+            throw new BadRequestException("k must be between 1 and " + MAX_PATHS);
+        }
+        if (budget < 1 || budget > MAX_PATH_BUDGET) {
+            throw new BadRequestException("budget must be between 1 and " + MAX_PATH_BUDGET);
+        }
+        if (since != null && until != null && since.isAfter(until)) {
+            throw new BadRequestException("since must not be after until");
+        }
+
+        TransferPathSearch.Mode searchMode = switch (mode.toLowerCase()) {
+            case "shortest" -> TransferPathSearch.Mode.SHORTEST;
+            case "heaviest" -> TransferPathSearch.Mode.HEAVIEST;
+            default -> throw new BadRequestException("mode must be 'shortest' or 'heaviest'");
+        };
+
+        return respond(moneyFlowService.findPaths(from.trim(), to.trim(), maxHops, k, searchMode,
+                minAmount, since, until, budget), accept);
+    }
+
+    /**
+     * Sums what a user sent to and/or received from each counterparty within a window of
+     * whole days, from the per-day and per-month totals kept on TRANSFERRED_TO.
+     *
+     * @param id User identifier
+     * @param counterparty Only the transfers with this user
+     * @param direction out (sent), in (received) or both
+     * @param since First day of the window (inclusive); open when omitted
+     * @param until Last day of the window (inclusive); open when omitted
+     * @param limit Maximum counterparties listed, largest amount first (1-500)
+     * @param accept Accept header; selects the compact form
+     * @return Per-counterparty amounts and counts in the window, plus the transfers as a graph
+     */
+    @GetMapping("/users/{id}/transfers")
+    public ResponseEntity<?> getUserTransfers(
+            @PathVariable String id,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(defaultValue = "both") String direction,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        log.info("Fetching {} transfers of user {} between {} and {}", direction, id, since, until);
+
+        String dir = direction.toLowerCase();
+        if (!Set.of("out", "in", "both").contains(dir)) {
+            throw new BadRequestException("direction must be 'out', 'in' or 'both'");
+        }
+        if (limit < 1 || limit > MAX_TRANSFERS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_TRANSFERS);
+        }
+        if (since != null && until != null && since.isAfter(until)) {
+            throw new BadRequestException("since must not be after until");
+        }
+        String other = counterparty != null && !counterparty.isBlank() ? counterparty.trim() : null;
+        return respond(transferWindowService.getTransfers(id, other, dir, since, until, limit), accept);
+    }
+
+    private static void validateLodBudget(int maxNodes) {
+        if (maxNodes != 0 && (maxNodes < MIN_LOD_NODES || maxNodes > MAX_NODES)) {
+            throw new BadRequestException("maxNodes must be 0 or between " + MIN_LOD_NODES + " and " + MAX_NODES);
+        }
+    }
+
+    /** A graph without nodes: the main node does not exist, as the stream endpoints report with a 404. */
+    private static boolean isMissing(Map<String, Object> graph) {
+        return graph == null || !(graph.get("nodes") instanceof Collection<?> nodes) || nodes.isEmpty();
+    }
+
+    /**
+     * Writes a graph in the regular or the compact form, as negotiated from {@code Accept}.
+     */
+    private ResponseEntity<?> respond(Object graph, String accept) {
+        return compactGraphEncoder.negotiate(accept)
+                .<ResponseEntity<?>>map(type -> ResponseEntity.ok()
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .contentType(type)
+                        .body(compactGraphEncoder.encode(graph)))
+                .orElseGet(() -> ResponseEntity.ok()
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(graph));
+    }
+
+    private Set<String> seedIds(List<String> ids, String field) {
+        if (ids == null) {
+            return Set.of();
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null || id.isBlank()) {
+                throw new BadRequestException(field + " must not contain blank ids");
+            }
+            distinct.add(id.trim());
+        }
+        return distinct;
+    }
+
+    private void validateExpansion(int depth, int maxNodes, int fanout) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new BadRequestException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (maxNodes < 1 || maxNodes > MAX_NODES) {
+            throw new BadRequestException("maxNodes must be between 1 and " + MAX_NODES);
+        }
+        if (fanout < 1 || fanout > MAX_FANOUT) {
+            throw new BadRequestException("fanout must be between 1 and " + MAX_FANOUT);
+        }
+    }
+
+    private Set<String> parseTypes(List<String> types) {
+        if (types == null || types.isEmpty()) {
+            return NeighborSource.TYPES;
+        }
+        Set<String> parsed = new HashSet<>();
+        for (String type : types) {
+            String normalized = type.trim().toUpperCase();
+            if (!NeighborSource.TYPES.contains(normalized)) {
+                throw new BadRequestException("Unknown relationship type '" + type
+                        + "'; expected one of " + new TreeSet<>(NeighborSource.TYPES));
+            }
+            parsed.add(normalized);
+        }
+        return parsed;
+    }
 }
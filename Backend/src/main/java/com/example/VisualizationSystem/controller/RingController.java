@@ -0,0 +1,75 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.FraudRingResponse;
+import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.service.FraudRingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API controller for identity rings: groups of users connected through shared
+ * email, phone, address, or transactions from a shared IP or device.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/rings")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RingController {
+
+    private final FraudRingService fraudRingService;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Lists rings, largest first.
+     *
+     * @param minSize Smallest ring size to include (at least 2)
+     * @param page Page number (0-based)
+     * @param size Rings per page
+     * @return Page of ring ids with their sizes
+     */
+    @GetMapping
+    public ResponseEntity<PageResponse<FraudRingResponse>> listRings(
+            @RequestParam(defaultValue = "2") int minSize,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (minSize < 2) {
+            throw new BadRequestException("minSize must be at least 2");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(fraudRingService.listRings(minSize, page, size));
+    }
+
+    /**
+     * Retrieves one ring with its members.
+     *
+     * @param ringId Ring identifier
+     * @return Ring with member ids and names
+     */
+    @GetMapping("/{ringId}")
+    public ResponseEntity<FraudRingResponse> getRing(@PathVariable String ringId) {
+        log.info("Fetching ring: {}", ringId);
+        return ResponseEntity.ok(fraudRingService.getRing(ringId));
+    }
+
+    /**
+     * Retrieves the ring a user belongs to.
+     *
+     * @param userId User identifier
+     * @return Ring with member ids and names
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<FraudRingResponse> getRingOfUser(@PathVariable String userId) {
+        String ringId = fraudRingService.ringOf(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ring", "userId", userId));
+        return ResponseEntity.ok(fraudRingService.getRing(ringId));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.RiskJobResponse;
+import com.example.VisualizationSystem.service.RiskScoringService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API controller for the user risk scoring job (PageRank and weighted degree).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/risk")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RiskController {
+
+    private final RiskScoringService riskScoringService;
+
+    /**
+     * Starts a scoring run, or queues one behind the run in progress.
+     *
+     * @return Job status at the time of the request
+     */
+    @PostMapping("/run")
+    public ResponseEntity<RiskJobResponse> run() {
+        log.info("Risk scoring requested");
+        riskScoringService.trigger("manual");
+        return ResponseEntity.accepted().body(riskScoringService.status());
+    }
+
+    /**
+     * Retrieves the outcome of the last scoring run with per-iteration timings.
+     *
+     * @return Job status
+     */
+    @GetMapping("/job")
+    public ResponseEntity<RiskJobResponse> getJob() {
+        return ResponseEntity.ok(riskScoringService.status());
+    }
+}
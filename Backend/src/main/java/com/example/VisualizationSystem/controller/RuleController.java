@@ -0,0 +1,54 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.RuleEvaluationResponse;
+import com.example.VisualizationSystem.dto.RuleStatsResponse;
+import com.example.VisualizationSystem.dto.TransactionRequest;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.rules.RuleEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API controller for the transaction screening rules.
+ */
+@RestController
+@RequestMapping("/api/v1/rules")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RuleController {
+
+    private final RuleEngine ruleEngine;
+
+    /**
+     * Lists the compiled rules with hit counts and per-rule latency.
+     *
+     * @return Rule statistics
+     */
+    @GetMapping
+    public ResponseEntity<RuleStatsResponse> getRules() {
+        return ResponseEntity.ok(ruleEngine.stats());
+    }
+
+    /**
+     * Screens a transaction without writing it or recording it in the rule features.
+     *
+     * @param request Transaction as it would be submitted
+     * @return Status it would be stored with, the rules that hit and the features they read
+     */
+    @PostMapping("/evaluate")
+    public ResponseEntity<RuleEvaluationResponse> evaluate(@RequestBody TransactionRequest request) {
+        if (request == null) {
+            throw new BadRequestException("Transaction request cannot be null");
+        }
+        RuleEngine.Screening screening = ruleEngine.dryRun(
+                request.getSenderId(), request.getIp(), request.getDeviceId(), request.getAmount());
+        return ResponseEntity.ok(RuleEvaluationResponse.builder()
+                .status(RuleEngine.statusFor(request.getStatus() != null ? request.getStatus() : "PENDING", screening))
+                .flagged(screening.flagged())
+                .reasons(screening.reasons())
+                .features(ruleEngine.featuresOf(screening))
+                .evaluationNanos(screening.nanos())
+                .build());
+    }
+}
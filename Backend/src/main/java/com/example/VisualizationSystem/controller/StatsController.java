@@ -0,0 +1,93 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.CacheStatsResponse;
+import com.example.VisualizationSystem.dto.LeaderboardResponse;
+import com.example.VisualizationSystem.dto.ProjectionStatsResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.service.GraphNeighborhoodCache;
+import com.example.VisualizationSystem.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+/**
+ * REST API controller exposing runtime statistics of the in-memory graph structures.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    private final GraphNeighborhoodCache graphCache;
+    private final GraphProjectionService graphProjection;
+    private final LeaderboardService leaderboardService;
+
+    private static final int MAX_TOP_K = 100;
+
+    /**
+     * Retrieves hit rate, coalescing and invalidation counters of the relationship graph cache.
+     *
+     * @return Cache statistics
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(graphCache.stats());
+    }
+
+    /**
+     * Retrieves size, memory per edge and freshness of the in-memory graph projection.
+     *
+     * @return Projection statistics
+     */
+    @GetMapping("/projection")
+    public ResponseEntity<ProjectionStatsResponse> getProjectionStats() {
+        return ResponseEntity.ok(graphProjection.stats());
+    }
+
+    /**
+     * Schedules an immediate rebuild of the graph projection.
+     *
+     * @return Projection statistics at the time of the request
+     */
+    @PostMapping("/projection/rebuild")
+    public ResponseEntity<ProjectionStatsResponse> rebuildProjection() {
+        if (!graphProjection.isEnabled()) {
+            throw new BadRequestException("Graph projection is disabled (graph.projection.enabled=false)");
+        }
+        log.info("Projection rebuild requested");
+        graphProjection.requestRebuild(0);
+        return ResponseEntity.accepted().body(graphProjection.stats());
+    }
+
+    /**
+     * Retrieves leaderboards kept in memory and updated on every transaction write:
+     * top senders and receivers by amount, IPs and devices by transaction count and
+     * payment methods by use.
+     *
+     * @param boards Boards to return (senders, receivers, ips, devices, paymentMethods; default: all)
+     * @param k Entries per board (1-100)
+     * @return One leaderboard per requested board, largest first
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<LeaderboardResponse>> getTop(
+            @RequestParam(required = false) List<String> boards,
+            @RequestParam(defaultValue = "10") int k) {
+
+        if (k < 1 || k > MAX_TOP_K) {
+            throw new BadRequestException("k must be between 1 and " + MAX_TOP_K);
+        }
+        Set<LeaderboardService.Board> which = boards == null || boards.isEmpty()
+                ? EnumSet.allOf(LeaderboardService.Board.class)
+                : new LinkedHashSet<>();
+        if (boards != null) {
+            boards.forEach(b -> which.add(LeaderboardService.Board.parse(b)));
+        }
+        return ResponseEntity.ok(leaderboardService.top(which, k));
+    }
+}
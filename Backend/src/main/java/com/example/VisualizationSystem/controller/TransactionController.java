@@ -1,19 +1,24 @@
 package com.example.VisualizationSystem.controller;
 
 import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.dto.TransactionFacetsResponse;
+import com.example.VisualizationSystem.dto.TransactionFilter;
+import com.example.VisualizationSystem.dto.TransactionHistogramResponse;
 import com.example.VisualizationSystem.dto.TransactionRequest;
 import com.example.VisualizationSystem.exception.BadRequestException;
 import com.example.VisualizationSystem.exception.ResourceNotFoundException;
 import com.example.VisualizationSystem.model.Transaction;
+import com.example.VisualizationSystem.service.TransactionAnalyticsService;
 import com.example.VisualizationSystem.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-
+import java.time.LocalDateTime;
 
 /**
  * REST API controller for managing transactions.
@@ -28,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionAnalyticsService analyticsService;
 
     /**
      * Creates a new transaction or updates an existing one.
@@ -72,6 +78,8 @@ public class TransactionController {
      * @param maxAmount Maximum amount filter
      * @param status Transaction status filter
      * @param paymentMethod Payment method filter
+     * @param from Earliest timestamp (inclusive)
+     * @param to Latest timestamp (exclusive)
      * @param page Page number (0-indexed)
      * @param size Page size
      * @param sortBy Field to sort by
@@ -87,6 +95,8 @@ public class TransactionController {
             @RequestParam(required = false) Double maxAmount,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
             @RequestParam(defaultValue = "timestamp") String sortBy,
@@ -104,16 +114,12 @@ public class TransactionController {
         if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
             throw new BadRequestException("Minimum amount cannot be greater than maximum amount");
         }
+
+        validateTimeRange(from, to);
         
         try {
             PageResponse<Transaction> response = transactionService.getTransactionsPaged(
-                    sanitizeInput(search),
-                    sanitizeInput(ip),
-                    sanitizeInput(deviceId),
-                    minAmount,
-                    maxAmount,
-                    sanitizeInput(status),
-                    sanitizeInput(paymentMethod),
+                    buildFilter(search, ip, deviceId, minAmount, maxAmount, status, paymentMethod, from, to),
                     page,
                     size,
                     sortBy,
@@ -129,6 +135,90 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Retrieves facet counts for the transaction filters.
+     * Counts per status, currency, payment method and amount bucket are computed
+     * for the current filter in a single aggregation pass.
+     *
+     * @param search General search term
+     * @param ip IP address filter
+     * @param deviceId Device ID filter
+     * @param minAmount Minimum amount filter
+     * @param maxAmount Maximum amount filter
+     * @param status Transaction status filter
+     * @param paymentMethod Payment method filter
+     * @param from Earliest timestamp (inclusive)
+     * @param to Latest timestamp (exclusive)
+     * @return Facet counts for the matching transactions
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<TransactionFacetsResponse> getTransactionFacets(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        log.info("Fetching transaction facets");
+
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new BadRequestException("Minimum amount cannot be greater than maximum amount");
+        }
+
+        validateTimeRange(from, to);
+
+        try {
+            TransactionFacetsResponse facets = analyticsService.getFacets(
+                    buildFilter(search, ip, deviceId, minAmount, maxAmount, status, paymentMethod, from, to));
+
+            log.info("Successfully computed facets over {} transactions", facets.getTotal());
+            return ResponseEntity.ok(facets);
+
+        } catch (Exception e) {
+            log.error("Error computing transaction facets", e);
+            throw new BadRequestException("Failed to compute transaction facets: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves transaction counts and amount sums per time bucket.
+     * Defaults to the last 24 hours for hourly buckets and the last 30 days for daily buckets.
+     *
+     * @param bucket Bucket width (hour/day)
+     * @param from Earliest timestamp (inclusive)
+     * @param to Latest timestamp (exclusive)
+     * @param status Transaction status filter
+     * @param paymentMethod Payment method filter
+     * @param ip IP address filter
+     * @param deviceId Device ID filter
+     * @return Contiguous series of buckets over the time range
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<TransactionHistogramResponse> getTransactionHistogram(
+            @RequestParam(defaultValue = "hour") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) String deviceId) {
+
+        log.info("Fetching transaction histogram - bucket: {}, from: {}, to: {}", bucket, from, to);
+
+        validateTimeRange(from, to);
+
+        TransactionHistogramResponse histogram = analyticsService.getHistogram(
+                buildFilter(null, ip, deviceId, null, null, status, paymentMethod, from, to),
+                bucket);
+
+        log.info("Successfully computed {} histogram buckets", histogram.getBuckets().size());
+        return ResponseEntity.ok(histogram);
+    }
+
     /**
      * Retrieves a specific transaction by ID.
      * 
@@ -151,6 +241,29 @@ public class TransactionController {
     }
 
 
+    private TransactionFilter buildFilter(String search, String ip, String deviceId,
+                                          Double minAmount, Double maxAmount,
+                                          String status, String paymentMethod,
+                                          LocalDateTime from, LocalDateTime to) {
+        return new TransactionFilter(
+                sanitizeInput(search),
+                sanitizeInput(ip),
+                sanitizeInput(deviceId),
+                minAmount,
+                maxAmount,
+                sanitizeInput(status),
+                sanitizeInput(paymentMethod),
+                from,
+                to
+        );
+    }
+
+    private void validateTimeRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+    }
+
     /**
      * Sanitizes input strings by trimming and converting blank to null.
      * 
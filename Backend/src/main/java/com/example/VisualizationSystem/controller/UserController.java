@@ -1,11 +1,14 @@
 package com.example.VisualizationSystem.controller;
 
+import com.example.VisualizationSystem.dto.CursorPageResponse;
 import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.dto.SimilarUsersResponse;
 import com.example.VisualizationSystem.dto.UserRequest;
 import com.example.VisualizationSystem.dto.UserResponse;
 import com.example.VisualizationSystem.exception.BadRequestException;
 import com.example.VisualizationSystem.exception.ResourceNotFoundException;
 import com.example.VisualizationSystem.model.User;
+import com.example.VisualizationSystem.service.SimilarityService;
 import com.example.VisualizationSystem.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +31,9 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final SimilarityService similarityService;
+
+    private static final int MAX_SIMILAR = 100;
 
     /**
      * Creates a new user or updates an existing one.
@@ -69,6 +75,7 @@ public class UserController {
      * @param email Email filter
      * @param phone Phone number filter
      * @param paymentMethod Payment method filter
+     * @param sort Ordering: createdAt (newest first) or riskScore (highest first, scored users only)
      * @param page Page number (0-indexed)
      * @param size Page size
      * @return Paginated list of users
@@ -79,10 +86,15 @@ public class UserController {
             @RequestParam(required = false) String email,
             @RequestParam(required = false) String phone,
             @RequestParam(required = false) String paymentMethod,
+            @RequestParam(defaultValue = "createdAt") String sort,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        log.info("Fetching users - page: {}, size: {}", page, size);
+        log.info("Fetching users - page: {}, size: {}, sort: {}", page, size, sort);
+
+        if (!"createdAt".equals(sort) && !"riskScore".equals(sort)) {
+            throw new BadRequestException("sort must be one of: createdAt, riskScore");
+        }
         
         try {
             PageResponse<User> response = userService.getUsersPaged(
@@ -90,6 +102,7 @@ public class UserController {
                     sanitizeInput(email),
                     sanitizeInput(phone),
                     sanitizeInput(paymentMethod),
+                    "riskScore".equals(sort),
                     page,
                     size
             );
@@ -103,6 +116,46 @@ public class UserController {
         }
     }
 
+    /**
+     * Retrieves users page by page using keyset pagination on (createdAt, userId).
+     * Each page costs proportional to its size regardless of how far the client has scrolled.
+     * 
+     * @param search General search term
+     * @param email Email filter
+     * @param phone Phone number filter
+     * @param paymentMethod Payment method filter
+     * @param cursor Cursor returned by the previous page (omit for the first page)
+     * @param size Page size
+     * @return Page of users with the cursor for the next page
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<User>> scrollUsers(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Scrolling users - cursor: {}, size: {}", cursor, size);
+
+        if (size < 1 || size > 500) {
+            throw new BadRequestException("Page size must be between 1 and 500");
+        }
+
+        CursorPageResponse<User> response = userService.scrollUsers(
+                sanitizeInput(search),
+                sanitizeInput(email),
+                sanitizeInput(phone),
+                sanitizeInput(paymentMethod),
+                sanitizeInput(cursor),
+                size
+        );
+
+        log.info("Successfully retrieved {} users", response.getContent().size());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Retrieves a specific user by ID.
      * 
@@ -124,6 +177,26 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    /**
+     * Finds the users whose devices, IPs, email, phone and address overlap most with
+     * those of a user, from the in-memory MinHash index.
+     *
+     * @param id User ID
+     * @param k Number of similar users to return (1-100)
+     * @return Similar users with their Jaccard similarity and shared features
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<SimilarUsersResponse> getSimilarUsers(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int k) {
+        log.info("Finding {} users similar to {}", k, id);
+
+        if (k < 1 || k > MAX_SIMILAR) {
+            throw new BadRequestException("k must be between 1 and " + MAX_SIMILAR);
+        }
+        return ResponseEntity.ok(similarityService.findSimilar(id.trim(), k));
+    }
+
     /**
      * Sanitizes input strings by trimming and converting blank to null.
      * 
@@ -0,0 +1,65 @@
+package com.example.VisualizationSystem.controller;
+
+import com.example.VisualizationSystem.dto.VelocityResponse;
+import com.example.VisualizationSystem.dto.VelocityStatsResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.service.VelocityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST API controller for transaction velocity: recent transaction counts and amounts
+ * per sender, receiver, IP or device, answered from memory.
+ */
+@RestController
+@RequestMapping("/api/v1/velocity")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class VelocityController {
+
+    private final VelocityService velocityService;
+
+    private static final int MAX_WINDOWS = 10;
+    private static final int MAX_WINDOW_MINUTES = 60;
+
+    /**
+     * Retrieves the velocity of one key.
+     *
+     * @param dimension sender, receiver, ip or device
+     * @param key User id, IP address or device id
+     * @param windows Window lengths in minutes (1..60), counting back from now
+     * @return Transaction count and amount per window
+     */
+    @GetMapping("/{dimension}/{key}")
+    public ResponseEntity<VelocityResponse> getVelocity(
+            @PathVariable String dimension,
+            @PathVariable String key,
+            @RequestParam(defaultValue = "1,5,15,60") List<Integer> windows) {
+
+        if (windows.isEmpty() || windows.size() > MAX_WINDOWS) {
+            throw new BadRequestException("windows must list 1 to " + MAX_WINDOWS + " window lengths");
+        }
+        int[] minutes = new int[windows.size()];
+        for (int i = 0; i < minutes.length; i++) {
+            Integer w = windows.get(i);
+            if (w == null || w < 1 || w > MAX_WINDOW_MINUTES) {
+                throw new BadRequestException("window lengths must be between 1 and " + MAX_WINDOW_MINUTES + " minutes");
+            }
+            minutes[i] = w;
+        }
+        return ResponseEntity.ok(velocityService.lookup(VelocityService.Dimension.parse(dimension), key, minutes));
+    }
+
+    /**
+     * Retrieves key counts and eviction counters of the velocity store.
+     *
+     * @return Velocity store statistics
+     */
+    @GetMapping
+    public ResponseEntity<VelocityStatsResponse> getStats() {
+        return ResponseEntity.ok(velocityService.stats());
+    }
+}
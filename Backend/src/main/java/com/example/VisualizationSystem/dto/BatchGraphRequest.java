@@ -0,0 +1,22 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchGraphRequest {
+
+    private List<String> userIds;
+    private List<String> transactionIds;
+
+    // Applied to every transaction seed, as on /transactions/{id}
+    private Integer peerLimit;
+    private Boolean cluster;
+}
@@ -0,0 +1,42 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Union of the relationship graphs of several seeds, each node and edge once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchGraphResponse {
+
+    private List<Seed> seeds;
+
+    // Same node/edge shape as the single-seed relationship graphs
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+
+    // node id -> ids of the seeds whose graph contains it
+    private Map<String, List<String>> membership;
+
+    private List<String> missing;     // seeds with no graph (unknown ids)
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Seed {
+        private String id;
+        private String type;          // "user" or "transaction"
+        private boolean found;
+        private int nodeCount;
+        // Per-seed side data: paymentSummary/userPaymentMethods for users, peerSummary for transactions
+        private Map<String, Object> summary;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsResponse {
+
+    private boolean enabled;
+    private int size;
+    private int maxEntries;
+
+    private long hits;
+    private long misses;
+    private long coalesced;         // requests that waited on an identical in-flight load
+    private double hitRate;         // (hits + coalesced) / all lookups
+
+    private long evictions;
+    private long invalidations;     // entries dropped because a write touched them
+
+    private double avgLoadMillis;
+    private double savedMillis;     // load time not spent thanks to hits and coalescing
+}
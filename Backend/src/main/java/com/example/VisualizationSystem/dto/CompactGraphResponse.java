@@ -0,0 +1,40 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar form of a graph response: one array per property instead of one map per element.
+ * String values are indexes into {@link #strings}, edge endpoints are node indexes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompactGraphResponse {
+
+    // Dictionary of every string value in the graph, each stored once
+    private List<String> strings;
+
+    private int nodeCount;
+    private Map<String, Column> nodes;     // property name -> column of nodeCount values
+
+    private int edgeCount;
+    private Map<String, Column> edges;     // property name -> column of edgeCount values; edge ids are dropped
+
+    // Every other field of the original response, unchanged
+    private Map<String, Object> meta;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Column {
+        private String kind;               // "str" (dictionary index, -1 = absent), "node" (node index), "num" or "raw"
+        private Object values;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;   // null when there are no more pages
+    private boolean hasMore;
+}
@@ -0,0 +1,43 @@
+package com.example.VisualizationSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CycleJobResponse {
+
+    private String state;               // idle, running, completed, cancelled, failed
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    private int maxLength;
+    private Double minAmount;
+    private LocalDateTime since;
+    private LocalDateTime until;
+    private int maxCycles;
+
+    private int users;
+    private int startsDone;             // progress while running
+    private int cyclesFound;
+    private boolean truncated;          // stopped at maxCycles
+    private int budgetExhaustedStarts;  // starts cut short by the per-start budget; may miss cycles
+    private long visited;
+    private Map<Integer, Integer> lengthHistogram;
+
+    private long loadMillis;
+    private long searchMillis;
+    private long writeMillis;
+    private long totalMillis;
+}
@@ -0,0 +1,24 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CycleResponse {
+
+    private String cycleId;
+    private int length;
+    private List<String> userIds;       // from the smallest id; each sends to the next, the last to the first
+    private List<Double> amounts;       // TRANSFERRED_TO total of each hop
+    private double bottleneckAmount;
+    private double totalAmount;
+    private LocalDateTime firstAt;      // earliest transaction on any hop
+    private LocalDateTime lastAt;
+    private LocalDateTime detectedAt;
+}
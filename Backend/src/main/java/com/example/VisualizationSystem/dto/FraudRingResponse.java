@@ -0,0 +1,27 @@
+package com.example.VisualizationSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FraudRingResponse {
+
+    private String ringId;
+    private int size;
+    private List<Member> members;     // only on the single-ring lookup
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Member {
+        private String userId;
+        private String name;
+    }
+}
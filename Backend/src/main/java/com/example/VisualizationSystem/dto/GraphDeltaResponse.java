@@ -0,0 +1,33 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Change to the graph pushed to live subscribers after one user or transaction write.
+ * Nodes and edges are upserts in the relationship-graph shape; removed edges are named by
+ * their endpoints and type (SAME_* edges match either orientation).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GraphDeltaResponse {
+
+    private String kind;              // "user" or "transaction"
+    private String id;                // the written node
+    private boolean deleted;
+
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+    private List<String> removedNodes;
+    private List<GraphEdge> removedEdges;
+
+    private List<String> matchedIds;  // watched ids this write touched
+    private LocalDateTime at;
+}
@@ -0,0 +1,67 @@
+package com.example.VisualizationSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Edge of a relationship graph response. The id is derived from the endpoints and type
+ * when the edge is serialized rather than stored; {@code method} is only set on
+ * {@code SAME_PAYMENT} edges.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GraphEdge(String source, String target, String type, String method) {
+
+    public static final String SENT = "SENT";
+    public static final String RECEIVED_BY = "RECEIVED_BY";
+    public static final String SAME_EMAIL = "SAME_EMAIL";
+    public static final String SAME_PHONE = "SAME_PHONE";
+    public static final String SAME_ADDRESS = "SAME_ADDRESS";
+    public static final String SAME_PAYMENT = "SAME_PAYMENT";
+    public static final String SAME_IP = "SAME_IP";
+    public static final String SAME_DEVICE = "SAME_DEVICE";
+    public static final String TRANSFERRED_TO = "TRANSFERRED_TO";
+
+    public GraphEdge(String source, String target, String type) {
+        this(source, target, type, null);
+    }
+
+    @JsonProperty("id")
+    public String id() {
+        String id = source + "_" + target + "_" + type;
+        return method != null ? id + "_" + method : id;
+    }
+
+    /** Shared-attribute edges carry no direction. */
+    public boolean symmetric() {
+        return type.startsWith("SAME_");
+    }
+
+    /** Visits every non-null property under its JSON name. */
+    public void forEachProperty(BiConsumer<String, Object> sink) {
+        sink.accept("source", source);
+        sink.accept("target", target);
+        sink.accept("type", type);
+        if (method != null) sink.accept("method", method);
+    }
+
+    /**
+     * Maps a relationship type read from Neo4j onto the shared constant, so graphs hold
+     * one instance per type instead of one string per row.
+     */
+    public static String relType(String type) {
+        return switch (type) {
+            case SENT -> SENT;
+            case RECEIVED_BY -> RECEIVED_BY;
+            case SAME_EMAIL -> SAME_EMAIL;
+            case SAME_PHONE -> SAME_PHONE;
+            case SAME_ADDRESS -> SAME_ADDRESS;
+            case SAME_PAYMENT -> SAME_PAYMENT;
+            case SAME_IP -> SAME_IP;
+            case SAME_DEVICE -> SAME_DEVICE;
+            case TRANSFERRED_TO -> TRANSFERRED_TO;
+            default -> type;
+        };
+    }
+}
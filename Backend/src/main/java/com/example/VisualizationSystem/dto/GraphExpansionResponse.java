@@ -0,0 +1,43 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GraphExpansionResponse {
+
+    private String seedId;
+    private String seedType;          // "user" or "transaction"
+
+    private int depth;                // requested hops
+    private int hopsCompleted;        // hops actually expanded
+    private int maxNodes;
+    private int fanout;
+    private List<String> types;
+
+    // Same node/edge shape as the one-hop relationship graphs; nodes also carry "depth"
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+
+    private boolean budgetExhausted;  // maxNodes was reached before the traversal finished
+    private List<TruncatedNode> truncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TruncatedNode {
+        private String id;
+        private String type;
+        private int depth;
+        private String reason;        // FANOUT or BUDGET
+        private int totalNeighbors;
+        private int includedNeighbors;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.VisualizationSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Node of a relationship graph response. Serializes to the same flat JSON objects the
+ * frontend has always read ({@code id}, {@code label}, {@code type} plus per-type fields);
+ * absent fields are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public sealed interface GraphNode {
+
+    String USER = "user";
+    String TRANSACTION = "transaction";
+    String CLUSTER = "cluster";
+
+    String id();
+
+    String label();
+
+    String type();
+
+    /** Visits every non-null property under its JSON name. */
+    void forEachProperty(BiConsumer<String, Object> sink);
+
+    /**
+     * User node. {@code email} and {@code paymentMethods} are only set on the main user,
+     * {@code depth} only in multi-hop expansions.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record User(String id, String label, String email, List<String> paymentMethods, Integer depth)
+            implements GraphNode {
+
+        @Override
+        @JsonProperty("type")
+        public String type() {
+            return USER;
+        }
+
+        @Override
+        public void forEachProperty(BiConsumer<String, Object> sink) {
+            sink.accept("id", id);
+            sink.accept("label", label);
+            sink.accept("type", USER);
+            if (email != null) sink.accept("email", email);
+            if (paymentMethods != null) sink.accept("paymentMethods", paymentMethods);
+            if (depth != null) sink.accept("depth", depth);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Transaction(String id, String label, Double amount, String currency, String timestamp,
+                       String ip, String deviceId, String status, String paymentMethod, Integer depth)
+            implements GraphNode {
+
+        @Override
+        @JsonProperty("type")
+        public String type() {
+            return TRANSACTION;
+        }
+
+        @JsonProperty("transactionId")
+        public String transactionId() {
+            return id;
+        }
+
+        @Override
+        public void forEachProperty(BiConsumer<String, Object> sink) {
+            sink.accept("id", id);
+            sink.accept("label", label);
+            sink.accept("type", TRANSACTION);
+            sink.accept("transactionId", id);
+            if (amount != null) sink.accept("amount", amount);
+            if (currency != null) sink.accept("currency", currency);
+            if (timestamp != null) sink.accept("timestamp", timestamp);
+            if (ip != null) sink.accept("ip", ip);
+            if (deviceId != null) sink.accept("deviceId", deviceId);
+            if (status != null) sink.accept("status", status);
+            if (paymentMethod != null) sink.accept("paymentMethod", paymentMethod);
+            if (depth != null) sink.accept("depth", depth);
+        }
+    }
+
+    /**
+     * Pseudo-node standing for nodes left out of a graph: same-IP / same-device peers of a
+     * transaction, or the transactions and payment peers of a summarized user graph. The
+     * latter carry {@code groupBy} / {@code groupKey}, which expand them on request.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Cluster(String id, String label, String relType, long count, double amountSum,
+                   Map<String, Long> statusMix, boolean aggregatesExact, String groupBy, String groupKey)
+            implements GraphNode {
+
+        @Override
+        @JsonProperty("type")
+        public String type() {
+            return CLUSTER;
+        }
+
+        @Override
+        public void forEachProperty(BiConsumer<String, Object> sink) {
+            sink.accept("id", id);
+            sink.accept("label", label);
+            sink.accept("type", CLUSTER);
+            sink.accept("relType", relType);
+            sink.accept("count", count);
+            sink.accept("amountSum", amountSum);
+            sink.accept("statusMix", statusMix);
+            sink.accept("aggregatesExact", aggregatesExact);
+            if (groupBy != null) sink.accept("groupBy", groupBy);
+            if (groupKey != null) sink.accept("groupKey", groupKey);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Factories over raw Cypher / projection rows
+    // ─────────────────────────────────────────────
+
+    /** Plain user node; falls back to the id when the name is missing. */
+    static User user(String userId, Object name) {
+        return new User(userId, name != null ? name.toString() : userId, null, null, null);
+    }
+
+    /** Enriched transaction node from a raw row ({@code transactionId, amount, currency, ...}). */
+    static Transaction transaction(Map<String, Object> tx) {
+        return transaction(tx, null);
+    }
+
+    static Transaction transaction(Map<String, Object> tx, Integer depth) {
+        String txId = (String) tx.get("transactionId");
+        Double amount = tx.get("amount") instanceof Number n ? n.doubleValue() : null;
+        String currency = string(tx.get("currency"));
+
+        return new Transaction(
+                txId,
+                amount != null ? amountLabel(currency != null ? currency : "$", amount) : txId,
+                amount,
+                currency,
+                string(tx.get("timestamp")),
+                string(tx.get("ip")),
+                string(tx.get("deviceId")),
+                string(tx.get("status")),
+                string(tx.get("paymentMethod")),
+                depth);
+    }
+
+    /**
+     * {@code currency + amount} with two decimals, as {@code String.format("%s%.2f")} would
+     * print it but without the formatter: amounts whose cents are unambiguous are written
+     * from a rounded long, values on a half-cent boundary go through BigDecimal.
+     */
+    static String amountLabel(String currency, double amount) {
+        double scaled = amount * 100;
+        double fraction = Math.abs(scaled - Math.floor(scaled) - 0.5);
+        if (Double.isFinite(scaled) && Math.abs(scaled) < 1e15 && fraction > 1e-6) {
+            long cents = Math.round(scaled);
+            long abs = Math.abs(cents);
+            long minor = abs % 100;
+            StringBuilder sb = new StringBuilder(currency.length() + 24).append(currency);
+            if (cents < 0) sb.append('-');
+            return sb.append(abs / 100).append('.').append(minor < 10 ? "0" : "").append(minor).toString();
+        }
+        return currency + BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
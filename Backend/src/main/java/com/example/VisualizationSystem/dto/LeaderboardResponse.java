@@ -0,0 +1,32 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaderboardResponse {
+
+    private String board;             // senders, receivers, ips, devices or paymentMethods
+    private String metric;            // "amount" or "transactions"
+    private boolean exact;            // false once keys were evicted; values may then overcount by "error"
+    private int tracked;              // keys currently on the board
+    private LocalDateTime seededAt;   // last rebuild from the database, null before the first
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String key;
+        private double value;
+        private double error;
+    }
+}
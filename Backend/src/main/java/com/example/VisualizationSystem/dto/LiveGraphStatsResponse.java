@@ -0,0 +1,21 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LiveGraphStatsResponse {
+
+    private int subscribers;
+    private int watchedIds;              // distinct ids across all subscriptions
+
+    private long writes;                 // write events seen
+    private long matchedWrites;          // of those, writes that touched a watched id
+    private long delivered;              // events sent, summed over subscribers
+    private long dropped;                // deltas dropped from full buffers
+}
@@ -0,0 +1,60 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MoneyFlowResponse {
+
+    private String fromId;
+    private String toId;
+    private String mode;              // "shortest" or "heaviest"
+    private int maxHops;              // hop limit applied; the Cypher fallback may lower the requested one
+    private int k;
+    private Double minAmount;
+    private LocalDateTime since;
+    private LocalDateTime until;
+
+    private List<FlowPath> paths;     // best first
+
+    // Union of the paths in the relationship graph shape (user nodes, TRANSFERRED_TO edges)
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+
+    private String source;            // "projection" or "cypher"
+    private int visited;              // nodes expanded (projection) or paths enumerated (cypher)
+    private int budget;
+    private boolean budgetExhausted;  // node budget (projection) or path cap (cypher) hit; better paths may exist
+    private boolean timedOut;         // the Cypher fallback hit its timeout; no paths were read
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FlowPath {
+        private List<String> userIds;
+        private int hops;
+        private double bottleneckAmount;   // smallest transfer total along the path
+        private double totalAmount;        // sum of the transfer totals along the path
+        private List<Transfer> transfers;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Transfer {
+        private String source;
+        private String target;
+        private double totalAmount;
+        private long txnCount;
+        private LocalDateTime firstAt;
+        private LocalDateTime lastAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProjectionStatsResponse {
+
+    private boolean enabled;
+    private boolean ready;
+    private boolean rebuilding;
+
+    private Instant builtAt;
+    private long buildMillis;
+
+    private int users;
+    private int transactions;
+    private int paymentMethods;
+
+    // Adjacency entries per relationship type; undirected types count both directions
+    private Map<String, Integer> edges;
+    private long storedEdges;
+
+    private long adjacencyBytes;
+    private double bytesPerEdge;
+    private long estimatedBytes;     // adjacency + id tables + property columns
+
+    private int dirtyIds;            // ids written since the snapshot, answered from Neo4j
+    private long servedFromProjection;
+    private long fallbacks;
+}
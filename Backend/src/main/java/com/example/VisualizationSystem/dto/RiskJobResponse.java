@@ -0,0 +1,50 @@
+package com.example.VisualizationSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RiskJobResponse {
+
+    private String state;            // idle, running, completed, failed
+    private boolean running;         // a run is in progress (state describes the last finished one)
+    private String trigger;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    private int users;
+    private long transferEdges;
+    private long sharedEdges;        // SAME_* adjacency entries, both directions
+
+    private int iterations;
+    private boolean converged;
+    private double finalDelta;
+
+    private long loadMillis;
+    private long pageRankMillis;
+    private long degreeMillis;       // CPU time; overlaps PageRank
+    private long writeMillis;
+    private long totalMillis;
+
+    private List<Iteration> iterationTimings;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Iteration {
+        private int iteration;
+        private long micros;
+        private double delta;
+    }
+}
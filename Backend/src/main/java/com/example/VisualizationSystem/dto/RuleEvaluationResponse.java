@@ -0,0 +1,22 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RuleEvaluationResponse {
+
+    private String status;               // status the transaction would be stored with
+    private boolean flagged;
+    private List<String> reasons;
+    private Map<String, Double> features; // only the features some rule reads
+    private long evaluationNanos;
+}
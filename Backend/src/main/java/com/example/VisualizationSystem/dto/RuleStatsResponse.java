@@ -0,0 +1,36 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RuleStatsResponse {
+
+    private boolean enabled;
+    private long screened;               // transactions screened since startup
+    private double avgMicros;            // whole screening: features + all rules
+    private double avgFeatureMicros;
+    private double maxMicros;
+    private List<Rule> rules;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rule {
+        private String id;
+        private String description;
+        private boolean flag;
+        private List<String> conditions;
+        private long evaluations;
+        private long hits;
+        private double avgNanos;
+        private long maxNanos;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimilarUsersResponse {
+
+    private String userId;
+    private List<String> features;        // device:, ip:, email:, phone: and address: tokens
+
+    private int candidates;               // users sharing an LSH bucket, scored exactly
+    private int indexedUsers;
+    private LocalDateTime builtAt;
+
+    private List<Match> similar;          // highest Jaccard similarity first
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Match {
+        private String userId;
+        private String name;
+        private double similarity;        // Jaccard similarity of the feature sets
+        private double estimate;          // MinHash estimate of the same
+        private List<String> shared;
+    }
+}
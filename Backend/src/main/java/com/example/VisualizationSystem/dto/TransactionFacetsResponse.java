@@ -0,0 +1,36 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionFacetsResponse {
+
+    private long total;
+
+    private Map<String, Long> status;
+    private Map<String, Long> currency;
+    private Map<String, Long> paymentMethod;
+    private List<AmountBucket> amount;
+
+    // Data version the counts were computed against
+    private long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AmountBucket {
+        private String label;
+        private Double min;   // inclusive, null = unbounded
+        private Double max;   // exclusive, null = unbounded
+        private long count;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.VisualizationSystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Filter criteria shared by the transaction list, count, facet and histogram queries.
+ * Blank values are expected to be normalised to {@code null} by the controller.
+ */
+public record TransactionFilter(
+        String search,
+        String ip,
+        String deviceId,
+        Double minAmount,
+        Double maxAmount,
+        String status,
+        String paymentMethod,
+        LocalDateTime from,
+        LocalDateTime to
+) {
+
+    // Once either time bound is given, the open one is replaced by a sentinel so the
+    // timestamp predicate is a plain range (t.timestamp >= $from AND t.timestamp < $to)
+    // the planner can seek on. With no bound at all the range is left out, since it
+    // would also drop transactions that have no timestamp.
+    public static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+
+    public LocalDateTime fromOrMin() {
+        return from != null ? from : MIN_TIMESTAMP;
+    }
+
+    public LocalDateTime toOrMax() {
+        return to != null ? to : MAX_TIMESTAMP;
+    }
+
+    public TransactionFilter withTimeRange(LocalDateTime from, LocalDateTime to) {
+        return new TransactionFilter(search, ip, deviceId, minAmount, maxAmount,
+                status, paymentMethod, from, to);
+    }
+
+    /**
+     * Cypher parameters for the filter, keyed by the names used in the
+     * {@code WHERE} clauses ({@code $search}, {@code $ip}, ...).
+     */
+    public Map<String, Object> toParameters() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("search", search);
+        params.put("ip", ip);
+        params.put("deviceId", deviceId);
+        params.put("minAmount", minAmount);
+        params.put("maxAmount", maxAmount);
+        params.put("status", status);
+        params.put("paymentMethod", paymentMethod);
+        params.put("from", fromOrMin());
+        params.put("to", toOrMax());
+        return params;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistogramResponse {
+
+    private String bucket;            // "hour" or "day"
+    private LocalDateTime from;       // inclusive
+    private LocalDateTime to;         // exclusive
+
+    private long totalCount;
+    private double totalAmount;
+
+    // One entry per bucket in [from, to), empty buckets included
+    private List<Bucket> buckets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private LocalDateTime start;
+        private long count;
+        private double amount;
+    }
+}
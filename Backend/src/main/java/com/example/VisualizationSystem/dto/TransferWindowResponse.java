@@ -0,0 +1,42 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferWindowResponse {
+
+    private String userId;
+    private String counterpartyId;
+    private String direction;         // "out", "in" or "both"
+    private LocalDate since;          // whole days, inclusive; null = open
+    private LocalDate until;
+
+    private double totalAmount;       // over every counterparty in the window, not just this page
+    private long txnCount;
+    private int counterparties;
+
+    private List<Transfer> transfers; // largest amount first, at most limit
+
+    // The transfers in the relationship graph shape (user nodes, TRANSFERRED_TO edges)
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Transfer {
+        private String source;
+        private String target;
+        private double amount;        // in the window
+        private long txnCount;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VelocityResponse {
+
+    private String dimension;
+    private String key;
+    private boolean tracked;          // false: no transaction in the last hour, or evicted
+    private List<Window> windows;
+    private long lookupNanos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Window {
+        private int minutes;
+        private long count;
+        private double amount;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.VisualizationSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VelocityStatsResponse {
+
+    private int windowMinutes;
+    private int maxKeysPerDimension;
+    private Map<String, Integer> keys;   // tracked keys per dimension
+
+    private long recorded;
+    private long late;                   // older than the window when recorded
+    private long expired;                // keys dropped after an idle hour
+    private long evicted;                // keys dropped to stay under the cap
+}
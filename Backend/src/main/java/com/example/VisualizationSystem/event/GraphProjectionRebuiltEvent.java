@@ -0,0 +1,12 @@
+package com.example.VisualizationSystem.event;
+
+import com.example.VisualizationSystem.graph.GraphProjection;
+
+/**
+ * Published on the rebuild thread after a new {@link GraphProjection} snapshot was swapped in.
+ * Listeners deriving whole-graph results (components, scores) recompute from it.
+ *
+ * @param projection the snapshot now being served
+ */
+public record GraphProjectionRebuiltEvent(GraphProjection projection) {
+}
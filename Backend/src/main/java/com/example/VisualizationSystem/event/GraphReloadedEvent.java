@@ -0,0 +1,8 @@
+package com.example.VisualizationSystem.event;
+
+/**
+ * Published after a bulk operation (pipeline run, sample load, wipe) replaced the graph.
+ * Anything derived from the graph must be discarded.
+ */
+public record GraphReloadedEvent(String reason) {
+}
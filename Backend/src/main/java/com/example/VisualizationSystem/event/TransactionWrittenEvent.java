@@ -0,0 +1,31 @@
+package com.example.VisualizationSystem.event;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Published after a transaction is created, updated or deleted.
+ *
+ * @param transactionId the written transaction
+ * @param senderId      sending user; on delete, the one the transaction had
+ * @param receiverId    receiving user; on delete, the one the transaction had
+ * @param affectedIds   other transactions whose SAME_IP / SAME_DEVICE links were added or removed
+ * @param deleted       whether the transaction was removed
+ */
+public record TransactionWrittenEvent(
+        String transactionId,
+        String senderId,
+        String receiverId,
+        Set<String> affectedIds,
+        boolean deleted
+) {
+
+    /** Ids whose neighbourhoods this write changed. */
+    public Set<String> tags() {
+        Set<String> tags = new HashSet<>(affectedIds);
+        tags.add(transactionId);
+        if (senderId != null) tags.add(senderId);
+        if (receiverId != null) tags.add(receiverId);
+        return tags;
+    }
+}
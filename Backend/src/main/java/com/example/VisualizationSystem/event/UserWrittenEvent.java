@@ -0,0 +1,33 @@
+package com.example.VisualizationSystem.event;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Published after a user is created, updated or deleted.
+ *
+ * @param userId         the written user
+ * @param affectedIds    other users whose shared-attribute links were added or removed
+ * @param paymentMethods payment methods the user joined or left
+ * @param deleted        whether the user was removed
+ */
+public record UserWrittenEvent(
+        String userId,
+        Set<String> affectedIds,
+        Set<String> paymentMethods,
+        boolean deleted
+) {
+
+    /** Tag prefix for a payment method's group of users, as in {@code pm:<method>}. */
+    public static final String PAYMENT_TAG_PREFIX = "pm:";
+
+    /** Ids (and {@code pm:<method>} groups) whose neighbourhoods this write changed. */
+    public Set<String> tags() {
+        Set<String> tags = new HashSet<>(affectedIds);
+        tags.add(userId);
+        for (String method : paymentMethods) {
+            tags.add(PAYMENT_TAG_PREFIX + method);
+        }
+        return tags;
+    }
+}
@@ -50,7 +50,6 @@ public class DataGeneratorService {
             "COMPLETED", "COMPLETED", "COMPLETED", "COMPLETED", "COMPLETED",
             "PENDING", "PENDING",                                              // 10%
             "FAILED",                                                          // 5%
-            "FLAGGED",                                                         // 5%
             "REVERSED"                                                         // 5%
     );
 
@@ -107,12 +106,9 @@ public class DataGeneratorService {
             // Pick a payment method the sender actually has
             String txPaymentMethod = pick(sender.getPaymentMethods(), rng);
 
-            // High-value transactions are more likely to be flagged
+            // FLAGGED is left to the screening rules (RuleEngine) run on the generated data
             double amount = Math.round(rng.nextDouble() * 50_000.0 * 100.0) / 100.0;
             String status = pick(STATUSES, rng);
-            if (amount > 10_000 && rng.nextDouble() < 0.3) {
-                status = "FLAGGED";
-            }
             if (amount > 25_000 && rng.nextDouble() < 0.15) {
                 status = "FAILED";
             }
@@ -179,14 +175,14 @@ public class DataGeneratorService {
         transactionEdges=new ArrayList<>();
 
         // ---------- Users (8 total, shared attributes) ----------
-        users.add(new User("U1","Alice","alice@mail.com","9991","CityA", List.of("CREDIT_CARD"),LocalDateTime.now()));
-        users.add(new User("U2","Bob","alice@mail.com","9992","CityB", List.of("UPI","PayPal"),LocalDateTime.now())); // shared email
-        users.add(new User("U3","Carol","carol@mail.com","9991","CityC", List.of("CREDIT_CARD","DEBIT_CARD"),LocalDateTime.now())); // shared phone
-        users.add(new User("U4","David","david@mail.com","9994","CityA", List.of("CASH"),LocalDateTime.now())); // shared address
-        users.add(new User("U5","Eve","eve@mail.com","9995","CityE", List.of("DEBIT_CARD"),LocalDateTime.now())); // shared payment
-        users.add(new User("U6","Frank","frank@mail.com","9996","CityF", List.of("UPI"),LocalDateTime.now()));
-        users.add(new User("U7","Grace","grace@mail.com","9997","CityG", List.of("DEBIT_CARD"),LocalDateTime.now()));
-        users.add(new User("U8","Heidi","heidi@mail.com","9998","CityH", List.of("CASH"),LocalDateTime.now()));
+        users.add(new User("U1","Alice","alice@mail.com","9991","CityA", List.of("CREDIT_CARD"),LocalDateTime.now(), null));
+        users.add(new User("U2","Bob","alice@mail.com","9992","CityB", List.of("UPI","PayPal"),LocalDateTime.now(), null)); // shared email
+        users.add(new User("U3","Carol","carol@mail.com","9991","CityC", List.of("CREDIT_CARD","DEBIT_CARD"),LocalDateTime.now(), null)); // shared phone
+        users.add(new User("U4","David","david@mail.com","9994","CityA", List.of("CASH"),LocalDateTime.now(), null)); // shared address
+        users.add(new User("U5","Eve","eve@mail.com","9995","CityE", List.of("DEBIT_CARD"),LocalDateTime.now(), null)); // shared payment
+        users.add(new User("U6","Frank","frank@mail.com","9996","CityF", List.of("UPI"),LocalDateTime.now(), null));
+        users.add(new User("U7","Grace","grace@mail.com","9997","CityG", List.of("DEBIT_CARD"),LocalDateTime.now(), null));
+        users.add(new User("U8","Heidi","heidi@mail.com","9998","CityH", List.of("CASH"),LocalDateTime.now(), null));
 
         // ---------- Transactions (12 mixed links) ----------
         addTx("T1","U1","U2","10.0.0.1","D1",100);
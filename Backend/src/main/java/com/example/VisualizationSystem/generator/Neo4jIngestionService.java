@@ -2,14 +2,18 @@ package com.example.VisualizationSystem.generator;
 
 import com.example.VisualizationSystem.config.PipelineProperties;
 import com.example.VisualizationSystem.dto.TransactionEdgeData;
+import com.example.VisualizationSystem.graph.TransferBuckets;
 import com.example.VisualizationSystem.model.Transaction;
 import com.example.VisualizationSystem.model.User;
+import com.example.VisualizationSystem.rules.TransactionFeatureStore;
+import com.example.VisualizationSystem.service.VelocityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,6 +24,8 @@ public class Neo4jIngestionService {
 
     private final Driver driver;
     private final PipelineProperties props;
+    private final VelocityService velocity;
+    private final TransactionFeatureStore ruleFeatures;
 
     public static final List<String> PAYMENT_METHOD_TYPES = List.of(
             "CREDIT_CARD", "DEBIT_CARD", "CASH",
@@ -47,6 +53,8 @@ public class Neo4jIngestionService {
                 if (deleted > 0) log.info("    deleted {} nodes...", deleted);
             } while (deleted > 0);
         }
+        velocity.clear();
+        ruleFeatures.clear();
         log.info("  ✓ Database cleaned");
     }
 
@@ -61,13 +69,19 @@ public class Neo4jIngestionService {
                     "CREATE CONSTRAINT user_id_unique  IF NOT EXISTS FOR (u:User)          REQUIRE u.userId IS UNIQUE",
                     "CREATE CONSTRAINT txn_id_unique   IF NOT EXISTS FOR (t:Transaction)   REQUIRE t.transactionId IS UNIQUE",
                     "CREATE CONSTRAINT pm_name_unique  IF NOT EXISTS FOR (p:PaymentMethod) REQUIRE p.name IS UNIQUE",
+                    "CREATE CONSTRAINT cycle_id_unique IF NOT EXISTS FOR (c:Cycle)         REQUIRE c.cycleId IS UNIQUE",
 
                     "CREATE INDEX user_email_idx       IF NOT EXISTS FOR (u:User)          ON (u.email)",
                     "CREATE INDEX user_phone_idx       IF NOT EXISTS FOR (u:User)          ON (u.phone)",
                     "CREATE INDEX user_address_idx     IF NOT EXISTS FOR (u:User)          ON (u.address)",
+                    "CREATE INDEX user_created_idx     IF NOT EXISTS FOR (u:User)          ON (u.createdAt)",
+                    "CREATE INDEX user_ring_idx        IF NOT EXISTS FOR (u:User)          ON (u.ringId)",
+                    "CREATE INDEX user_risk_idx        IF NOT EXISTS FOR (u:User)          ON (u.riskScore)",
 
                     "CREATE INDEX txn_ip_idx           IF NOT EXISTS FOR (t:Transaction)   ON (t.ip)",
                     "CREATE INDEX txn_device_idx       IF NOT EXISTS FOR (t:Transaction)   ON (t.deviceId)",
+                    "CREATE INDEX txn_ip_id_idx        IF NOT EXISTS FOR (t:Transaction)   ON (t.ip, t.transactionId)",
+                    "CREATE INDEX txn_device_id_idx    IF NOT EXISTS FOR (t:Transaction)   ON (t.deviceId, t.transactionId)",
                     "CREATE INDEX txn_timestamp_idx    IF NOT EXISTS FOR (t:Transaction)   ON (t.timestamp)",
                     "CREATE INDEX txn_status_idx       IF NOT EXISTS FOR (t:Transaction)   ON (t.status)",
                     "CREATE INDEX txn_pm_idx           IF NOT EXISTS FOR (t:Transaction)   ON (t.paymentMethod)",
@@ -153,7 +167,8 @@ public class Neo4jIngestionService {
                     ip:             row.ip,
                     deviceId:       row.deviceId,
                     status:         row.status,
-                    paymentMethod:  row.paymentMethod
+                    paymentMethod:  row.paymentMethod,
+                    flagReasons:    row.flagReasons
                 })
                 """;
 
@@ -196,6 +211,8 @@ public class Neo4jIngestionService {
                 CREATE (t)-[:RECEIVED_BY {amount: row.amount}]->(u)
                 """, edgeMaps, props.getRelationshipBatchSize());
         log.info("  ✓ {} RECEIVED_BY edges created", edgeMaps.size());
+
+        velocity.recordAll(edges);
     }
 
     // ════════════════════════════════════════════════════════════════
@@ -211,6 +228,7 @@ public class Neo4jIngestionService {
         log.info("▸ Creating TRANSFERRED_TO edges...");
 
         Map<String, Map<String, Object>> pairs = new LinkedHashMap<>();
+        Map<String, TransferBuckets> buckets = new HashMap<>();
         for (TransactionEdgeData e : edges) {
             String key = e.getSenderId() + "|" + e.getReceiverId();
             pairs.computeIfAbsent(key, k -> {
@@ -224,15 +242,36 @@ public class Neo4jIngestionService {
             Map<String, Object> m = pairs.get(key);
             m.put("totalAmount", (double) m.get("totalAmount") + e.getTransaction().getAmount());
             m.put("txnCount", (long) m.get("txnCount") + 1);
+
+            // first / last transfer of the pair, for time-bounded path searches
+            LocalDateTime at = e.getTransaction().getTimestamp();
+            if (at != null) {
+                LocalDateTime first = (LocalDateTime) m.get("firstAt");
+                LocalDateTime last = (LocalDateTime) m.get("lastAt");
+                if (first == null || at.isBefore(first)) m.put("firstAt", at);
+                if (last == null || at.isAfter(last)) m.put("lastAt", at);
+            }
+            buckets.computeIfAbsent(key, k -> new TransferBuckets())
+                    .add(at, e.getTransaction().getAmount());
         }
+        // day / month totals, for time-window transfer queries
+        pairs.forEach((key, m) -> buckets.get(key).putInto(m));
 
         batchWrite("""
                 UNWIND $batch AS row
                 MATCH (s:User {userId: row.senderId})
                 MATCH (r:User {userId: row.receiverId})
                 CREATE (s)-[:TRANSFERRED_TO {
-                    totalAmount: row.totalAmount,
-                    txnCount:    row.txnCount
+                    totalAmount:  row.totalAmount,
+                    txnCount:     row.txnCount,
+                    firstAt:      row.firstAt,
+                    lastAt:       row.lastAt,
+                    dayBuckets:   row.dayBuckets,
+                    dayAmounts:   row.dayAmounts,
+                    dayCounts:    row.dayCounts,
+                    monthBuckets: row.monthBuckets,
+                    monthAmounts: row.monthAmounts,
+                    monthCounts:  row.monthCounts
                 }]->(r)
                 """, new ArrayList<>(pairs.values()), props.getRelationshipBatchSize());
         log.info("  ✓ {} TRANSFERRED_TO edges created", pairs.size());
@@ -464,6 +503,7 @@ public class Neo4jIngestionService {
         map.put("deviceId", t.getDeviceId());
         map.put("status", t.getStatus());
         map.put("paymentMethod", t.getPaymentMethod());
+        map.put("flagReasons", t.getFlagReasons());
         return map;
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free disjoint sets over {@code 0..n-1} for building components from several threads.
+ * <p>
+ * A root is always linked under the smaller of the two roots with a single CAS, so parent
+ * pointers only ever decrease and no cycle can form however unions interleave; a failed CAS
+ * means another thread linked that root first and the union is retried from the new roots.
+ * {@link #find} halves paths as it walks, also by CAS.
+ */
+public final class ConcurrentUnionFind {
+
+    private final AtomicIntegerArray parent;
+
+    public ConcurrentUnionFind(int n) {
+        parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    public int find(int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) return x;
+            int gp = parent.get(p);
+            if (gp != p) parent.compareAndSet(x, p, gp);
+            x = p;
+        }
+    }
+
+    public void union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b) return;
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) return;
+        }
+    }
+
+    public int size() {
+        return parent.length();
+    }
+}
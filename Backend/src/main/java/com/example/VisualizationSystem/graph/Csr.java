@@ -0,0 +1,130 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row adjacency: the neighbours of vertex {@code v} are
+ * {@code targets[offsets[v] .. offsets[v + 1])}. Optional per-edge weight
+ * columns are stored in the same order as {@code targets}.
+ */
+public final class Csr {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[][] weights;
+
+    private Csr(int[] offsets, int[] targets, double[][] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public int start(int v) {
+        return offsets[v];
+    }
+
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public double weight(int column, int edge) {
+        return weights[column][edge];
+    }
+
+    public long estimatedBytes() {
+        long bytes = 16L + offsets.length * 4L + 16L + targets.length * 4L;
+        for (double[] column : weights) {
+            bytes += 16L + column.length * 8L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Growable edge list that is turned into a {@link Csr} with a counting sort.
+     * Not thread-safe; each loader fills its own.
+     */
+    public static final class Builder {
+
+        private final int weightColumns;
+        private int[] src = new int[1024];
+        private int[] dst = new int[1024];
+        private double[][] w;
+        private int size;
+
+        public Builder(int weightColumns) {
+            this.weightColumns = weightColumns;
+            this.w = new double[weightColumns][1024];
+        }
+
+        public void add(int from, int to, double... weight) {
+            if (size == src.length) {
+                int cap = size * 2;
+                src = Arrays.copyOf(src, cap);
+                dst = Arrays.copyOf(dst, cap);
+                for (int c = 0; c < weightColumns; c++) w[c] = Arrays.copyOf(w[c], cap);
+            }
+            src[size] = from;
+            dst[size] = to;
+            for (int c = 0; c < weightColumns; c++) w[c][size] = weight[c];
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Outgoing adjacency over {@code n} vertices. */
+        public Csr build(int n) {
+            return build(n, src, dst);
+        }
+
+        /** Incoming adjacency: the same edges indexed by their target. */
+        public Csr buildReverse(int n) {
+            return build(n, dst, src);
+        }
+
+        /** Both directions in one structure, for relationship types queried undirected. */
+        public Csr buildUndirected(int n) {
+            Builder both = new Builder(weightColumns);
+            double[] row = new double[weightColumns];
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < weightColumns; c++) row[c] = w[c][i];
+                both.add(src[i], dst[i], row);
+                both.add(dst[i], src[i], row);
+            }
+            return both.build(n);
+        }
+
+        private Csr build(int n, int[] from, int[] to) {
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < size; i++) offsets[from[i] + 1]++;
+            for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+
+            int[] cursor = Arrays.copyOf(offsets, n);
+            int[] targets = new int[size];
+            double[][] weights = new double[weightColumns][size];
+            for (int i = 0; i < size; i++) {
+                int pos = cursor[from[i]]++;
+                targets[pos] = to[i];
+                for (int c = 0; c < weightColumns; c++) weights[c][pos] = w[c][i];
+            }
+            return new Csr(offsets, targets, weights);
+        }
+    }
+}
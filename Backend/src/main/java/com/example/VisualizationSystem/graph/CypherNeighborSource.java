@@ -0,0 +1,143 @@
+package com.example.VisualizationSystem.graph;
+
+import com.example.VisualizationSystem.service.TransactionRelationshipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * {@link NeighborSource} backed by Neo4j: one batched query per hop and node label,
+ * returning the neighbour count and the first {@code fanout} neighbours of every
+ * frontier node. Unknown ids come back as empty expansions. Same-IP / same-device
+ * peers are only scanned up to the transaction graph's window, so totals for hot
+ * IPs and devices are capped there.
+ */
+@Component
+@RequiredArgsConstructor
+public class CypherNeighborSource implements NeighborSource {
+
+    private final Neo4jClient neo4jClient;
+
+    private static final String USER_PROPS = "{ .userId, .name }";
+    private static final String TX_PROPS = """
+            { .transactionId, .amount, .currency, .ip, .deviceId, .status, .paymentMethod,
+              timestamp: toString(n.node.timestamp) }""";
+
+    private static final String SAMPLE = """
+            WITH id, collect({node: node, kind: kind, rel: rel, outgoing: outgoing}) AS nbrs
+            RETURN id,
+                   size(nbrs) AS total,
+                   [n IN nbrs[0..$fanout] | {
+                       kind:     n.kind,
+                       rel:      n.rel,
+                       outgoing: n.outgoing,
+                       props:    CASE n.kind WHEN 'user' THEN n.node %s ELSE n.node %s END
+                   }] AS sample
+            """.formatted(USER_PROPS, TX_PROPS);
+
+    private static final String USER_EXPAND = """
+            UNWIND $ids AS id
+            MATCH (u:User {userId: id})
+            CALL (u) {
+                MATCH (u)-[r:SAME_EMAIL|SAME_PHONE|SAME_ADDRESS|TRANSFERRED_TO]-(o:User)
+                WHERE type(r) IN $types
+                RETURN o AS node, 'user' AS kind, type(r) AS rel, startNode(r) = u AS outgoing
+              UNION ALL
+                MATCH (u)-[:SENT]->(t:Transaction)
+                WHERE 'SENT' IN $types
+                RETURN t AS node, 'transaction' AS kind, 'SENT' AS rel, true AS outgoing
+              UNION ALL
+                MATCH (u)<-[:RECEIVED_BY]-(t:Transaction)
+                WHERE 'RECEIVED_BY' IN $types
+                RETURN t AS node, 'transaction' AS kind, 'RECEIVED_BY' AS rel, false AS outgoing
+            }
+            """ + SAMPLE;
+
+    private static final String TX_EXPAND = """
+            UNWIND $ids AS id
+            MATCH (t:Transaction {transactionId: id})
+            CALL (t) {
+                MATCH (u:User)-[:SENT]->(t)
+                WHERE 'SENT' IN $types
+                RETURN u AS node, 'user' AS kind, 'SENT' AS rel, false AS outgoing
+              UNION ALL
+                MATCH (t)-[:RECEIVED_BY]->(u:User)
+                WHERE 'RECEIVED_BY' IN $types
+                RETURN u AS node, 'user' AS kind, 'RECEIVED_BY' AS rel, true AS outgoing
+              UNION ALL
+                MATCH (o:Transaction)
+                WHERE 'SAME_IP' IN $types AND o.ip = t.ip AND o.transactionId IS NOT NULL AND o <> t
+                WITH o ORDER BY o.ip, o.transactionId LIMIT $scanLimit
+                RETURN o AS node, 'transaction' AS kind, 'SAME_IP' AS rel, true AS outgoing
+              UNION ALL
+                MATCH (o:Transaction)
+                WHERE 'SAME_DEVICE' IN $types AND o.deviceId = t.deviceId AND o.transactionId IS NOT NULL AND o <> t
+                WITH o ORDER BY o.deviceId, o.transactionId LIMIT $scanLimit
+                RETURN o AS node, 'transaction' AS kind, 'SAME_DEVICE' AS rel, true AS outgoing
+            }
+            """ + SAMPLE;
+
+    @Override
+    public Map<String, Expansion> expand(List<NodeRef> frontier, Set<String> types, int fanout) {
+        List<String> userIds = new ArrayList<>();
+        List<String> txIds = new ArrayList<>();
+        for (NodeRef node : frontier) {
+            (USER.equals(node.kind()) ? userIds : txIds).add(node.id());
+        }
+
+        Map<String, Expansion> result = new HashMap<>();
+        if (!userIds.isEmpty()) run(USER_EXPAND, userIds, types, fanout, result);
+        if (!txIds.isEmpty()) run(TX_EXPAND, txIds, types, fanout, result);
+
+        for (NodeRef node : frontier) {
+            result.putIfAbsent(node.id(), new Expansion(List.of(), 0));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> describe(NodeRef node) {
+        String query = USER.equals(node.kind())
+                ? "MATCH (u:User {userId: $id}) RETURN u { .userId, .name } AS props"
+                : """
+                  MATCH (t:Transaction {transactionId: $id})
+                  RETURN t { .transactionId, .amount, .currency, .ip, .deviceId, .status, .paymentMethod,
+                             timestamp: toString(t.timestamp) } AS props
+                  """;
+
+        return neo4jClient.query(query)
+                .bind(node.id()).to("id")
+                .fetch()
+                .one()
+                .map(row -> (Map<String, Object>) row.get("props"))
+                .orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run(String query, List<String> ids, Set<String> types, int fanout,
+                     Map<String, Expansion> result) {
+        Collection<Map<String, Object>> rows = neo4jClient.query(query)
+                .bind(ids).to("ids")
+                .bind(new ArrayList<>(types)).to("types")
+                .bind(fanout).to("fanout")
+                .bind(TransactionRelationshipService.PEER_SCAN_LIMIT).to("scanLimit")
+                .fetch()
+                .all();
+
+        for (Map<String, Object> row : rows) {
+            List<Neighbor> neighbors = new ArrayList<>();
+            for (Map<String, Object> n : (List<Map<String, Object>>) row.get("sample")) {
+                String kind = (String) n.get("kind");
+                Map<String, Object> props = (Map<String, Object>) n.get("props");
+                String id = (String) props.get(USER.equals(kind) ? "userId" : "transactionId");
+                neighbors.add(new Neighbor(id, kind, (String) n.get("rel"),
+                        Boolean.TRUE.equals(n.get("outgoing")), props));
+            }
+            result.put((String) row.get("id"),
+                    new Expansion(neighbors, ((Number) row.get("total")).intValue()));
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Force-directed (Fruchterman-Reingold) layout with Barnes-Hut repulsion.
+ * <p>
+ * Positions, forces and the quadtree all live in primitive arrays. Each iteration builds
+ * the quadtree over the current positions, then moves every node by the sum of the
+ * repulsion of all others (far-away cells count as one body at their centre of mass once
+ * {@code size / distance < theta}), the pull of its edges and a weak pull towards the
+ * origin that keeps disconnected parts together. Moves are capped by a temperature that
+ * cools linearly to zero. New positions go to a second pair of arrays, so each node is
+ * written by exactly one task and the per-node pass splits across a fork-join pool.
+ * <p>
+ * Nodes start on a sunflower spiral in input order, so the result is deterministic and
+ * the first node ends up near the centre.
+ */
+public final class ForceLayout {
+
+    private static final int LEAF = 256;           // nodes per leaf task
+    private static final int MAX_DEPTH = 32;       // deeper cells keep several bodies
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+    /**
+     * @param edgeLength        ideal distance between linked nodes
+     * @param gravity           pull towards the origin, relative to the edge spring
+     * @param parallelThreshold smaller graphs are laid out on the calling thread
+     */
+    public record Options(int iterations, double theta, double edgeLength, double gravity, int parallelThreshold) {}
+
+    public record Result(double[] x, double[] y, int iterations, long millis, boolean parallel) {}
+
+    private final int n;
+    private final int[] offsets;       // undirected adjacency
+    private final int[] neighbours;
+    private final Options options;
+
+    private double[] x;
+    private double[] y;
+    private double[] nextX;
+    private double[] nextY;
+    private final QuadTree tree;
+
+    private ForceLayout(int n, int[] sources, int[] targets, Options options) {
+        this.n = n;
+        this.options = options;
+
+        offsets = new int[n + 1];
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] == targets[e]) continue;
+            offsets[sources[e] + 1]++;
+            offsets[targets[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) offsets[u + 1] += offsets[u];
+        neighbours = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] == targets[e]) continue;
+            neighbours[fill[sources[e]]++] = targets[e];
+            neighbours[fill[targets[e]]++] = sources[e];
+        }
+
+        x = new double[n];
+        y = new double[n];
+        nextX = new double[n];
+        nextY = new double[n];
+        double spacing = options.edgeLength() / Math.sqrt(Math.PI);
+        for (int i = 0; i < n; i++) {
+            double r = spacing * Math.sqrt(i + 0.5);
+            x[i] = r * Math.cos(i * GOLDEN_ANGLE);
+            y[i] = r * Math.sin(i * GOLDEN_ANGLE);
+        }
+        tree = new QuadTree(n);
+    }
+
+    /**
+     * Lays out {@code n} nodes linked by the edges {@code sources[e]} – {@code targets[e]}
+     * (node indexes; direction is ignored).
+     */
+    public static Result compute(int n, int[] sources, int[] targets, Options options, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        ForceLayout layout = new ForceLayout(n, sources, targets, options);
+        boolean parallel = pool != null && n >= options.parallelThreshold();
+        int iterations = n > 1 ? options.iterations() : 0;
+
+        double k = options.edgeLength();
+        double startTemperature = Math.max(k, k * Math.sqrt(n) / 4);
+        for (int it = 0; it < iterations; it++) {
+            double temperature = startTemperature * (1 - (double) it / iterations);
+            layout.step(temperature, parallel ? pool : null);
+        }
+        layout.recentre();
+        return new Result(layout.x, layout.y, iterations, (System.nanoTime() - start) / 1_000_000, parallel);
+    }
+
+    private void step(double temperature, ForkJoinPool pool) {
+        tree.build(x, y);
+        if (pool == null) {
+            move(0, n, temperature);
+        } else {
+            pool.invoke(new Range(0, n, temperature));
+        }
+        double[] swap = x;
+        x = nextX;
+        nextX = swap;
+        swap = y;
+        y = nextY;
+        nextY = swap;
+    }
+
+    /** Computes the next position of nodes {@code from..to}; reads only the current ones. */
+    private void move(int from, int to, double temperature) {
+        double k = options.edgeLength();
+        double k2 = k * k;
+        double theta2 = options.theta() * options.theta();
+        double gravity = options.gravity();
+        int[] stack = new int[4 * MAX_DEPTH + 4];
+
+        for (int i = from; i < to; i++) {
+            double xi = x[i];
+            double yi = y[i];
+            double fx = 0;
+            double fy = 0;
+
+            // Repulsion k² / d, summed over the quadtree
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                double mass = tree.mass[c];
+                if (mass == 0) continue;
+                double dx = xi - tree.sumX[c] / mass;
+                double dy = yi - tree.sumY[c] / mass;
+                double d2 = dx * dx + dy * dy;
+                int body = tree.body[c];
+
+                if (body == QuadTree.INTERNAL && tree.size[c] * tree.size[c] >= theta2 * d2) {
+                    for (int q = 0; q < 4; q++) {
+                        int child = tree.child[4 * c + q];
+                        if (child >= 0) stack[top++] = child;
+                    }
+                    continue;
+                }
+                if (body == i) continue;
+                if (d2 == 0) {
+                    // Another node on the same spot: push apart in a direction fixed by the indexes
+                    dx = body >= 0 ? (i - body) * 0.01 : 0.01;
+                    dy = dx * 0.5;
+                    d2 = dx * dx + dy * dy;
+                }
+                double f = k2 * mass / d2;
+                fx += dx * f;
+                fy += dy * f;
+            }
+
+            // Attraction d² / k along each edge
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int j = neighbours[e];
+                double dx = x[j] - xi;
+                double dy = y[j] - yi;
+                double d = Math.sqrt(dx * dx + dy * dy);
+                fx += dx * d / k;
+                fy += dy * d / k;
+            }
+
+            // Gravity towards the origin
+            double d = Math.sqrt(xi * xi + yi * yi);
+            fx -= gravity * xi * d / k;
+            fy -= gravity * yi * d / k;
+
+            double length = Math.sqrt(fx * fx + fy * fy);
+            double scale = length > temperature ? temperature / length : 1;
+            nextX[i] = xi + fx * scale;
+            nextY[i] = yi + fy * scale;
+        }
+    }
+
+    private void recentre() {
+        if (n == 0) return;
+        double cx = 0;
+        double cy = 0;
+        for (int i = 0; i < n; i++) {
+            cx += x[i];
+            cy += y[i];
+        }
+        cx /= n;
+        cy /= n;
+        for (int i = 0; i < n; i++) {
+            x[i] -= cx;
+            y[i] -= cy;
+        }
+    }
+
+    private final class Range extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final double temperature;
+
+        Range(int from, int to, double temperature) {
+            this.from = from;
+            this.to = to;
+            this.temperature = temperature;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF) {
+                move(from, to, temperature);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Range(from, mid, temperature), new Range(mid, to, temperature));
+        }
+    }
+
+    /**
+     * Point-region quadtree in parallel arrays, rebuilt in place every iteration. A cell
+     * is empty, holds one body, holds several bodies (only at {@link #MAX_DEPTH}), or is
+     * internal with up to four children.
+     */
+    private static final class QuadTree {
+
+        static final int EMPTY = -1;
+        static final int INTERNAL = -2;
+        static final int MULTI = -3;
+
+        int cells;
+        double[] minX;
+        double[] minY;
+        double[] size;
+        double[] mass;
+        double[] sumX;
+        double[] sumY;
+        int[] body;
+        int[] child;
+
+        QuadTree(int n) {
+            allocate(Math.max(16, 2 * n));
+        }
+
+        private void allocate(int capacity) {
+            minX = new double[capacity];
+            minY = new double[capacity];
+            size = new double[capacity];
+            mass = new double[capacity];
+            sumX = new double[capacity];
+            sumY = new double[capacity];
+            body = new int[capacity];
+            child = new int[4 * capacity];
+        }
+
+        private void grow() {
+            int capacity = minX.length * 2;
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            size = Arrays.copyOf(size, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            sumX = Arrays.copyOf(sumX, capacity);
+            sumY = Arrays.copyOf(sumY, capacity);
+            body = Arrays.copyOf(body, capacity);
+            child = Arrays.copyOf(child, 4 * capacity);
+        }
+
+        void build(double[] x, double[] y) {
+            double loX = Double.POSITIVE_INFINITY;
+            double loY = Double.POSITIVE_INFINITY;
+            double hiX = Double.NEGATIVE_INFINITY;
+            double hiY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < x.length; i++) {
+                loX = Math.min(loX, x[i]);
+                loY = Math.min(loY, y[i]);
+                hiX = Math.max(hiX, x[i]);
+                hiY = Math.max(hiY, y[i]);
+            }
+            cells = 0;
+            newCell(loX, loY, Math.max(Math.max(hiX - loX, hiY - loY), 1e-9) * 1.0001);
+            for (int i = 0; i < x.length; i++) {
+                insert(i, x[i], y[i]);
+            }
+        }
+
+        private int newCell(double x0, double y0, double side) {
+            if (cells == minX.length) grow();
+            int c = cells++;
+            minX[c] = x0;
+            minY[c] = y0;
+            size[c] = side;
+            mass[c] = 0;
+            sumX[c] = 0;
+            sumY[c] = 0;
+            body[c] = EMPTY;
+            Arrays.fill(child, 4 * c, 4 * c + 4, -1);
+            return c;
+        }
+
+        private void insert(int i, double px, double py) {
+            int c = 0;
+            for (int depth = 0; ; depth++) {
+                mass[c]++;
+                sumX[c] += px;
+                sumY[c] += py;
+                int b = body[c];
+                if (b == EMPTY) {
+                    body[c] = i;
+                    return;
+                }
+                if (b == MULTI) return;
+                if (b >= 0) {
+                    if (depth >= MAX_DEPTH) {
+                        body[c] = MULTI;
+                        return;
+                    }
+                    // Push the resident body one level down, then carry on as an internal cell
+                    body[c] = INTERNAL;
+                    double bx = sumX[c] - px;
+                    double by = sumY[c] - py;
+                    int q = quadrant(c, bx, by);
+                    int moved = childCell(c, q);
+                    mass[moved] = 1;
+                    sumX[moved] = bx;
+                    sumY[moved] = by;
+                    body[moved] = b;
+                }
+                c = childCell(c, quadrant(c, px, py));
+            }
+        }
+
+        private int quadrant(int c, double px, double py) {
+            double half = size[c] / 2;
+            return (px >= minX[c] + half ? 1 : 0) + (py >= minY[c] + half ? 2 : 0);
+        }
+
+        private int childCell(int c, int q) {
+            int existing = child[4 * c + q];
+            if (existing >= 0) return existing;
+            double half = size[c] / 2;
+            int created = newCell(minX[c] + ((q & 1) != 0 ? half : 0), minY[c] + ((q & 2) != 0 ? half : 0), half);
+            child[4 * c + q] = created;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Whole-graph user centralities over a {@link GraphProjection}, computed on a fork-join pool.
+ * <p>
+ * <b>PageRank</b> walks TRANSFERRED_TO weighted by total amount (by transaction count for
+ * edges without an amount) and the undirected SAME_EMAIL / SAME_PHONE / SAME_ADDRESS links
+ * uniformly. A user with both kinds of edges passes {@code transferShare} of its rank along
+ * its transfers and the rest along its shared links; a user with neither spreads its rank
+ * over everyone. Ranks are pulled over {@code transfersIn}, so each user's new rank is
+ * written by exactly one task and no step needs atomics. Iteration stops when the L1 change
+ * drops below the tolerance or after {@code maxIterations}.
+ * <p>
+ * <b>Weighted degree</b> is the number of transactions a user sent or received over
+ * TRANSFERRED_TO plus its SAME_* degree. It runs as a separate task alongside PageRank.
+ */
+public final class GraphCentrality {
+
+    private static final int LEAF = 2_048;    // users per leaf task
+
+    public record Options(double damping, double transferShare, double tolerance, int maxIterations) {}
+
+    public record Iteration(int iteration, long micros, double delta) {}
+
+    /**
+     * @param pageRank     ranks over all users, summing to 1
+     * @param degreeMillis CPU time of the weighted-degree pass, which overlaps PageRank
+     */
+    public record Result(double[] pageRank, double[] weightedDegree, List<Iteration> iterations,
+                         boolean converged, long pageRankMillis, long degreeMillis) {}
+
+    private GraphCentrality() {}
+
+    public static Result compute(GraphProjection p, Options options, ForkJoinPool pool) {
+        int n = p.getUsers().size();
+        Csr out = p.getTransfers();
+        Csr in = p.getTransfersIn();
+        Csr[] shared = {p.getSameEmail(), p.getSamePhone(), p.getSameAddress()};
+
+        double[] weightedDegree = new double[n];
+        ForkJoinTask<Double> degree = pool.submit(new RangeSum(0, n, (from, to) -> {
+            long start = System.nanoTime();
+            for (int u = from; u < to; u++) {
+                double count = sharedDegree(shared, u);
+                for (int e = out.start(u); e < out.end(u); e++) {
+                    count += out.weight(GraphProjection.TRANSFER_TXN_COUNT, e);
+                }
+                for (int e = in.start(u); e < in.end(u); e++) {
+                    count += in.weight(GraphProjection.TRANSFER_TXN_COUNT, e);
+                }
+                weightedDegree[u] = count;
+            }
+            return System.nanoTime() - start;
+        }));
+
+        long pageRankStart = System.nanoTime();
+        double[] outWeight = new double[n];
+        int[] sharedDegree = new int[n];
+        pool.invoke(new RangeSum(0, n, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                double w = 0;
+                for (int e = out.start(u); e < out.end(u); e++) w += transferWeight(out, e);
+                outWeight[u] = w;
+                sharedDegree[u] = sharedDegree(shared, u);
+            }
+            return 0;
+        }));
+
+        double d = options.damping();
+        double share = options.transferShare();
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] viaTransfer = new double[n];   // rank u passes per unit of transfer weight
+        double[] viaShared = new double[n];     // rank u passes to each shared neighbour
+        Arrays.fill(rank, n > 0 ? 1.0 / n : 0);
+
+        List<Iteration> iterations = new ArrayList<>();
+        boolean converged = n == 0;
+        for (int it = 1; it <= options.maxIterations() && !converged; it++) {
+            long start = System.nanoTime();
+            double[] r = rank;
+            double[] nr = next;
+
+            double dangling = pool.invoke(new RangeSum(0, n, (from, to) -> {
+                double lost = 0;
+                for (int u = from; u < to; u++) {
+                    boolean transfers = outWeight[u] > 0;
+                    boolean links = sharedDegree[u] > 0;
+                    double toTransfers = transfers ? (links ? share : 1) : 0;
+                    double toLinks = links ? 1 - toTransfers : 0;
+                    viaTransfer[u] = transfers ? r[u] * toTransfers / outWeight[u] : 0;
+                    viaShared[u] = links ? r[u] * toLinks / sharedDegree[u] : 0;
+                    if (!transfers && !links) lost += r[u];
+                }
+                return lost;
+            }));
+
+            double base = (1 - d) / n + d * dangling / n;
+            double delta = pool.invoke(new RangeSum(0, n, (from, to) -> {
+                double change = 0;
+                for (int v = from; v < to; v++) {
+                    double sum = 0;
+                    for (int e = in.start(v); e < in.end(v); e++) {
+                        sum += viaTransfer[in.target(e)] * transferWeight(in, e);
+                    }
+                    for (Csr csr : shared) {
+                        for (int e = csr.start(v); e < csr.end(v); e++) sum += viaShared[csr.target(e)];
+                    }
+                    nr[v] = base + d * sum;
+                    change += Math.abs(nr[v] - r[v]);
+                }
+                return change;
+            }));
+
+            rank = nr;
+            next = r;
+            iterations.add(new Iteration(it, (System.nanoTime() - start) / 1_000, delta));
+            converged = delta < options.tolerance();
+        }
+        long pageRankMillis = (System.nanoTime() - pageRankStart) / 1_000_000;
+
+        // The leaves report their own run time; summed, that is CPU time rather than wall time
+        long degreeMillis = degree.join().longValue() / 1_000_000;
+        return new Result(rank, weightedDegree, iterations, converged, pageRankMillis, degreeMillis);
+    }
+
+    private static double transferWeight(Csr csr, int e) {
+        double amount = csr.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e);
+        return amount > 0 ? amount : csr.weight(GraphProjection.TRANSFER_TXN_COUNT, e);
+    }
+
+    private static int sharedDegree(Csr[] shared, int u) {
+        int degree = 0;
+        for (Csr csr : shared) degree += csr.degree(u);
+        return degree;
+    }
+
+    // ─────────────────────────────────────────────
+    // Fork-join plumbing
+    // ─────────────────────────────────────────────
+
+    private interface RangeBody {
+        double apply(int from, int to);
+    }
+
+    /** Splits [from, to) in halves down to {@link #LEAF} users and sums what the leaves return. */
+    private static final class RangeSum extends RecursiveTask<Double> {
+
+        private final int from;
+        private final int to;
+        private final RangeBody body;
+
+        RangeSum(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= LEAF) {
+                return body.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeSum left = new RangeSum(from, mid, body);
+            left.fork();
+            double right = new RangeSum(mid, to, body).compute();
+            return right + left.join();
+        }
+    }
+}
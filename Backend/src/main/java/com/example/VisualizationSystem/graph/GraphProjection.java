@@ -0,0 +1,332 @@
+package com.example.VisualizationSystem.graph;
+
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Immutable in-memory snapshot of the fraud graph.
+ * <p>
+ * Users, transactions and payment methods are mapped to dense int indexes; every
+ * relationship type is held as {@link Csr} adjacency and node properties as
+ * column arrays. SAME_IP / SAME_DEVICE are answered from ip and device groups,
+ * matching the property-based lookup the Cypher query performs.
+ */
+@Getter
+@Builder
+public class GraphProjection {
+
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final Instant builtAt;
+    private final long buildMillis;
+
+    private final IdIndex users;
+    private final IdIndex transactions;
+    private final IdIndex paymentMethods;
+    private final IdIndex ips;
+    private final IdIndex devices;
+
+    // ── user columns ──
+    private final String[] userName;
+    private final String[] userEmail;
+    private final String[][] userPaymentMethods;   // the node property, not the hub edges
+
+    // ── transaction columns ──
+    private final double[] txAmount;              // NaN when missing
+    private final String[] txCurrency;
+    private final long[] txTimestamp;             // epoch millis (UTC), NO_TIMESTAMP when missing
+    private final String[] txIp;
+    private final String[] txDevice;
+    private final String[] txStatus;
+    private final String[] txPaymentMethod;
+
+    // ── adjacency ──
+    private final Csr sameEmail;                  // user ↔ user
+    private final Csr samePhone;
+    private final Csr sameAddress;
+    private final Csr usesPayment;                // user → payment method
+    private final Csr paymentUsers;               // payment method → user
+    private final Csr sent;                       // user → transaction
+    private final Csr senders;                    // transaction → user
+    private final Csr receivedBy;                 // transaction → user
+    private final Csr received;                   // user → transaction
+    private final Csr transfers;                  // user → user, weights: totalAmount, txnCount, firstAt, lastAt
+    private final Csr transfersIn;                // user ← user
+    private final Csr ipMembers;                  // ip value → transaction
+    private final Csr deviceMembers;              // device value → transaction
+    private final int[] txIpGroup;                // transaction → ip value, -1 when missing
+    private final int[] txDeviceGroup;
+
+    public static final int TRANSFER_TOTAL_AMOUNT = 0;
+    public static final int TRANSFER_TXN_COUNT = 1;
+    public static final int TRANSFER_FIRST_AT = 2;    // epoch millis, NaN when unknown
+    public static final int TRANSFER_LAST_AT = 3;
+
+    /** Raw neighbourhood in the shape returned by the Cypher query, plus the ids it depends on. */
+    public record Projected(Map<String, Object> raw, Set<String> tags) {}
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? NO_TIMESTAMP : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return epochMillis == NO_TIMESTAMP
+                ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  NEIGHBOURHOODS
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * Same result as the user relationship query: the user, SAME_* neighbours,
+     * payment peers grouped by hub, and sent transactions with their receivers.
+     */
+    public Optional<Projected> userNeighborhood(String userId, int maxPeersPerMethod) {
+        int u = users.indexOf(userId);
+        if (u < 0) return Optional.empty();
+
+        Set<String> tags = new HashSet<>();
+        tags.add(userId);
+
+        Map<String, Object> user = new HashMap<>();
+        user.put("userId", userId);
+        user.put("name", userName[u]);
+        user.put("email", userEmail[u]);
+        user.put("paymentMethods", userPaymentMethods[u] != null ? List.of(userPaymentMethods[u]) : null);
+
+        List<Map<String, Object>> connectedUsers = new ArrayList<>();
+        addConnected(connectedUsers, tags, sameEmail, u, "SAME_EMAIL");
+        addConnected(connectedUsers, tags, samePhone, u, "SAME_PHONE");
+        addConnected(connectedUsers, tags, sameAddress, u, "SAME_ADDRESS");
+
+        List<String> methods = new ArrayList<>();
+        List<Map<String, Object>> paymentSummary = new ArrayList<>();
+        for (int e = usesPayment.start(u); e < usesPayment.end(u); e++) {
+            int pm = usesPayment.target(e);
+            String method = paymentMethods.id(pm);
+            methods.add(method);
+            tags.add(UserWrittenEvent.PAYMENT_TAG_PREFIX + method);
+
+            // DISTINCT peers other than the user, first maxPeersPerMethod kept
+            Set<Integer> seen = new HashSet<>();
+            List<Map<String, Object>> peers = new ArrayList<>();
+            for (int p = paymentUsers.start(pm); p < paymentUsers.end(pm); p++) {
+                int peer = paymentUsers.target(p);
+                if (peer == u || !seen.add(peer)) continue;
+                if (peers.size() < maxPeersPerMethod) {
+                    peers.add(userProps(peer));
+                    tags.add(users.id(peer));
+                }
+            }
+
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("method", method);
+            entry.put("peerCount", (long) seen.size());
+            entry.put("peers", peers);
+            paymentSummary.add(entry);
+        }
+
+        List<Map<String, Object>> txs = new ArrayList<>();
+        List<Map<String, Object>> receivers = new ArrayList<>();
+        for (int e = sent.start(u); e < sent.end(u); e++) {
+            int t = sent.target(e);
+            for (int r = receivedBy.start(t); r < receivedBy.end(t); r++) {
+                int receiver = receivedBy.target(r);
+                txs.add(transactionProps(t));
+                receivers.add(userProps(receiver));
+                tags.add(transactions.id(t));
+                tags.add(users.id(receiver));
+            }
+        }
+
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("user", user);
+        raw.put("connectedUsers", connectedUsers);
+        raw.put("userPaymentMethods", methods);
+        raw.put("paymentSummary", paymentSummary);
+        raw.put("transactions", txs);
+        raw.put("receivers", receivers);
+        return Optional.of(new Projected(raw, tags));
+    }
+
+    /**
+     * Same result as the transaction relationship query: the transaction, its
+     * senders and receivers, and for each of ip and device the first
+     * {@code peerLimit} peers by id, the status/amount aggregates of the first
+     * {@code scanLimit} by id and the peer total counted up to {@code countLimit}.
+     */
+    public Optional<Projected> transactionNeighborhood(String txId, int peerLimit, int scanLimit, int countLimit) {
+        int t = transactions.indexOf(txId);
+        if (t < 0) return Optional.empty();
+
+        Set<String> tags = new HashSet<>();
+        tags.add(txId);
+
+        List<Map<String, Object>> senderList = new ArrayList<>();
+        for (int e = senders.start(t); e < senders.end(t); e++) {
+            int s = senders.target(e);
+            senderList.add(userProps(s));
+            tags.add(users.id(s));
+        }
+
+        List<Map<String, Object>> receiverList = new ArrayList<>();
+        for (int e = receivedBy.start(t); e < receivedBy.end(t); e++) {
+            int r = receivedBy.target(e);
+            receiverList.add(userProps(r));
+            tags.add(users.id(r));
+        }
+
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("transaction", transactionProps(t));
+        raw.put("senders", senderList);
+        raw.put("receivers", receiverList);
+        groupPeers(raw, "sameIp", ipMembers, txIpGroup[t], t, peerLimit, scanLimit, countLimit, tags);
+        groupPeers(raw, "sameDevice", deviceMembers, txDeviceGroup[t], t, peerLimit, scanLimit, countLimit, tags);
+        return Optional.of(new Projected(raw, tags));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  SIZE
+    // ════════════════════════════════════════════════════════════════
+
+    /** Stored adjacency entries per relationship type (undirected types count both directions). */
+    public Map<String, Integer> edgeCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("SAME_EMAIL", sameEmail.edgeCount());
+        counts.put("SAME_PHONE", samePhone.edgeCount());
+        counts.put("SAME_ADDRESS", sameAddress.edgeCount());
+        counts.put("USES_PAYMENT", usesPayment.edgeCount());
+        counts.put("SENT", sent.edgeCount());
+        counts.put("RECEIVED_BY", receivedBy.edgeCount());
+        counts.put("TRANSFERRED_TO", transfers.edgeCount());
+        counts.put("IP_GROUP", ipMembers.edgeCount());
+        counts.put("DEVICE_GROUP", deviceMembers.edgeCount());
+        return counts;
+    }
+
+    public long adjacencyBytes() {
+        long bytes = 0;
+        for (Csr csr : allCsr()) bytes += csr.estimatedBytes();
+        bytes += 16L + txIpGroup.length * 4L + 16L + txDeviceGroup.length * 4L;
+        return bytes;
+    }
+
+    public long storedEdges() {
+        long edges = 0;
+        for (Csr csr : allCsr()) edges += csr.edgeCount();
+        return edges;
+    }
+
+    /** Adjacency plus id tables and property columns (shared strings counted once per reference). */
+    public long estimatedBytes() {
+        long bytes = adjacencyBytes();
+        bytes += users.estimatedBytes() + transactions.estimatedBytes() + paymentMethods.estimatedBytes()
+                + ips.estimatedBytes() + devices.estimatedBytes();
+        bytes += columnBytes(userName) + columnBytes(userEmail) + 16L + userPaymentMethods.length * 4L;
+        bytes += 16L + txAmount.length * 8L + 16L + txTimestamp.length * 8L;
+        bytes += 5 * (16L + txCurrency.length * 4L);    // references to interned strings
+        return bytes;
+    }
+
+    private List<Csr> allCsr() {
+        return List.of(sameEmail, samePhone, sameAddress, usesPayment, paymentUsers, sent, senders,
+                receivedBy, received, transfers, transfersIn, ipMembers, deviceMembers);
+    }
+
+    private static long columnBytes(String[] column) {
+        long bytes = 16L + column.length * 4L;
+        for (String s : column) {
+            if (s != null) bytes += 40 + s.length();
+        }
+        return bytes;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  HELPERS
+    // ════════════════════════════════════════════════════════════════
+
+    private void addConnected(List<Map<String, Object>> out, Set<String> tags, Csr csr, int u, String relType) {
+        for (int e = csr.start(u); e < csr.end(u); e++) {
+            int other = csr.target(e);
+            Map<String, Object> cu = new HashMap<>();
+            cu.put("userId", users.id(other));
+            cu.put("name", userName[other]);
+            cu.put("relType", relType);
+            out.add(cu);
+            tags.add(users.id(other));
+        }
+    }
+
+    private void groupPeers(Map<String, Object> raw, String prefix, Csr members, int group, int self,
+                            int peerLimit, int scanLimit, int countLimit, Set<String> tags) {
+        List<Integer> window = new ArrayList<>();
+        Map<String, long[]> counts = new HashMap<>();
+        Map<String, Double> amounts = new HashMap<>();
+        long total = 0;
+
+        if (group >= 0) {
+            for (int e = members.start(group); e < members.end(group) && total < countLimit; e++) {
+                int other = members.target(e);
+                if (other == self) continue;
+                total++;
+                if (window.size() < scanLimit) {
+                    window.add(other);
+                    counts.computeIfAbsent(txStatus[other], k -> new long[1])[0]++;
+                    amounts.merge(txStatus[other], Double.isNaN(txAmount[other]) ? 0.0 : txAmount[other], Double::sum);
+                }
+            }
+        }
+
+        // members are stored in transactionId order, so the window is already sorted
+        List<Map<String, Object>> sample = new ArrayList<>();
+        for (int i = 0; i < window.size() && i < peerLimit; i++) {
+            int other = window.get(i);
+            sample.add(transactionProps(other));
+            tags.add(transactions.id(other));
+        }
+
+        List<Map<String, Object>> mix = new ArrayList<>();
+        counts.forEach((status, cnt) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("status", status);
+            row.put("count", cnt[0]);
+            row.put("amount", amounts.get(status));
+            mix.add(row);
+        });
+
+        raw.put(prefix + "Transactions", sample);
+        raw.put(prefix + "Window", mix);
+        raw.put(prefix + "Total", total);
+    }
+
+    /** {userId, name} of user {@code u}, as projected by the relationship queries. */
+    public Map<String, Object> userProps(int u) {
+        Map<String, Object> ref = new HashMap<>();
+        ref.put("userId", users.id(u));
+        ref.put("name", userName[u]);
+        return ref;
+    }
+
+    /** Transaction properties of {@code t}, as projected by the relationship queries. */
+    public Map<String, Object> transactionProps(int t) {
+        Map<String, Object> tx = new HashMap<>();
+        tx.put("transactionId", transactions.id(t));
+        tx.put("amount", Double.isNaN(txAmount[t]) ? null : txAmount[t]);
+        tx.put("currency", txCurrency[t]);
+        tx.put("ip", txIp[t]);
+        tx.put("deviceId", txDevice[t]);
+        tx.put("status", txStatus[t]);
+        tx.put("paymentMethod", txPaymentMethod[t]);
+        LocalDateTime ts = toLocalDateTime(txTimestamp[t]);
+        tx.put("timestamp", ts != null ? ts.toString() : null);
+        return tx;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.VisualizationSystem.graph;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the whole graph out of Neo4j into a {@link GraphProjection}.
+ * Node labels are streamed first in parallel to fix the dense indexes, then every
+ * relationship type is streamed by its own loader, also in parallel.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GraphProjectionLoader {
+
+    private final Driver driver;
+    private final GraphWorkers workers;
+
+    private record UserRows(List<String> ids, List<String> names, List<String> emails, List<String[]> methods) {}
+
+    private record TxRows(List<String> ids, double[] amount, long[] timestamp,
+                          String[] currency, String[] ip, String[] device,
+                          String[] status, String[] paymentMethod) {}
+
+    public GraphProjection load() {
+        long start = System.nanoTime();
+
+        // ── Phase 1: nodes ──
+        CompletableFuture<UserRows> usersF = async(this::loadUsers);
+        CompletableFuture<TxRows> txsF = async(this::loadTransactions);
+        CompletableFuture<List<String>> methodsF = async(() -> {
+            List<String> names = new ArrayList<>();
+            stream("MATCH (p:PaymentMethod) RETURN p.name", r -> names.add(r.get(0).asString()));
+            return names;
+        });
+
+        UserRows userRows = join(usersF);
+        TxRows txRows = join(txsF);
+
+        IdIndex users = IdIndex.of(userRows.ids());
+        IdIndex txs = IdIndex.of(txRows.ids());
+        IdIndex methods = IdIndex.of(join(methodsF));
+        int nu = users.size();
+        int nt = txs.size();
+        int npm = methods.size();
+
+        // ── Phase 2: relationships ──
+        CompletableFuture<Map<String, Csr.Builder>> sharedF = async(() -> loadSharedUserEdges(users));
+        CompletableFuture<Csr.Builder> usesF = async(() -> loadPairs(
+                "MATCH (u:User)-[:USES_PAYMENT]->(p:PaymentMethod) RETURN u.userId, p.name", users, methods, 0));
+        CompletableFuture<Csr.Builder> sentF = async(() -> loadPairs(
+                "MATCH (u:User)-[:SENT]->(t:Transaction) RETURN u.userId, t.transactionId", users, txs, 0));
+        CompletableFuture<Csr.Builder> recvF = async(() -> loadPairs(
+                "MATCH (t:Transaction)-[:RECEIVED_BY]->(u:User) RETURN t.transactionId, u.userId", txs, users, 0));
+        CompletableFuture<Csr.Builder> transferF = async(() -> loadTransfers(users));
+
+        // ip / device groups are built from the columns while the edge loaders run
+        IdIndex ips = IdIndex.of(distinctNonNull(txRows.ip()));
+        IdIndex devices = IdIndex.of(distinctNonNull(txRows.device()));
+        int[] txIpGroup = new int[nt];
+        int[] txDeviceGroup = new int[nt];
+        Csr.Builder ipB = new Csr.Builder(0);
+        Csr.Builder deviceB = new Csr.Builder(0);
+        // members are added in transactionId order, so each group lists its peers the way
+        // the (ip, transactionId) and (deviceId, transactionId) indexes do
+        int[] byId = IntStream.range(0, nt).boxed()
+                .sorted(Comparator.comparing(txs::id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int t : byId) {
+            txIpGroup[t] = ips.indexOf(txRows.ip()[t]);
+            txDeviceGroup[t] = devices.indexOf(txRows.device()[t]);
+            if (txIpGroup[t] >= 0) ipB.add(txIpGroup[t], t);
+            if (txDeviceGroup[t] >= 0) deviceB.add(txDeviceGroup[t], t);
+        }
+
+        Map<String, Csr.Builder> shared = join(sharedF);
+        Csr.Builder uses = join(usesF);
+        Csr.Builder sent = join(sentF);
+        Csr.Builder recv = join(recvF);
+        Csr.Builder transfer = join(transferF);
+
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        GraphProjection projection = GraphProjection.builder()
+                .builtAt(Instant.now())
+                .buildMillis(buildMillis)
+                .users(users)
+                .transactions(txs)
+                .paymentMethods(methods)
+                .ips(ips)
+                .devices(devices)
+                .userName(userRows.names().toArray(new String[0]))
+                .userEmail(userRows.emails().toArray(new String[0]))
+                .userPaymentMethods(userRows.methods().toArray(new String[0][]))
+                .txAmount(txRows.amount())
+                .txCurrency(txRows.currency())
+                .txTimestamp(txRows.timestamp())
+                .txIp(txRows.ip())
+                .txDevice(txRows.device())
+                .txStatus(txRows.status())
+                .txPaymentMethod(txRows.paymentMethod())
+                .sameEmail(shared.get("SAME_EMAIL").buildUndirected(nu))
+                .samePhone(shared.get("SAME_PHONE").buildUndirected(nu))
+                .sameAddress(shared.get("SAME_ADDRESS").buildUndirected(nu))
+                .usesPayment(uses.build(nu))
+                .paymentUsers(uses.buildReverse(npm))
+                .sent(sent.build(nu))
+                .senders(sent.buildReverse(nt))
+                .receivedBy(recv.build(nt))
+                .received(recv.buildReverse(nu))
+                .transfers(transfer.build(nu))
+                .transfersIn(transfer.buildReverse(nu))
+                .ipMembers(ipB.build(ips.size()))
+                .deviceMembers(deviceB.build(devices.size()))
+                .txIpGroup(txIpGroup)
+                .txDeviceGroup(txDeviceGroup)
+                .build();
+
+        log.info("Graph projection built in {} ms: {} users, {} transactions, {} adjacency entries, ~{} KB",
+                buildMillis, nu, nt, projection.storedEdges(), projection.estimatedBytes() / 1024);
+        return projection;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  LOADERS
+    // ════════════════════════════════════════════════════════════════
+
+    private UserRows loadUsers() {
+        UserRows rows = new UserRows(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        Map<String, String> strings = new HashMap<>();
+        stream("MATCH (u:User) RETURN u.userId, u.name, u.email, u.paymentMethods", r -> {
+            rows.ids().add(r.get(0).asString());
+            rows.names().add(str(r.get(1)));
+            rows.emails().add(str(r.get(2)));
+            Value pm = r.get(3);
+            rows.methods().add(pm.isNull()
+                    ? null
+                    : pm.asList(v -> strings.computeIfAbsent(v.asString(), s -> s)).toArray(new String[0]));
+        });
+        return rows;
+    }
+
+    private TxRows loadTransactions() {
+        List<String> ids = new ArrayList<>();
+        List<Object[]> cols = new ArrayList<>();
+        Map<String, String> strings = new HashMap<>();
+        stream("""
+                MATCH (t:Transaction)
+                RETURN t.transactionId, t.amount, t.timestamp, t.currency, t.ip, t.deviceId, t.status, t.paymentMethod
+                """, r -> {
+            ids.add(r.get(0).asString());
+            cols.add(new Object[]{
+                    r.get(1).isNull() ? Double.NaN : r.get(1).asDouble(),
+                    r.get(2).isNull() ? GraphProjection.NO_TIMESTAMP
+                            : GraphProjection.toEpochMillis(r.get(2).asLocalDateTime()),
+                    intern(strings, r.get(3)),
+                    str(r.get(4)),
+                    str(r.get(5)),
+                    intern(strings, r.get(6)),
+                    intern(strings, r.get(7))
+            });
+        });
+
+        int n = ids.size();
+        TxRows rows = new TxRows(ids, new double[n], new long[n], new String[n], new String[n],
+                new String[n], new String[n], new String[n]);
+        for (int i = 0; i < n; i++) {
+            Object[] c = cols.get(i);
+            rows.amount()[i] = (double) c[0];
+            rows.timestamp()[i] = (long) c[1];
+            rows.currency()[i] = (String) c[2];
+            rows.ip()[i] = (String) c[3];
+            rows.device()[i] = (String) c[4];
+            rows.status()[i] = (String) c[5];
+            rows.paymentMethod()[i] = (String) c[6];
+        }
+        return rows;
+    }
+
+    private Map<String, Csr.Builder> loadSharedUserEdges(IdIndex users) {
+        Map<String, Csr.Builder> byType = new HashMap<>();
+        for (String type : List.of("SAME_EMAIL", "SAME_PHONE", "SAME_ADDRESS")) {
+            byType.put(type, new Csr.Builder(0));
+        }
+        stream("""
+                MATCH (a:User)-[r:SAME_EMAIL|SAME_PHONE|SAME_ADDRESS]->(b:User)
+                RETURN type(r), a.userId, b.userId
+                """, r -> {
+            int a = users.indexOf(r.get(1).asString());
+            int b = users.indexOf(r.get(2).asString());
+            if (a >= 0 && b >= 0) byType.get(r.get(0).asString()).add(a, b);
+        });
+        return byType;
+    }
+
+    /** TRANSFERRED_TO with amount, count and first/last transfer time (epoch millis, NaN when unknown). */
+    private Csr.Builder loadTransfers(IdIndex users) {
+        Csr.Builder builder = new Csr.Builder(4);
+        double[] weights = new double[4];
+        stream("""
+                MATCH (a:User)-[r:TRANSFERRED_TO]->(b:User)
+                RETURN a.userId, b.userId, coalesce(r.totalAmount, 0.0), coalesce(r.txnCount, 0), r.firstAt, r.lastAt
+                """, r -> {
+            int a = users.indexOf(r.get(0).asString());
+            int b = users.indexOf(r.get(1).asString());
+            if (a < 0 || b < 0) return;
+            weights[GraphProjection.TRANSFER_TOTAL_AMOUNT] = r.get(2).asDouble();
+            weights[GraphProjection.TRANSFER_TXN_COUNT] = r.get(3).asDouble();
+            weights[GraphProjection.TRANSFER_FIRST_AT] = r.get(4).isNull() ? Double.NaN
+                    : GraphProjection.toEpochMillis(r.get(4).asLocalDateTime());
+            weights[GraphProjection.TRANSFER_LAST_AT] = r.get(5).isNull() ? Double.NaN
+                    : GraphProjection.toEpochMillis(r.get(5).asLocalDateTime());
+            builder.add(a, b, weights);
+        });
+        return builder;
+    }
+
+    /** Streams (fromId, toId, weight...) rows into an edge list over the given indexes. */
+    private Csr.Builder loadPairs(String cypher, IdIndex from, IdIndex to, int weightColumns) {
+        Csr.Builder builder = new Csr.Builder(weightColumns);
+        double[] weights = new double[weightColumns];
+        stream(cypher, r -> {
+            int a = from.indexOf(r.get(0).asString());
+            int b = to.indexOf(r.get(1).asString());
+            if (a < 0 || b < 0) return;
+            for (int c = 0; c < weightColumns; c++) weights[c] = r.get(2 + c).asDouble();
+            builder.add(a, b, weights);
+        });
+        return builder;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  HELPERS
+    // ════════════════════════════════════════════════════════════════
+
+    private void stream(String cypher, Consumer<Record> consumer) {
+        // auto-commit read: a retried transaction function would replay rows into the builders
+        try (Session session = driver.session()) {
+            Result result = session.run(cypher);
+            while (result.hasNext()) {
+                consumer.accept(result.next());
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, workers.loaders());
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private static List<String> distinctNonNull(String[] values) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String v : values) {
+            if (v != null) distinct.add(v);
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    private static String str(Value v) {
+        return v.isNull() ? null : v.asString();
+    }
+
+    private static String intern(Map<String, String> strings, Value v) {
+        return v.isNull() ? null : strings.computeIfAbsent(v.asString(), s -> s);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.VisualizationSystem.graph;
+
+import com.example.VisualizationSystem.config.GraphProjectionProperties;
+import com.example.VisualizationSystem.dto.ProjectionStatsResponse;
+import com.example.VisualizationSystem.event.GraphProjectionRebuiltEvent;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Owns the current {@link GraphProjection} and keeps it in step with Neo4j.
+ * <p>
+ * Writes mark the ids they touched as dirty; any neighbourhood that depends on a
+ * dirty id is answered from Neo4j instead. Writes are not applied to the snapshot:
+ * each schedules a full rebuild {@code rebuildDelayMs} later, at most one per
+ * {@code minRebuildIntervalMs} under a steady write rate, while bulk reloads rebuild
+ * at once. Dirty ids are cleared only when a snapshot that started after the write
+ * has been swapped in; a {@link GraphProjectionRebuiltEvent} follows every swap.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GraphProjectionService {
+
+    private final GraphProjectionProperties props;
+    private final GraphProjectionLoader loader;
+    private final GraphWorkers workers;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile GraphProjection current;
+
+    // tag -> sequence number of the latest write touching it
+    private final Map<String, Long> dirty = new ConcurrentHashMap<>();
+    private final AtomicLong writeSeq = new AtomicLong();
+    private final AtomicLong reloadGeneration = new AtomicLong();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildAgain = new AtomicBoolean();
+    private ScheduledFuture<?> pendingRebuild;         // guarded by this
+    private long lastRebuildStartedAt;                 // guarded by this
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /** The latest snapshot, or empty while disabled or not yet built. */
+    public Optional<GraphProjection> snapshot() {
+        return props.isEnabled() ? Optional.ofNullable(current) : Optional.empty();
+    }
+
+    /** Ids written since the current snapshot was taken. */
+    public boolean isDirty(String id) {
+        return dirty.containsKey(id);
+    }
+
+    /**
+     * Raw user neighbourhood from the projection, or empty when it is unavailable
+     * or any id it depends on has been written since the snapshot.
+     */
+    public Optional<Map<String, Object>> userNeighborhood(String userId, int maxPeersPerMethod) {
+        return answer(p -> p.userNeighborhood(userId, maxPeersPerMethod));
+    }
+
+    public Optional<Map<String, Object>> transactionNeighborhood(String txId, int peerLimit,
+                                                                 int scanLimit, int countLimit) {
+        return answer(p -> p.transactionNeighborhood(txId, peerLimit, scanLimit, countLimit));
+    }
+
+    private Optional<Map<String, Object>> answer(Function<GraphProjection, Optional<GraphProjection.Projected>> query) {
+        GraphProjection projection = props.isEnabled() ? current : null;
+        if (projection == null) {
+            return Optional.empty();
+        }
+
+        Optional<GraphProjection.Projected> projected = query.apply(projection);
+        if (projected.isEmpty() || isStale(projected.get().tags())) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+        served.increment();
+        return Optional.of(projected.get().raw());
+    }
+
+    private boolean isStale(Set<String> tags) {
+        if (dirty.isEmpty()) return false;
+        for (String tag : tags) {
+            if (dirty.containsKey(tag)) return true;
+        }
+        return false;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  EVENTS
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (props.isEnabled()) {
+            requestRebuild(0);
+        }
+    }
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        markDirty(event.tags());
+    }
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        markDirty(event.tags());
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        reloadGeneration.incrementAndGet();
+        current = null;
+        dirty.clear();
+        if (props.isEnabled()) {
+            requestRebuild(0);
+        }
+    }
+
+    private void markDirty(Set<String> tags) {
+        if (!props.isEnabled()) return;
+        long seq = writeSeq.incrementAndGet();
+        for (String tag : tags) {
+            dirty.merge(tag, seq, Math::max);
+        }
+        scheduleAfterWrite();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  REBUILD
+    // ════════════════════════════════════════════════════════════════
+
+    /** Replaces any scheduled rebuild; a rebuild already running will be followed by another. */
+    public synchronized void requestRebuild(long delayMs) {
+        if (pendingRebuild != null) {
+            pendingRebuild.cancel(false);
+        }
+        pendingRebuild = workers.scheduler().schedule(
+                () -> workers.pool().execute(this::rebuild), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a rebuild for a write, unless one is already scheduled: the first write
+     * after a rebuild fixes the time, so a steady write rate cannot postpone it forever
+     * nor rebuild more than once per {@code minRebuildIntervalMs}.
+     */
+    private synchronized void scheduleAfterWrite() {
+        if (pendingRebuild != null && !pendingRebuild.isDone()) return;
+        long now = System.currentTimeMillis();
+        long at = Math.max(now + props.getRebuildDelayMs(), lastRebuildStartedAt + props.getMinRebuildIntervalMs());
+        requestRebuild(at - now);
+    }
+
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            rebuildAgain.set(true);
+            return;
+        }
+        synchronized (this) {
+            lastRebuildStartedAt = System.currentTimeMillis();
+        }
+        long generation = reloadGeneration.get();
+        try {
+            long startSeq = writeSeq.get();
+
+            GraphProjection built = loader.load();
+
+            if (generation != reloadGeneration.get()) {
+                log.info("Discarding graph projection: graph was reloaded while building");
+                return;
+            }
+            current = built;
+            // writes that happened before the load started are now reflected
+            dirty.entrySet().removeIf(e -> e.getValue() <= startSeq);
+
+            try {
+                eventPublisher.publishEvent(new GraphProjectionRebuiltEvent(built));
+            } catch (RuntimeException e) {
+                log.warn("Projection rebuilt listener failed: {}", e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Graph projection rebuild failed: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+            if (rebuildAgain.getAndSet(false)) {
+                // a reload needs its snapshot now; writes wait for the interval
+                if (generation != reloadGeneration.get()) requestRebuild(0);
+                else scheduleAfterWrite();
+            }
+        }
+    }
+
+    public ProjectionStatsResponse stats() {
+        GraphProjection p = current;
+        ProjectionStatsResponse.ProjectionStatsResponseBuilder b = ProjectionStatsResponse.builder()
+                .enabled(props.isEnabled())
+                .ready(p != null)
+                .rebuilding(rebuilding.get())
+                .dirtyIds(dirty.size())
+                .servedFromProjection(served.sum())
+                .fallbacks(fallbacks.sum());
+
+        if (p != null) {
+            long stored = p.storedEdges();
+            long adjacency = p.adjacencyBytes();
+            b.builtAt(p.getBuiltAt())
+                    .buildMillis(p.getBuildMillis())
+                    .users(p.getUsers().size())
+                    .transactions(p.getTransactions().size())
+                    .paymentMethods(p.getPaymentMethods().size())
+                    .edges(p.edgeCounts())
+                    .storedEdges(stored)
+                    .adjacencyBytes(adjacency)
+                    .bytesPerEdge(stored == 0 ? 0.0 : (double) adjacency / stored)
+                    .estimatedBytes(p.estimatedBytes());
+        }
+        return b.build();
+    }
+}
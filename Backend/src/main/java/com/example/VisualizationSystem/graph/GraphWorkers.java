@@ -0,0 +1,98 @@
+package com.example.VisualizationSystem.graph;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads used for graph loading and analytics.
+ * Kept out of the bean registry as plain executors so Spring Boot's own
+ * application task executor is left in place.
+ */
+@Component
+public class GraphWorkers {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("graph-worker-"));
+
+    // Leaf tasks only: the projection loader's queries, which never wait on other work
+    private final ExecutorService loaders = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("graph-loader-"));
+
+    // One thread per whole-graph job; every job service runs at most one run at a time
+    private final ExecutorService jobs = Executors.newCachedThreadPool(daemonThreads("graph-job-"));
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(daemonThreads("graph-scheduler-"));
+
+    private final ForkJoinPool forkJoin = new ForkJoinPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), forkJoinThreads("graph-fj-"), null, false);
+
+    /** Pool for fan-out and background work. Tasks on it must not wait on other tasks queued here. */
+    public ExecutorService pool() {
+        return pool;
+    }
+
+    /**
+     * Pool for the projection loader's parallel queries. Kept apart from {@link #pool()}
+     * so a load started from a pool thread never waits on tasks queued behind it.
+     */
+    public ExecutorService loaders() {
+        return loaders;
+    }
+
+    /**
+     * Threads for long whole-graph jobs (risk scoring, cycle detection) that load a
+     * projection and wait on fork-join kernels. Keeps them from holding {@link #pool()}
+     * threads for minutes.
+     */
+    public ExecutorService jobs() {
+        return jobs;
+    }
+
+    /** Single thread for delayed and periodic maintenance (debounced rebuilds etc.). */
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Work-stealing pool for CPU-bound kernels that split themselves recursively
+     * (whole-graph scoring). Blocking I/O stays on {@link #pool()}.
+     */
+    public ForkJoinPool forkJoin() {
+        return forkJoin;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+        loaders.shutdownNow();
+        jobs.shutdownNow();
+        forkJoin.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreads(String prefix) {
+        return fjp -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fjp);
+            t.setName(prefix + t.getPoolIndex());
+            return t;
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.List;
+
+/**
+ * Dense, immutable id ↔ index mapping backed by an open-addressing hash table.
+ * Indexes run from 0 to size()-1 in insertion order; lookups never allocate.
+ */
+public final class IdIndex {
+
+    private final String[] ids;
+    private final int[] slots;      // index + 1, 0 = empty
+    private final int mask;
+
+    private IdIndex(String[] ids, int[] slots) {
+        this.ids = ids;
+        this.slots = slots;
+        this.mask = slots.length - 1;
+    }
+
+    /** Builds an index over {@code ids}; duplicates keep their first position. */
+    public static IdIndex of(List<String> ids) {
+        int capacity = Integer.highestOneBit(Math.max(4, ids.size() * 2 - 1)) << 1;
+        int[] slots = new int[capacity];
+        int mask = capacity - 1;
+        String[] dense = new String[ids.size()];
+        int n = 0;
+
+        outer:
+        for (String id : ids) {
+            int h = mix(id.hashCode()) & mask;
+            while (slots[h] != 0) {
+                if (dense[slots[h] - 1].equals(id)) continue outer;
+                h = (h + 1) & mask;
+            }
+            dense[n] = id;
+            slots[h] = ++n;
+        }
+
+        if (n < dense.length) {
+            dense = java.util.Arrays.copyOf(dense, n);
+        }
+        return new IdIndex(dense, slots);
+    }
+
+    /** Dense index of {@code id}, or -1 if unknown. */
+    public int indexOf(String id) {
+        if (id == null) return -1;
+        int h = mix(id.hashCode()) & mask;
+        int s;
+        while ((s = slots[h]) != 0) {
+            if (ids[s - 1].equals(id)) return s - 1;
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String id(int index) {
+        return ids[index];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /** Approximate heap footprint of the table and the id strings. */
+    public long estimatedBytes() {
+        long bytes = 16L + ids.length * 4L + 16L + slots.length * 4L;
+        for (String id : ids) {
+            bytes += 40 + id.length();
+        }
+        return bytes;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
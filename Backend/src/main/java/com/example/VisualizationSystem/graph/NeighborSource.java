@@ -0,0 +1,43 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One hop of neighbour lookups for a whole BFS frontier.
+ */
+public interface NeighborSource {
+
+    String USER = "user";
+    String TRANSACTION = "transaction";
+
+    /** Relationship types a traversal may follow. */
+    Set<String> TYPES = Set.of(
+            "SAME_EMAIL", "SAME_PHONE", "SAME_ADDRESS", "TRANSFERRED_TO",
+            "SENT", "RECEIVED_BY", "SAME_IP", "SAME_DEVICE");
+
+    record NodeRef(String id, String kind) {}
+
+    /**
+     * @param outgoing whether the edge points from the expanded node to the neighbour
+     * @param props    user {userId, name} or transaction properties, as in the relationship queries
+     */
+    record Neighbor(String id, String kind, String relType, boolean outgoing, Map<String, Object> props) {}
+
+    /**
+     * @param neighbors at most {@code fanout} neighbours
+     * @param total     all neighbours over the requested types
+     */
+    record Expansion(List<Neighbor> neighbors, int total) {}
+
+    /**
+     * Expands every node of the frontier over {@code types}, keeping at most
+     * {@code fanout} neighbours per node. Nodes the source cannot answer are left
+     * out of the result so the caller can ask another source.
+     */
+    Map<String, Expansion> expand(List<NodeRef> frontier, Set<String> types, int fanout);
+
+    /** Properties of the given node, or {@code null} if unknown to this source. */
+    Map<String, Object> describe(NodeRef node);
+}
@@ -0,0 +1,120 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * {@link NeighborSource} over a {@link GraphProjection} snapshot.
+ * A node is skipped when it, or one of the neighbours it would return,
+ * has been written since the snapshot was taken.
+ */
+public class ProjectionNeighborSource implements NeighborSource {
+
+    private final GraphProjection p;
+    private final Predicate<String> dirty;
+
+    public ProjectionNeighborSource(GraphProjection projection, Predicate<String> dirty) {
+        this.p = projection;
+        this.dirty = dirty;
+    }
+
+    @Override
+    public Map<String, Expansion> expand(List<NodeRef> frontier, Set<String> types, int fanout) {
+        Map<String, Expansion> result = new HashMap<>();
+        for (NodeRef node : frontier) {
+            if (dirty.test(node.id())) continue;
+
+            Collector c = new Collector(fanout);
+            boolean found;
+            if (USER.equals(node.kind())) {
+                int u = p.getUsers().indexOf(node.id());
+                found = u >= 0;
+                if (found) expandUser(u, types, c);
+            } else {
+                int t = p.getTransactions().indexOf(node.id());
+                found = t >= 0;
+                if (found) expandTransaction(t, types, c);
+            }
+
+            if (found && !c.stale) {
+                result.put(node.id(), new Expansion(c.neighbors, c.total));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> describe(NodeRef node) {
+        if (dirty.test(node.id())) return null;
+        if (USER.equals(node.kind())) {
+            int u = p.getUsers().indexOf(node.id());
+            return u < 0 ? null : p.userProps(u);
+        }
+        int t = p.getTransactions().indexOf(node.id());
+        return t < 0 ? null : p.transactionProps(t);
+    }
+
+    private void expandUser(int u, Set<String> types, Collector c) {
+        if (types.contains("SAME_EMAIL"))     users(p.getSameEmail(), u, "SAME_EMAIL", true, c);
+        if (types.contains("SAME_PHONE"))     users(p.getSamePhone(), u, "SAME_PHONE", true, c);
+        if (types.contains("SAME_ADDRESS"))   users(p.getSameAddress(), u, "SAME_ADDRESS", true, c);
+        if (types.contains("TRANSFERRED_TO")) {
+            users(p.getTransfers(), u, "TRANSFERRED_TO", true, c);
+            users(p.getTransfersIn(), u, "TRANSFERRED_TO", false, c);
+        }
+        if (types.contains("SENT"))           txs(p.getSent(), u, "SENT", true, -1, c);
+        if (types.contains("RECEIVED_BY"))    txs(p.getReceived(), u, "RECEIVED_BY", false, -1, c);
+    }
+
+    private void expandTransaction(int t, Set<String> types, Collector c) {
+        if (types.contains("SENT"))        users(p.getSenders(), t, "SENT", false, c);
+        if (types.contains("RECEIVED_BY")) users(p.getReceivedBy(), t, "RECEIVED_BY", true, c);
+        if (types.contains("SAME_IP") && p.getTxIpGroup()[t] >= 0) {
+            txs(p.getIpMembers(), p.getTxIpGroup()[t], "SAME_IP", true, t, c);
+        }
+        if (types.contains("SAME_DEVICE") && p.getTxDeviceGroup()[t] >= 0) {
+            txs(p.getDeviceMembers(), p.getTxDeviceGroup()[t], "SAME_DEVICE", true, t, c);
+        }
+    }
+
+    private void users(Csr csr, int v, String rel, boolean outgoing, Collector c) {
+        for (int e = csr.start(v); e < csr.end(v); e++) {
+            int other = csr.target(e);
+            c.total++;
+            if (c.full()) continue;
+            String id = p.getUsers().id(other);
+            c.add(new Neighbor(id, USER, rel, outgoing, p.userProps(other)), dirty.test(id));
+        }
+    }
+
+    private void txs(Csr csr, int v, String rel, boolean outgoing, int self, Collector c) {
+        for (int e = csr.start(v); e < csr.end(v); e++) {
+            int other = csr.target(e);
+            if (other == self) continue;
+            c.total++;
+            if (c.full()) continue;
+            String id = p.getTransactions().id(other);
+            c.add(new Neighbor(id, TRANSACTION, rel, outgoing, p.transactionProps(other)), dirty.test(id));
+        }
+    }
+
+    private static final class Collector {
+        final int fanout;
+        final List<Neighbor> neighbors = new ArrayList<>();
+        int total;
+        boolean stale;
+
+        Collector(int fanout) {
+            this.fanout = fanout;
+        }
+
+        boolean full() {
+            return neighbors.size() >= fanout;
+        }
+
+        void add(Neighbor n, boolean dirty) {
+            neighbors.add(n);
+            stale |= dirty;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.VisualizationSystem.graph;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-day and per-month totals of one TRANSFERRED_TO pair, stored on the relationship as
+ * parallel lists: {@code dayBuckets} / {@code dayAmounts} / {@code dayCounts} and the same
+ * for months. Keys are {@code yyyyMMdd} and {@code yyyyMM} integers in ascending order, so
+ * a window query compares keys without date arithmetic and a month key is its day key / 100.
+ * <p>
+ * The write path computes the same lists in Cypher; this class serves bulk loads and queries.
+ */
+public final class TransferBuckets {
+
+    private final TreeMap<Integer, double[]> days = new TreeMap<>();
+    private final TreeMap<Integer, double[]> months = new TreeMap<>();
+
+    public static int dayKey(LocalDate date) {
+        return date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    public static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public void add(LocalDateTime at, double amount) {
+        if (at == null) return;
+        LocalDate date = at.toLocalDate();
+        add(days, dayKey(date), amount);
+        add(months, monthKey(date), amount);
+    }
+
+    private static void add(TreeMap<Integer, double[]> buckets, int key, double amount) {
+        double[] bucket = buckets.computeIfAbsent(key, k -> new double[2]);
+        bucket[0] += amount;
+        bucket[1]++;
+    }
+
+    /** Adds the six relationship properties to {@code row}. */
+    public void putInto(Map<String, Object> row) {
+        put(row, "day", days);
+        put(row, "month", months);
+    }
+
+    private static void put(Map<String, Object> row, String prefix, TreeMap<Integer, double[]> buckets) {
+        List<Integer> keys = new ArrayList<>(buckets.size());
+        List<Double> amounts = new ArrayList<>(buckets.size());
+        List<Long> counts = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> {
+            keys.add(key);
+            amounts.add(bucket[0]);
+            counts.add((long) bucket[1]);
+        });
+        row.put(prefix + "Buckets", keys);
+        row.put(prefix + "Amounts", amounts);
+        row.put(prefix + "Counts", counts);
+    }
+}
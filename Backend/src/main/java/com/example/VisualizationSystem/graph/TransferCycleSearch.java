@@ -0,0 +1,248 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Enumerates simple TRANSFERRED_TO cycles of 2..{@code maxLength} users in a {@link GraphProjection}.
+ * <p>
+ * Every cycle is reported exactly once, from its smallest user index: the search from
+ * start {@code s} only steps onto users above {@code s}, so rotations found from other
+ * starts cannot occur. Before searching from {@code s}, a breadth-first pass backwards over
+ * {@code transfersIn} (also restricted to users above {@code s}) gives the exact number of
+ * hops each user needs to get back to {@code s}; the depth-first pass then never enters a
+ * user that cannot close the cycle within the remaining length. Parallel edges between two
+ * users are followed once, through the first that passes the constraints, so a cycle is
+ * a sequence of users and is never reported twice.
+ * <p>
+ * Starts are handed out in small batches to a fixed number of workers. Each start has its
+ * own visit budget so one hub cannot stall the job, the whole search stops after
+ * {@code maxCycles}, and the {@code cancelled} check is polled between starts and every
+ * few thousand visits.
+ */
+public final class TransferCycleSearch {
+
+    private static final int START_BATCH = 64;
+    private static final int CANCEL_POLL = 4_096;
+
+    /** One cycle: user indexes from the smallest, and the positions of its edges in {@code transfers}. */
+    public record Cycle(int[] users, int[] edges) {
+
+        public int length() {
+            return users.length;
+        }
+    }
+
+    /**
+     * @param exhaustedStarts starts whose search ran out of budget and may miss cycles
+     * @param truncated       the search stopped at {@code maxCycles}
+     */
+    public record Result(List<Cycle> cycles, long visited, int startsDone, int exhaustedStarts,
+                         boolean truncated, boolean cancelled) {}
+
+    private final GraphProjection projection;
+    private final int maxLength;
+    private final TransferPathSearch.Constraints constraints;
+    private final int maxCycles;
+    private final int budgetPerStart;
+    private final BooleanSupplier cancelled;
+
+    private final AtomicInteger nextStart = new AtomicInteger();
+    private final AtomicInteger startsDone = new AtomicInteger();
+    private final AtomicInteger exhaustedStarts = new AtomicInteger();
+    private final AtomicInteger found = new AtomicInteger();
+    private final AtomicLong visited = new AtomicLong();
+    private volatile boolean stop;
+
+    public TransferCycleSearch(GraphProjection projection, int maxLength, TransferPathSearch.Constraints constraints,
+                               int maxCycles, int budgetPerStart, BooleanSupplier cancelled) {
+        this.projection = projection;
+        this.maxLength = maxLength;
+        this.constraints = constraints;
+        this.maxCycles = maxCycles;
+        this.budgetPerStart = budgetPerStart;
+        this.cancelled = cancelled;
+    }
+
+    public int startsDone() {
+        return startsDone.get();
+    }
+
+    public int cyclesFound() {
+        return Math.min(found.get(), maxCycles);
+    }
+
+    public Result run(ExecutorService pool, int parallelism) {
+        List<CompletableFuture<List<Cycle>>> workers = new ArrayList<>(parallelism);
+        for (int w = 0; w < parallelism; w++) {
+            workers.add(CompletableFuture.supplyAsync(() -> new Worker().run(), pool));
+        }
+        List<Cycle> cycles = new ArrayList<>();
+        for (CompletableFuture<List<Cycle>> worker : workers) {
+            cycles.addAll(worker.join());
+        }
+        if (cycles.size() > maxCycles) {
+            cycles = new ArrayList<>(cycles.subList(0, maxCycles));
+        }
+        boolean wasCancelled = cancelled.getAsBoolean();
+        return new Result(cycles, visited.get(), startsDone.get(), exhaustedStarts.get(),
+                !wasCancelled && found.get() > maxCycles, wasCancelled);
+    }
+
+    /** Search state of one thread; the arrays are reused across its starts. */
+    private final class Worker {
+
+        private final Csr out = projection.getTransfers();
+        private final Csr in = projection.getTransfersIn();
+
+        private final int[] dist;
+        private final int[] distStamp;      // dist[u] is valid when distStamp[u] == start + 1
+        private final boolean[] onPath;
+        private final int[] pathUsers = new int[maxLength];
+        private final int[] pathEdges = new int[maxLength];
+        private int[] frontier = new int[64];
+        private int[] next = new int[64];
+
+        // distinct next steps of the user at each depth, collected before recursing
+        private final int[][] stepUsers = new int[maxLength][16];
+        private final int[][] stepEdges = new int[maxLength][16];
+        private final int[] seen;           // seen[w] == mark: w already a step of the current user
+        private int mark;
+
+        private final List<Cycle> cycles = new ArrayList<>();
+        private int start;
+        private int budget;
+        private long sinceFlush;
+
+        Worker() {
+            int n = projection.getUsers().size();
+            dist = new int[n];
+            distStamp = new int[n];
+            onPath = new boolean[n];
+            seen = new int[n];
+        }
+
+        List<Cycle> run() {
+            int n = projection.getUsers().size();
+            while (!stop) {
+                int from = nextStart.getAndAdd(START_BATCH);
+                if (from >= n) break;
+                for (int s = from; s < Math.min(n, from + START_BATCH) && !stop; s++) {
+                    if (cancelled.getAsBoolean()) {
+                        stop = true;
+                        break;
+                    }
+                    search(s);
+                    startsDone.incrementAndGet();
+                }
+            }
+            visited.addAndGet(sinceFlush);
+            return cycles;
+        }
+
+        private void search(int s) {
+            start = s;
+            budget = budgetPerStart;
+            if (out.degree(s) == 0 || in.degree(s) == 0) return;
+
+            backward();
+            pathUsers[0] = s;
+            onPath[s] = true;
+            forward(s, 0);
+            onPath[s] = false;
+            if (budget <= 0) exhaustedStarts.incrementAndGet();
+        }
+
+        /** Exact hops back to the start for every user above it within maxLength - 1 hops. */
+        private void backward() {
+            int stamp = start + 1;
+            frontier[0] = start;
+            int frontierSize = 1;
+            for (int depth = 1; depth < maxLength && frontierSize > 0; depth++) {
+                int nextSize = 0;
+                for (int i = 0; i < frontierSize; i++) {
+                    int v = frontier[i];
+                    if (!visit()) return;
+                    for (int e = in.start(v); e < in.end(v); e++) {
+                        int u = in.target(e);
+                        if (u <= start || distStamp[u] == stamp || !constraints.allows(in, e)) continue;
+                        distStamp[u] = stamp;
+                        dist[u] = depth;
+                        if (nextSize == next.length) next = Arrays.copyOf(next, nextSize * 2);
+                        next[nextSize++] = u;
+                    }
+                }
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+                frontierSize = nextSize;
+            }
+        }
+
+        private void forward(int v, int depth) {
+            if (!visit()) return;
+            int steps = steps(v, depth);
+            for (int i = 0; i < steps; i++) {
+                int w = stepUsers[depth][i];
+                pathEdges[depth] = stepEdges[depth][i];
+                if (w == start) {
+                    if (depth >= 1) record(depth + 1);
+                } else {
+                    pathUsers[depth + 1] = w;
+                    onPath[w] = true;
+                    forward(w, depth + 1);
+                    onPath[w] = false;
+                }
+                if (stop || budget <= 0) return;
+            }
+        }
+
+        /** Users {@code v} can step to at {@code depth}, each once with its first passing edge. */
+        private int steps(int v, int depth) {
+            if (++mark == 0) {
+                Arrays.fill(seen, 0);
+                mark = 1;
+            }
+            int count = 0;
+            for (int e = out.start(v); e < out.end(v); e++) {
+                int w = out.target(e);
+                if (seen[w] == mark || !constraints.allows(out, e)) continue;
+                boolean closes = w == start;
+                if (!closes && (w < start || onPath[w] || distStamp[w] != start + 1
+                        || depth + 1 + dist[w] > maxLength)) continue;
+                seen[w] = mark;
+                if (count == stepUsers[depth].length) {
+                    stepUsers[depth] = Arrays.copyOf(stepUsers[depth], count * 2);
+                    stepEdges[depth] = Arrays.copyOf(stepEdges[depth], count * 2);
+                }
+                stepUsers[depth][count] = w;
+                stepEdges[depth][count++] = e;
+            }
+            return count;
+        }
+
+        private void record(int length) {
+            if (found.incrementAndGet() > maxCycles) {
+                stop = true;
+                return;
+            }
+            cycles.add(new Cycle(Arrays.copyOf(pathUsers, length), Arrays.copyOf(pathEdges, length)));
+        }
+
+        private boolean visit() {
+            if (--budget < 0) return false;
+            if (++sinceFlush == CANCEL_POLL) {
+                visited.addAndGet(sinceFlush);
+                sinceFlush = 0;
+                if (cancelled.getAsBoolean()) stop = true;
+            }
+            return !stop;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.VisualizationSystem.graph;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Bounded search for simple TRANSFERRED_TO paths between two users of a {@link GraphProjection}.
+ * <p>
+ * The search is bidirectional: a breadth-first pass backwards from the target over
+ * {@code transfersIn} covers the last {@code maxHops / 2} hops and gives every node it
+ * reaches its exact distance to the target. A depth-first pass forwards from the source
+ * then only follows an edge when the hops taken plus that distance (or, for nodes the
+ * backward pass did not reach, one more than its depth) still fit the hop limit, so the
+ * forward side never wanders into branches that cannot reach the target in time.
+ * <p>
+ * Shortest mode deepens the hop limit one step at a time and stops at the first limit
+ * that yields {@code k} paths; heaviest mode ranks paths by their bottleneck amount and
+ * prunes any branch whose bottleneck already falls below the k-th best found. Both sides
+ * share one node-visit budget; when it runs out the paths found so far are returned.
+ */
+public final class TransferPathSearch {
+
+    public enum Mode { SHORTEST, HEAVIEST }
+
+    /**
+     * Per-edge filter. An edge passes when its total amount is at least {@code minAmount}
+     * and its first..last transfer interval overlaps {@code [since, until]}; with a time
+     * bound set, edges of unknown time never pass.
+     */
+    public record Constraints(double minAmount, long since, long until) {
+
+        public static final Constraints NONE = new Constraints(0, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        boolean timeBounded() {
+            return since != Long.MIN_VALUE || until != Long.MAX_VALUE;
+        }
+
+        /** Whether edge {@code e} of a transfer adjacency ({@code transfers} or {@code transfersIn}) passes. */
+        public boolean allows(Csr csr, int e) {
+            if (csr.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e) < minAmount) return false;
+            if (!timeBounded()) return true;
+            double first = csr.weight(GraphProjection.TRANSFER_FIRST_AT, e);
+            double last = csr.weight(GraphProjection.TRANSFER_LAST_AT, e);
+            return !Double.isNaN(first) && !Double.isNaN(last) && last >= since && first <= until;
+        }
+    }
+
+    /** One path: user indexes, and the positions of its edges in {@code transfers}. */
+    public record Path(int[] users, int[] edges, double bottleneck, double totalAmount) {
+
+        public int hops() {
+            return edges.length;
+        }
+    }
+
+    /**
+     * @param stale set when the search reached a user written since the snapshot; the
+     *              paths are then incomplete and the caller should ask Neo4j instead
+     */
+    public record Result(List<Path> paths, int visited, boolean budgetExhausted, boolean stale) {}
+
+    private final Csr out;
+    private final Csr in;
+    private final IntPredicate dirty;
+
+    private final int source;
+    private final int target;
+    private final int maxHops;
+    private final int k;
+    private final Mode mode;
+    private final Constraints constraints;
+    private final int budget;
+
+    private final PriorityQueue<Path> best;   // worst retained path at the head
+    private final Comparator<Path> ranking;
+
+    private IntIntMap distToTarget;
+    private int backwardDepth;                // levels of the backward pass fully explored
+
+    private final int[] pathUsers;
+    private final int[] pathEdges;
+
+    private int visited;
+    private boolean exhausted;
+    private boolean stale;
+
+    public TransferPathSearch(GraphProjection projection, IntPredicate dirty, int source, int target,
+                              int maxHops, int k, Mode mode, Constraints constraints, int budget) {
+        this.out = projection.getTransfers();
+        this.in = projection.getTransfersIn();
+        this.dirty = dirty;
+        this.source = source;
+        this.target = target;
+        this.maxHops = maxHops;
+        this.k = k;
+        this.mode = mode;
+        this.constraints = constraints;
+        this.budget = budget;
+
+        Comparator<Path> byHops = Comparator.comparingInt(Path::hops);
+        Comparator<Path> byAmount = Comparator.comparingDouble(Path::bottleneck).reversed();
+        this.ranking = mode == Mode.SHORTEST ? byHops.thenComparing(byAmount) : byAmount.thenComparing(byHops);
+        this.best = new PriorityQueue<>(k + 1, ranking.reversed());
+
+        this.pathUsers = new int[maxHops + 1];
+        this.pathEdges = new int[maxHops];
+    }
+
+    public Result run() {
+        backward();
+        if (!stale) {
+            pathUsers[0] = source;
+            if (mode == Mode.SHORTEST) {
+                for (int limit = 1; limit <= maxHops && best.size() < k && !exhausted && !stale; limit++) {
+                    forward(source, 0, limit, Double.POSITIVE_INFINITY, 0, true);
+                }
+            } else {
+                forward(source, 0, maxHops, Double.POSITIVE_INFINITY, 0, false);
+            }
+        }
+
+        List<Path> paths = new ArrayList<>(best);
+        paths.sort(ranking);
+        return new Result(paths, visited, exhausted, stale);
+    }
+
+    // ─────────────────────────────────────────────
+    // Backward pass: exact distances to the target for the last maxHops / 2 hops
+    // ─────────────────────────────────────────────
+
+    private void backward() {
+        int depthLimit = maxHops / 2;
+        distToTarget = new IntIntMap(64);
+        distToTarget.put(target, 0);
+
+        int[] frontier = {target};
+        int frontierSize = 1;
+        for (int depth = 0; depth < depthLimit && frontierSize > 0; depth++) {
+            int[] next = new int[Math.max(16, frontierSize * 2)];
+            int nextSize = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                int v = frontier[i];
+                if (!visit(v)) return;
+                for (int e = in.start(v); e < in.end(v); e++) {
+                    int u = in.target(e);
+                    if (!constraints.allows(in, e) || distToTarget.get(u) >= 0) continue;
+                    distToTarget.put(u, depth + 1);
+                    if (nextSize == next.length) next = Arrays.copyOf(next, nextSize * 2);
+                    next[nextSize++] = u;
+                }
+            }
+            backwardDepth = depth + 1;
+            frontier = next;
+            frontierSize = nextSize;
+        }
+        if (frontierSize == 0) {
+            backwardDepth = maxHops;   // everything that can reach the target was found
+        }
+    }
+
+    /** Lower bound on the hops from {@code v} to the target. */
+    private int remaining(int v) {
+        int d = distToTarget.get(v);
+        return d >= 0 ? d : backwardDepth + 1;
+    }
+
+    // ─────────────────────────────────────────────
+    // Forward pass
+    // ─────────────────────────────────────────────
+
+    /**
+     * Extends the path ending at {@code v} (which has {@code depth} hops).
+     *
+     * @param exactLength only record paths of exactly {@code limit} hops (iterative deepening)
+     */
+    private void forward(int v, int depth, int limit, double bottleneck, double total, boolean exactLength) {
+        if (!visit(v)) return;
+
+        for (int e = out.start(v); e < out.end(v); e++) {
+            int w = out.target(e);
+            if (!constraints.allows(out, e) || onPath(w, depth)) continue;
+            if (depth + 1 + remaining(w) > limit) continue;
+
+            double amount = out.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e);
+            double nextBottleneck = Math.min(bottleneck, amount);
+            if (mode == Mode.HEAVIEST && best.size() >= k && nextBottleneck < best.peek().bottleneck()) continue;
+
+            pathUsers[depth + 1] = w;
+            pathEdges[depth] = e;
+            if (w == target) {
+                if (!exactLength || depth + 1 == limit) {
+                    offer(depth + 1, nextBottleneck, total + amount);
+                }
+            } else if (depth + 1 < limit) {
+                forward(w, depth + 1, limit, nextBottleneck, total + amount, exactLength);
+            }
+            if (exhausted || stale) return;
+        }
+    }
+
+    private void offer(int hops, double bottleneck, double total) {
+        Path path = new Path(Arrays.copyOf(pathUsers, hops + 1), Arrays.copyOf(pathEdges, hops), bottleneck, total);
+        if (best.size() < k) {
+            best.add(path);
+        } else if (ranking.compare(path, best.peek()) < 0) {
+            best.poll();
+            best.add(path);
+        }
+    }
+
+    private boolean onPath(int w, int depth) {
+        for (int i = 0; i <= depth; i++) {
+            if (pathUsers[i] == w) return true;
+        }
+        return false;
+    }
+
+    private boolean visit(int v) {
+        if (visited >= budget) {
+            exhausted = true;
+            return false;
+        }
+        visited++;
+        if (dirty.test(v)) {
+            stale = true;
+            return false;
+        }
+        return true;
+    }
+
+    /** Open-addressing int → int map over non-negative keys; {@code get} returns -1 when absent. */
+    private static final class IntIntMap {
+
+        private int[] keys;
+        private int[] values;
+        private int size;
+
+        IntIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; keys[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return -1;
+        }
+
+        void put(int key, int value) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != -1 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == -1) size++;
+            keys[i] = key;
+            values[i] = value;
+            if (size * 2 > keys.length) grow();
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length << 1];
+            values = new int[oldKeys.length << 1];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.neo4j.core.schema.Id;
 import org.springframework.data.neo4j.core.schema.Node;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Node("Transaction")
 @Data
@@ -25,4 +26,5 @@ public class Transaction {
     private String deviceId;
     private String status;            // NEW: "COMPLETED", "PENDING", "FAILED", "FLAGGED", "REVERSED"
     private String paymentMethod;     // NEW: "Visa", "PayPal", etc. — stored as property on the node
+    private List<String> flagReasons; // ids of the screening rules that hit, null when none did
 }
\ No newline at end of file
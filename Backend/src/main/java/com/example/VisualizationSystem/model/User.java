@@ -25,4 +25,7 @@ public class User {
     private String address;
     private List<String> paymentMethods ;
     private LocalDateTime createdAt;
+
+    // Written by the risk scoring job; null until the user has been scored
+    private Double riskScore;
 }
@@ -1,10 +1,13 @@
 package com.example.VisualizationSystem.pipeline;
 
 import com.example.VisualizationSystem.config.PipelineProperties;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
 import com.example.VisualizationSystem.generator.DataGeneratorService;
 import com.example.VisualizationSystem.generator.Neo4jIngestionService;
+import com.example.VisualizationSystem.rules.RuleEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -18,6 +21,8 @@ public class GraphPipelineService {
     private final PipelineProperties props;
     private final DataGeneratorService generator;
     private final Neo4jIngestionService ingestion;
+    private final RuleEngine ruleEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ════════════════════════════════════════════════════════════════
     //  MAIN PIPELINE
@@ -46,6 +51,9 @@ public class GraphPipelineService {
 
         timed("Phase 2 — Generate Data", generator::generate);
 
+        timed("Phase 2b — Screen Transactions",
+                () -> ruleEngine.screenAll(generator.getTransactionEdges()));
+
         timed("Phase 3a — Insert Users",
                 () -> ingestion.insertUsers(generator.getUsers()));
 
@@ -70,6 +78,8 @@ public class GraphPipelineService {
         timed("Phase 6 — Database Statistics",
                 ingestion::logDatabaseStats);
 
+        eventPublisher.publishEvent(new GraphReloadedEvent("pipeline run"));
+
         Duration total = Duration.between(start, Instant.now());
 
         log.info("════════════════════════════════════════════════");
@@ -84,6 +94,7 @@ public class GraphPipelineService {
     public void deleteAllData() {
         log.info("🧹 Deleting all graph data...");
         ingestion.cleanDatabase();
+        eventPublisher.publishEvent(new GraphReloadedEvent("data wipe"));
         log.info("✅ Graph data deleted.");
     }
 
@@ -94,6 +105,7 @@ public class GraphPipelineService {
         ingestion.createSchema();
 
         generator.generateSample();
+        ruleEngine.screenAll(generator.getTransactionEdges());
         ingestion.insertUsers(generator.getUsers());
         ingestion.insertTransactions(generator.getTransactions());
         ingestion.createPaymentMethodNodes();
@@ -101,6 +113,7 @@ public class GraphPipelineService {
         ingestion.createTransferEdges(generator.getTransactionEdges());
         ingestion.createSharedUserAttributeEdges();
         ingestion.createSharedTransactionAttributeEdges();
+        eventPublisher.publishEvent(new GraphReloadedEvent("sample load"));
 
         log.info("✅ Sample dataset loaded.");
     }
@@ -1,43 +1,16 @@
 package com.example.VisualizationSystem.repository;
 
+import com.example.VisualizationSystem.dto.TransactionFilter;
 import com.example.VisualizationSystem.model.Transaction;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
 import org.springframework.data.neo4j.repository.query.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends Neo4jRepository<Transaction, String> {
 
-    @Query("""
-                MERGE (t:Transaction {transactionId: $transactionId})
-                ON CREATE SET
-                    t.amount = $amount,
-                    t.currency = coalesce($currency, 'USD'),
-                    t.ip = $ip,
-                    t.deviceId = $deviceId,
-                    t.status = coalesce($status, 'PENDING'),
-                    t.paymentMethod = $paymentMethod,
-                    t.timestamp = localdatetime()
-                ON MATCH SET
-                    t.amount = coalesce($amount, t.amount),
-                    t.currency = coalesce($currency, t.currency),
-                    t.ip = CASE WHEN $ip IS NOT NULL AND $ip <> '' THEN $ip ELSE t.ip END,
-                    t.deviceId = CASE WHEN $deviceId IS NOT NULL AND $deviceId <> '' THEN $deviceId ELSE t.deviceId END,
-                    t.status = coalesce($status, t.status),
-                    t.paymentMethod = coalesce($paymentMethod, t.paymentMethod)
-                RETURN t
-            """)
-    Transaction upsertTransaction(
-            @Param("transactionId") String transactionId,
-            @Param("amount") Double amount,
-            @Param("currency") String currency,
-            @Param("ip") String ip,
-            @Param("deviceId") String deviceId,
-            @Param("status") String status,
-            @Param("paymentMethod") String paymentMethod
-    );
-
     default List<Transaction> findTransactionsPaged(
             String search,
             String ip,
@@ -46,18 +19,86 @@ public interface TransactionRepository extends Neo4jRepository<Transaction, Stri
             Double maxAmount,
             String status,
             String paymentMethod,
+            LocalDateTime from,
+            LocalDateTime to,
             long skip,
             long limit,
             String sortBy,
             String sortDir
     ) {
+        // Without a time range the general queries run with no timestamp predicate, so
+        // transactions that have no timestamp are kept. With one, the range is a plain
+        // comparison the range index can seek on; timestamp ordering also gets dedicated
+        // queries so the same index serves the sort.
+        if (from == null && to == null) {
+            return "ASC".equals(sortDir)
+                    ? findTransactionsPagedAsc(search, ip, deviceId, minAmount, maxAmount,
+                    status, paymentMethod, skip, limit, sortBy)
+                    : findTransactionsPagedDesc(search, ip, deviceId, minAmount, maxAmount,
+                    status, paymentMethod, skip, limit, sortBy);
+        }
+        LocalDateTime lower = from != null ? from : TransactionFilter.MIN_TIMESTAMP;
+        LocalDateTime upper = to != null ? to : TransactionFilter.MAX_TIMESTAMP;
+        if ("timestamp".equals(sortBy)) {
+            return "ASC".equals(sortDir)
+                    ? findTransactionsByTimeAsc(search, ip, deviceId, minAmount, maxAmount,
+                    status, paymentMethod, lower, upper, skip, limit)
+                    : findTransactionsByTimeDesc(search, ip, deviceId, minAmount, maxAmount,
+                    status, paymentMethod, lower, upper, skip, limit);
+        }
         return "ASC".equals(sortDir)
-                ? findTransactionsPagedAsc(search, ip, deviceId, minAmount, maxAmount,
-                status, paymentMethod, skip, limit, sortBy)
-                : findTransactionsPagedDesc(search, ip, deviceId, minAmount, maxAmount,
-                status, paymentMethod, skip, limit, sortBy);
+                ? findTransactionsInRangeAsc(search, ip, deviceId, minAmount, maxAmount,
+                status, paymentMethod, lower, upper, skip, limit, sortBy)
+                : findTransactionsInRangeDesc(search, ip, deviceId, minAmount, maxAmount,
+                status, paymentMethod, lower, upper, skip, limit, sortBy);
     }
 
+    @Query("""
+                MATCH (t:Transaction)
+                WHERE t.timestamp >= $from AND t.timestamp < $to
+                  AND ($search IS NULL OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR t.paymentMethod = $paymentMethod)
+                RETURN t
+                ORDER BY t.timestamp ASC
+                SKIP $skip
+                LIMIT $limit
+            """)
+    List<Transaction> findTransactionsByTimeAsc(
+            String search, String ip, String deviceId,
+            Double minAmount, Double maxAmount,
+            String status, String paymentMethod,
+            LocalDateTime from, LocalDateTime to,
+            long skip, long limit
+    );
+
+    @Query("""
+                MATCH (t:Transaction)
+                WHERE t.timestamp >= $from AND t.timestamp < $to
+                  AND ($search IS NULL OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR t.paymentMethod = $paymentMethod)
+                RETURN t
+                ORDER BY t.timestamp DESC
+                SKIP $skip
+                LIMIT $limit
+            """)
+    List<Transaction> findTransactionsByTimeDesc(
+            String search, String ip, String deviceId,
+            Double minAmount, Double maxAmount,
+            String status, String paymentMethod,
+            LocalDateTime from, LocalDateTime to,
+            long skip, long limit
+    );
+
     @Query("""
                 MATCH (t:Transaction)
                 WHERE ($search IS NULL OR t.transactionId CONTAINS $search)
@@ -112,6 +153,82 @@ public interface TransactionRepository extends Neo4jRepository<Transaction, Stri
             long skip, long limit, String sortBy
     );
 
+    @Query("""
+                MATCH (t:Transaction)
+                WHERE t.timestamp >= $from AND t.timestamp < $to
+                  AND ($search IS NULL OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR t.paymentMethod = $paymentMethod)
+                RETURN t
+                ORDER BY
+                    CASE $sortBy
+                        WHEN 'amount' THEN t.amount
+                        WHEN 'status' THEN t.status
+                        WHEN 'paymentMethod' THEN t.paymentMethod
+                        ELSE t.timestamp
+                    END ASC
+                SKIP $skip
+                LIMIT $limit
+            """)
+    List<Transaction> findTransactionsInRangeAsc(
+            String search, String ip, String deviceId,
+            Double minAmount, Double maxAmount,
+            String status, String paymentMethod,
+            LocalDateTime from, LocalDateTime to,
+            long skip, long limit, String sortBy
+    );
+
+    @Query("""
+                MATCH (t:Transaction)
+                WHERE t.timestamp >= $from AND t.timestamp < $to
+                  AND ($search IS NULL OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR t.paymentMethod = $paymentMethod)
+                RETURN t
+                ORDER BY
+                    CASE $sortBy
+                        WHEN 'amount' THEN t.amount
+                        WHEN 'status' THEN t.status
+                        WHEN 'paymentMethod' THEN t.paymentMethod
+                        ELSE t.timestamp
+                    END DESC
+                SKIP $skip
+                LIMIT $limit
+            """)
+    List<Transaction> findTransactionsInRangeDesc(
+            String search, String ip, String deviceId,
+            Double minAmount, Double maxAmount,
+            String status, String paymentMethod,
+            LocalDateTime from, LocalDateTime to,
+            long skip, long limit, String sortBy
+    );
+
+    default long countTransactions(
+            String search,
+            String ip,
+            String deviceId,
+            Double minAmount,
+            Double maxAmount,
+            String status,
+            String paymentMethod,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        if (from == null && to == null) {
+            return countAllTransactions(search, ip, deviceId, minAmount, maxAmount, status, paymentMethod);
+        }
+        return countTransactionsInRange(search, ip, deviceId, minAmount, maxAmount, status, paymentMethod,
+                from != null ? from : TransactionFilter.MIN_TIMESTAMP,
+                to != null ? to : TransactionFilter.MAX_TIMESTAMP);
+    }
 
     @Query("""
                 MATCH (t:Transaction)
@@ -124,7 +241,7 @@ public interface TransactionRepository extends Neo4jRepository<Transaction, Stri
                   AND ($paymentMethod IS NULL OR $paymentMethod = '' OR t.paymentMethod = $paymentMethod)
                 RETURN count(t)
             """)
-    long countTransactions(
+    long countAllTransactions(
             @Param("search") String search,
             @Param("ip") String ip,
             @Param("deviceId") String deviceId,
@@ -133,4 +250,28 @@ public interface TransactionRepository extends Neo4jRepository<Transaction, Stri
             @Param("status") String status,
             @Param("paymentMethod") String paymentMethod
     );
+
+    @Query("""
+                MATCH (t:Transaction)
+                WHERE t.timestamp >= $from AND t.timestamp < $to
+                  AND ($search IS NULL OR $search = '' OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR $ip = '' OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR $deviceId = '' OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR $status = '' OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR $paymentMethod = '' OR t.paymentMethod = $paymentMethod)
+                RETURN count(t)
+            """)
+    long countTransactionsInRange(
+            @Param("search") String search,
+            @Param("ip") String ip,
+            @Param("deviceId") String deviceId,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount,
+            @Param("status") String status,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 }
\ No newline at end of file
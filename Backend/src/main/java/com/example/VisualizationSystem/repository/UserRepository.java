@@ -7,35 +7,12 @@ import org.springframework.data.neo4j.repository.query.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends Neo4jRepository<User, String> {
 
-    @Query("""
-        MERGE (u:User {userId: $userId})
-        ON CREATE SET
-            u.name = $name,
-            u.email = $email,
-            u.phone = $phone,
-            u.address = $address,
-            u.paymentMethods = $paymentMethods,
-            u.createdAt = localdatetime()
-        ON MATCH SET
-            u.name = coalesce($name, u.name),
-            u.email = coalesce($email, u.email),
-            u.phone = coalesce($phone, u.phone),
-            u.address = coalesce($address, u.address),
-            u.paymentMethods = coalesce($paymentMethods, u.paymentMethods)
-        RETURN u
-    """)
-    User upsertUser(@Param("userId") String userId,
-                    @Param("name") String name,
-                    @Param("email") String email,
-                    @Param("phone") String phone,
-                    @Param("address") String address,
-                    @Param("paymentMethods") List<String> paymentMethods);
-
     @Query("""
         MATCH (u:User)
         RETURN
@@ -48,20 +25,168 @@ public interface UserRepository extends Neo4jRepository<User, String> {
     """)
     List<UserResponse> findAllUserDtos();
 
+    // ── Offset pages ──
+    // createdAt ordering is served by user_created_idx, so a page stops after skip + limit
+    // users. The payment-method filter is an EXISTS check on each user read from the index
+    // rather than a walk from the PaymentMethod hub, which would expand and sort the whole
+    // hub before the first row. Users stored without createdAt are backfilled at startup.
+
+    default List<User> findUsersPaged(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod,
+            long skip,
+            long limit
+    ) {
+        return paymentMethod == null || paymentMethod.isEmpty()
+                ? findUsersPagedAll(search, email, phone, skip, limit)
+                : findUsersPagedByPaymentMethod(search, email, phone, paymentMethod, skip, limit);
+    }
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.createdAt IS NOT NULL
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN u
+        ORDER BY u.createdAt DESC
+        SKIP $skip
+        LIMIT $limit
+    """)
+    List<User> findUsersPagedAll(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("skip") long skip,
+            @Param("limit") long limit
+    );
+
     @Query("""
         MATCH (u:User)
-        WHERE ($search IS NULL OR $search = ''
+        WHERE u.createdAt IS NOT NULL
+          AND EXISTS { (u)-[:USES_PAYMENT]->(:PaymentMethod {name: $paymentMethod}) }
+          AND ($search IS NULL OR $search = ''
                OR u.userId CONTAINS $search
                OR toLower(u.name) CONTAINS toLower($search))
           AND ($email IS NULL OR $email = '' OR u.email = $email)
           AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
-          AND ($paymentMethod IS NULL OR $paymentMethod = '' OR $paymentMethod IN u.paymentMethods)
         RETURN u
         ORDER BY u.createdAt DESC
         SKIP $skip
         LIMIT $limit
     """)
-    List<User> findUsersPaged(
+    List<User> findUsersPagedByPaymentMethod(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("skip") long skip,
+            @Param("limit") long limit
+    );
+
+    default long countUsers(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod
+    ) {
+        return paymentMethod == null || paymentMethod.isEmpty()
+                ? countUsersAll(search, email, phone)
+                : countUsersByPaymentMethod(search, email, phone, paymentMethod);
+    }
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.createdAt IS NOT NULL
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN count(u)
+    """)
+    long countUsersAll(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone
+    );
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.createdAt IS NOT NULL
+          AND EXISTS { (u)-[:USES_PAYMENT]->(:PaymentMethod {name: $paymentMethod}) }
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN count(u)
+    """)
+    long countUsersByPaymentMethod(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("paymentMethod") String paymentMethod
+    );
+
+    // ── Offset pages by risk score ──
+    // Only scored users take part: the riskScore predicate lets user_risk_idx serve the
+    // ordering, so a page does not sort every user first. The payment-method filter is
+    // checked per user for the same reason as above.
+
+    default List<User> findUsersPagedByRisk(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod,
+            long skip,
+            long limit
+    ) {
+        return paymentMethod == null || paymentMethod.isEmpty()
+                ? findUsersPagedByRiskAll(search, email, phone, skip, limit)
+                : findUsersPagedByRiskAndPaymentMethod(search, email, phone, paymentMethod, skip, limit);
+    }
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.riskScore IS NOT NULL
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN u
+        ORDER BY u.riskScore DESC
+        SKIP $skip
+        LIMIT $limit
+    """)
+    List<User> findUsersPagedByRiskAll(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("skip") long skip,
+            @Param("limit") long limit
+    );
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.riskScore IS NOT NULL
+          AND EXISTS { (u)-[:USES_PAYMENT]->(:PaymentMethod {name: $paymentMethod}) }
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN u
+        ORDER BY u.riskScore DESC
+        SKIP $skip
+        LIMIT $limit
+    """)
+    List<User> findUsersPagedByRiskAndPaymentMethod(
             @Param("search") String search,
             @Param("email") String email,
             @Param("phone") String phone,
@@ -70,20 +195,113 @@ public interface UserRepository extends Neo4jRepository<User, String> {
             @Param("limit") long limit
     );
 
+    default long countScoredUsers(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod
+    ) {
+        return paymentMethod == null || paymentMethod.isEmpty()
+                ? countScoredUsersAll(search, email, phone)
+                : countScoredUsersByPaymentMethod(search, email, phone, paymentMethod);
+    }
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.riskScore IS NOT NULL
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN count(u)
+    """)
+    long countScoredUsersAll(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone
+    );
+
     @Query("""
         MATCH (u:User)
-        WHERE ($search IS NULL OR $search = ''
+        WHERE u.riskScore IS NOT NULL
+          AND EXISTS { (u)-[:USES_PAYMENT]->(:PaymentMethod {name: $paymentMethod}) }
+          AND ($search IS NULL OR $search = ''
                OR u.userId CONTAINS $search
                OR toLower(u.name) CONTAINS toLower($search))
           AND ($email IS NULL OR $email = '' OR u.email = $email)
           AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
-          AND ($paymentMethod IS NULL OR $paymentMethod = '' OR $paymentMethod IN u.paymentMethods)
         RETURN count(u)
     """)
-    long countUsers(
+    long countScoredUsersByPaymentMethod(
             @Param("search") String search,
             @Param("email") String email,
             @Param("phone") String phone,
             @Param("paymentMethod") String paymentMethod
     );
-}
\ No newline at end of file
+
+    // ── Keyset pages on (createdAt, userId) ──
+    // The cursor predicate is a range on createdAt, so each page is an index seek
+    // that reads roughly `limit` users no matter how deep the client has scrolled.
+
+    default List<User> findUsersAfter(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod,
+            LocalDateTime afterCreatedAt,
+            String afterUserId,
+            long limit
+    ) {
+        return paymentMethod == null || paymentMethod.isEmpty()
+                ? findUsersAfterAll(search, email, phone, afterCreatedAt, afterUserId, limit)
+                : findUsersAfterByPaymentMethod(search, email, phone, paymentMethod,
+                afterCreatedAt, afterUserId, limit);
+    }
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.createdAt <= $afterCreatedAt
+          AND (u.createdAt < $afterCreatedAt OR u.userId < $afterUserId)
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN u
+        ORDER BY u.createdAt DESC, u.userId DESC
+        LIMIT $limit
+    """)
+    List<User> findUsersAfterAll(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterUserId") String afterUserId,
+            @Param("limit") long limit
+    );
+
+    @Query("""
+        MATCH (u:User)
+        WHERE u.createdAt <= $afterCreatedAt
+          AND EXISTS { (u)-[:USES_PAYMENT]->(:PaymentMethod {name: $paymentMethod}) }
+          AND (u.createdAt < $afterCreatedAt OR u.userId < $afterUserId)
+          AND ($search IS NULL OR $search = ''
+               OR u.userId CONTAINS $search
+               OR toLower(u.name) CONTAINS toLower($search))
+          AND ($email IS NULL OR $email = '' OR u.email = $email)
+          AND ($phone IS NULL OR $phone = '' OR u.phone = $phone)
+        RETURN u
+        ORDER BY u.createdAt DESC, u.userId DESC
+        LIMIT $limit
+    """)
+    List<User> findUsersAfterByPaymentMethod(
+            @Param("search") String search,
+            @Param("email") String email,
+            @Param("phone") String phone,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterUserId") String afterUserId,
+            @Param("limit") long limit
+    );
+}
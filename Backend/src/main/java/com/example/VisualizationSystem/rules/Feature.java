@@ -0,0 +1,38 @@
+package com.example.VisualizationSystem.rules;
+
+/**
+ * Values a rule condition can test. Each transaction gets a {@code double[]} indexed by
+ * ordinal; flags are 0 / 1, and a feature that cannot be computed (no sender, no IP) is
+ * NaN, which fails every comparison but {@code !=}.
+ */
+public enum Feature {
+
+    AMOUNT("amount"),
+    NEW_DEVICE_FOR_SENDER("newDeviceForSender"),
+    NEW_IP_FOR_SENDER("newIpForSender"),
+    IP_CLUSTER_SIZE("ipClusterSize"),              // distinct senders on the IP, this one included
+    DEVICE_CLUSTER_SIZE("deviceClusterSize"),
+    SENDER_TXNS_1M("senderTxns1m"),                // before this transaction
+    SENDER_TXNS_5M("senderTxns5m"),
+    SENDER_TXNS_60M("senderTxns60m"),
+    SENDER_AMOUNT_60M("senderAmount60m"),
+    IP_TXNS_60M("ipTxns60m"),
+    DEVICE_TXNS_60M("deviceTxns60m");
+
+    private final String key;
+
+    Feature(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static Feature of(String key) {
+        for (Feature f : values()) {
+            if (f.key.equals(key)) return f;
+        }
+        throw new IllegalArgumentException("Unknown rule feature: " + key);
+    }
+}
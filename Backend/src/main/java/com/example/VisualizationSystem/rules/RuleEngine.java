@@ -0,0 +1,300 @@
+package com.example.VisualizationSystem.rules;
+
+import com.example.VisualizationSystem.config.RuleProperties;
+import com.example.VisualizationSystem.dto.RuleStatsResponse;
+import com.example.VisualizationSystem.dto.TransactionEdgeData;
+import com.example.VisualizationSystem.model.Transaction;
+import com.example.VisualizationSystem.service.VelocityService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Screens transactions against the configured rules before they are written.
+ * <p>
+ * Rule definitions are compiled once at startup: each condition becomes a lambda over
+ * the transaction's feature vector with its feature index, operator and threshold bound
+ * in, and a rule is the conjunction of its conditions. Per call, only the features some
+ * rule reads are computed, all from memory ({@link TransactionFeatureStore},
+ * {@link VelocityService}), so screening stays in the microseconds.
+ * <p>
+ * Every rule that hits adds its id to the transaction's {@code flagReasons}; a hit of a
+ * flagging rule also turns a PENDING or COMPLETED status into FLAGGED. Other statuses
+ * (FAILED, REVERSED, ...) are left as requested.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleEngine {
+
+    public static final String FLAGGED = "FLAGGED";
+
+    private static final Set<String> FLAGGABLE = Set.of("PENDING", "COMPLETED");
+    private static final int[] SENDER_WINDOWS = {1, 5, 60};
+    private static final int[] HOUR = {60};
+
+    private final RuleProperties props;
+    private final TransactionFeatureStore featureStore;
+    private final VelocityService velocity;
+
+    private List<CompiledRule> rules = List.of();
+    private final boolean[] needed = new boolean[Feature.values().length];
+
+    private final LongAdder screened = new LongAdder();
+    private final LongAdder screenNanos = new LongAdder();
+    private final LongAdder featureNanos = new LongAdder();
+    private final AtomicLong maxScreenNanos = new AtomicLong();
+
+    /**
+     * @param reasons  ids of the rules that hit, in definition order
+     * @param features the feature vector; entries no rule reads may be NaN
+     */
+    public record Screening(List<String> reasons, boolean flagged, double[] features, long nanos) {
+
+        public List<String> reasonsOrNull() {
+            return reasons.isEmpty() ? null : reasons;
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  COMPILATION
+    // ════════════════════════════════════════════════════════════════
+
+    @PostConstruct
+    void compile() {
+        List<CompiledRule> compiled = new ArrayList<>();
+        for (RuleProperties.Definition def : props.getDefinitions()) {
+            if (def.getId() == null || def.getConditions() == null || def.getConditions().isEmpty()) {
+                throw new IllegalStateException("Rule needs an id and at least one condition: " + def.getId());
+            }
+            Predicate<double[]> test = null;
+            List<String> text = new ArrayList<>();
+            for (RuleProperties.Condition c : def.getConditions()) {
+                Feature feature = Feature.of(c.getFeature());
+                Predicate<double[]> condition = condition(feature.ordinal(), c.getOp(), c.getValue());
+                test = test == null ? condition : test.and(condition);
+                needed[feature.ordinal()] = true;
+                text.add(feature.key() + " " + c.getOp() + " " + c.getValue());
+            }
+            compiled.add(new CompiledRule(def.getId(), def.getDescription(), def.isFlag(), text, test));
+        }
+        rules = List.copyOf(compiled);
+        log.info("Compiled {} transaction rules ({})", rules.size(), props.isEnabled() ? "enabled" : "disabled");
+    }
+
+    private static Predicate<double[]> condition(int i, String op, double v) {
+        return switch (op == null ? "" : op) {
+            case ">" -> x -> x[i] > v;
+            case ">=" -> x -> x[i] >= v;
+            case "<" -> x -> x[i] < v;
+            case "<=" -> x -> x[i] <= v;
+            case "==" -> x -> x[i] == v;
+            case "!=" -> x -> x[i] != v;
+            default -> throw new IllegalArgumentException("Unknown rule operator: " + op);
+        };
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  SCREENING
+    // ════════════════════════════════════════════════════════════════
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /**
+     * Evaluates a new transaction. The feature history is left alone; the caller adds the
+     * transaction with {@link #record} once it is stored, so a failed write leaves no trace.
+     */
+    public Screening screen(String senderId, String ip, String deviceId, Double amount) {
+        return evaluate(senderId, ip, deviceId, amount, true);
+    }
+
+    /** Adds a stored transaction to the feature history. */
+    public void record(String senderId, String ip, String deviceId) {
+        featureStore.record(senderId, ip, deviceId);
+    }
+
+    /** Evaluates without recording anything, for dry runs. */
+    public Screening dryRun(String senderId, String ip, String deviceId, Double amount) {
+        return evaluate(senderId, ip, deviceId, amount, false);
+    }
+
+    /** Status to store: FLAGGED when a flagging rule hit and the requested status allows it. */
+    public static String statusFor(String requested, Screening screening) {
+        if (!screening.flagged()) return requested;
+        return requested == null || FLAGGABLE.contains(requested) ? FLAGGED : requested;
+    }
+
+    /**
+     * Screens generated pipeline data in timestamp order, so history features see only
+     * earlier transactions, and sets status and flag reasons on the transactions in place.
+     * Velocity is tracked from wall-clock now and is still empty at this point, so velocity
+     * rules only ever hit live writes.
+     */
+    public void screenAll(List<TransactionEdgeData> edges) {
+        if (!props.isEnabled()) return;
+        long start = System.nanoTime();
+        List<TransactionEdgeData> ordered = new ArrayList<>(edges);
+        ordered.sort(Comparator.comparing(e -> e.getTransaction().getTimestamp(),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+
+        int flagged = 0;
+        Map<String, Integer> hits = new LinkedHashMap<>();
+        for (TransactionEdgeData e : ordered) {
+            Transaction tx = e.getTransaction();
+            Screening s = screen(e.getSenderId(), tx.getIp(), tx.getDeviceId(), tx.getAmount());
+            // later transactions of the batch are screened against this one before anything is written
+            record(e.getSenderId(), tx.getIp(), tx.getDeviceId());
+            if (s.reasons().isEmpty()) continue;
+            tx.setFlagReasons(s.reasons());
+            String status = statusFor(tx.getStatus(), s);
+            if (FLAGGED.equals(status) && !FLAGGED.equals(tx.getStatus())) flagged++;
+            tx.setStatus(status);
+            s.reasons().forEach(r -> hits.merge(r, 1, Integer::sum));
+        }
+        log.info("Rules screened {} transactions in {} ms: {} newly flagged, hits {}",
+                ordered.size(), (System.nanoTime() - start) / 1_000_000, flagged, hits);
+    }
+
+    private Screening evaluate(String senderId, String ip, String deviceId, Double amount, boolean count) {
+        long start = System.nanoTime();
+        double[] x = features(senderId, ip, deviceId, amount);
+        long featuresDone = System.nanoTime();
+
+        List<String> reasons = List.of();
+        boolean flag = false;
+        for (CompiledRule rule : rules) {
+            long t0 = System.nanoTime();
+            boolean hit = rule.test.test(x);
+            if (count) rule.count(hit, System.nanoTime() - t0);
+            if (hit) {
+                if (reasons.isEmpty()) reasons = new ArrayList<>(2);
+                reasons.add(rule.id);
+                flag |= rule.flag;
+            }
+        }
+
+        long nanos = System.nanoTime() - start;
+        if (count) {
+            screened.increment();
+            screenNanos.add(nanos);
+            featureNanos.add(featuresDone - start);
+            maxScreenNanos.accumulateAndGet(nanos, Math::max);
+        }
+        return new Screening(reasons, flag, x, nanos);
+    }
+
+    private double[] features(String senderId, String ip, String deviceId, Double amount) {
+        double[] x = new double[needed.length];
+        Arrays.fill(x, Double.NaN);
+
+        if (needed[Feature.AMOUNT.ordinal()] && amount != null) {
+            x[Feature.AMOUNT.ordinal()] = amount;
+        }
+        if (needed[Feature.NEW_DEVICE_FOR_SENDER.ordinal()] && senderId != null && deviceId != null) {
+            x[Feature.NEW_DEVICE_FOR_SENDER.ordinal()] = featureStore.knownDevice(senderId, deviceId) ? 0 : 1;
+        }
+        if (needed[Feature.NEW_IP_FOR_SENDER.ordinal()] && senderId != null && ip != null) {
+            x[Feature.NEW_IP_FOR_SENDER.ordinal()] = featureStore.knownIp(senderId, ip) ? 0 : 1;
+        }
+        if (needed[Feature.IP_CLUSTER_SIZE.ordinal()] && ip != null) {
+            x[Feature.IP_CLUSTER_SIZE.ordinal()] = featureStore.ipClusterSize(ip, senderId);
+        }
+        if (needed[Feature.DEVICE_CLUSTER_SIZE.ordinal()] && deviceId != null) {
+            x[Feature.DEVICE_CLUSTER_SIZE.ordinal()] = featureStore.deviceClusterSize(deviceId, senderId);
+        }
+
+        if (senderId != null && (needed[Feature.SENDER_TXNS_1M.ordinal()] || needed[Feature.SENDER_TXNS_5M.ordinal()]
+                || needed[Feature.SENDER_TXNS_60M.ordinal()] || needed[Feature.SENDER_AMOUNT_60M.ordinal()])) {
+            long[] counts = new long[SENDER_WINDOWS.length];
+            double[] amounts = new double[SENDER_WINDOWS.length];
+            velocity.totals(VelocityService.Dimension.SENDER, senderId, SENDER_WINDOWS, counts, amounts);
+            x[Feature.SENDER_TXNS_1M.ordinal()] = counts[0];
+            x[Feature.SENDER_TXNS_5M.ordinal()] = counts[1];
+            x[Feature.SENDER_TXNS_60M.ordinal()] = counts[2];
+            x[Feature.SENDER_AMOUNT_60M.ordinal()] = amounts[2];
+        }
+        if (needed[Feature.IP_TXNS_60M.ordinal()] && ip != null) {
+            x[Feature.IP_TXNS_60M.ordinal()] = lastHour(VelocityService.Dimension.IP, ip);
+        }
+        if (needed[Feature.DEVICE_TXNS_60M.ordinal()] && deviceId != null) {
+            x[Feature.DEVICE_TXNS_60M.ordinal()] = lastHour(VelocityService.Dimension.DEVICE, deviceId);
+        }
+        return x;
+    }
+
+    private long lastHour(VelocityService.Dimension dimension, String key) {
+        long[] counts = new long[1];
+        velocity.totals(dimension, key, HOUR, counts, new double[1]);
+        return counts[0];
+    }
+
+    /** The features some rule reads, by name, for showing a screening. */
+    public Map<String, Double> featuresOf(Screening screening) {
+        Map<String, Double> named = new LinkedHashMap<>();
+        for (Feature f : Feature.values()) {
+            if (needed[f.ordinal()]) named.put(f.key(), screening.features()[f.ordinal()]);
+        }
+        return named;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  METRICS
+    // ════════════════════════════════════════════════════════════════
+
+    public RuleStatsResponse stats() {
+        long n = screened.sum();
+        List<RuleStatsResponse.Rule> perRule = new ArrayList<>(rules.size());
+        for (CompiledRule rule : rules) {
+            long evaluations = rule.evaluations.sum();
+            perRule.add(new RuleStatsResponse.Rule(rule.id, rule.description, rule.flag, rule.conditions,
+                    evaluations, rule.hits.sum(),
+                    evaluations > 0 ? (double) rule.nanos.sum() / evaluations : 0,
+                    rule.maxNanos.get()));
+        }
+        return RuleStatsResponse.builder()
+                .enabled(props.isEnabled())
+                .screened(n)
+                .avgMicros(n > 0 ? screenNanos.sum() / 1_000.0 / n : 0)
+                .avgFeatureMicros(n > 0 ? featureNanos.sum() / 1_000.0 / n : 0)
+                .maxMicros(maxScreenNanos.get() / 1_000.0)
+                .rules(perRule)
+                .build();
+    }
+
+    private static final class CompiledRule {
+
+        final String id;
+        final String description;
+        final boolean flag;
+        final List<String> conditions;
+        final Predicate<double[]> test;
+
+        final LongAdder evaluations = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        CompiledRule(String id, String description, boolean flag, List<String> conditions, Predicate<double[]> test) {
+            this.id = id;
+            this.description = description;
+            this.flag = flag;
+            this.conditions = List.copyOf(conditions);
+            this.test = test;
+        }
+
+        void count(boolean hit, long elapsed) {
+            evaluations.increment();
+            if (hit) hits.increment();
+            nanos.add(elapsed);
+            if (elapsed > maxNanos.get()) maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+}
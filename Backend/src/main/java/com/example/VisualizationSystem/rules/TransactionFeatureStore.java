@@ -0,0 +1,111 @@
+package com.example.VisualizationSystem.rules;
+
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sender / IP / device history the rules need, kept in memory so screening a write never
+ * waits on Neo4j: which devices and IPs each sender has used, and how many distinct senders
+ * each IP and device has seen. Loaded from the database once at startup, then kept up to
+ * date by stored writes and pipeline runs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionFeatureStore {
+
+    // Cluster sizes saturate here; rules only care about small thresholds
+    private static final int MAX_MEMBERS = 1_000;
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+
+    private final Map<String, Set<String>> senderDevices = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> senderIps = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> ipSenders = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> deviceSenders = new ConcurrentHashMap<>();
+
+    public boolean knownDevice(String senderId, String deviceId) {
+        return contains(senderDevices, senderId, deviceId);
+    }
+
+    public boolean knownIp(String senderId, String ip) {
+        return contains(senderIps, senderId, ip);
+    }
+
+    /** Distinct senders on the IP, counting {@code senderId} whether or not it was seen before. */
+    public int ipClusterSize(String ip, String senderId) {
+        return clusterSize(ipSenders, ip, senderId);
+    }
+
+    public int deviceClusterSize(String deviceId, String senderId) {
+        return clusterSize(deviceSenders, deviceId, senderId);
+    }
+
+    public void record(String senderId, String ip, String deviceId) {
+        if (senderId == null) return;
+        add(senderDevices, senderId, deviceId);
+        add(senderIps, senderId, ip);
+        add(ipSenders, ip, senderId);
+        add(deviceSenders, deviceId, senderId);
+    }
+
+    public void clear() {
+        senderDevices.clear();
+        senderIps.clear();
+        ipSenders.clear();
+        deviceSenders.clear();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        workers.pool().execute(() -> {
+            long start = System.nanoTime();
+            try {
+                int[] rows = {0};
+                neo4jClient.query("""
+                                MATCH (u:User)-[:SENT]->(t:Transaction)
+                                RETURN u.userId AS senderId, t.ip AS ip, t.deviceId AS deviceId
+                                """)
+                        .fetch()
+                        .all()
+                        .forEach(row -> {
+                            record((String) row.get("senderId"), (String) row.get("ip"), (String) row.get("deviceId"));
+                            rows[0]++;
+                        });
+                log.info("Rule features loaded from {} transactions in {} ms",
+                        rows[0], (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Rule features could not be loaded, starting empty: {}", e.getMessage());
+            }
+        });
+    }
+
+    private static boolean contains(Map<String, Set<String>> map, String key, String value) {
+        if (key == null || value == null) return false;
+        Set<String> values = map.get(key);
+        return values != null && values.contains(value);
+    }
+
+    private static int clusterSize(Map<String, Set<String>> map, String key, String member) {
+        Set<String> members = map.get(key);
+        if (members == null) return member != null ? 1 : 0;
+        int size = members.size();
+        return member != null && !members.contains(member) ? size + 1 : size;
+    }
+
+    private static void add(Map<String, Set<String>> map, String key, String value) {
+        if (key == null || value == null) return;
+        Set<String> values = map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+        if (values.size() < MAX_MEMBERS) values.add(value);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.BatchGraphResponse;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import com.example.VisualizationSystem.graph.NeighborSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relationship graphs of several users and transactions merged into one response.
+ * <p>
+ * Each seed goes through the regular per-seed graph (cache, then projection, then
+ * Cypher), so overlapping neighbourhoods already loaded for one seed are not fetched
+ * again for the next. Seeds are loaded by a few workers at a time rather than one
+ * task each, keeping a large batch from taking over the shared pool or the driver's
+ * connections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchGraphService {
+
+    private static final int MAX_PARALLEL_LOADS = 4;
+
+    private final UserRelationshipService userRelationshipService;
+    private final TransactionRelationshipService transactionRelationshipService;
+    private final GraphWorkers workers;
+
+    private record SeedRef(String id, String type) {}
+
+    public BatchGraphResponse getGraphs(Collection<String> userIds, Collection<String> transactionIds,
+                                        int peerLimit, boolean cluster) {
+        List<SeedRef> seeds = new ArrayList<>(userIds.size() + transactionIds.size());
+        userIds.forEach(id -> seeds.add(new SeedRef(id, NeighborSource.USER)));
+        transactionIds.forEach(id -> seeds.add(new SeedRef(id, NeighborSource.TRANSACTION)));
+
+        List<Map<String, Object>> graphs = load(seeds, peerLimit, cluster);
+        return merge(seeds, graphs);
+    }
+
+    // ─────────────────────────────────────────────
+    // Bounded fan-out
+    // ─────────────────────────────────────────────
+
+    /**
+     * Loads every seed's graph, in seed order. The calling thread is one of the workers,
+     * so a single-seed batch never leaves it.
+     */
+    private List<Map<String, Object>> load(List<SeedRef> seeds, int peerLimit, boolean cluster) {
+        Object[] graphs = new Object[seeds.size()];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < seeds.size(); i = next.getAndIncrement()) {
+                SeedRef seed = seeds.get(i);
+                graphs[i] = NeighborSource.USER.equals(seed.type())
+                        ? userRelationshipService.getUserGraph(seed.id())
+                        : transactionRelationshipService.getTransactionGraph(seed.id(), peerLimit, cluster);
+            }
+        };
+
+        int helpers = Math.min(MAX_PARALLEL_LOADS, seeds.size()) - 1;
+        CompletableFuture<?>[] running = new CompletableFuture<?>[Math.max(0, helpers)];
+        for (int w = 0; w < running.length; w++) {
+            running[w] = CompletableFuture.runAsync(worker, workers.pool());
+        }
+        try {
+            worker.run();
+        } finally {
+            join(CompletableFuture.allOf(running));
+        }
+
+        List<Map<String, Object>> loaded = new ArrayList<>(graphs.length);
+        for (Object graph : graphs) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) graph;
+            loaded.add(map);
+        }
+        return loaded;
+    }
+
+    private static void join(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Merge
+    // ─────────────────────────────────────────────
+
+    private static BatchGraphResponse merge(List<SeedRef> seeds, List<Map<String, Object>> graphs) {
+        int expected = 0;
+        for (Map<String, Object> g : graphs) expected += nodes(g).size();
+        GraphBuilder graph = new GraphBuilder(expected);
+
+        // Each seed's own node first: the copy in its own graph is the detailed one
+        // (the main user carries email and payment methods, a peer only its name)
+        for (Map<String, Object> g : graphs) {
+            if (!nodes(g).isEmpty()) graph.addNode(nodes(g).get(0));
+        }
+
+        Map<String, List<String>> membership = new LinkedHashMap<>();
+        List<BatchGraphResponse.Seed> seedInfo = new ArrayList<>(seeds.size());
+        List<String> missing = new ArrayList<>();
+
+        for (int i = 0; i < seeds.size(); i++) {
+            SeedRef seed = seeds.get(i);
+            Map<String, Object> g = graphs.get(i);
+            List<GraphNode> nodes = nodes(g);
+
+            for (GraphNode node : nodes) {
+                graph.addNode(node);
+                membership.computeIfAbsent(node.id(), k -> new ArrayList<>(2)).add(seed.id());
+            }
+            for (GraphEdge edge : edges(g)) {
+                graph.addEdge(edge);
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>(g);
+            summary.remove("nodes");
+            summary.remove("edges");
+
+            boolean found = !nodes.isEmpty();
+            if (!found) missing.add(seed.id());
+            seedInfo.add(new BatchGraphResponse.Seed(seed.id(), seed.type(), found, nodes.size(), summary));
+        }
+
+        log.info("Merged {} seed graphs into {} nodes / {} edges ({} missing)",
+                seeds.size(), graph.nodeCount(), graph.edges().size(), missing.size());
+
+        return BatchGraphResponse.builder()
+                .seeds(seedInfo)
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .membership(membership)
+                .missing(missing)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GraphNode> nodes(Map<String, Object> graph) {
+        Object nodes = graph.get("nodes");
+        return nodes != null ? (List<GraphNode>) nodes : List.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GraphEdge> edges(Map<String, Object> graph) {
+        Object edges = graph.get("edges");
+        return edges != null ? (List<GraphEdge>) edges : List.of();
+    }
+}
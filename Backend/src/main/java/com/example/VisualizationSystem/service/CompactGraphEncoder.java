@@ -0,0 +1,188 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.CompactGraphResponse;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Encodes node/edge graph responses into {@link CompactGraphResponse}.
+ * <p>
+ * Clients opt in through {@code Accept}: {@value #COMPACT_JSON_VALUE} for the columnar
+ * JSON form or {@code application/cbor} for the same structure in CBOR. Anything else
+ * keeps the regular per-element JSON.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompactGraphEncoder {
+
+    public static final String COMPACT_JSON_VALUE = "application/vnd.graph.compact+json";
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+
+    private static final List<MediaType> COMPACT_TYPES = List.of(COMPACT_JSON, MediaType.APPLICATION_CBOR);
+
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Picks the compact media type named in the {@code Accept} header, unless the client
+     * prefers plain JSON at a higher quality.
+     *
+     * @return the compact type to respond with, or empty for the regular form
+     */
+    public Optional<MediaType> negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return Optional.empty();
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return Optional.empty();
+        }
+
+        MediaType best = null;
+        double bestQuality = 0;
+        double jsonQuality = 0;
+        for (MediaType type : accepted) {
+            double q = type.getQualityValue();
+            if (COMPACT_TYPES.stream().anyMatch(type::equalsTypeAndSubtype)) {
+                if (q > bestQuality) {
+                    best = type.removeQualityValue();
+                    bestQuality = q;
+                }
+            } else if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                jsonQuality = Math.max(jsonQuality, q);
+            }
+        }
+        return best != null && bestQuality >= jsonQuality ? Optional.of(best) : Optional.empty();
+    }
+
+    /**
+     * Encodes a response carrying {@code nodes} and {@code edges} lists, either a graph map
+     * or a DTO such as the expansion response; its other fields end up in {@code meta}.
+     */
+    @SuppressWarnings("unchecked")
+    public CompactGraphResponse encode(Object response) {
+        Map<String, Object> graph = response instanceof Map<?, ?> map
+                ? (Map<String, Object>) map
+                : jsonMapper.convertValue(response, Map.class);
+
+        List<?> nodes = elements(graph.get("nodes"));
+        List<?> edges = elements(graph.get("edges"));
+
+        Dictionary strings = new Dictionary();
+        Map<String, Integer> nodeIndex = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            Object node = nodes.get(i);
+            String id = node instanceof GraphNode n ? n.id() : (String) ((Map<?, ?>) node).get("id");
+            nodeIndex.putIfAbsent(id, i);
+        }
+
+        Map<String, Object> meta = new LinkedHashMap<>(graph);
+        meta.remove("nodes");
+        meta.remove("edges");
+
+        return CompactGraphResponse.builder()
+                .nodeCount(nodes.size())
+                .nodes(columns(nodes, Set.of(), strings, null))
+                .edgeCount(edges.size())
+                .edges(columns(edges, Set.of("id"), strings, nodeIndex))
+                .strings(strings.values())
+                .meta(meta)
+                .build();
+    }
+
+    /**
+     * One column per property seen on any element, in first-seen order.
+     * Edge endpoints become node indexes when every endpoint is a node of the graph.
+     */
+    private static Map<String, CompactGraphResponse.Column> columns(List<?> rows,
+                                                                   Set<String> skip,
+                                                                   Dictionary strings,
+                                                                   Map<String, Integer> nodeIndex) {
+        Map<String, Object[]> raw = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = i;
+            forEachProperty(rows.get(i), (name, value) -> {
+                if (value == null || skip.contains(name)) return;
+                raw.computeIfAbsent(name, k -> new Object[rows.size()])[row] = value;
+            });
+        }
+
+        Map<String, CompactGraphResponse.Column> columns = new LinkedHashMap<>();
+        for (Map.Entry<String, Object[]> e : raw.entrySet()) {
+            boolean endpoint = nodeIndex != null && (e.getKey().equals("source") || e.getKey().equals("target"));
+            columns.put(e.getKey(), column(e.getValue(), strings, endpoint ? nodeIndex : null));
+        }
+        return columns;
+    }
+
+    private static CompactGraphResponse.Column column(Object[] values, Dictionary strings,
+                                                      Map<String, Integer> nodeIndex) {
+        boolean allStrings = true;
+        boolean allNumbers = true;
+        for (Object v : values) {
+            if (v == null) continue;
+            allStrings &= v instanceof String;
+            allNumbers &= v instanceof Number;
+        }
+
+        if (allStrings && nodeIndex != null) {
+            int[] indexes = new int[values.length];
+            boolean resolved = true;
+            for (int i = 0; i < values.length && resolved; i++) {
+                Integer idx = values[i] != null ? nodeIndex.get(values[i]) : null;
+                resolved = idx != null;
+                indexes[i] = resolved ? idx : -1;
+            }
+            if (resolved) {
+                return new CompactGraphResponse.Column("node", indexes);
+            }
+        }
+        if (allStrings) {
+            int[] codes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                codes[i] = values[i] != null ? strings.code((String) values[i]) : -1;
+            }
+            return new CompactGraphResponse.Column("str", codes);
+        }
+        return new CompactGraphResponse.Column(allNumbers ? "num" : "raw", Arrays.asList(values));
+    }
+
+    private static void forEachProperty(Object element, BiConsumer<String, Object> sink) {
+        switch (element) {
+            case GraphNode node -> node.forEachProperty(sink);
+            case GraphEdge edge -> edge.forEachProperty(sink);
+            case Map<?, ?> map -> map.forEach((k, v) -> sink.accept((String) k, v));
+            default -> throw new IllegalArgumentException("Unsupported graph element " + element.getClass());
+        }
+    }
+
+    private static List<?> elements(Object value) {
+        return value != null ? (List<?>) value : List.of();
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        List<String> values() {
+            return values;
+        }
+    }
+}
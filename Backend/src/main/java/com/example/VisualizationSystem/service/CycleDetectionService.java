@@ -0,0 +1,350 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.CycleDetectionProperties;
+import com.example.VisualizationSystem.dto.CycleJobResponse;
+import com.example.VisualizationSystem.dto.CycleResponse;
+import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.exception.ConflictException;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.Csr;
+import com.example.VisualizationSystem.graph.GraphProjection;
+import com.example.VisualizationSystem.graph.GraphProjectionLoader;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import com.example.VisualizationSystem.graph.TransferCycleSearch;
+import com.example.VisualizationSystem.graph.TransferPathSearch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Round-tripping money: simple TRANSFERRED_TO cycles of up to {@code maxLength} users.
+ * <p>
+ * A job takes the current projection snapshot (or loads one when the projection is
+ * disabled), enumerates the cycles with {@link TransferCycleSearch} on the fork-join pool
+ * and replaces the stored results: every cycle becomes a {@code :Cycle} node linked from
+ * its users by {@code IN_CYCLE {position}}. A cycle's id is derived from its user ids, so
+ * the same cycle keeps its id across runs.
+ * <p>
+ * One job at a time, started on request. A cancelled job stops within a few thousand node
+ * visits and leaves the previous results in place.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CycleDetectionService {
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final GraphProjectionService graphProjection;
+    private final GraphProjectionLoader loader;
+    private final CycleDetectionProperties props;
+
+    /** One run; {@code search} is set once the graph is loaded. */
+    private static final class Job {
+        final CycleJobResponse params;
+        volatile boolean cancelled;
+        volatile TransferCycleSearch search;
+        volatile int users;
+
+        Job(CycleJobResponse params) {
+            this.params = params;
+        }
+    }
+
+    // guarded by this
+    private Job current;
+    private CycleJobResponse last = CycleJobResponse.builder().state("idle").build();
+
+    public synchronized CycleJobResponse status() {
+        if (current == null) return last;
+        TransferCycleSearch search = current.search;
+        return current.params.toBuilder()
+                .state("running")
+                .users(current.users)
+                .startsDone(search != null ? search.startsDone() : 0)
+                .cyclesFound(search != null ? search.cyclesFound() : 0)
+                .build();
+    }
+
+    /**
+     * Starts a job on the worker pool.
+     *
+     * @param maxLength longest cycle in users, or null for the configured default
+     * @param maxCycles stop after this many cycles, or null for the configured default
+     */
+    public synchronized CycleJobResponse start(Integer maxLength, Double minAmount, LocalDateTime since,
+                                               LocalDateTime until, Integer maxCycles) {
+        if (current != null) {
+            throw new ConflictException("A cycle detection job is already running");
+        }
+        CycleJobResponse params = CycleJobResponse.builder()
+                .startedAt(Instant.now())
+                .maxLength(maxLength != null ? maxLength : props.getMaxLength())
+                .minAmount(minAmount)
+                .since(since)
+                .until(until)
+                .maxCycles(maxCycles != null ? maxCycles : props.getMaxCycles())
+                .build();
+        Job job = new Job(params);
+        current = job;
+        workers.jobs().execute(() -> {
+            CycleJobResponse report = run(job);
+            synchronized (this) {
+                last = report;
+                current = null;
+            }
+        });
+        return status();
+    }
+
+    /** Asks the running job to stop; nothing it found is written. */
+    public synchronized CycleJobResponse cancel() {
+        if (current == null) {
+            throw new ConflictException("No cycle detection job is running");
+        }
+        current.cancelled = true;
+        log.info("Cycle detection cancel requested");
+        return status();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  QUERIES
+    // ════════════════════════════════════════════════════════════════
+
+    /** Stored cycles the user takes part in, largest total amount first. */
+    public PageResponse<CycleResponse> getCyclesOfUser(String userId, int page, int size) {
+        Long total = neo4jClient.query("""
+                        MATCH (u:User {userId: $userId})
+                        RETURN COUNT { (u)-[:IN_CYCLE]->(:Cycle) } AS total
+                        """)
+                .bind(userId).to("userId")
+                .fetchAs(Long.class)
+                .one()
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        List<CycleResponse> content = new ArrayList<>(size);
+        neo4jClient.query("""
+                        MATCH (:User {userId: $userId})-[:IN_CYCLE]->(c:Cycle)
+                        RETURN c.cycleId AS cycleId, c.length AS length, c.userIds AS userIds,
+                               c.amounts AS amounts, c.bottleneck AS bottleneck, c.totalAmount AS totalAmount,
+                               c.firstAt AS firstAt, c.lastAt AS lastAt, c.detectedAt AS detectedAt
+                        ORDER BY c.totalAmount DESC, c.cycleId
+                        SKIP $skip LIMIT $limit
+                        """)
+                .bind(userId).to("userId")
+                .bind((long) page * size).to("skip")
+                .bind(size).to("limit")
+                .fetch()
+                .all()
+                .forEach(row -> content.add(new CycleResponse(
+                        (String) row.get("cycleId"),
+                        ((Number) row.get("length")).intValue(),
+                        strings(row.get("userIds")),
+                        doubles(row.get("amounts")),
+                        ((Number) row.get("bottleneck")).doubleValue(),
+                        ((Number) row.get("totalAmount")).doubleValue(),
+                        (LocalDateTime) row.get("firstAt"),
+                        (LocalDateTime) row.get("lastAt"),
+                        (LocalDateTime) row.get("detectedAt"))));
+        return new PageResponse<>(content, total, page, size);
+    }
+
+    private static List<String> strings(Object list) {
+        List<String> result = new ArrayList<>();
+        for (Object o : (List<?>) list) result.add((String) o);
+        return result;
+    }
+
+    private static List<Double> doubles(Object list) {
+        List<Double> result = new ArrayList<>();
+        for (Object o : (List<?>) list) result.add(((Number) o).doubleValue());
+        return result;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  JOB
+    // ════════════════════════════════════════════════════════════════
+
+    private CycleJobResponse run(Job job) {
+        CycleJobResponse params = job.params;
+        long start = System.nanoTime();
+        try {
+            GraphProjection p = graphProjection.snapshot().orElseGet(loader::load);
+            job.users = p.getUsers().size();
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+            TransferPathSearch.Constraints constraints = new TransferPathSearch.Constraints(
+                    params.getMinAmount() != null ? params.getMinAmount() : 0,
+                    params.getSince() != null ? GraphProjection.toEpochMillis(params.getSince()) : Long.MIN_VALUE,
+                    params.getUntil() != null ? GraphProjection.toEpochMillis(params.getUntil()) : Long.MAX_VALUE);
+            TransferCycleSearch search = new TransferCycleSearch(p, params.getMaxLength(), constraints,
+                    params.getMaxCycles(), props.getBudgetPerStart(), () -> job.cancelled);
+            job.search = search;
+
+            long searchStart = System.nanoTime();
+            TransferCycleSearch.Result result = search.run(workers.forkJoin(), workers.forkJoin().getParallelism());
+            long searchMillis = (System.nanoTime() - searchStart) / 1_000_000;
+
+            Map<Integer, Integer> histogram = new TreeMap<>();
+            for (TransferCycleSearch.Cycle cycle : result.cycles()) {
+                histogram.merge(cycle.length(), 1, Integer::sum);
+            }
+
+            long writeMillis = 0;
+            if (!result.cancelled()) {
+                long writeStart = System.nanoTime();
+                ensureConstraint();
+                replaceCycles(p, result.cycles());
+                writeMillis = (System.nanoTime() - writeStart) / 1_000_000;
+            }
+
+            CycleJobResponse report = params.toBuilder()
+                    .state(result.cancelled() ? "cancelled" : "completed")
+                    .finishedAt(Instant.now())
+                    .users(p.getUsers().size())
+                    .startsDone(result.startsDone())
+                    .cyclesFound(result.cycles().size())
+                    .truncated(result.truncated())
+                    .budgetExhaustedStarts(result.exhaustedStarts())
+                    .visited(result.visited())
+                    .lengthHistogram(histogram)
+                    .loadMillis(loadMillis)
+                    .searchMillis(searchMillis)
+                    .writeMillis(writeMillis)
+                    .totalMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+            log.info("Cycle detection (length <= {}): {} cycles{} over {} users, {} visited, "
+                            + "load {} ms, search {} ms, write {} ms{}",
+                    params.getMaxLength(), report.getCyclesFound(), report.isTruncated() ? " (truncated)" : "",
+                    report.getUsers(), report.getVisited(), loadMillis, searchMillis, writeMillis,
+                    result.cancelled() ? " — cancelled, nothing written" : "");
+            return report;
+        } catch (RuntimeException e) {
+            log.error("Cycle detection failed", e);
+            return params.toBuilder()
+                    .state("failed")
+                    .finishedAt(Instant.now())
+                    .error(e.getMessage())
+                    .totalMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITE-BACK
+    // ════════════════════════════════════════════════════════════════
+
+    /** Also created here for databases loaded before it existed. */
+    private void ensureConstraint() {
+        neo4jClient.query("CREATE CONSTRAINT cycle_id_unique IF NOT EXISTS FOR (c:Cycle) REQUIRE c.cycleId IS UNIQUE")
+                .run();
+    }
+
+    private void replaceCycles(GraphProjection p, List<TransferCycleSearch.Cycle> cycles) {
+        int batch = Math.max(1, props.getWriteBatchSize());
+
+        // In slices, so a large previous result does not become one huge transaction
+        long deleted;
+        do {
+            deleted = neo4jClient.query("""
+                            MATCH (c:Cycle)
+                            WITH c LIMIT $batch
+                            DETACH DELETE c
+                            RETURN count(*) AS deleted
+                            """)
+                    .bind(batch * 10).to("batch")
+                    .fetchAs(Long.class)
+                    .one()
+                    .orElse(0L);
+        } while (deleted > 0);
+
+        Csr transfers = p.getTransfers();
+        LocalDateTime detectedAt = LocalDateTime.now();
+        Set<String> seen = new HashSet<>();      // parallel TRANSFERRED_TO edges repeat a cycle
+        List<Map<String, Object>> rows = new ArrayList<>(Math.min(cycles.size(), batch));
+        for (TransferCycleSearch.Cycle cycle : cycles) {
+            Map<String, Object> row = toRow(p, transfers, cycle, detectedAt);
+            if (!seen.add((String) row.get("cycleId"))) continue;
+            rows.add(row);
+            if (rows.size() == batch) {
+                writeBatch(rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) writeBatch(rows);
+    }
+
+    /**
+     * The cycle rotated to start at its smallest user id. Projection indexes need not follow
+     * id order, and the ids are what identify the cycle to everything outside this run.
+     */
+    private static Map<String, Object> toRow(GraphProjection p, Csr transfers, TransferCycleSearch.Cycle cycle,
+                                             LocalDateTime detectedAt) {
+        int length = cycle.length();
+        int first = 0;
+        for (int i = 1; i < length; i++) {
+            if (p.getUsers().id(cycle.users()[i]).compareTo(p.getUsers().id(cycle.users()[first])) < 0) first = i;
+        }
+
+        List<String> userIds = new ArrayList<>(length);
+        List<Double> amounts = new ArrayList<>(length);
+        double bottleneck = Double.POSITIVE_INFINITY;
+        double total = 0;
+        double firstAt = Double.NaN;
+        double lastAt = Double.NaN;
+        for (int k = 0; k < length; k++) {
+            int i = (first + k) % length;
+            int e = cycle.edges()[i];
+            double amount = transfers.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e);
+            userIds.add(p.getUsers().id(cycle.users()[i]));
+            amounts.add(amount);
+            bottleneck = Math.min(bottleneck, amount);
+            total += amount;
+            double edgeFirst = transfers.weight(GraphProjection.TRANSFER_FIRST_AT, e);
+            double edgeLast = transfers.weight(GraphProjection.TRANSFER_LAST_AT, e);
+            if (!Double.isNaN(edgeFirst) && !(edgeFirst >= firstAt)) firstAt = edgeFirst;
+            if (!Double.isNaN(edgeLast) && !(edgeLast <= lastAt)) lastAt = edgeLast;
+        }
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("cycleId", UUID.nameUUIDFromBytes(
+                String.join("\u0000", userIds).getBytes(StandardCharsets.UTF_8)).toString());
+        row.put("length", length);
+        row.put("userIds", userIds);
+        row.put("amounts", amounts);
+        row.put("bottleneck", bottleneck);
+        row.put("totalAmount", total);
+        row.put("firstAt", dateTime(firstAt));
+        row.put("lastAt", dateTime(lastAt));
+        row.put("detectedAt", detectedAt);
+        return row;
+    }
+
+    private static LocalDateTime dateTime(double epochMillis) {
+        return Double.isNaN(epochMillis) ? null : GraphProjection.toLocalDateTime((long) epochMillis);
+    }
+
+    private void writeBatch(List<Map<String, Object>> rows) {
+        neo4jClient.query("""
+                        UNWIND $rows AS row
+                        CREATE (c:Cycle {
+                            cycleId: row.cycleId, length: row.length, userIds: row.userIds,
+                            amounts: row.amounts, bottleneck: row.bottleneck, totalAmount: row.totalAmount,
+                            firstAt: row.firstAt, lastAt: row.lastAt, detectedAt: row.detectedAt
+                        })
+                        WITH c, row
+                        UNWIND range(0, size(row.userIds) - 1) AS position
+                        MATCH (u:User {userId: row.userIds[position]})
+                        CREATE (u)-[:IN_CYCLE {position: position}]->(c)
+                        """)
+                .bind(rows).to("rows")
+                .run();
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.FraudRingResponse;
+import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.event.GraphProjectionRebuiltEvent;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.ConcurrentUnionFind;
+import com.example.VisualizationSystem.graph.Csr;
+import com.example.VisualizationSystem.graph.GraphProjection;
+import com.example.VisualizationSystem.graph.GraphProjectionLoader;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Identity rings: connected components of users linked by SAME_EMAIL / SAME_PHONE /
+ * SAME_ADDRESS, or by sending transactions that share an IP or a device.
+ * <p>
+ * Components are recomputed with a parallel union-find from every new projection
+ * snapshot, or, when there is no projection, from a one-off load at startup and after
+ * every bulk reload. In between they are merged incrementally as user and transaction
+ * writes add links. Splits (removed links, deletes) only show after the next recomputation. Rings of two
+ * or more users are kept in memory for listing and written to the users as
+ * {@code ringId} / {@code ringSize}; a ring is named after its smallest user id.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FraudRingService {
+
+    public static final String RING_PREFIX = "ring-";
+
+    private static final int CHUNK = 4_096;
+    private static final int WRITE_BATCH = 2_000;
+    private static final long REPLAY_SLACK_MS = 1_000;
+    private static final int MAX_RECENT_LINKS = 10_000;
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final GraphProjectionService graphProjection;
+    private final GraphProjectionLoader loader;
+
+    // recomputations from a one-off load, used when there is no projection
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private final AtomicReference<String> pendingRecompute = new AtomicReference<>();
+    private final AtomicLong reloads = new AtomicLong();
+
+    // guarded by this
+    private final Map<String, String> ringOfUser = new HashMap<>();
+    private final Map<String, List<String>> members = new HashMap<>();
+    private List<String> bySize;                              // ring ids, largest first; null when stale
+
+    // incremental merges recently applied, replayed onto a recomputation that may predate them
+    private final Deque<Link> recentLinks = new ArrayDeque<>();
+
+    private record Link(long at, String userId, List<String> linked) {}
+
+    // ════════════════════════════════════════════════════════════════
+    //  QUERIES
+    // ════════════════════════════════════════════════════════════════
+
+    public synchronized PageResponse<FraudRingResponse> listRings(int minSize, int page, int size) {
+        if (bySize == null) {
+            bySize = new ArrayList<>(members.keySet());
+            bySize.sort(Comparator.<String>comparingInt(id -> members.get(id).size()).reversed()
+                    .thenComparing(Comparator.naturalOrder()));
+        }
+
+        // bySize is ordered by size, so the qualifying rings are a prefix
+        int qualifying = 0;
+        while (qualifying < bySize.size() && members.get(bySize.get(qualifying)).size() >= minSize) {
+            qualifying++;
+        }
+
+        List<FraudRingResponse> content = new ArrayList<>(size);
+        for (int i = page * size; i < Math.min(qualifying, (page + 1) * size); i++) {
+            String ringId = bySize.get(i);
+            content.add(new FraudRingResponse(ringId, members.get(ringId).size(), null));
+        }
+        return new PageResponse<>(content, qualifying, page, size);
+    }
+
+    /** A ring with its members' ids and names. */
+    public FraudRingResponse getRing(String ringId) {
+        List<String> ids;
+        synchronized (this) {
+            List<String> ring = members.get(ringId);
+            if (ring == null) {
+                throw new ResourceNotFoundException("Ring", "id", ringId);
+            }
+            ids = List.copyOf(ring);
+        }
+
+        Map<String, Object> names = new HashMap<>();
+        neo4jClient.query("MATCH (u:User) WHERE u.userId IN $ids RETURN u.userId AS userId, u.name AS name")
+                .bind(ids).to("ids")
+                .fetch()
+                .all()
+                .forEach(row -> names.put((String) row.get("userId"), row.get("name")));
+
+        List<FraudRingResponse.Member> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Object name = names.get(id);
+            result.add(new FraudRingResponse.Member(id, name != null ? name.toString() : null));
+        }
+        result.sort(Comparator.comparing(FraudRingResponse.Member::getUserId));
+        return new FraudRingResponse(ringId, ids.size(), result);
+    }
+
+    public synchronized Optional<String> ringOf(String userId) {
+        return Optional.ofNullable(ringOfUser.get(userId));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  FULL RECOMPUTATION
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener
+    public void onProjectionRebuilt(GraphProjectionRebuiltEvent event) {
+        recompute(event.projection());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!graphProjection.isEnabled()) requestRecompute("startup");
+    }
+
+    /** Runs one recomputation at a time; requests during one fold into one more. */
+    private void requestRecompute(String reason) {
+        pendingRecompute.set(reason);
+        if (recomputing.compareAndSet(false, true)) {
+            workers.pool().execute(this::runRecomputes);
+        }
+    }
+
+    private void runRecomputes() {
+        try {
+            String reason;
+            while ((reason = pendingRecompute.getAndSet(null)) != null) {
+                long generation = reloads.get();
+                try {
+                    GraphProjection p = graphProjection.snapshot().orElseGet(loader::load);
+                    // A reload during the load queued another recomputation; this one is stale
+                    if (generation == reloads.get()) recompute(p);
+                } catch (RuntimeException e) {
+                    log.warn("Fraud rings could not be recomputed after {}: {}", reason, e.getMessage());
+                }
+            }
+        } finally {
+            recomputing.set(false);
+        }
+        if (pendingRecompute.get() != null && recomputing.compareAndSet(false, true)) {
+            workers.pool().execute(this::runRecomputes);
+        }
+    }
+
+    private void recompute(GraphProjection p) {
+        long start = System.nanoTime();
+        int[] root = components(p);
+
+        // Ring id: smallest user id of the component
+        int nu = root.length;
+        int[] count = new int[nu];
+        for (int u = 0; u < nu; u++) count[root[u]]++;
+        String[] smallest = new String[nu];
+        for (int u = 0; u < nu; u++) {
+            int r = root[u];
+            if (count[r] < 2) continue;
+            String id = p.getUsers().id(u);
+            if (smallest[r] == null || id.compareTo(smallest[r]) < 0) smallest[r] = id;
+        }
+
+        Map<String, String> ringOf = new HashMap<>();
+        Map<String, List<String>> rings = new HashMap<>();
+        for (int u = 0; u < nu; u++) {
+            int r = root[u];
+            if (count[r] < 2) continue;
+            String ringId = RING_PREFIX + smallest[r];
+            String userId = p.getUsers().id(u);
+            ringOf.put(userId, ringId);
+            rings.computeIfAbsent(ringId, k -> new ArrayList<>(count[r])).add(userId);
+        }
+
+        long loadStarted = p.getBuiltAt().toEpochMilli() - p.getBuildMillis() - REPLAY_SLACK_MS;
+        synchronized (this) {
+            ringOfUser.clear();
+            ringOfUser.putAll(ringOf);
+            members.clear();
+            members.putAll(rings);
+            bySize = null;
+
+            recentLinks.removeIf(link -> link.at() < loadStarted);
+            for (Link link : recentLinks) {
+                merge(link.userId(), link.linked());
+            }
+        }
+        log.info("Fraud rings recomputed in {} ms: {} rings covering {} users",
+                (System.nanoTime() - start) / 1_000_000, rings.size(), ringOf.size());
+
+        writeBack();
+    }
+
+    /**
+     * Component root of every user, built with one union-find shared by all workers.
+     * The chunks run on the fork-join pool: the caller is often a {@code pool()} thread
+     * (a recomputation or a projection rebuild) and must not wait on work queued behind it.
+     */
+    private int[] components(GraphProjection p) {
+        int nu = p.getUsers().size();
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(nu);
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Csr shared : List.of(p.getSameEmail(), p.getSamePhone(), p.getSameAddress())) {
+            forChunks(nu, tasks, (from, to) -> {
+                for (int u = from; u < to; u++) {
+                    for (int e = shared.start(u); e < shared.end(u); e++) {
+                        int v = shared.target(e);
+                        if (v > u) uf.union(u, v);     // stored both ways; one union per pair
+                    }
+                }
+            });
+        }
+        for (Csr groups : List.of(p.getIpMembers(), p.getDeviceMembers())) {
+            Csr senders = p.getSenders();
+            forChunks(groups.vertexCount(), tasks, (from, to) -> {
+                for (int g = from; g < to; g++) {
+                    int first = -1;
+                    for (int e = groups.start(g); e < groups.end(g); e++) {
+                        int t = groups.target(e);
+                        for (int s = senders.start(t); s < senders.end(t); s++) {
+                            int u = senders.target(s);
+                            if (first < 0) first = u;
+                            else uf.union(first, u);
+                        }
+                    }
+                }
+            });
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+        int[] root = new int[nu];
+        List<CompletableFuture<Void>> finds = new ArrayList<>();
+        forChunks(nu, finds, (from, to) -> {
+            for (int u = from; u < to; u++) root[u] = uf.find(u);
+        });
+        CompletableFuture.allOf(finds.toArray(CompletableFuture[]::new)).join();
+        return root;
+    }
+
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private void forChunks(int n, List<CompletableFuture<Void>> tasks, RangeTask task) {
+        for (int from = 0; from < n; from += CHUNK) {
+            int start = from;
+            int end = Math.min(n, from + CHUNK);
+            tasks.add(CompletableFuture.runAsync(() -> task.run(start, end), workers.forkJoin()));
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  INCREMENTAL MERGES
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        if (event.deleted()) return;           // splits wait for the next snapshot
+        async(() -> link(event.userId(), neo4jClient.query("""
+                        MATCH (:User {userId: $userId})-[:SAME_EMAIL|SAME_PHONE|SAME_ADDRESS]-(o:User)
+                        RETURN DISTINCT o.userId
+                        """)
+                .bind(event.userId()).to("userId")
+                .fetchAs(String.class)
+                .all()));
+    }
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        if (event.deleted() || event.senderId() == null) return;
+        async(() -> link(event.senderId(), neo4jClient.query("""
+                        MATCH (:Transaction {transactionId: $txId})-[:SAME_IP|SAME_DEVICE]-(:Transaction)<-[:SENT]-(o:User)
+                        RETURN DISTINCT o.userId
+                        """)
+                .bind(event.transactionId()).to("txId")
+                .fetchAs(String.class)
+                .all()));
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        synchronized (this) {
+            reloads.incrementAndGet();
+            ringOfUser.clear();
+            members.clear();
+            recentLinks.clear();
+            bySize = null;
+        }
+        // With a projection, the snapshot built from the new data triggers the recomputation
+        if (!graphProjection.isEnabled()) requestRecompute(event.reason());
+    }
+
+    private void async(Runnable task) {
+        workers.pool().execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Incremental ring merge failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void link(String userId, Collection<String> linked) {
+        List<String> others = new ArrayList<>(linked);
+        others.remove(userId);
+        if (others.isEmpty()) return;
+
+        List<Map<String, Object>> rows;
+        synchronized (this) {
+            recentLinks.addLast(new Link(System.currentTimeMillis(), userId, others));
+            if (recentLinks.size() > MAX_RECENT_LINKS) recentLinks.removeFirst();
+            String ringId = merge(userId, others);
+            if (ringId == null) return;
+            List<String> ring = members.get(ringId);
+            rows = new ArrayList<>(ring.size());
+            for (String member : ring) {
+                rows.add(Map.of("userId", member, "ringId", ringId, "ringSize", ring.size()));
+            }
+        }
+        write(rows, List.of());
+    }
+
+    /**
+     * Puts {@code userId} and {@code others} in one ring.
+     *
+     * @return the ring id, or {@code null} when they already were
+     */
+    private String merge(String userId, List<String> others) {
+        Set<String> ringIds = new HashSet<>();
+        Set<String> joined = new LinkedHashSet<>();
+        for (String id : concat(userId, others)) {
+            String ringId = ringOfUser.get(id);
+            if (ringId != null) ringIds.add(ringId);
+            else joined.add(id);
+        }
+        if (ringIds.size() == 1 && joined.isEmpty()) return null;
+
+        List<String> merged = new ArrayList<>(joined);
+        for (String ringId : ringIds) {
+            merged.addAll(members.remove(ringId));
+        }
+        String ringId = RING_PREFIX + Collections.min(merged);
+        for (String member : merged) {
+            ringOfUser.put(member, ringId);
+        }
+        members.put(ringId, merged);
+        bySize = null;
+        return ringId;
+    }
+
+    private static List<String> concat(String first, List<String> rest) {
+        List<String> all = new ArrayList<>(rest.size() + 1);
+        all.add(first);
+        all.addAll(rest);
+        return all;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITE-BACK
+    // ════════════════════════════════════════════════════════════════
+
+    /** Brings ringId / ringSize on the users in line with memory, touching only what differs. */
+    private void writeBack() {
+        Map<String, Map<String, Object>> stored = new HashMap<>();
+        neo4jClient.query("""
+                        MATCH (u:User) WHERE u.ringId IS NOT NULL
+                        RETURN u.userId AS userId, u.ringId AS ringId, u.ringSize AS ringSize
+                        """)
+                .fetch()
+                .all()
+                .forEach(row -> stored.put((String) row.get("userId"), row));
+
+        List<Map<String, Object>> set = new ArrayList<>();
+        List<String> clear = new ArrayList<>();
+        synchronized (this) {
+            members.forEach((ringId, ring) -> {
+                for (String member : ring) {
+                    Map<String, Object> current = stored.get(member);
+                    if (current == null || !ringId.equals(current.get("ringId"))
+                            || !(current.get("ringSize") instanceof Number n && n.intValue() == ring.size())) {
+                        set.add(Map.of("userId", member, "ringId", ringId, "ringSize", ring.size()));
+                    }
+                }
+            });
+            for (String userId : stored.keySet()) {
+                if (!ringOfUser.containsKey(userId)) clear.add(userId);
+            }
+        }
+        write(set, clear);
+        log.info("Fraud ring write-back: {} users updated, {} cleared", set.size(), clear.size());
+    }
+
+    private void write(List<Map<String, Object>> set, List<String> clear) {
+        for (int i = 0; i < set.size(); i += WRITE_BATCH) {
+            neo4jClient.query("""
+                            UNWIND $rows AS row
+                            MATCH (u:User {userId: row.userId})
+                            SET u.ringId = row.ringId, u.ringSize = row.ringSize
+                            """)
+                    .bind(set.subList(i, Math.min(set.size(), i + WRITE_BATCH))).to("rows")
+                    .run();
+        }
+        for (int i = 0; i < clear.size(); i += WRITE_BATCH) {
+            neo4jClient.query("""
+                            UNWIND $ids AS id
+                            MATCH (u:User {userId: id})
+                            REMOVE u.ringId, u.ringSize
+                            """)
+                    .bind(clear.subList(i, Math.min(clear.size(), i + WRITE_BATCH))).to("ids")
+                    .run();
+        }
+    }
+}
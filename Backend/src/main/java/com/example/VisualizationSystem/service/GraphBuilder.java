@@ -0,0 +1,162 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+
+import java.util.*;
+
+/**
+ * Collects the nodes and edges of one graph response, each node and edge once.
+ * <p>
+ * Nodes are deduplicated by id and numbered in insertion order. An edge is keyed by a
+ * single long packing its endpoint numbers and a small code for its type (and payment
+ * method), so edge dedup never builds key strings. Symmetric {@code SAME_*} edges are
+ * keyed independently of direction.
+ */
+public final class GraphBuilder {
+
+    private static final int NODE_BITS = 24;
+    private static final int KIND_BITS = 64 - 2 * NODE_BITS;
+    private static final int MAX_NODES = (1 << NODE_BITS) - 1;   // keeps every packed key below -1
+    private static final int MAX_KINDS = 1 << KIND_BITS;
+
+    private final Map<String, Integer> index;
+    private final List<GraphNode> nodes;
+    private final List<GraphEdge> edges;
+    private final EdgeKeys edgeKeys;
+
+    // (type, method) pairs seen so far; a handful per graph
+    private final Map<String, Map<String, Integer>> kinds = new HashMap<>();
+    private int kindCount;
+
+    public GraphBuilder() {
+        this(64);
+    }
+
+    public GraphBuilder(int expectedNodes) {
+        this.index = new HashMap<>(Math.max(16, expectedNodes * 4 / 3 + 1));
+        this.nodes = new ArrayList<>(expectedNodes);
+        this.edges = new ArrayList<>(expectedNodes);
+        this.edgeKeys = new EdgeKeys(expectedNodes);
+    }
+
+    /** @return {@code false} when a node with the same id is already in the graph */
+    public boolean addNode(GraphNode node) {
+        if (index.size() >= MAX_NODES) {
+            throw new IllegalStateException("Graph exceeds " + MAX_NODES + " nodes");
+        }
+        if (index.putIfAbsent(node.id(), nodes.size()) != null) {
+            return false;
+        }
+        nodes.add(node);
+        return true;
+    }
+
+    public boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds an edge between two nodes already in the graph.
+     *
+     * @return {@code false} when the same edge is already in the graph
+     */
+    public boolean addEdge(GraphEdge edge) {
+        Integer source = index.get(edge.source());
+        Integer target = index.get(edge.target());
+        if (source == null || target == null) {
+            throw new IllegalArgumentException("Edge " + edge.id() + " references a node not in the graph");
+        }
+
+        long a = source;
+        long b = target;
+        if (edge.symmetric() && a > b) {
+            long t = a;
+            a = b;
+            b = t;
+        }
+        long key = (a << (NODE_BITS + KIND_BITS)) | (b << KIND_BITS) | kind(edge.type(), edge.method());
+        if (!edgeKeys.add(key)) {
+            return false;
+        }
+        edges.add(edge);
+        return true;
+    }
+
+    public List<GraphNode> nodes() {
+        return nodes;
+    }
+
+    public List<GraphEdge> edges() {
+        return edges;
+    }
+
+    /** Ids of every node, for cache invalidation tags. */
+    public Set<String> nodeIds() {
+        return index.keySet();
+    }
+
+    private int kind(String type, String method) {
+        Map<String, Integer> byMethod = kinds.computeIfAbsent(type, t -> new HashMap<>(4));
+        Integer code = byMethod.get(method != null ? method : "");
+        if (code == null) {
+            if (kindCount >= MAX_KINDS) {
+                throw new IllegalStateException("Graph exceeds " + MAX_KINDS + " edge kinds");
+            }
+            code = kindCount++;
+            byMethod.put(method != null ? method : "", code);
+        }
+        return code;
+    }
+
+    /** Open-addressing set of edge keys; 0 marks an empty slot, so keys are stored plus one. */
+    private static final class EdgeKeys {
+
+        private long[] slots;
+        private int size;
+
+        EdgeKeys(int expected) {
+            slots = new long[Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1];
+        }
+
+        boolean add(long key) {
+            long stored = key + 1;
+            int mask = slots.length - 1;
+            int i = mix(stored) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == stored) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = stored;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length << 1];
+            int mask = slots.length - 1;
+            for (long stored : old) {
+                if (stored == 0) continue;
+                int i = mix(stored) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = stored;
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped on every write to the graph.
+ * Caches include the version in their keys so that stale entries are never served.
+ */
+@Component
+public class GraphDataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        increment();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphExpansionResponse;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.CypherNeighborSource;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.graph.NeighborSource;
+import com.example.VisualizationSystem.graph.NeighborSource.Expansion;
+import com.example.VisualizationSystem.graph.NeighborSource.Neighbor;
+import com.example.VisualizationSystem.graph.NeighborSource.NodeRef;
+import com.example.VisualizationSystem.graph.ProjectionNeighborSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Bounded breadth-first expansion around a user or transaction.
+ * <p>
+ * Each hop expands the whole frontier in one batch, keeping at most {@code fanout}
+ * neighbours per node, and stops admitting new nodes once {@code maxNodes} is
+ * reached. Nodes whose neighbour lists were cut are reported as truncated so the
+ * client knows where the picture is incomplete.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GraphExpansionService {
+
+    private final CypherNeighborSource cypherSource;
+    private final GraphProjectionService graphProjection;
+
+    public GraphExpansionResponse expand(String seedId, String seedType, int depth, int maxNodes,
+                                         int fanout, Set<String> types) {
+        NeighborSource projection = graphProjection.snapshot()
+                .map(p -> (NeighborSource) new ProjectionNeighborSource(p, graphProjection::isDirty))
+                .orElse(null);
+
+        NodeRef seed = new NodeRef(seedId, seedType);
+        Map<String, Object> seedProps = projection != null ? projection.describe(seed) : null;
+        if (seedProps == null) {
+            seedProps = cypherSource.describe(seed);
+        }
+        if (seedProps == null) {
+            throw new ResourceNotFoundException(
+                    NeighborSource.USER.equals(seedType) ? "User" : "Transaction", "id", seedId);
+        }
+
+        GraphBuilder graph = new GraphBuilder(Math.min(maxNodes, 1_024));
+        List<GraphExpansionResponse.TruncatedNode> truncated = new ArrayList<>();
+
+        graph.addNode(node(seed, seedProps, 0));
+
+        List<NodeRef> frontier = List.of(seed);
+        boolean budgetExhausted = false;
+        int hop = 0;
+
+        while (hop < depth && !frontier.isEmpty() && !budgetExhausted) {
+            hop++;
+            Map<String, Expansion> expansions = expandFrontier(projection, frontier, types, fanout);
+            List<NodeRef> next = new ArrayList<>();
+
+            for (NodeRef current : frontier) {
+                Expansion exp = expansions.get(current.id());
+                int included = 0;
+
+                for (Neighbor n : exp.neighbors()) {
+                    if (!graph.contains(n.id())) {
+                        if (graph.nodeCount() >= maxNodes) {
+                            budgetExhausted = true;
+                            continue;
+                        }
+                        NodeRef ref = new NodeRef(n.id(), n.kind());
+                        graph.addNode(node(ref, n.props(), hop));
+                        next.add(ref);
+                    }
+                    graph.addEdge(n.outgoing()
+                            ? new GraphEdge(current.id(), n.id(), GraphEdge.relType(n.relType()))
+                            : new GraphEdge(n.id(), current.id(), GraphEdge.relType(n.relType())));
+                    included++;
+                }
+
+                if (included < exp.total()) {
+                    String reason = included < exp.neighbors().size() ? "BUDGET" : "FANOUT";
+                    truncated.add(new GraphExpansionResponse.TruncatedNode(
+                            current.id(), current.kind(), hop - 1, reason, exp.total(), included));
+                }
+            }
+            frontier = next;
+        }
+
+        log.info("Expanded {} {} over {} hops: {} nodes, {} edges, {} truncated",
+                seedType, seedId, hop, graph.nodeCount(), graph.edges().size(), truncated.size());
+
+        return GraphExpansionResponse.builder()
+                .seedId(seedId)
+                .seedType(seedType)
+                .depth(depth)
+                .hopsCompleted(hop)
+                .maxNodes(maxNodes)
+                .fanout(fanout)
+                .types(types.stream().sorted().toList())
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .budgetExhausted(budgetExhausted)
+                .truncated(truncated)
+                .build();
+    }
+
+    /** Projection first; whatever it cannot answer (missing or written since the snapshot) goes to Neo4j. */
+    private Map<String, Expansion> expandFrontier(NeighborSource projection, List<NodeRef> frontier,
+                                                  Set<String> types, int fanout) {
+        Map<String, Expansion> result = projection != null
+                ? new HashMap<>(projection.expand(frontier, types, fanout))
+                : new HashMap<>();
+
+        if (result.size() < frontier.size()) {
+            List<NodeRef> rest = frontier.stream()
+                    .filter(n -> !result.containsKey(n.id()))
+                    .toList();
+            result.putAll(cypherSource.expand(rest, types, fanout));
+        }
+        return result;
+    }
+
+    private static GraphNode node(NodeRef ref, Map<String, Object> props, int depth) {
+        if (NeighborSource.USER.equals(ref.kind())) {
+            Object name = props.get("name");
+            return new GraphNode.User(ref.id(), name != null ? name.toString() : ref.id(), null, null, depth);
+        }
+        return GraphNode.transaction(props, depth);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.GraphLayoutProperties;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.graph.ForceLayout;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Adds server-computed node positions to relationship graphs, so the client can place
+ * nodes as given instead of running a force-directed layout itself.
+ * <p>
+ * A laid-out graph is cached in {@link GraphNeighborhoodCache} next to the graph it was
+ * computed from and carries that entry's tags, so the writes that invalidate the graph
+ * drop its layout too.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GraphLayoutService {
+
+    private final GraphNeighborhoodCache graphCache;
+    private final GraphLayoutProperties props;
+    private final GraphWorkers workers;
+
+    /**
+     * Returns {@code graph} with a {@code positions} map of node id → {@code [x, y]} and a
+     * {@code layout} summary, cached under {@code layoutKey}.
+     *
+     * @param sourceKey cache key of the graph the view is built from; its tags are reused
+     * @param graph     the view to lay out, e.g. the cached graph itself or a summary of it
+     */
+    public Map<String, Object> withLayout(String sourceKey, String layoutKey, Supplier<Map<String, Object>> graph) {
+        return graphCache.get(layoutKey, () -> {
+            Map<String, Object> view = graph.get();
+            Set<String> tags = graphCache.tags(sourceKey);
+            return new GraphNeighborhoodCache.Loaded(layout(view), tags != null ? tags : tagsOf(view));
+        });
+    }
+
+    private Map<String, Object> layout(Map<String, Object> graph) {
+        List<GraphNode> nodes = list(graph.get("nodes"));
+        List<GraphEdge> edges = list(graph.get("edges"));
+
+        Map<String, Integer> index = new HashMap<>(nodes.size() * 2);
+        for (GraphNode node : nodes) {
+            index.putIfAbsent(node.id(), index.size());
+        }
+        int[] sources = new int[edges.size()];
+        int[] targets = new int[edges.size()];
+        int m = 0;
+        for (GraphEdge edge : edges) {
+            Integer s = index.get(edge.source());
+            Integer t = index.get(edge.target());
+            if (s == null || t == null) continue;
+            sources[m] = s;
+            targets[m++] = t;
+        }
+
+        ForceLayout.Result result = ForceLayout.compute(index.size(),
+                Arrays.copyOf(sources, m), Arrays.copyOf(targets, m),
+                new ForceLayout.Options(props.getIterations(), props.getTheta(), props.getEdgeLength(),
+                        props.getGravity(), props.getParallelThreshold()),
+                workers.forkJoin());
+
+        Map<String, double[]> positions = new LinkedHashMap<>(index.size() * 2);
+        index.forEach((id, i) -> positions.put(id, new double[]{round(result.x()[i]), round(result.y()[i])}));
+
+        Map<String, Object> layout = new LinkedHashMap<>();
+        layout.put("algorithm", "barnes-hut");
+        layout.put("iterations", result.iterations());
+        layout.put("millis", result.millis());
+        layout.put("parallel", result.parallel());
+        log.debug("Laid out {} nodes / {} edges in {} ms", index.size(), m, result.millis());
+
+        Map<String, Object> laidOut = new HashMap<>(graph);
+        laidOut.put("positions", positions);
+        laidOut.put("layout", layout);
+        return laidOut;
+    }
+
+    /** Fallback when the source entry is not cached: the nodes shown and their payment groups. */
+    private static Set<String> tagsOf(Map<String, Object> graph) {
+        Set<String> tags = new HashSet<>();
+        for (GraphNode node : GraphLayoutService.<GraphNode>list(graph.get("nodes"))) {
+            tags.add(node.id());
+        }
+        for (String method : GraphLayoutService.<String>list(graph.get("userPaymentMethods"))) {
+            tags.add(UserWrittenEvent.PAYMENT_TAG_PREFIX + method);
+        }
+        return tags;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> list(Object value) {
+        return value instanceof List<?> l ? (List<T>) l
+                : value instanceof Collection<?> c ? new ArrayList<>((Collection<T>) c) : List.of();
+    }
+}
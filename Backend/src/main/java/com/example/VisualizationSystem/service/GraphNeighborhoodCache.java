@@ -0,0 +1,253 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.GraphCacheProperties;
+import com.example.VisualizationSystem.dto.CacheStatsResponse;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of assembled relationship graphs.
+ * <p>
+ * Every entry is tagged with the ids of the nodes it shows (plus {@code pm:<method>}
+ * for payment-peer groups). Write events invalidate exactly the entries carrying an
+ * affected tag; bulk reloads clear everything. Concurrent misses on the same key
+ * share a single load.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GraphNeighborhoodCache {
+
+    private final GraphCacheProperties props;
+
+    /** Result of a load: the graph and the tags it depends on. */
+    public record Loaded(Map<String, Object> graph, Set<String> tags) {}
+
+    private record Entry(Map<String, Object> graph, Set<String> tags, long loadNanos) {}
+
+    // Access-ordered; guarded by "this" together with tagIndex
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> tagIndex = new HashMap<>();
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load that overlaps one is returned but not stored
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    public static String key(String kind, String id, Object... options) {
+        StringBuilder sb = new StringBuilder(kind).append(':').append(id);
+        for (Object option : options) {
+            sb.append('|').append(option);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the cached graph for {@code key}, or runs {@code loader} once for all
+     * concurrent callers asking for the same key.
+     */
+    public Map<String, Object> get(String key, Supplier<Loaded> loader) {
+        if (!props.isEnabled()) {
+            return loader.get().graph();
+        }
+
+        Map<String, Object> cached = peek(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            long waitStart = System.nanoTime();
+            Map<String, Object> graph = join(existing);
+            savedNanos.add(System.nanoTime() - waitStart);
+            return graph;
+        }
+
+        misses.increment();
+        long startEpoch = epoch.get();
+        long start = System.nanoTime();
+        try {
+            Loaded loaded = loader.get();
+            long took = System.nanoTime() - start;
+            loadNanos.add(took);
+
+            Map<String, Object> graph = Collections.unmodifiableMap(loaded.graph());
+            synchronized (this) {
+                if (epoch.get() == startEpoch) {
+                    put(key, new Entry(graph, Set.copyOf(loaded.tags()), took));
+                }
+            }
+            mine.complete(graph);
+            return graph;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Returns the cached graph for {@code key} without loading it, or {@code null}. */
+    public Map<String, Object> peek(String key) {
+        if (!props.isEnabled()) {
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            hits.increment();
+            savedNanos.add(entry.loadNanos());
+            return entry.graph();
+        }
+    }
+
+    /**
+     * Returns the tags of the cached entry for {@code key}, or {@code null}; lets an entry
+     * derived from another one be invalidated together with it.
+     */
+    public synchronized Set<String> tags(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.tags() : null;
+    }
+
+    /** Drops every entry tagged with one of {@code tags}. */
+    public void invalidate(Collection<String> tags) {
+        int removed = 0;
+        synchronized (this) {
+            epoch.incrementAndGet();
+            for (String tag : tags) {
+                Set<String> keys = tagIndex.remove(tag);
+                if (keys == null) continue;
+                for (String key : keys) {
+                    Entry entry = entries.remove(key);
+                    if (entry != null) {
+                        unindex(key, entry);
+                        removed++;
+                    }
+                }
+            }
+        }
+        // Later callers must not join loads that started before the write
+        inFlight.clear();
+        invalidations.add(removed);
+    }
+
+    public void invalidateAll() {
+        int removed;
+        synchronized (this) {
+            epoch.incrementAndGet();
+            removed = entries.size();
+            entries.clear();
+            tagIndex.clear();
+        }
+        inFlight.clear();
+        invalidations.add(removed);
+    }
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        invalidate(event.tags());
+    }
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        invalidate(event.tags());
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        log.info("Clearing graph cache after {}", event.reason());
+        invalidateAll();
+    }
+
+    public CacheStatsResponse stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        long c = coalesced.sum();
+        long lookups = h + m + c;
+
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+
+        return CacheStatsResponse.builder()
+                .enabled(props.isEnabled())
+                .size(size)
+                .maxEntries(props.getMaxEntries())
+                .hits(h)
+                .misses(m)
+                .coalesced(c)
+                .hitRate(lookups == 0 ? 0.0 : (double) (h + c) / lookups)
+                .evictions(evictions.sum())
+                .invalidations(invalidations.sum())
+                .avgLoadMillis(m == 0 ? 0.0 : loadNanos.sum() / 1e6 / m)
+                .savedMillis(savedNanos.sum() / 1e6)
+                .build();
+    }
+
+    // ── internals (caller holds the lock) ──
+
+    private void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        for (String tag : entry.tags()) {
+            tagIndex.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > props.getMaxEntries() && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void unindex(String key, Entry entry) {
+        for (String tag : entry.tags()) {
+            Set<String> keys = tagIndex.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) tagIndex.remove(tag);
+            }
+        }
+    }
+
+    private static Map<String, Object> join(CompletableFuture<Map<String, Object>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.StreamingResourceConfig;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Streams relationship graphs element by element.
+ * <p>
+ * Nodes and edges are written with a Jackson generator straight from the driver's
+ * result cursor, one row per element, so no node/edge lists are built and the client
+ * can render the first elements while the query is still producing the rest.
+ * A graph already in {@link GraphNeighborhoodCache} is written from the cached maps.
+ * Only the main node's existence is checked before the response is committed;
+ * a failure after that is reported as a trailing {@code error} element.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GraphStreamService {
+
+    private final Driver driver;
+    private final JsonMapper jsonMapper;
+    private final GraphNeighborhoodCache graphCache;
+
+    private static final int MAX_PAYMENT_PEER_NODES = 50;
+
+    // Elements written between explicit flushes of the response
+    private static final int FLUSH_EVERY = 64;
+
+    private static final String TX_PROJECTION = """
+            {
+                .transactionId, .amount, .currency,
+                .ip, .deviceId, .status, .paymentMethod,
+                timestamp: toString(%1$s.timestamp)
+            }""";
+
+    /**
+     * Output framing: one JSON document with an {@code elements} array and the summary
+     * fields after it, or newline-delimited JSON with one element per line and a final
+     * {@code summary} line.
+     */
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        NDJSON(MediaType.APPLICATION_NDJSON);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Format must be either 'json' or 'ndjson'");
+            }
+        }
+    }
+
+    /** Streams a graph that is already assembled, such as a summarized user graph. */
+    public StreamingResponseBody streamGraph(Map<String, Object> graph, Format format) {
+        return out -> writeCached(graph, format, out);
+    }
+
+    // ─────────────────────────────────────────────
+    // User graph
+    // ─────────────────────────────────────────────
+
+    public StreamingResponseBody streamUserGraph(String userId, Format format) {
+        Map<String, Object> cached = graphCache.peek(GraphNeighborhoodCache.key("user", userId));
+        if (cached != null) {
+            return out -> writeCached(cached, format, out);
+        }
+
+        String query = """
+                MATCH (u:User {userId: $userId})
+                CALL (u) {
+                    RETURN 'SEED' AS kind, null AS rel, u { .userId, .name, .email, .paymentMethods } AS node,
+                           null AS other, null AS method, null AS cnt
+                  UNION ALL
+                    MATCH (u)-[r:SAME_EMAIL|SAME_PHONE|SAME_ADDRESS]-(o:User)
+                    RETURN 'USER' AS kind, type(r) AS rel, o { .userId, .name } AS node,
+                           null AS other, null AS method, null AS cnt
+                  UNION ALL
+                    MATCH (u)-[:SENT]->(tx:Transaction)-[:RECEIVED_BY]->(receiver:User)
+                    RETURN 'TX' AS kind, 'SENT' AS rel, tx %s AS node,
+                           receiver { .userId, .name } AS other, null AS method, null AS cnt
+                  UNION ALL
+                    MATCH (u)-[:USES_PAYMENT]->(pm:PaymentMethod)
+                    CALL (u, pm) {
+                        OPTIONAL MATCH (pm)<-[:USES_PAYMENT]-(peer:User)
+                        WHERE peer <> u
+                        RETURN count(DISTINCT peer) AS peerCount
+                    }
+                    RETURN 'METHOD' AS kind, null AS rel, null AS node,
+                           null AS other, pm.name AS method, peerCount AS cnt
+                  UNION ALL
+                    MATCH (u)-[:USES_PAYMENT]->(pm:PaymentMethod)
+                    CALL (u, pm) {
+                        MATCH (pm)<-[:USES_PAYMENT]-(peer:User)
+                        WHERE peer <> u
+                        WITH DISTINCT peer LIMIT $peersPerMethod
+                        RETURN peer
+                    }
+                    RETURN 'PAYMENT_PEER' AS kind, 'SAME_PAYMENT' AS rel, peer { .userId, .name } AS node,
+                           null AS other, pm.name AS method, null AS cnt
+                }
+                RETURN kind, rel, node, other, method, cnt
+                """.formatted(TX_PROJECTION.formatted("tx"));
+
+        return open("User", userId, format, query,
+                Map.of("userId", userId, "peersPerMethod", MAX_PAYMENT_PEER_NODES),
+                this::writeUserRows);
+    }
+
+    private Map<String, Object> writeUserRows(Result result, ElementWriter writer) {
+        String mainUserId = null;
+        Set<GraphEdge> edgesSeen = new HashSet<>();
+        List<String> userPaymentMethods = new ArrayList<>();
+        Map<String, Map<String, Object>> paymentSummary = new LinkedHashMap<>();
+        int paymentPeerCount = 0;
+
+        while (result.hasNext()) {
+            Record row = result.next();
+            String kind = row.get("kind").asString();
+            Map<String, Object> node = asMap(row.get("node"));
+
+            switch (kind) {
+                case "SEED" -> {
+                    mainUserId = (String) node.get("userId");
+                    Object name = node.get("name");
+                    @SuppressWarnings("unchecked")
+                    List<String> methods = (List<String>) node.get("paymentMethods");
+                    writer.node(new GraphNode.User(mainUserId, name != null ? name.toString() : mainUserId,
+                            (String) node.get("email"), methods, null));
+                }
+                case "USER" -> {
+                    String id = (String) node.get("userId");
+                    GraphEdge edge = new GraphEdge(mainUserId, id, GraphEdge.relType(row.get("rel").asString()));
+                    writer.node(GraphNode.user(id, node.get("name")));
+                    if (edgesSeen.add(edge)) {
+                        writer.edge(edge);
+                    }
+                }
+                case "TX" -> {
+                    String txId = (String) node.get("transactionId");
+                    writer.node(GraphNode.transaction(node));
+                    writer.edge(new GraphEdge(mainUserId, txId, GraphEdge.SENT));
+
+                    Map<String, Object> receiver = asMap(row.get("other"));
+                    String receiverId = (String) receiver.get("userId");
+                    writer.node(GraphNode.user(receiverId, receiver.get("name")));
+                    writer.edge(new GraphEdge(txId, receiverId, GraphEdge.RECEIVED_BY));
+                }
+                case "METHOD" -> {
+                    String method = row.get("method").asString();
+                    userPaymentMethods.add(method);
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("method", method);
+                    entry.put("peerCount", row.get("cnt").asLong());
+                    entry.put("peers", new ArrayList<Map<String, Object>>());
+                    paymentSummary.put(method, entry);
+                }
+                case "PAYMENT_PEER" -> {
+                    String method = row.get("method").asString();
+                    String peerId = (String) node.get("userId");
+
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> peers = (List<Map<String, Object>>) paymentSummary.get(method).get("peers");
+                    peers.add(node);
+
+                    // Cap total unique payment peers in the graph, the sidebar keeps every sampled peer
+                    if (paymentPeerCount >= MAX_PAYMENT_PEER_NODES && !writer.hasNode(peerId)) continue;
+                    if (writer.node(GraphNode.user(peerId, node.get("name")))) paymentPeerCount++;
+
+                    GraphEdge edge = new GraphEdge(mainUserId, peerId, GraphEdge.SAME_PAYMENT, method);
+                    if (edgesSeen.add(edge)) {
+                        writer.edge(edge);
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected row kind " + kind);
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("userPaymentMethods", userPaymentMethods);
+        summary.put("paymentSummary", paymentSummary.values());
+        return summary;
+    }
+
+    // ─────────────────────────────────────────────
+    // Transaction graph
+    // ─────────────────────────────────────────────
+
+    public StreamingResponseBody streamTransactionGraph(String txId, int peerLimit, boolean cluster, Format format) {
+        Map<String, Object> cached = graphCache.peek(GraphNeighborhoodCache.key("tx", txId, peerLimit, cluster));
+        if (cached != null) {
+            return out -> writeCached(cached, format, out);
+        }
+
+        String query = """
+                MATCH (tx:Transaction {transactionId: $txId})
+                CALL (tx) {
+                    RETURN 'SEED' AS kind, null AS rel, tx %s AS node, null AS status, null AS cnt, null AS amount
+                  UNION ALL
+                    MATCH (sender:User)-[:SENT]->(tx)
+                    RETURN 'USER' AS kind, 'SENT' AS rel, sender { .userId, .name } AS node,
+                           null AS status, null AS cnt, null AS amount
+                  UNION ALL
+                    MATCH (tx)-[:RECEIVED_BY]->(receiver:User)
+                    RETURN 'USER' AS kind, 'RECEIVED_BY' AS rel, receiver { .userId, .name } AS node,
+                           null AS status, null AS cnt, null AS amount
+                """.formatted(TX_PROJECTION.formatted("tx"))
+                + peerBranches("ip", "SAME_IP")
+                + peerBranches("deviceId", "SAME_DEVICE")
+                + """
+                }
+                RETURN kind, rel, node, status, cnt, amount
+                """;
+
+        return open("Transaction", txId, format, query,
+                Map.of("txId", txId,
+                        "peerLimit", peerLimit,
+                        "scanLimit", TransactionRelationshipService.PEER_SCAN_LIMIT,
+                        "countLimit", TransactionRelationshipService.PEER_COUNT_LIMIT),
+                (result, writer) -> writeTransactionRows(result, writer, cluster));
+    }
+
+    /**
+     * Window aggregates and the capped total come before the sampled peers,
+     * so the peers can be subtracted from them as they are written.
+     */
+    private static String peerBranches(String property, String relType) {
+        return """
+                  UNION ALL
+                    MATCH (o:Transaction {%1$s: tx.%1$s})
+                    WHERE o <> tx
+                    WITH o LIMIT $scanLimit
+                    WITH o.status AS status, count(*) AS cnt, sum(coalesce(o.amount, 0.0)) AS amount
+                    RETURN 'WINDOW' AS kind, '%2$s' AS rel, null AS node, status, cnt, amount
+                  UNION ALL
+                    MATCH (o:Transaction {%1$s: tx.%1$s})
+                    WHERE o <> tx
+                    WITH o LIMIT $countLimit
+                    RETURN 'TOTAL' AS kind, '%2$s' AS rel, null AS node, null AS status, count(o) AS cnt, null AS amount
+                  UNION ALL
+                    MATCH (o:Transaction {%1$s: tx.%1$s})
+                    WHERE o <> tx
+                    WITH o LIMIT $scanLimit
+                    WITH o ORDER BY o.transactionId LIMIT $peerLimit
+                    RETURN 'PEER' AS kind, '%2$s' AS rel, o %3$s AS node, null AS status, null AS cnt, null AS amount
+                """.formatted(property, relType, TX_PROJECTION.formatted("o"));
+    }
+
+    private Map<String, Object> writeTransactionRows(Result result, ElementWriter writer, boolean cluster) {
+        String mainTxId = null;
+        Map<String, PeerTally> tallies = new LinkedHashMap<>();
+        tallies.put(GraphEdge.SAME_IP, new PeerTally(GraphEdge.SAME_IP));
+        tallies.put(GraphEdge.SAME_DEVICE, new PeerTally(GraphEdge.SAME_DEVICE));
+
+        while (result.hasNext()) {
+            Record row = result.next();
+            String kind = row.get("kind").asString();
+            Map<String, Object> node = asMap(row.get("node"));
+
+            switch (kind) {
+                case "SEED" -> {
+                    mainTxId = (String) node.get("transactionId");
+                    writer.node(GraphNode.transaction(node));
+                }
+                case "USER" -> {
+                    String userId = (String) node.get("userId");
+                    boolean sent = row.get("rel").asString().equals(GraphEdge.SENT);
+                    writer.node(GraphNode.user(userId, node.get("name")));
+                    writer.edge(sent
+                            ? new GraphEdge(userId, mainTxId, GraphEdge.SENT)
+                            : new GraphEdge(mainTxId, userId, GraphEdge.RECEIVED_BY));
+                }
+                case "WINDOW" -> tallies.get(row.get("rel").asString()).window(
+                        asObject(row.get("status")), row.get("cnt").asLong(), row.get("amount").asDouble());
+                case "TOTAL" -> tallies.get(row.get("rel").asString()).total(row.get("cnt").asLong());
+                case "PEER" -> {
+                    String relType = GraphEdge.relType(row.get("rel").asString());
+                    String otherId = (String) node.get("transactionId");
+                    writer.node(GraphNode.transaction(node));
+                    writer.edge(new GraphEdge(mainTxId, otherId, relType));
+                    tallies.get(relType).shown(node.get("status"), node.get("amount"));
+                }
+                default -> throw new IllegalStateException("Unexpected row kind " + kind);
+            }
+        }
+
+        Map<String, Object> peerSummary = new LinkedHashMap<>();
+        for (Map.Entry<String, PeerTally> e : tallies.entrySet()) {
+            PeerTally tally = e.getValue();
+            Map<String, Object> summary = tally.summary();
+            if (cluster && tally.hidden() > 0) {
+                writer.node(tally.clusterNode(mainTxId));
+                writer.edge(tally.clusterEdge(mainTxId));
+                summary.put("clusterNodeId", PeerTally.clusterId(e.getKey(), mainTxId));
+            }
+            peerSummary.put(e.getKey(), summary);
+        }
+        return Map.of("peerSummary", peerSummary);
+    }
+
+    // ─────────────────────────────────────────────
+    // Plumbing
+    // ─────────────────────────────────────────────
+
+    @FunctionalInterface
+    private interface RowWriter {
+        /** Writes every remaining row as elements and returns the summary fields. */
+        Map<String, Object> write(Result result, ElementWriter writer);
+    }
+
+    /**
+     * Runs the query and waits for its first row, so a missing main node is still a 404;
+     * the open session is handed to the response body, which closes it when done. The
+     * session is also closed when the request completes, in case the body never runs.
+     */
+    private StreamingResponseBody open(String resource, String id, Format format, String query,
+                                       Map<String, Object> params, RowWriter rows) {
+        Session session = driver.session(SessionConfig.builder()
+                .withDefaultAccessMode(AccessMode.READ)
+                .build());
+        Result result;
+        try {
+            result = session.run(query, params);
+            if (!result.hasNext()) {
+                throw new ResourceNotFoundException(resource, "id", id);
+            }
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+        StreamingResourceConfig.closeOnCompletion(session);
+
+        return out -> {
+            try (session; ElementWriter writer = new ElementWriter(format, out)) {
+                try {
+                    writer.summary(rows.write(result, writer));
+                } catch (RuntimeException e) {
+                    log.error("Graph stream for {} {} failed after {} elements", resource, id, writer.written(), e);
+                    try {
+                        writer.error(e.getMessage());
+                    } catch (RuntimeException ignored) {
+                        // the client is gone or the response already broke; nothing left to tell
+                    }
+                }
+            }
+        };
+    }
+
+    private void writeCached(Map<String, Object> graph, Format format, OutputStream out) {
+        try (ElementWriter writer = new ElementWriter(format, out)) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> e : graph.entrySet()) {
+                switch (e.getKey()) {
+                    case "nodes" -> elements(e.getValue(), GraphNode.class).forEach(writer::node);
+                    case "edges" -> elements(e.getValue(), GraphEdge.class).forEach(writer::edge);
+                    default -> summary.put(e.getKey(), e.getValue());
+                }
+            }
+            writer.summary(summary);
+        }
+    }
+
+    /**
+     * Writes Cytoscape-style {@code {"group": ..., "data": {...}}} elements and flushes
+     * every {@link #FLUSH_EVERY} of them. Nodes are written once per id.
+     */
+    private final class ElementWriter implements AutoCloseable {
+
+        private final Format format;
+        private final JsonGenerator gen;
+        private final Set<String> nodeIds = new HashSet<>();
+        private int written;
+
+        ElementWriter(Format format, OutputStream out) {
+            this.format = format;
+            // the servlet container owns the response stream
+            ObjectWriter writer = jsonMapper.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+            this.gen = (format == Format.NDJSON ? writer.withRootValueSeparator("\n") : writer)
+                    .createGenerator(out);
+            if (format == Format.JSON) {
+                gen.writeStartObject();
+                gen.writeArrayPropertyStart("elements");
+            }
+        }
+
+        boolean hasNode(String id) {
+            return nodeIds.contains(id);
+        }
+
+        /** @return {@code false} when a node with this id was already written */
+        boolean node(GraphNode node) {
+            if (!nodeIds.add(node.id())) {
+                return false;
+            }
+            element("nodes", node);
+            return true;
+        }
+
+        void edge(GraphEdge edge) {
+            element("edges", edge);
+        }
+
+        int written() {
+            return written;
+        }
+
+        void summary(Map<String, Object> fields) {
+            trailer("summary", fields);
+        }
+
+        void error(String message) {
+            trailer("error", Map.of("message", message != null ? message : "Graph query failed"));
+        }
+
+        private void element(String group, Object data) {
+            gen.writeStartObject();
+            gen.writeStringProperty("group", group);
+            gen.writePOJOProperty("data", data);
+            gen.writeEndObject();
+            if (++written % FLUSH_EVERY == 0) {
+                gen.flush();
+            }
+        }
+
+        private void trailer(String name, Map<String, Object> fields) {
+            if (format == Format.JSON) {
+                gen.writeEndArray();
+                if (name.equals("summary")) {
+                    fields.forEach(gen::writePOJOProperty);
+                } else {
+                    gen.writePOJOProperty(name, fields);
+                }
+                gen.writeEndObject();
+            } else {
+                gen.writeStartObject();
+                gen.writeStringProperty("group", name);
+                gen.writePOJOProperty("data", fields);
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            }
+        }
+
+        @Override
+        public void close() {
+            gen.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> elements(Object value, Class<T> type) {
+        return value != null ? (List<T>) value : List.of();
+    }
+
+    private static Map<String, Object> asMap(Value value) {
+        return value.isNull() ? Map.of() : value.asMap();
+    }
+
+    private static Object asObject(Value value) {
+        return value.isNull() ? null : value.asObject();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+
+import java.util.*;
+
+/**
+ * Level-of-detail view of an assembled user graph that has more nodes than the client
+ * asked for.
+ * <p>
+ * Leaves are folded into {@link GraphNode.Cluster} nodes one step at a time, stopping at
+ * the first step that fits: payment peers become one cluster per payment method, then the
+ * transactions to each counterparty with two or more become one cluster per counterparty,
+ * and finally all transactions are grouped by status (their receivers then only appear
+ * when expanded). Identity links (SAME_EMAIL / PHONE / ADDRESS) are always kept. Clusters
+ * carry counts, amount sums and status mixes, and expand through {@link #expand}.
+ */
+final class GraphSummarizer {
+
+    static final String BY_PAYMENT_METHOD = "paymentMethod";
+    static final String BY_COUNTERPARTY = "counterparty";
+    static final String BY_STATUS = "status";
+
+    private static final String[] LEVELS = {"none", BY_PAYMENT_METHOD, BY_COUNTERPARTY, BY_STATUS};
+
+    private final String mainUserId;
+    private final GraphNode mainNode;
+    private final List<GraphNode> identityUsers = new ArrayList<>();
+    private final List<GraphEdge> identityEdges = new ArrayList<>();
+    private final List<GraphNode.Transaction> transactions = new ArrayList<>();
+    private final Map<String, GraphNode> receiverOf = new HashMap<>();     // transaction id → receiver
+    private final List<GraphNode> paymentPeers = new ArrayList<>();
+    private final List<GraphEdge> paymentEdges = new ArrayList<>();
+    private final Map<String, Long> peerCounts = new LinkedHashMap<>();    // method → all peers, not just those shown
+
+    private GraphSummarizer(String mainUserId, Map<String, Object> graph) {
+        this.mainUserId = mainUserId;
+
+        Map<String, GraphNode> byId = new HashMap<>();
+        for (GraphNode node : GraphSummarizer.<GraphNode>list(graph.get("nodes"))) {
+            byId.put(node.id(), node);
+        }
+        this.mainNode = byId.get(mainUserId);
+
+        for (GraphEdge edge : GraphSummarizer.<GraphEdge>list(graph.get("edges"))) {
+            switch (edge.type()) {
+                case GraphEdge.SENT -> {
+                    if (byId.get(edge.target()) instanceof GraphNode.Transaction tx) transactions.add(tx);
+                }
+                case GraphEdge.RECEIVED_BY -> receiverOf.put(edge.source(), byId.get(edge.target()));
+                case GraphEdge.SAME_PAYMENT -> {
+                    paymentPeers.add(byId.get(edge.target()));
+                    paymentEdges.add(edge);
+                }
+                default -> {
+                    identityUsers.add(byId.get(edge.source().equals(mainUserId) ? edge.target() : edge.source()));
+                    identityEdges.add(edge);
+                }
+            }
+        }
+
+        for (Map<String, Object> entry : GraphSummarizer.<Map<String, Object>>list(graph.get("paymentSummary"))) {
+            Object count = entry.get("peerCount");
+            peerCounts.put((String) entry.get("method"), count instanceof Number n ? n.longValue() : 0L);
+        }
+    }
+
+    /**
+     * Returns {@code graph} itself when it fits {@code maxNodes}, otherwise a copy with the
+     * least detailed level that fits (or the most summarized one) and an {@code lod} entry.
+     */
+    static Map<String, Object> summarize(String mainUserId, Map<String, Object> graph, int maxNodes) {
+        int fullNodes = GraphSummarizer.<GraphNode>list(graph.get("nodes")).size();
+        if (fullNodes <= maxNodes) return graph;
+
+        GraphSummarizer summarizer = new GraphSummarizer(mainUserId, graph);
+        if (summarizer.mainNode == null) return graph;
+
+        GraphBuilder built = null;
+        int level = 1;
+        for (; level < LEVELS.length; level++) {
+            built = summarizer.build(level);
+            if (built.nodeCount() <= maxNodes) break;
+        }
+        level = Math.min(level, LEVELS.length - 1);
+
+        Map<String, Object> lod = new LinkedHashMap<>();
+        lod.put("maxNodes", maxNodes);
+        lod.put("fullNodes", fullNodes);
+        lod.put("groupedBy", Arrays.asList(LEVELS).subList(1, level + 1));
+
+        Map<String, Object> result = new HashMap<>(graph);
+        result.put("nodes", built.nodes());
+        result.put("edges", built.edges());
+        result.put("lod", lod);
+        return result;
+    }
+
+    private GraphBuilder build(int level) {
+        GraphBuilder graph = new GraphBuilder();
+        graph.addNode(mainNode);
+        for (int i = 0; i < identityEdges.size(); i++) {
+            graph.addNode(identityUsers.get(i));
+            graph.addEdge(identityEdges.get(i));
+        }
+
+        if (level < 2) {
+            for (GraphNode.Transaction tx : transactions) addTransaction(graph, tx);
+        } else if (level == 2) {
+            Map<String, List<GraphNode.Transaction>> byReceiver = new LinkedHashMap<>();
+            for (GraphNode.Transaction tx : transactions) {
+                GraphNode receiver = receiverOf.get(tx.id());
+                byReceiver.computeIfAbsent(receiver != null ? receiver.id() : "", k -> new ArrayList<>()).add(tx);
+            }
+            byReceiver.forEach((receiverId, txs) -> {
+                if (txs.size() == 1 || receiverId.isEmpty()) {
+                    txs.forEach(tx -> addTransaction(graph, tx));
+                } else {
+                    GraphNode receiver = receiverOf.get(txs.get(0).id());
+                    GraphNode.Cluster cluster = transactionCluster(BY_COUNTERPARTY, receiverId, txs, txs.size());
+                    graph.addNode(cluster);
+                    graph.addEdge(new GraphEdge(mainUserId, cluster.id(), GraphEdge.SENT));
+                    graph.addNode(receiver);
+                    graph.addEdge(new GraphEdge(cluster.id(), receiver.id(), GraphEdge.RECEIVED_BY));
+                }
+            });
+        } else {
+            Map<String, List<GraphNode.Transaction>> byStatus = new TreeMap<>();
+            for (GraphNode.Transaction tx : transactions) {
+                byStatus.computeIfAbsent(statusKey(tx.status()), k -> new ArrayList<>()).add(tx);
+            }
+            byStatus.forEach((status, txs) -> {
+                GraphNode.Cluster cluster = transactionCluster(BY_STATUS, status, txs, txs.size());
+                graph.addNode(cluster);
+                graph.addEdge(new GraphEdge(mainUserId, cluster.id(), GraphEdge.SENT));
+            });
+        }
+
+        if (level < 1) {
+            for (int i = 0; i < paymentEdges.size(); i++) {
+                graph.addNode(paymentPeers.get(i));
+                graph.addEdge(paymentEdges.get(i));
+            }
+        } else {
+            peerCounts.forEach((method, count) -> {
+                if (count == 0) return;
+                String id = clusterId(GraphEdge.SAME_PAYMENT, mainUserId, method);
+                graph.addNode(new GraphNode.Cluster(id, count + " via " + method, GraphEdge.SAME_PAYMENT,
+                        count, 0, Map.of(), true, BY_PAYMENT_METHOD, method));
+                graph.addEdge(new GraphEdge(mainUserId, id, GraphEdge.SAME_PAYMENT, method));
+            });
+        }
+        return graph;
+    }
+
+    private void addTransaction(GraphBuilder graph, GraphNode.Transaction tx) {
+        graph.addNode(tx);
+        graph.addEdge(new GraphEdge(mainUserId, tx.id(), GraphEdge.SENT));
+        GraphNode receiver = receiverOf.get(tx.id());
+        if (receiver != null) {
+            graph.addNode(receiver);
+            graph.addEdge(new GraphEdge(tx.id(), receiver.id(), GraphEdge.RECEIVED_BY));
+        }
+    }
+
+    /**
+     * Cluster for {@code count} transactions of a group, aggregating {@code txs}; the two
+     * differ for the remainder of a partially expanded group.
+     */
+    private GraphNode.Cluster transactionCluster(String groupBy, String key, List<GraphNode.Transaction> txs,
+                                                 long count) {
+        double amount = 0;
+        Map<String, Long> mix = new TreeMap<>();
+        for (GraphNode.Transaction tx : txs) {
+            if (tx.amount() != null) amount += tx.amount();
+            mix.merge(statusKey(tx.status()), 1L, Long::sum);
+        }
+        String label = count + " txns · " + GraphNode.amountLabel("$", amount);
+        return new GraphNode.Cluster(clusterId(GraphEdge.SENT, mainUserId, groupBy + ":" + key), label,
+                GraphEdge.SENT, count, amount, mix, true, groupBy, key);
+    }
+
+    static String clusterId(String relType, String mainUserId, String key) {
+        return "cluster_" + relType + "_" + mainUserId + "_" + key;
+    }
+
+    // ─────────────────────────────────────────────
+    // Expansion of a transaction cluster
+    // ─────────────────────────────────────────────
+
+    /**
+     * The transactions of one counterparty or status group of the full graph, largest
+     * first and at most {@code limit}, with their receivers. Whatever does not fit stays
+     * behind as a smaller cluster under the same id.
+     *
+     * @return empty when the group has no transactions
+     */
+    static Optional<Map<String, Object>> expand(String mainUserId, Map<String, Object> graph,
+                                                String groupBy, String key, int limit) {
+        GraphSummarizer summarizer = new GraphSummarizer(mainUserId, graph);
+        if (summarizer.mainNode == null) return Optional.empty();
+
+        List<GraphNode.Transaction> members = new ArrayList<>();
+        for (GraphNode.Transaction tx : summarizer.transactions) {
+            GraphNode receiver = summarizer.receiverOf.get(tx.id());
+            boolean member = groupBy.equals(BY_COUNTERPARTY)
+                    ? receiver != null && receiver.id().equals(key)
+                    : statusKey(tx.status()).equals(key);
+            if (member) members.add(tx);
+        }
+        if (members.isEmpty()) return Optional.empty();
+        members.sort(Comparator.comparingDouble((GraphNode.Transaction tx) ->
+                tx.amount() != null ? tx.amount() : 0).reversed());
+
+        GraphBuilder built = new GraphBuilder(Math.min(members.size(), limit) * 2 + 2);
+        built.addNode(summarizer.mainNode);
+        List<GraphNode.Transaction> shown = members.subList(0, Math.min(limit, members.size()));
+        shown.forEach(tx -> summarizer.addTransaction(built, tx));
+
+        List<GraphNode.Transaction> rest = members.subList(shown.size(), members.size());
+        String clusterId = clusterId(GraphEdge.SENT, mainUserId, groupBy + ":" + key);
+        if (!rest.isEmpty()) {
+            GraphNode.Cluster cluster = summarizer.transactionCluster(groupBy, key, rest, rest.size());
+            built.addNode(cluster);
+            built.addEdge(new GraphEdge(mainUserId, cluster.id(), GraphEdge.SENT));
+            GraphNode receiver = groupBy.equals(BY_COUNTERPARTY) ? summarizer.receiverOf.get(rest.get(0).id()) : null;
+            if (receiver != null) {
+                built.addNode(receiver);
+                built.addEdge(new GraphEdge(cluster.id(), receiver.id(), GraphEdge.RECEIVED_BY));
+            }
+        }
+        return Optional.of(expansion(built, clusterId, groupBy, key, members.size(), shown.size()));
+    }
+
+    static Map<String, Object> expansion(GraphBuilder built, String clusterId, String groupBy, String key,
+                                         long total, int shown) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("nodes", built.nodes());
+        result.put("edges", built.edges());
+        result.put("clusterId", clusterId);
+        result.put("groupBy", groupBy);
+        result.put("groupKey", key);
+        result.put("total", total);
+        result.put("shown", shown);
+        result.put("remaining", total - shown);
+        return result;
+    }
+
+    private static String statusKey(String status) {
+        return status != null ? status : "UNKNOWN";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> list(Object value) {
+        return value instanceof List<?> l ? (List<T>) l
+                : value instanceof Collection<?> c ? new ArrayList<>((Collection<T>) c) : List.of();
+    }
+}
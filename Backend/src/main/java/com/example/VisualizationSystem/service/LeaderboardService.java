@@ -0,0 +1,233 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.LeaderboardProperties;
+import com.example.VisualizationSystem.dto.LeaderboardResponse;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import com.example.VisualizationSystem.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Top senders and receivers by amount, the IPs and devices shared by the most
+ * transactions and the most used payment methods, answered from memory.
+ * <p>
+ * Each board is a {@link TopKSketch}. Boards are rebuilt from aggregation queries at
+ * startup and after every bulk reload (pipeline run, sample load, wipe), and between
+ * rebuilds every transaction write adjusts them: a new transaction adds to its keys, an
+ * edit moves the difference against the stored transaction, a delete subtracts it. A
+ * rebuild builds fresh boards and swaps them in, so writes landing while its queries run
+ * may be missed until the next one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    public enum Board {
+        SENDERS("senders", "amount", """
+                MATCH (u:User)-[:SENT]->(t:Transaction)
+                WITH u.userId AS key, sum(coalesce(t.amount, 0.0)) AS value
+                """),
+        RECEIVERS("receivers", "amount", """
+                MATCH (t:Transaction)-[:RECEIVED_BY]->(u:User)
+                WITH u.userId AS key, sum(coalesce(t.amount, 0.0)) AS value
+                """),
+        IPS("ips", "transactions", """
+                MATCH (t:Transaction) WHERE t.ip IS NOT NULL
+                WITH t.ip AS key, count(*) AS value
+                """),
+        DEVICES("devices", "transactions", """
+                MATCH (t:Transaction) WHERE t.deviceId IS NOT NULL
+                WITH t.deviceId AS key, count(*) AS value
+                """),
+        PAYMENT_METHODS("paymentMethods", "transactions", """
+                MATCH (t:Transaction) WHERE t.paymentMethod IS NOT NULL
+                WITH t.paymentMethod AS key, count(*) AS value
+                """);
+
+        private final String label;
+        private final String metric;
+        private final String aggregation;
+
+        Board(String label, String metric, String aggregation) {
+            this.label = label;
+            this.metric = metric;
+            this.aggregation = aggregation;
+        }
+
+        public static Board parse(String value) {
+            for (Board b : values()) {
+                if (b.label.equalsIgnoreCase(value.trim())) return b;
+            }
+            throw new BadRequestException("board must be one of: senders, receivers, ips, devices, paymentMethods");
+        }
+    }
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final LeaderboardProperties props;
+
+    private volatile Map<Board, TopKSketch> boards;
+    private volatile LocalDateTime seededAt;
+    private final AtomicBoolean seeding = new AtomicBoolean();
+    private final AtomicReference<String> pendingSeed = new AtomicReference<>();
+
+    @PostConstruct
+    void init() {
+        boards = emptyBoards();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  READS
+    // ════════════════════════════════════════════════════════════════
+
+    public List<LeaderboardResponse> top(Collection<Board> which, int k) {
+        Map<Board, TopKSketch> current = boards;
+        List<LeaderboardResponse> result = new ArrayList<>(which.size());
+        for (Board board : which) {
+            TopKSketch sketch = current.get(board);
+            List<LeaderboardResponse.Entry> entries = sketch.top(k).stream()
+                    .map(e -> new LeaderboardResponse.Entry(e.key(), e.value(), e.error()))
+                    .toList();
+            result.add(LeaderboardResponse.builder()
+                    .board(board.label)
+                    .metric(board.metric)
+                    .exact(sketch.exact())
+                    .tracked(sketch.size())
+                    .seededAt(seededAt)
+                    .entries(entries)
+                    .build());
+        }
+        return result;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITES
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * Applies a created or updated transaction; {@code existing} is the stored version
+     * before the write, {@code null} for a new one. Sender and receiver come from the
+     * request and are taken to be unchanged by an edit.
+     */
+    public void record(Transaction existing, Transaction saved, String senderId, String receiverId) {
+        Map<Board, TopKSketch> current = boards;
+        double amount = amount(saved) - amount(existing);
+        current.get(Board.SENDERS).add(senderId, amount);
+        current.get(Board.RECEIVERS).add(receiverId, amount);
+        move(current.get(Board.IPS), existing != null ? existing.getIp() : null, saved.getIp(), existing != null);
+        move(current.get(Board.DEVICES), existing != null ? existing.getDeviceId() : null, saved.getDeviceId(),
+                existing != null);
+        move(current.get(Board.PAYMENT_METHODS), existing != null ? existing.getPaymentMethod() : null,
+                saved.getPaymentMethod(), existing != null);
+    }
+
+    /** Subtracts a deleted transaction; {@code deleted} is the stored version before the delete. */
+    public void remove(Transaction deleted, String senderId, String receiverId) {
+        Map<Board, TopKSketch> current = boards;
+        double amount = amount(deleted);
+        current.get(Board.SENDERS).add(senderId, -amount);
+        current.get(Board.RECEIVERS).add(receiverId, -amount);
+        current.get(Board.IPS).add(deleted.getIp(), -1);
+        current.get(Board.DEVICES).add(deleted.getDeviceId(), -1);
+        current.get(Board.PAYMENT_METHODS).add(deleted.getPaymentMethod(), -1);
+    }
+
+    private static void move(TopKSketch sketch, String before, String after, boolean existed) {
+        if (existed && Objects.equals(before, after)) return;
+        if (existed) sketch.add(before, -1);
+        sketch.add(after, 1);
+    }
+
+    private static double amount(Transaction tx) {
+        return tx != null && tx.getAmount() != null ? tx.getAmount() : 0;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  SEEDING
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        requestSeed("startup");
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        requestSeed(event.reason());
+    }
+
+    /** Runs one rebuild at a time; requests during a rebuild fold into one more. */
+    private void requestSeed(String reason) {
+        pendingSeed.set(reason);
+        if (seeding.compareAndSet(false, true)) {
+            workers.pool().execute(this::runSeeds);
+        }
+    }
+
+    private void runSeeds() {
+        try {
+            String reason;
+            while ((reason = pendingSeed.getAndSet(null)) != null) {
+                seed(reason);
+            }
+        } finally {
+            seeding.set(false);
+        }
+        // A request may have arrived between the last check and the flag reset
+        if (pendingSeed.get() != null && seeding.compareAndSet(false, true)) {
+            workers.pool().execute(this::runSeeds);
+        }
+    }
+
+    private void seed(String reason) {
+        long start = System.nanoTime();
+        int capacity = props.getCapacity();
+        try {
+            Map<Board, TopKSketch> fresh = emptyBoards();
+            for (Board board : Board.values()) {
+                TopKSketch sketch = fresh.get(board);
+                // One row past capacity tells whether keys were left off the board
+                List<Map<String, Object>> rows = new ArrayList<>(neo4jClient.query(board.aggregation + """
+                                RETURN key, value
+                                ORDER BY value DESC
+                                LIMIT $limit
+                                """)
+                        .bind(capacity + 1).to("limit")
+                        .fetch()
+                        .all());
+                for (int i = 0; i < Math.min(capacity, rows.size()); i++) {
+                    sketch.add((String) rows.get(i).get("key"), ((Number) rows.get(i).get("value")).doubleValue());
+                }
+                if (rows.size() > capacity) {
+                    sketch.truncated(((Number) rows.get(capacity).get("value")).doubleValue());
+                }
+            }
+            boards = fresh;
+            seededAt = LocalDateTime.now();
+            log.info("Leaderboards rebuilt after {} in {} ms", reason, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Leaderboards could not be rebuilt after {}: {}", reason, e.getMessage());
+        }
+    }
+
+    private Map<Board, TopKSketch> emptyBoards() {
+        Map<Board, TopKSketch> map = new EnumMap<>(Board.class);
+        for (Board board : Board.values()) {
+            map.put(board, new TopKSketch(props.getCapacity()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.LiveGraphProperties;
+import com.example.VisualizationSystem.dto.GraphDeltaResponse;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.dto.LiveGraphStatsResponse;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.exception.ConflictException;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pushes graph changes to clients watching a set of node ids over Server-Sent Events.
+ * <p>
+ * Subscriptions are indexed by the ids they watch. A write event is matched against that
+ * index with one map lookup per id it touched (the same ids that invalidate the graph
+ * cache), so writes nobody watches cost nothing more, and idle subscriptions cost nothing
+ * but a periodic heartbeat. A matched write is turned into a delta by one small query,
+ * shared by every subscriber it matched; deltas are built one write at a time, in event
+ * order, on the graph worker pool.
+ * <p>
+ * Each subscriber has a bounded buffer drained by a task only while it holds something,
+ * so no thread is parked per idle connection. Drains run on virtual threads rather than
+ * the graph worker pool: a send blocks on the client's socket, and slow clients must not
+ * hold the threads graph jobs run on. A subscriber that falls behind loses
+ * its oldest deltas and is sent an {@code overflow} event, telling it to re-fetch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveGraphService {
+
+    private static final String TX_PROJECTION = """
+            {
+                .transactionId, .amount, .currency,
+                .ip, .deviceId, .status, .paymentMethod,
+                timestamp: toString(%1$s.timestamp)
+            }""";
+
+    private static final List<String> TX_LINK_TYPES = List.of(GraphEdge.SAME_IP, GraphEdge.SAME_DEVICE);
+    private static final List<String> USER_LINK_TYPES =
+            List.of(GraphEdge.SAME_EMAIL, GraphEdge.SAME_PHONE, GraphEdge.SAME_ADDRESS);
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final LiveGraphProperties props;
+
+    // One virtual thread per draining subscriber; a slow client parks only its own
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byWatchedId = new ConcurrentHashMap<>();
+
+    // Deltas are loaded one write at a time so subscribers see writes in order
+    private CompletableFuture<Void> dispatchTail = CompletableFuture.completedFuture(null);
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder matchedWrites = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        workers.scheduler().scheduleWithFixedDelay(this::heartbeat,
+                props.getHeartbeatSeconds(), props.getHeartbeatSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  SUBSCRIPTIONS
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * Opens a subscription for {@code ids}; its first event is {@code subscribed} with the
+     * subscription id.
+     */
+    public SseEmitter subscribe(Set<String> ids) {
+        if (subscribers.size() >= props.getMaxSubscribers()) {
+            throw new ConflictException("Live subscription limit of " + props.getMaxSubscribers() + " reached");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(props.getTimeoutMinutes()));
+        Subscriber subscriber = new Subscriber(UUID.randomUUID().toString(), Set.copyOf(ids), emitter);
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        subscribers.put(subscriber.id, subscriber);
+        for (String id : subscriber.ids) {
+            byWatchedId.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        subscriber.offer(SseEmitter.event().name("subscribed")
+                .data(Map.of("subscriptionId", subscriber.id, "ids", subscriber.ids), MediaType.APPLICATION_JSON));
+        log.info("Live subscription {} watching {} ids", subscriber.id, ids.size());
+        return emitter;
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.id) == null) return;
+        for (String id : subscriber.ids) {
+            byWatchedId.computeIfPresent(id, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        log.debug("Live subscription {} closed", subscriber.id);
+    }
+
+    public LiveGraphStatsResponse stats() {
+        return LiveGraphStatsResponse.builder()
+                .subscribers(subscribers.size())
+                .watchedIds(byWatchedId.size())
+                .writes(writes.sum())
+                .matchedWrites(matchedWrites.sum())
+                .delivered(delivered.sum())
+                .dropped(dropped.sum())
+                .build();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITE EVENTS
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        Map<Subscriber, List<String>> matches = match(event.tags());
+        if (matches.isEmpty()) return;
+        dispatch(() -> transactionDelta(event), matches);
+    }
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        Map<Subscriber, List<String>> matches = match(event.tags());
+        if (matches.isEmpty()) return;
+        dispatch(() -> userDelta(event), matches);
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.offer(SseEmitter.event().name("reload")
+                    .data(Map.of("reason", event.reason()), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /** Subscribers watching any of {@code tags}, with the ids each of them watches among those. */
+    private Map<Subscriber, List<String>> match(Set<String> tags) {
+        writes.increment();
+        Map<Subscriber, List<String>> matches = new HashMap<>();
+        for (String tag : tags) {
+            Set<Subscriber> watching = byWatchedId.get(tag);
+            if (watching == null) continue;
+            for (Subscriber subscriber : watching) {
+                matches.computeIfAbsent(subscriber, k -> new ArrayList<>()).add(tag);
+            }
+        }
+        if (!matches.isEmpty()) matchedWrites.increment();
+        return matches;
+    }
+
+    private synchronized void dispatch(Supplier<GraphDeltaResponse> load,
+                                       Map<Subscriber, List<String>> matches) {
+        dispatchTail = dispatchTail.thenRunAsync(() -> {
+            try {
+                GraphDeltaResponse delta = load.get();
+                if (delta == null) return;
+                matches.forEach((subscriber, ids) -> subscriber.offer(SseEmitter.event().name("delta")
+                        .data(delta.toBuilder().matchedIds(ids).build(), MediaType.APPLICATION_JSON)));
+            } catch (RuntimeException e) {
+                log.warn("Could not build live graph delta: {}", e.getMessage());
+            }
+        }, workers.pool());
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.queue.isEmpty()) subscriber.offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  DELTAS
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * The written transaction with its sender, receiver and the SAME_IP / SAME_DEVICE links
+     * to the transactions the write re-linked; links to those that are gone are removals.
+     */
+    private GraphDeltaResponse transactionDelta(TransactionWrittenEvent event) {
+        String txId = event.transactionId();
+        if (event.deleted()) {
+            return removal("transaction", txId);
+        }
+
+        Optional<Map<String, Object>> found = neo4jClient.query("""
+                        MATCH (tx:Transaction {transactionId: $txId})
+                        RETURN tx %s AS transaction,
+                               [(sender:User)-[:SENT]->(tx) | sender { .userId, .name }] AS senders,
+                               [(tx)-[:RECEIVED_BY]->(receiver:User) | receiver { .userId, .name }] AS receivers,
+                               [(tx)-[r:SAME_IP|SAME_DEVICE]-(peer:Transaction)
+                                    WHERE peer.transactionId IN $affected
+                                    | { peer: peer %s, relType: type(r) }] AS links
+                        """.formatted(TX_PROJECTION.formatted("tx"), TX_PROJECTION.formatted("peer")))
+                .bind(txId).to("txId")
+                .bind(List.copyOf(event.affectedIds())).to("affected")
+                .fetch()
+                .one();
+        if (found.isEmpty()) {
+            return removal("transaction", txId);
+        }
+        Map<String, Object> raw = found.get();
+
+        GraphBuilder graph = new GraphBuilder();
+        graph.addNode(GraphNode.transaction(map(raw.get("transaction"))));
+        for (Map<String, Object> sender : maps(raw.get("senders"))) {
+            String senderId = (String) sender.get("userId");
+            graph.addNode(GraphNode.user(senderId, sender.get("name")));
+            graph.addEdge(new GraphEdge(senderId, txId, GraphEdge.SENT));
+        }
+        for (Map<String, Object> receiver : maps(raw.get("receivers"))) {
+            String receiverId = (String) receiver.get("userId");
+            graph.addNode(GraphNode.user(receiverId, receiver.get("name")));
+            graph.addEdge(new GraphEdge(txId, receiverId, GraphEdge.RECEIVED_BY));
+        }
+
+        Set<String> linked = new HashSet<>();
+        for (Map<String, Object> link : maps(raw.get("links"))) {
+            GraphNode.Transaction peer = GraphNode.transaction(map(link.get("peer")));
+            String relType = (String) link.get("relType");
+            graph.addNode(peer);
+            graph.addEdge(new GraphEdge(txId, peer.id(), relType));
+            linked.add(peer.id() + "|" + relType);
+        }
+        return upsert("transaction", txId, graph, removedLinks(txId, event.affectedIds(), TX_LINK_TYPES, linked));
+    }
+
+    /**
+     * The written user with its SAME_EMAIL / SAME_PHONE / SAME_ADDRESS links to the users
+     * the write re-linked; links to those that are gone are removals.
+     */
+    private GraphDeltaResponse userDelta(UserWrittenEvent event) {
+        String userId = event.userId();
+        if (event.deleted()) {
+            return removal("user", userId);
+        }
+
+        Optional<Map<String, Object>> found = neo4jClient.query("""
+                        MATCH (u:User {userId: $userId})
+                        RETURN u { .userId, .name } AS user,
+                               [(u)-[r:SAME_EMAIL|SAME_PHONE|SAME_ADDRESS]-(other:User)
+                                    WHERE other.userId IN $affected
+                                    | { userId: other.userId, name: other.name, relType: type(r) }] AS links
+                        """)
+                .bind(userId).to("userId")
+                .bind(List.copyOf(event.affectedIds())).to("affected")
+                .fetch()
+                .one();
+        if (found.isEmpty()) {
+            return removal("user", userId);
+        }
+        Map<String, Object> raw = found.get();
+
+        GraphBuilder graph = new GraphBuilder();
+        graph.addNode(GraphNode.user(userId, map(raw.get("user")).get("name")));
+        Set<String> linked = new HashSet<>();
+        for (Map<String, Object> link : maps(raw.get("links"))) {
+            String otherId = (String) link.get("userId");
+            String relType = (String) link.get("relType");
+            graph.addNode(GraphNode.user(otherId, link.get("name")));
+            graph.addEdge(new GraphEdge(userId, otherId, relType));
+            linked.add(otherId + "|" + relType);
+        }
+        return upsert("user", userId, graph, removedLinks(userId, event.affectedIds(), USER_LINK_TYPES, linked));
+    }
+
+    private static List<GraphEdge> removedLinks(String id, Set<String> affected, List<String> types,
+                                                Set<String> linked) {
+        List<GraphEdge> removed = new ArrayList<>();
+        for (String other : affected) {
+            for (String type : types) {
+                if (!linked.contains(other + "|" + type)) removed.add(new GraphEdge(id, other, type));
+            }
+        }
+        return removed;
+    }
+
+    private static GraphDeltaResponse upsert(String kind, String id, GraphBuilder graph, List<GraphEdge> removedEdges) {
+        return GraphDeltaResponse.builder()
+                .kind(kind)
+                .id(id)
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .removedNodes(List.of())
+                .removedEdges(removedEdges)
+                .at(LocalDateTime.now())
+                .build();
+    }
+
+    private static GraphDeltaResponse removal(String kind, String id) {
+        return GraphDeltaResponse.builder()
+                .kind(kind)
+                .id(id)
+                .deleted(true)
+                .nodes(List.of())
+                .edges(List.of())
+                .removedNodes(List.of(id))
+                .removedEdges(List.of())
+                .at(LocalDateTime.now())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> maps(Object value) {
+        return value != null ? (List<Map<String, Object>>) value : List.of();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  SUBSCRIBER
+    // ════════════════════════════════════════════════════════════════
+
+    /** One connection: its watched ids, a bounded buffer and at most one draining task. */
+    private final class Subscriber {
+
+        private final String id;
+        private final Set<String> ids;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong droppedSinceSent = new AtomicLong();
+        private volatile boolean closed;
+
+        Subscriber(String id, Set<String> ids, SseEmitter emitter) {
+            this.id = id;
+            this.ids = ids;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(props.getBufferSize());
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) return;
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    droppedSinceSent.incrementAndGet();
+                    dropped.increment();
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    long lost = droppedSinceSent.getAndSet(0);
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name("overflow")
+                                .data(Map.of("dropped", lost), MediaType.APPLICATION_JSON));
+                    }
+                    SseEmitter.SseEventBuilder event = queue.poll();
+                    if (event == null) break;
+                    emitter.send(event);
+                    delivered.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // An offer may have seen the flag still set after the last poll
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            unregister(this);
+            queue.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed
+            }
+        }
+    }
+}
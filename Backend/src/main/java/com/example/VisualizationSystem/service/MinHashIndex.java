@@ -0,0 +1,215 @@
+package com.example.VisualizationSystem.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MinHash signatures of per-user feature sets with LSH banding.
+ * <p>
+ * A signature holds, for each of {@code bands * rows} seeded hash functions, the smallest
+ * hash over the user's features; two signatures agree in a position with probability
+ * equal to the Jaccard similarity of the sets. Each band of {@code rows} positions is
+ * hashed to a bucket key, and users sharing any bucket are candidates, so a lookup reads
+ * a handful of buckets instead of scanning everyone.
+ * <p>
+ * Buckets are copy-on-write arrays, as nearly all of them hold one or two users.
+ * {@link #build} computes signatures and fills the bands in parallel; {@link #put} and
+ * {@link #remove} keep a built index current and must not run concurrently for the same
+ * user. Lookups may run alongside them.
+ */
+final class MinHashIndex {
+
+    private static final int LEAF = 1_024;    // users per leaf task
+
+    /** One user's features, with its name for display. */
+    record Features(String userId, String name, Set<String> tokens) {}
+
+    record Entry(String name, Set<String> tokens, int[] signature) {}
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final Map<String, Entry> users = new ConcurrentHashMap<>();
+    private final List<Map<Long, String[]>> buckets;
+
+    MinHashIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed;
+        }
+        buckets = new ArrayList<>(bands);
+        for (int b = 0; b < bands; b++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    static MinHashIndex build(List<Features> all, int bands, int rows, ForkJoinPool pool) {
+        MinHashIndex index = new MinHashIndex(bands, rows);
+        Entry[] entries = new Entry[all.size()];
+        pool.invoke(new SignatureRange(index, all, entries, 0, all.size()));
+
+        for (int i = 0; i < entries.length; i++) {
+            index.users.put(all.get(i).userId(), entries[i]);
+        }
+        // Each task fills one band's map, so no two tasks write to the same map
+        List<ForkJoinTask<?>> fills = new ArrayList<>(bands);
+        for (int b = 0; b < bands; b++) {
+            int band = b;
+            fills.add(pool.submit(() -> {
+                Map<Long, List<String>> grouped = new HashMap<>();
+                for (int i = 0; i < entries.length; i++) {
+                    if (entries[i].signature() == null) continue;
+                    grouped.computeIfAbsent(index.bandKey(entries[i].signature(), band), k -> new ArrayList<>(1))
+                            .add(all.get(i).userId());
+                }
+                Map<Long, String[]> map = index.buckets.get(band);
+                grouped.forEach((key, members) -> map.put(key, members.toArray(String[]::new)));
+            }));
+        }
+        fills.forEach(ForkJoinTask::join);
+        return index;
+    }
+
+    int size() {
+        return users.size();
+    }
+
+    int signatureLength() {
+        return seeds.length;
+    }
+
+    Entry get(String userId) {
+        return users.get(userId);
+    }
+
+    void put(Features features) {
+        remove(features.userId());
+        Entry entry = entry(features);
+        users.put(features.userId(), entry);
+        if (entry.signature() == null) return;
+        String id = features.userId();
+        for (int b = 0; b < bands; b++) {
+            buckets.get(b).merge(bandKey(entry.signature(), b), new String[]{id}, (members, one) -> {
+                String[] grown = Arrays.copyOf(members, members.length + 1);
+                grown[members.length] = id;
+                return grown;
+            });
+        }
+    }
+
+    void remove(String userId) {
+        Entry old = users.remove(userId);
+        if (old == null || old.signature() == null) return;
+        for (int b = 0; b < bands; b++) {
+            buckets.get(b).computeIfPresent(bandKey(old.signature(), b), (k, members) -> {
+                String[] kept = Arrays.stream(members).filter(m -> !m.equals(userId)).toArray(String[]::new);
+                return kept.length == 0 ? null : kept;
+            });
+        }
+    }
+
+    /** Users sharing at least one band bucket with {@code entry}, at most {@code max}. */
+    Set<String> candidates(String userId, Entry entry, int max) {
+        Set<String> found = new LinkedHashSet<>();
+        if (entry.signature() == null) return found;
+        for (int b = 0; b < bands && found.size() < max; b++) {
+            String[] bucket = buckets.get(b).get(bandKey(entry.signature(), b));
+            if (bucket == null) continue;
+            for (String other : bucket) {
+                if (found.size() >= max) break;
+                if (!other.equals(userId)) found.add(other);
+            }
+        }
+        return found;
+    }
+
+    /** Fraction of signature positions on which the two entries agree. */
+    static double estimate(Entry a, Entry b) {
+        if (a.signature() == null || b.signature() == null) return 0;
+        int same = 0;
+        for (int i = 0; i < a.signature().length; i++) {
+            if (a.signature()[i] == b.signature()[i]) same++;
+        }
+        return (double) same / a.signature().length;
+    }
+
+    private Entry entry(Features features) {
+        Set<String> tokens = Set.copyOf(features.tokens());
+        return new Entry(features.name(), tokens, tokens.isEmpty() ? null : signature(tokens));
+    }
+
+    private int[] signature(Set<String> tokens) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = hash(token);
+            for (int i = 0; i < seeds.length; i++) {
+                int h = (int) (mix(base ^ seeds[i]) >>> 33);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long h = band * 0x9E3779B97F4A7C15L;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            h = mix(h ^ signature[r]);
+        }
+        return h;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 code units of {@code s}. */
+    private static long hash(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class SignatureRange extends RecursiveAction {
+
+        private final MinHashIndex index;
+        private final List<Features> all;
+        private final Entry[] entries;
+        private final int from;
+        private final int to;
+
+        SignatureRange(MinHashIndex index, List<Features> all, Entry[] entries, int from, int to) {
+            this.index = index;
+            this.all = all;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF) {
+                for (int i = from; i < to; i++) {
+                    entries[i] = index.entry(all.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SignatureRange(index, all, entries, from, mid),
+                    new SignatureRange(index, all, entries, mid, to));
+        }
+    }
+}
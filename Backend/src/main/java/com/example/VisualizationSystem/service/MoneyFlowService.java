@@ -0,0 +1,269 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.dto.MoneyFlowResponse;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.Csr;
+import com.example.VisualizationSystem.graph.GraphProjection;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.graph.TransferPathSearch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.exceptions.ClientException;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Paths money can take from one user to another over TRANSFERRED_TO.
+ * <p>
+ * Answered from the in-memory projection with {@link TransferPathSearch}. When there is
+ * no projection, an endpoint is unknown to it, or the search runs into a user written
+ * since the snapshot, the same search runs as a variable-length Cypher match. That match
+ * has no node-visit budget, so it is bounded differently: at most
+ * {@value #CYPHER_MAX_HOPS} hops, at most {@code budget} paths, and a transaction timeout.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MoneyFlowService {
+
+    // The match expands every path within the hop limit before the simple-path filter and
+    // LIMIT apply, and each hop multiplies that frontier, so the fallback stops earlier
+    static final int CYPHER_MAX_HOPS = 4;
+    private static final Duration CYPHER_TIMEOUT = Duration.ofSeconds(5);
+
+    private final GraphProjectionService graphProjection;
+    private final Neo4jClient neo4jClient;
+    private final Driver driver;
+
+    public MoneyFlowResponse findPaths(String fromId, String toId, int maxHops, int k,
+                                       TransferPathSearch.Mode mode, Double minAmount,
+                                       LocalDateTime since, LocalDateTime until, int budget) {
+        long start = System.nanoTime();
+
+        MoneyFlowResponse response = graphProjection.snapshot()
+                .flatMap(p -> fromProjection(p, fromId, toId, maxHops, k, mode, minAmount, since, until, budget))
+                .orElseGet(() -> fromCypher(fromId, toId, maxHops, k, mode, minAmount, since, until, budget));
+
+        response.setFromId(fromId);
+        response.setToId(toId);
+        response.setMode(mode.name().toLowerCase());
+        if (response.getMaxHops() == 0) response.setMaxHops(maxHops);
+        response.setK(k);
+        response.setMinAmount(minAmount);
+        response.setSince(since);
+        response.setUntil(until);
+        response.setBudget(budget);
+
+        log.info("Money-flow {} -> {} ({}, {} hops): {} paths from {} in {} µs, {} visited{}{}",
+                fromId, toId, response.getMode(), response.getMaxHops(), response.getPaths().size(),
+                response.getSource(), (System.nanoTime() - start) / 1_000, response.getVisited(),
+                response.isBudgetExhausted() ? " (budget exhausted)" : "",
+                response.isTimedOut() ? " (timed out)" : "");
+        return response;
+    }
+
+    // ─────────────────────────────────────────────
+    // Projection
+    // ─────────────────────────────────────────────
+
+    private Optional<MoneyFlowResponse> fromProjection(GraphProjection p, String fromId, String toId,
+                                                       int maxHops, int k, TransferPathSearch.Mode mode,
+                                                       Double minAmount, LocalDateTime since,
+                                                       LocalDateTime until, int budget) {
+        int source = p.getUsers().indexOf(fromId);
+        int target = p.getUsers().indexOf(toId);
+        if (source < 0 || target < 0) {
+            return Optional.empty();
+        }
+
+        TransferPathSearch.Constraints constraints = new TransferPathSearch.Constraints(
+                minAmount != null ? minAmount : 0,
+                since != null ? GraphProjection.toEpochMillis(since) : Long.MIN_VALUE,
+                until != null ? GraphProjection.toEpochMillis(until) : Long.MAX_VALUE);
+        TransferPathSearch.Result result = new TransferPathSearch(
+                p, u -> graphProjection.isDirty(p.getUsers().id(u)),
+                source, target, maxHops, k, mode, constraints, budget).run();
+        if (result.stale()) {
+            return Optional.empty();
+        }
+
+        Csr transfers = p.getTransfers();
+        GraphBuilder graph = new GraphBuilder();
+        List<MoneyFlowResponse.FlowPath> paths = new ArrayList<>(result.paths().size());
+        for (TransferPathSearch.Path path : result.paths()) {
+            List<String> userIds = new ArrayList<>(path.users().length);
+            for (int u : path.users()) {
+                String id = p.getUsers().id(u);
+                userIds.add(id);
+                graph.addNode(GraphNode.user(id, p.getUserName()[u]));
+            }
+
+            List<MoneyFlowResponse.Transfer> hops = new ArrayList<>(path.hops());
+            for (int i = 0; i < path.hops(); i++) {
+                int e = path.edges()[i];
+                hops.add(new MoneyFlowResponse.Transfer(
+                        userIds.get(i), userIds.get(i + 1),
+                        transfers.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e),
+                        (long) transfers.weight(GraphProjection.TRANSFER_TXN_COUNT, e),
+                        dateTime(transfers.weight(GraphProjection.TRANSFER_FIRST_AT, e)),
+                        dateTime(transfers.weight(GraphProjection.TRANSFER_LAST_AT, e))));
+                graph.addEdge(new GraphEdge(userIds.get(i), userIds.get(i + 1), GraphEdge.TRANSFERRED_TO));
+            }
+            paths.add(new MoneyFlowResponse.FlowPath(userIds, path.hops(), path.bottleneck(), path.totalAmount(), hops));
+        }
+
+        return Optional.of(MoneyFlowResponse.builder()
+                .paths(paths)
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .source("projection")
+                .visited(result.visited())
+                .budgetExhausted(result.budgetExhausted())
+                .build());
+    }
+
+    private static LocalDateTime dateTime(double epochMillis) {
+        return Double.isNaN(epochMillis) ? null : GraphProjection.toLocalDateTime((long) epochMillis);
+    }
+
+    // ─────────────────────────────────────────────
+    // Cypher fallback
+    // ─────────────────────────────────────────────
+
+    /**
+     * Enumerates at most {@code budget} simple paths of at most {@value #CYPHER_MAX_HOPS}
+     * hops, then ranks them. The budget counts paths rather than nodes here, since the
+     * planner expands the pattern itself, and {@code visited}/{@code budgetExhausted} report
+     * that path count. A query that outlives {@link #CYPHER_TIMEOUT} is cut off and answers
+     * with no paths and {@code timedOut} set.
+     */
+    private MoneyFlowResponse fromCypher(String fromId, String toId, int maxHops, int k,
+                                         TransferPathSearch.Mode mode, Double minAmount,
+                                         LocalDateTime since, LocalDateTime until, int budget) {
+        Collection<String> known = neo4jClient.query(
+                        "MATCH (u:User) WHERE u.userId IN [$fromId, $toId] RETURN u.userId AS userId")
+                .bind(fromId).to("fromId")
+                .bind(toId).to("toId")
+                .fetchAs(String.class)
+                .all();
+        for (String id : List.of(fromId, toId)) {
+            if (!known.contains(id)) {
+                throw new ResourceNotFoundException("User", "id", id);
+            }
+        }
+
+        int hopLimit = Math.min(maxHops, CYPHER_MAX_HOPS);
+        String order = mode == TransferPathSearch.Mode.SHORTEST
+                ? "length(p) ASC, bottleneck DESC"
+                : "bottleneck DESC, length(p) ASC";
+        String query = """
+                MATCH p = (a:User {userId: $fromId})-[:TRANSFERRED_TO*1..%d]->(b:User {userId: $toId})
+                WHERE all(n IN nodes(p) WHERE single(x IN nodes(p) WHERE x = n))
+                  AND all(r IN relationships(p) WHERE coalesce(r.totalAmount, 0.0) >= $minAmount
+                          AND ($since IS NULL OR r.lastAt >= $since)
+                          AND ($until IS NULL OR r.firstAt <= $until))
+                WITH p LIMIT $budget
+                WITH collect(p) AS found
+                UNWIND found AS p
+                WITH size(found) AS enumerated, p,
+                     reduce(m = -1.0, r IN relationships(p) |
+                        CASE WHEN m < 0 OR coalesce(r.totalAmount, 0.0) < m
+                             THEN coalesce(r.totalAmount, 0.0) ELSE m END) AS bottleneck,
+                     reduce(s = 0.0, r IN relationships(p) | s + coalesce(r.totalAmount, 0.0)) AS total
+                ORDER BY %s
+                LIMIT $k
+                RETURN enumerated,
+                       [n IN nodes(p) | n { .userId, .name }] AS users,
+                       [r IN relationships(p) | r { .totalAmount, .txnCount, .firstAt, .lastAt }] AS transfers,
+                       bottleneck,
+                       total
+                """.formatted(hopLimit, order);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("fromId", fromId);
+        params.put("toId", toId);
+        params.put("minAmount", minAmount != null ? minAmount : 0.0);
+        params.put("since", since);
+        params.put("until", until);
+        params.put("budget", budget);
+        params.put("k", k);
+
+        List<Map<String, Object>> rows;
+        try (Session session = driver.session(SessionConfig.builder()
+                .withDefaultAccessMode(AccessMode.READ)
+                .build())) {
+            rows = session.run(query, params, TransactionConfig.builder().withTimeout(CYPHER_TIMEOUT).build())
+                    .list(Record::asMap);
+        } catch (ClientException e) {
+            if (e.code() == null || !e.code().contains("TransactionTimedOut")) {
+                throw e;
+            }
+            log.warn("Money-flow {} -> {} over Cypher timed out after {}", fromId, toId, CYPHER_TIMEOUT);
+            return MoneyFlowResponse.builder()
+                    .paths(List.of())
+                    .nodes(List.of())
+                    .edges(List.of())
+                    .source("cypher")
+                    .maxHops(hopLimit)
+                    .timedOut(true)
+                    .build();
+        }
+
+        GraphBuilder graph = new GraphBuilder();
+        List<MoneyFlowResponse.FlowPath> paths = new ArrayList<>(rows.size());
+        int enumerated = 0;
+        for (Map<String, Object> row : rows) {
+            enumerated = ((Number) row.get("enumerated")).intValue();
+
+            List<String> userIds = new ArrayList<>();
+            for (Map<String, Object> user : maps(row.get("users"))) {
+                String id = (String) user.get("userId");
+                userIds.add(id);
+                graph.addNode(GraphNode.user(id, user.get("name")));
+            }
+
+            List<Map<String, Object>> rels = maps(row.get("transfers"));
+            List<MoneyFlowResponse.Transfer> hops = new ArrayList<>(rels.size());
+            for (int i = 0; i < rels.size(); i++) {
+                Map<String, Object> r = rels.get(i);
+                hops.add(new MoneyFlowResponse.Transfer(
+                        userIds.get(i), userIds.get(i + 1),
+                        r.get("totalAmount") instanceof Number n ? n.doubleValue() : 0,
+                        r.get("txnCount") instanceof Number n ? n.longValue() : 0,
+                        (LocalDateTime) r.get("firstAt"),
+                        (LocalDateTime) r.get("lastAt")));
+                graph.addEdge(new GraphEdge(userIds.get(i), userIds.get(i + 1), GraphEdge.TRANSFERRED_TO));
+            }
+            paths.add(new MoneyFlowResponse.FlowPath(userIds, hops.size(),
+                    ((Number) row.get("bottleneck")).doubleValue(),
+                    ((Number) row.get("total")).doubleValue(), hops));
+        }
+
+        return MoneyFlowResponse.builder()
+                .paths(paths)
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .source("cypher")
+                .maxHops(hopLimit)
+                .visited(enumerated)
+                .budgetExhausted(enumerated >= budget)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> maps(Object value) {
+        return value != null ? (List<Map<String, Object>>) value : List.of();
+    }
+}
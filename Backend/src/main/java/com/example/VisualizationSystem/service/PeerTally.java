@@ -0,0 +1,100 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals for one same-IP / same-device peer category of a transaction graph.
+ * The scan window's aggregates are added first, then every peer actually shown is
+ * subtracted, so what remains describes the peers left out of the graph.
+ */
+final class PeerTally {
+
+    private final String relType;
+
+    private final Map<String, Long> hiddenMix = new TreeMap<>();
+    private double hiddenAmount;
+    private long scanned;
+    private long total;
+    private int shown;
+
+    PeerTally(String relType) {
+        this.relType = relType;
+    }
+
+    /** One status group of the scan window; add all of them before any {@link #shown}. */
+    void window(Object status, long count, double amount) {
+        scanned += count;
+        hiddenAmount += amount;
+        hiddenMix.merge(statusKey(status), count, Long::sum);
+    }
+
+    void total(long total) {
+        this.total = total;
+    }
+
+    /** A peer that made it into the graph. */
+    void shown(Object status, Object amount) {
+        shown++;
+        if (amount != null) hiddenAmount -= ((Number) amount).doubleValue();
+        hiddenMix.computeIfPresent(statusKey(status), (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+    long hidden() {
+        return total - shown;
+    }
+
+    /** Totals, what was shown and aggregates of the hidden peers. */
+    Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", total);
+        summary.put("totalCapped", capped());
+        summary.put("shown", shown);
+        summary.put("scanned", scanned);
+        summary.put("hidden", hidden());
+        summary.put("hiddenAmount", Math.max(0.0, hiddenAmount));
+        summary.put("hiddenStatusMix", hiddenMix);
+        summary.put("aggregatesExact", exact());
+        return summary;
+    }
+
+    static String clusterId(String relType, String mainTxId) {
+        return "cluster_" + relType + "_" + mainTxId;
+    }
+
+    /** Pseudo-node standing for the hidden peers. */
+    GraphNode.Cluster clusterNode(String mainTxId) {
+        String what = relType.equals(GraphEdge.SAME_IP) ? "same IP" : "same device";
+        return new GraphNode.Cluster(
+                clusterId(relType, mainTxId),
+                "+" + hidden() + (capped() ? "+" : "") + " " + what,
+                relType,
+                hidden(),
+                Math.max(0.0, hiddenAmount),
+                hiddenMix,
+                exact(),
+                null,
+                null);
+    }
+
+    GraphEdge clusterEdge(String mainTxId) {
+        return new GraphEdge(mainTxId, clusterId(relType, mainTxId), relType);
+    }
+
+    private boolean capped() {
+        return total >= TransactionRelationshipService.PEER_COUNT_LIMIT;
+    }
+
+    // aggregates cover every hidden peer
+    private boolean exact() {
+        return scanned >= total;
+    }
+
+    private static String statusKey(Object status) {
+        return status != null ? status.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.RiskScoringProperties;
+import com.example.VisualizationSystem.dto.RiskJobResponse;
+import com.example.VisualizationSystem.event.GraphProjectionRebuiltEvent;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.graph.Csr;
+import com.example.VisualizationSystem.graph.GraphCentrality;
+import com.example.VisualizationSystem.graph.GraphProjection;
+import com.example.VisualizationSystem.graph.GraphProjectionLoader;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Precomputed per-user risk score, for sorting users and colouring the graph.
+ * <p>
+ * The job takes the current projection snapshot (or loads one when the projection is
+ * disabled), runs {@link GraphCentrality} on the fork-join pool and writes
+ * {@code riskScore}, {@code pageRank} and {@code weightedDegree} onto every user in
+ * batched UNWIND statements. {@code riskScore} blends the two centralities on log scales
+ * into 0..100; {@code pageRank} is relative to the average user (1.0).
+ * <p>
+ * Runs after every pipeline run or sample load, once the projection of the new data is
+ * in (straight away when there is no projection), and on request. One run at a time; a
+ * request during a run queues exactly one more.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RiskScoringService {
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final GraphProjectionService graphProjection;
+    private final GraphProjectionLoader loader;
+    private final RiskScoringProperties props;
+
+    // guarded by this
+    private boolean running;
+    private String queued;                   // trigger of the run requested during the current one
+    private boolean scoreNextSnapshot;       // data was reloaded; score the projection built from it
+    private RiskJobResponse last = RiskJobResponse.builder().state("idle").build();
+
+    public synchronized RiskJobResponse status() {
+        return last.toBuilder().running(running).build();
+    }
+
+    /** Starts a run on a job thread, or queues one behind the run in progress. */
+    public void trigger(String reason) {
+        trigger(reason, null);
+    }
+
+    private synchronized void trigger(String reason, GraphProjection snapshot) {
+        if (running) {
+            queued = reason;
+            return;
+        }
+        running = true;
+        workers.jobs().execute(() -> runLoop(reason, snapshot));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  EVENTS
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        if (!props.isRunAfterPipeline()) return;
+        if (graphProjection.isEnabled()) {
+            synchronized (this) {
+                scoreNextSnapshot = true;
+            }
+        } else {
+            trigger(event.reason());
+        }
+    }
+
+    @EventListener
+    public void onProjectionRebuilt(GraphProjectionRebuiltEvent event) {
+        synchronized (this) {
+            if (!scoreNextSnapshot) return;
+            scoreNextSnapshot = false;
+        }
+        trigger("projection after reload", event.projection());
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  JOB
+    // ════════════════════════════════════════════════════════════════
+
+    private void runLoop(String reason, GraphProjection snapshot) {
+        while (true) {
+            RiskJobResponse report = run(reason, snapshot);
+            synchronized (this) {
+                last = report;
+                if (queued == null) {
+                    running = false;
+                    return;
+                }
+                reason = queued;
+                queued = null;
+                snapshot = null;
+            }
+        }
+    }
+
+    private RiskJobResponse run(String reason, GraphProjection snapshot) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        try {
+            GraphProjection p = snapshot != null ? snapshot
+                    : graphProjection.snapshot().orElseGet(loader::load);
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+            GraphCentrality.Result result = GraphCentrality.compute(p, new GraphCentrality.Options(
+                    props.getDamping(), props.getTransferShare(), props.getTolerance(), props.getMaxIterations()),
+                    workers.forkJoin());
+
+            long writeStart = System.nanoTime();
+            ensureIndex();
+            write(p, result);
+            long writeMillis = (System.nanoTime() - writeStart) / 1_000_000;
+
+            List<RiskJobResponse.Iteration> iterations = new ArrayList<>(result.iterations().size());
+            for (GraphCentrality.Iteration it : result.iterations()) {
+                iterations.add(new RiskJobResponse.Iteration(it.iteration(), it.micros(), it.delta()));
+            }
+            long sharedEdges = 0;
+            for (Csr csr : List.of(p.getSameEmail(), p.getSamePhone(), p.getSameAddress())) {
+                sharedEdges += csr.edgeCount();
+            }
+
+            RiskJobResponse report = RiskJobResponse.builder()
+                    .state("completed")
+                    .trigger(reason)
+                    .startedAt(startedAt)
+                    .finishedAt(Instant.now())
+                    .users(p.getUsers().size())
+                    .transferEdges(p.getTransfers().edgeCount())
+                    .sharedEdges(sharedEdges)
+                    .iterations(iterations.size())
+                    .converged(result.converged())
+                    .finalDelta(iterations.isEmpty() ? 0 : iterations.get(iterations.size() - 1).getDelta())
+                    .loadMillis(loadMillis)
+                    .pageRankMillis(result.pageRankMillis())
+                    .degreeMillis(result.degreeMillis())
+                    .writeMillis(writeMillis)
+                    .totalMillis((System.nanoTime() - start) / 1_000_000)
+                    .iterationTimings(iterations)
+                    .build();
+            log.info("Risk scoring ({}): {} users, {} iterations ({}), load {} ms, PageRank {} ms, write {} ms",
+                    reason, report.getUsers(), report.getIterations(),
+                    report.isConverged() ? "converged" : "iteration limit",
+                    loadMillis, report.getPageRankMillis(), writeMillis);
+            return report;
+        } catch (RuntimeException e) {
+            log.error("Risk scoring ({}) failed", reason, e);
+            return RiskJobResponse.builder()
+                    .state("failed")
+                    .trigger(reason)
+                    .startedAt(startedAt)
+                    .finishedAt(Instant.now())
+                    .error(e.getMessage())
+                    .totalMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITE-BACK
+    // ════════════════════════════════════════════════════════════════
+
+    /** Serves the score ordering of the user list; also created here for databases loaded before it existed. */
+    private void ensureIndex() {
+        neo4jClient.query("CREATE INDEX user_risk_idx IF NOT EXISTS FOR (u:User) ON (u.riskScore)").run();
+    }
+
+    private void write(GraphProjection p, GraphCentrality.Result result) {
+        int n = p.getUsers().size();
+        double[] rank = result.pageRank();
+        double[] degree = result.weightedDegree();
+
+        double minRank = Double.POSITIVE_INFINITY;
+        double maxRank = 0;
+        double maxDegree = 0;
+        for (int u = 0; u < n; u++) {
+            minRank = Math.min(minRank, rank[u]);
+            maxRank = Math.max(maxRank, rank[u]);
+            maxDegree = Math.max(maxDegree, degree[u]);
+        }
+        double rankSpan = maxRank > minRank ? Math.log(maxRank / minRank) : 0;
+        double degreeSpan = Math.log1p(maxDegree);
+        double rankWeight = props.getPageRankWeight();
+
+        int batch = Math.max(1, props.getWriteBatchSize());
+        List<Map<String, Object>> rows = new ArrayList<>(Math.min(n, batch));
+        for (int u = 0; u < n; u++) {
+            double rankPart = rankSpan > 0 ? Math.log(rank[u] / minRank) / rankSpan : 0;
+            double degreePart = degreeSpan > 0 ? Math.log1p(degree[u]) / degreeSpan : 0;
+            double score = 100 * (rankWeight * rankPart + (1 - rankWeight) * degreePart);
+
+            rows.add(Map.of(
+                    "userId", p.getUsers().id(u),
+                    "riskScore", Math.round(score * 10) / 10.0,
+                    "pageRank", rank[u] * n,
+                    "weightedDegree", degree[u]));
+            if (rows.size() == batch) {
+                writeBatch(rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) writeBatch(rows);
+    }
+
+    private void writeBatch(List<Map<String, Object>> rows) {
+        neo4jClient.query("""
+                        UNWIND $rows AS row
+                        MATCH (u:User {userId: row.userId})
+                        SET u.riskScore = row.riskScore,
+                            u.pageRank = row.pageRank,
+                            u.weightedDegree = row.weightedDegree
+                        """)
+                .bind(rows).to("rows")
+                .run();
+    }
+}
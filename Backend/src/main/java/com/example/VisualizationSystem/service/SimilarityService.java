@@ -0,0 +1,254 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.SimilarityProperties;
+import com.example.VisualizationSystem.dto.SimilarUsersResponse;
+import com.example.VisualizationSystem.event.GraphReloadedEvent;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.exception.ConflictException;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Users similar to a given one by the devices and IPs of the transactions they sent and
+ * their email, phone and address, from a {@link MinHashIndex} instead of the
+ * User-SENT-Transaction-SAME_DEVICE-Transaction-SENT-User traversal.
+ * <p>
+ * The index is built at startup and after every bulk reload. Between builds, each user
+ * or transaction write queues the user whose features it may have changed (the written
+ * user, or the sender); a single drain task reloads their features in one query and
+ * updates the index. Users refreshed while a build runs are refreshed again after it.
+ * <p>
+ * A lookup scores the users sharing an LSH bucket by exact Jaccard similarity over the
+ * stored feature sets and lists the features they share.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimilarityService {
+
+    // Features of the given users, or of everyone when $ids is null
+    private static final String FEATURES_QUERY = """
+            MATCH (u:User)
+            WHERE $ids IS NULL OR u.userId IN $ids
+            CALL (u) {
+                OPTIONAL MATCH (u)-[:SENT]->(t:Transaction)
+                RETURN collect(DISTINCT t.deviceId) AS devices, collect(DISTINCT t.ip) AS ips
+            }
+            RETURN u.userId AS userId, u.name AS name,
+                   u.email AS email, u.phone AS phone, u.address AS address,
+                   devices, ips
+            """;
+
+    private final Neo4jClient neo4jClient;
+    private final GraphWorkers workers;
+    private final SimilarityProperties props;
+
+    private volatile MinHashIndex index;
+    private volatile LocalDateTime builtAt;
+
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final AtomicReference<String> pendingBuild = new AtomicReference<>();
+    private final Set<String> refreshedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // ════════════════════════════════════════════════════════════════
+    //  LOOKUP
+    // ════════════════════════════════════════════════════════════════
+
+    public SimilarUsersResponse findSimilar(String userId, int k) {
+        MinHashIndex current = index;
+        if (current == null) {
+            throw new ConflictException("The similarity index is still being built");
+        }
+        MinHashIndex.Entry me = current.get(userId);
+        if (me == null) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+
+        Set<String> candidates = current.candidates(userId, me, props.getMaxCandidates());
+        List<SimilarUsersResponse.Match> matches = new ArrayList<>(candidates.size());
+        for (String otherId : candidates) {
+            MinHashIndex.Entry other = current.get(otherId);
+            if (other == null) continue;
+            List<String> shared = new ArrayList<>();
+            for (String token : me.tokens()) {
+                if (other.tokens().contains(token)) shared.add(token);
+            }
+            int union = me.tokens().size() + other.tokens().size() - shared.size();
+            Collections.sort(shared);
+            matches.add(new SimilarUsersResponse.Match(otherId, other.name(),
+                    union == 0 ? 0 : (double) shared.size() / union, MinHashIndex.estimate(me, other), shared));
+        }
+        matches.sort(Comparator.comparingDouble(SimilarUsersResponse.Match::getSimilarity).reversed()
+                .thenComparing(SimilarUsersResponse.Match::getUserId));
+
+        return SimilarUsersResponse.builder()
+                .userId(userId)
+                .features(me.tokens().stream().sorted().toList())
+                .candidates(candidates.size())
+                .indexedUsers(current.size())
+                .builtAt(builtAt)
+                .similar(matches.subList(0, Math.min(k, matches.size())))
+                .build();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITES
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener
+    public void onUserWritten(UserWrittenEvent event) {
+        queueRefresh(event.userId());
+    }
+
+    @EventListener
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        // Deletes name the sender too, so its features drop the deleted transaction right away
+        if (event.senderId() != null) queueRefresh(event.senderId());
+    }
+
+    private void queueRefresh(String userId) {
+        pendingUsers.add(userId);
+        if (building.get()) refreshedDuringBuild.add(userId);
+        startDrain();
+    }
+
+    private void startDrain() {
+        if (draining.compareAndSet(false, true)) {
+            workers.pool().execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!pendingUsers.isEmpty()) {
+                List<String> ids = new ArrayList<>(pendingUsers);
+                pendingUsers.removeAll(ids);
+                MinHashIndex current = index;
+                if (current == null) continue;     // the build in progress reads them anyway
+
+                Map<String, MinHashIndex.Features> found = new HashMap<>();
+                for (MinHashIndex.Features features : loadFeatures(ids)) {
+                    found.put(features.userId(), features);
+                }
+                for (String id : ids) {
+                    MinHashIndex.Features features = found.get(id);
+                    if (features != null) {
+                        current.put(features);
+                    } else {
+                        current.remove(id);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Similarity index refresh failed: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+        if (!pendingUsers.isEmpty()) startDrain();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  BUILD
+    // ════════════════════════════════════════════════════════════════
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        requestBuild("startup");
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        requestBuild(event.reason());
+    }
+
+    /** Runs one build at a time; requests during a build fold into one more. */
+    private void requestBuild(String reason) {
+        pendingBuild.set(reason);
+        if (building.compareAndSet(false, true)) {
+            workers.pool().execute(this::runBuilds);
+        }
+    }
+
+    private void runBuilds() {
+        try {
+            String reason;
+            while ((reason = pendingBuild.getAndSet(null)) != null) {
+                build(reason);
+            }
+        } finally {
+            building.set(false);
+        }
+        if (pendingBuild.get() != null && building.compareAndSet(false, true)) {
+            workers.pool().execute(this::runBuilds);
+        }
+    }
+
+    private void build(String reason) {
+        long start = System.nanoTime();
+        refreshedDuringBuild.clear();
+        try {
+            List<MinHashIndex.Features> all = loadFeatures(null);
+            long loaded = System.nanoTime();
+            MinHashIndex built = MinHashIndex.build(all, props.getBands(), props.getRows(), workers.forkJoin());
+            index = built;
+            builtAt = LocalDateTime.now();
+            log.info("Similarity index built after {}: {} users, loaded in {} ms, hashed in {} ms",
+                    reason, built.size(), (loaded - start) / 1_000_000, (System.nanoTime() - loaded) / 1_000_000);
+
+            // Writes that landed while the snapshot was read may be missing from it
+            pendingUsers.addAll(refreshedDuringBuild);
+            refreshedDuringBuild.clear();
+            if (!pendingUsers.isEmpty()) startDrain();
+        } catch (RuntimeException e) {
+            log.warn("Similarity index could not be built after {}: {}", reason, e.getMessage());
+        }
+    }
+
+    private List<MinHashIndex.Features> loadFeatures(Collection<String> ids) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        return new ArrayList<>(neo4jClient.query(FEATURES_QUERY)
+                .bindAll(params)
+                .fetch()
+                .all()
+                .stream()
+                .map(SimilarityService::features)
+                .toList());
+    }
+
+    private static MinHashIndex.Features features(Map<String, Object> row) {
+        Set<String> tokens = new HashSet<>();
+        for (Object device : list(row.get("devices"))) token(tokens, "device", device);
+        for (Object ip : list(row.get("ips"))) token(tokens, "ip", ip);
+        token(tokens, "email", row.get("email"));
+        token(tokens, "phone", row.get("phone"));
+        token(tokens, "address", row.get("address"));
+        return new MinHashIndex.Features((String) row.get("userId"), (String) row.get("name"), tokens);
+    }
+
+    private static void token(Set<String> tokens, String kind, Object value) {
+        if (value == null) return;
+        String text = value.toString().trim().toLowerCase(Locale.ROOT);
+        if (!text.isEmpty()) tokens.add(kind + ":" + text);
+    }
+
+    private static List<?> list(Object value) {
+        return value instanceof List<?> l ? l : List.of();
+    }
+}
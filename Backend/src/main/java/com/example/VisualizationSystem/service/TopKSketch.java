@@ -0,0 +1,100 @@
+package com.example.VisualizationSystem.service;
+
+import java.util.*;
+
+/**
+ * Space-saving top-K counter: at most {@code capacity} keys with a weight each, ordered
+ * by weight in a tree and indexed by key, so an update costs O(log capacity) and reading
+ * the top K walks K entries.
+ * <p>
+ * When a new key arrives at a full board it takes over the smallest counter, starting
+ * from that counter's weight; {@code error} records that inherited part, so a key's true
+ * weight lies between {@code value - error} and {@code value}. While nothing was ever
+ * evicted the board is exact. Negative updates (edits, deletes) only reach keys still on
+ * the board and drop a key whose weight falls to zero.
+ */
+final class TopKSketch {
+
+    record Entry(String key, double value, double error) {}
+
+    private static final class Counter {
+        final String key;
+        double value;
+        double error;
+
+        Counter(String key, double value, double error) {
+            this.key = key;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Counter> ORDER = Comparator
+            .comparingDouble((Counter c) -> -c.value)
+            .thenComparing(c -> c.key);
+
+    private final int capacity;
+    private final Map<String, Counter> index = new HashMap<>();
+    private final TreeSet<Counter> order = new TreeSet<>(ORDER);
+
+    // Upper bound on the weight of any key not on the board
+    private double floor;
+    private boolean exact = true;
+
+    TopKSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void add(String key, double weight) {
+        if (key == null || weight == 0) return;
+
+        Counter counter = index.get(key);
+        if (counter != null) {
+            order.remove(counter);
+            counter.value += weight;
+            if (counter.value <= 0) {
+                index.remove(key);
+            } else {
+                order.add(counter);
+            }
+            return;
+        }
+        if (weight < 0) return;
+
+        if (index.size() >= capacity) {
+            Counter smallest = order.pollLast();
+            index.remove(smallest.key);
+            floor = Math.max(floor, smallest.value);
+            exact = false;
+        }
+        counter = new Counter(key, floor + weight, floor);
+        index.put(key, counter);
+        order.add(counter);
+    }
+
+    /**
+     * Marks the board as holding only the heaviest keys of a larger set, none of the
+     * others weighing more than {@code floor}.
+     */
+    synchronized void truncated(double floor) {
+        this.floor = Math.max(this.floor, floor);
+        exact = false;
+    }
+
+    synchronized List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, index.size()));
+        for (Counter counter : order) {
+            if (top.size() == k) break;
+            top.add(new Entry(counter.key, counter.value, counter.error));
+        }
+        return top;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized boolean exact() {
+        return exact;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.TransactionFacetsResponse;
+import com.example.VisualizationSystem.dto.TransactionFilter;
+import com.example.VisualizationSystem.dto.TransactionHistogramResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionAnalyticsService {
+
+    private final Neo4jClient neo4jClient;
+    private final GraphDataVersion dataVersion;
+
+    private static final int MAX_CACHED_FACETS = 512;
+
+    // Lower bounds of the amount buckets; the first bucket starts at 0
+    private static final List<Double> AMOUNT_BOUNDS = List.of(100.0, 1_000.0, 5_000.0, 10_000.0, 25_000.0);
+
+    // Upper bound on histogram size, e.g. ~83 days of hourly buckets
+    private static final int MAX_HISTOGRAM_BUCKETS = 2_000;
+
+    private static final String FILTER_CLAUSE = """
+                WHERE ($search IS NULL OR t.transactionId CONTAINS $search)
+                  AND ($ip IS NULL OR t.ip = $ip)
+                  AND ($deviceId IS NULL OR t.deviceId = $deviceId)
+                  AND ($minAmount IS NULL OR t.amount >= $minAmount)
+                  AND ($maxAmount IS NULL OR t.amount <= $maxAmount)
+                  AND ($status IS NULL OR t.status = $status)
+                  AND ($paymentMethod IS NULL OR t.paymentMethod = $paymentMethod)
+            """;
+
+    // Appended only when the filter has a time bound: transactions without a timestamp
+    // never satisfy the range but still count when no range was asked for.
+    private static final String TIME_RANGE_CLAUSE = """
+                  AND t.timestamp >= $from AND t.timestamp < $to
+            """;
+
+    private record FacetKey(TransactionFilter filter, long version) {}
+
+    private final Map<FacetKey, TransactionFacetsResponse> facetCache = new ConcurrentHashMap<>();
+
+    /**
+     * Counts per status, currency, payment method and amount bucket for the given filter.
+     * All facets come out of one grouped aggregation over the matching transactions;
+     * results are cached per filter until the next write bumps the data version.
+     */
+    public TransactionFacetsResponse getFacets(TransactionFilter filter) {
+        long version = dataVersion.current();
+        FacetKey key = new FacetKey(filter, version);
+
+        TransactionFacetsResponse cached = facetCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        TransactionFacetsResponse facets = computeFacets(filter, version);
+
+        if (facetCache.size() >= MAX_CACHED_FACETS) {
+            facetCache.keySet().removeIf(k -> k.version() != version);
+            if (facetCache.size() >= MAX_CACHED_FACETS) {
+                facetCache.clear();
+            }
+        }
+        facetCache.put(key, facets);
+        return facets;
+    }
+
+    private TransactionFacetsResponse computeFacets(TransactionFilter filter, long version) {
+        String query = "MATCH (t:Transaction)\n" + FILTER_CLAUSE
+                + (filter.hasTimeRange() ? TIME_RANGE_CLAUSE : "") + """
+                WITH t.status AS status,
+                     t.currency AS currency,
+                     t.paymentMethod AS paymentMethod,
+                     CASE WHEN t.amount IS NULL THEN null
+                          ELSE size([b IN $amountBounds WHERE t.amount >= b]) END AS amountBucket,
+                     count(*) AS cnt
+                RETURN status, currency, paymentMethod, amountBucket, cnt
+                """;
+
+        Map<String, Object> params = filter.toParameters();
+        params.put("amountBounds", AMOUNT_BOUNDS);
+
+        Collection<Map<String, Object>> rows = neo4jClient.query(query)
+                .bindAll(params)
+                .fetch()
+                .all();
+
+        Map<String, Long> byStatus = new HashMap<>();
+        Map<String, Long> byCurrency = new HashMap<>();
+        Map<String, Long> byPaymentMethod = new HashMap<>();
+        long[] byAmount = new long[AMOUNT_BOUNDS.size() + 1];
+        long total = 0;
+
+        for (Map<String, Object> row : rows) {
+            long cnt = ((Number) row.get("cnt")).longValue();
+            total += cnt;
+
+            if (row.get("status") != null)        byStatus.merge((String) row.get("status"), cnt, Long::sum);
+            if (row.get("currency") != null)      byCurrency.merge((String) row.get("currency"), cnt, Long::sum);
+            if (row.get("paymentMethod") != null) byPaymentMethod.merge((String) row.get("paymentMethod"), cnt, Long::sum);
+            if (row.get("amountBucket") != null)  byAmount[((Number) row.get("amountBucket")).intValue()] += cnt;
+        }
+
+        List<TransactionFacetsResponse.AmountBucket> amountBuckets = new ArrayList<>(byAmount.length);
+        for (int i = 0; i < byAmount.length; i++) {
+            Double min = i == 0 ? null : AMOUNT_BOUNDS.get(i - 1);
+            Double max = i < AMOUNT_BOUNDS.size() ? AMOUNT_BOUNDS.get(i) : null;
+            amountBuckets.add(new TransactionFacetsResponse.AmountBucket(
+                    bucketLabel(min, max), min, max, byAmount[i]));
+        }
+
+        return TransactionFacetsResponse.builder()
+                .total(total)
+                .status(sortedByCount(byStatus))
+                .currency(sortedByCount(byCurrency))
+                .paymentMethod(sortedByCount(byPaymentMethod))
+                .amount(amountBuckets)
+                .version(version)
+                .build();
+    }
+
+    /**
+     * Transaction count and amount sum per hour or day over [from, to).
+     * The timestamp range is forced onto txn_timestamp_idx, so only the
+     * transactions inside the window are touched regardless of table size.
+     */
+    public TransactionHistogramResponse getHistogram(TransactionFilter filter, String bucket) {
+        ChronoUnit unit = switch (bucket == null ? "hour" : bucket.toLowerCase()) {
+            case "hour" -> ChronoUnit.HOURS;
+            case "day" -> ChronoUnit.DAYS;
+            default -> throw new BadRequestException("Bucket must be either 'hour' or 'day'");
+        };
+        String unitName = unit == ChronoUnit.HOURS ? "hour" : "day";
+
+        LocalDateTime to = filter.to() != null ? filter.to() : LocalDateTime.now();
+        LocalDateTime from = filter.from() != null
+                ? filter.from()
+                : (unit == ChronoUnit.HOURS ? to.minusDays(1) : to.minusDays(30));
+
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+
+        LocalDateTime firstBucket = from.truncatedTo(unit);
+        long bucketCount = unit.between(firstBucket, to) + 1;
+        if (bucketCount > MAX_HISTOGRAM_BUCKETS) {
+            throw new BadRequestException(String.format(
+                    "Time range spans %d %s buckets; at most %d are allowed",
+                    bucketCount, unitName, MAX_HISTOGRAM_BUCKETS));
+        }
+
+        String query = """
+                MATCH (t:Transaction)
+                USING INDEX t:Transaction(timestamp)
+                """ + FILTER_CLAUSE + TIME_RANGE_CLAUSE + """
+                WITH localdatetime.truncate($unit, t.timestamp) AS bucketStart,
+                     count(*) AS cnt,
+                     sum(coalesce(t.amount, 0.0)) AS amount
+                RETURN bucketStart, cnt, amount
+                ORDER BY bucketStart
+                """;
+
+        Map<String, Object> params = filter.withTimeRange(from, to).toParameters();
+        params.put("unit", unitName);
+
+        Map<LocalDateTime, TransactionHistogramResponse.Bucket> byStart = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query(query).bindAll(params).fetch().all()) {
+            LocalDateTime start = (LocalDateTime) row.get("bucketStart");
+            byStart.put(start, new TransactionHistogramResponse.Bucket(
+                    start,
+                    ((Number) row.get("cnt")).longValue(),
+                    ((Number) row.get("amount")).doubleValue()));
+        }
+
+        List<TransactionHistogramResponse.Bucket> buckets = new ArrayList<>((int) bucketCount);
+        long totalCount = 0;
+        double totalAmount = 0;
+        for (LocalDateTime start = firstBucket; start.isBefore(to); start = start.plus(1, unit)) {
+            TransactionHistogramResponse.Bucket b = byStart.getOrDefault(
+                    start, new TransactionHistogramResponse.Bucket(start, 0, 0.0));
+            totalCount += b.getCount();
+            totalAmount += b.getAmount();
+            buckets.add(b);
+        }
+
+        return TransactionHistogramResponse.builder()
+                .bucket(unitName)
+                .from(from)
+                .to(to)
+                .totalCount(totalCount)
+                .totalAmount(totalAmount)
+                .buckets(buckets)
+                .build();
+    }
+
+    private static Map<String, Long> sortedByCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+
+    private static String bucketLabel(Double min, Double max) {
+        if (min == null) return "< " + max.longValue();
+        if (max == null) return ">= " + min.longValue();
+        return min.longValue() + " - " + max.longValue();
+    }
+}
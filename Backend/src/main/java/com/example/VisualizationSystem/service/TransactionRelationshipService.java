@@ -1,6 +1,8 @@
 package com.example.VisualizationSystem.service;
 
-import com.example.VisualizationSystem.repository.TransactionGraphRelationshipRepository;
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
@@ -12,9 +14,38 @@ import java.util.*;
 public class TransactionRelationshipService {
 
     private final Neo4jClient neo4jClient;
-    private final TransactionGraphRelationshipRepository graphRepo;
+    private final GraphNeighborhoodCache graphCache;
+    private final GraphProjectionService graphProjection;
+    private final GraphLayoutService graphLayout;
+
+    // Same-IP / same-device peers examined per category; bounds work on shared NAT IPs and devices
+    public static final int PEER_SCAN_LIMIT = 5_000;
+    // Peer totals are counted up to this many; beyond it the total is reported as capped
+    public static final int PEER_COUNT_LIMIT = 100_000;
+
+    public Map<String, Object> getTransactionGraph(String txId, int peerLimit, boolean cluster) {
+        return graphCache.get(GraphNeighborhoodCache.key("tx", txId, peerLimit, cluster),
+                () -> loadTransactionGraph(txId, peerLimit, cluster));
+    }
+
+    /** The transaction graph with node positions; see {@link GraphLayoutService}. */
+    public Map<String, Object> getTransactionGraphWithLayout(String txId, int peerLimit, boolean cluster) {
+        return graphLayout.withLayout(GraphNeighborhoodCache.key("tx", txId, peerLimit, cluster),
+                GraphNeighborhoodCache.key("tx", txId, peerLimit, cluster, "layout"),
+                () -> getTransactionGraph(txId, peerLimit, cluster));
+    }
 
-    public Map<String, Object> getTransactionGraph(String txId) {
+    private GraphNeighborhoodCache.Loaded loadTransactionGraph(String txId, int peerLimit, boolean cluster) {
+        Map<String, Object> raw = graphProjection
+                .transactionNeighborhood(txId, peerLimit, PEER_SCAN_LIMIT, PEER_COUNT_LIMIT)
+                .orElseGet(() -> fetchRaw(txId, peerLimit));
+        return assemble(txId, raw, cluster);
+    }
+
+    /**
+     * Runs the neighbourhood query against Neo4j; the projection returns the same shape.
+     */
+    private Map<String, Object> fetchRaw(String txId, int peerLimit) {
 
         String query = """
                 MATCH (tx:Transaction {transactionId: $txId})
@@ -23,30 +54,8 @@ public class TransactionRelationshipService {
                      [(sender:User)-[:SENT]->(tx) | sender { .userId, .name }] AS senders,
                      [(tx)-[:RECEIVED_BY]->(receiver:User) | receiver { .userId, .name }] AS receivers
 
-                // Same-IP transactions (enriched)
-                CALL (tx) {
-                    WITH tx
-                    OPTIONAL MATCH (otherIpTx:Transaction)
-                    WHERE otherIpTx.ip = tx.ip AND otherIpTx.transactionId <> tx.transactionId
-                    RETURN collect(otherIpTx {
-                        .transactionId, .amount, .currency,
-                        .ip, .deviceId, .status, .paymentMethod,
-                        timestamp: toString(otherIpTx.timestamp)
-                    }) AS sameIpTransactions
-                }
-
-                // Same-device transactions (enriched)
-                CALL (tx) {
-                    WITH tx
-                    OPTIONAL MATCH (otherDeviceTx:Transaction)
-                    WHERE otherDeviceTx.deviceId = tx.deviceId AND otherDeviceTx.transactionId <> tx.transactionId
-                    RETURN collect(otherDeviceTx {
-                        .transactionId, .amount, .currency,
-                        .ip, .deviceId, .status, .paymentMethod,
-                        timestamp: toString(otherDeviceTx.timestamp)
-                    }) AS sameDeviceTransactions
-                }
-
+                // Same-IP / same-device peers: bounded window, deterministic sample, window stats, capped total
+                """ + peerSubqueries("ip", "sameIp") + peerSubqueries("deviceId", "sameDevice") + """
                 RETURN
                   tx {
                       .transactionId, .amount, .currency,
@@ -55,156 +64,134 @@ public class TransactionRelationshipService {
                   } AS transaction,
                   senders,
                   receivers,
-                  sameIpTransactions,
-                  sameDeviceTransactions
+                  sameIpTransactions, sameIpWindow, sameIpTotal,
+                  sameDeviceTransactions, sameDeviceWindow, sameDeviceTotal
                 """;
 
-        Map<String, Object> raw = neo4jClient.query(query)
+        return neo4jClient.query(query)
                 .bind(txId).to("txId")
+                .bind(peerLimit).to("peerLimit")
+                .bind(PEER_SCAN_LIMIT).to("scanLimit")
+                .bind(PEER_COUNT_LIMIT).to("countLimit")
                 .fetch()
                 .one()
                 .orElse(Map.of());
+    }
+
+    /**
+     * Three subqueries per peer category: the first {@code $peerLimit} peers by transactionId,
+     * status/amount aggregates over the first {@code $scanLimit} by transactionId, and the total
+     * count up to {@code $countLimit}. The first two read the composite (property, transactionId)
+     * index in order, so the window is the same set on every call and stops after the limit.
+     */
+    private static String peerSubqueries(String property, String prefix) {
+        return """
+                CALL (tx) {
+                    MATCH (o:Transaction)
+                    WHERE o.%1$s = tx.%1$s AND o.transactionId IS NOT NULL AND o <> tx
+                    WITH o ORDER BY o.%1$s, o.transactionId LIMIT $peerLimit
+                    RETURN collect(o {
+                        .transactionId, .amount, .currency,
+                        .ip, .deviceId, .status, .paymentMethod,
+                        timestamp: toString(o.timestamp)
+                    }) AS %2$sTransactions
+                }
+                CALL (tx) {
+                    MATCH (o:Transaction)
+                    WHERE o.%1$s = tx.%1$s AND o.transactionId IS NOT NULL AND o <> tx
+                    WITH o ORDER BY o.%1$s, o.transactionId LIMIT $scanLimit
+                    WITH o.status AS status, count(*) AS cnt, sum(coalesce(o.amount, 0.0)) AS amount
+                    RETURN collect({status: status, count: cnt, amount: amount}) AS %2$sWindow
+                }
+                CALL (tx) {
+                    MATCH (o:Transaction {%1$s: tx.%1$s})
+                    WHERE o <> tx
+                    WITH o LIMIT $countLimit
+                    RETURN count(o) AS %2$sTotal
+                }
+                """.formatted(property, prefix);
+    }
 
+    static GraphNeighborhoodCache.Loaded assemble(String txId, Map<String, Object> raw, boolean cluster) {
         if (raw.isEmpty()) {
-            return Map.of("nodes", List.of(), "edges", List.of());
+            return new GraphNeighborhoodCache.Loaded(
+                    Map.of("nodes", List.of(), "edges", List.of()), Set.of(txId));
         }
 
-        List<Map<String, Object>> nodes = new ArrayList<>();
-        List<Map<String, Object>> edges = new ArrayList<>();
-        Set<String> added = new HashSet<>();
+        List<Map<String, Object>> senders = maps(raw.get("senders"));
+        List<Map<String, Object>> receivers = maps(raw.get("receivers"));
+        GraphBuilder graph = new GraphBuilder(3 + senders.size() + receivers.size()
+                + maps(raw.get("sameIpTransactions")).size() + maps(raw.get("sameDeviceTransactions")).size());
 
         // ── 1. Main Transaction Node (enriched) ──
         @SuppressWarnings("unchecked")
         Map<String, Object> tx = (Map<String, Object>) raw.get("transaction");
         String mainTxId = (String) tx.get("transactionId");
-
-        nodes.add(buildTxNode(tx));
-        added.add(mainTxId);
+        graph.addNode(GraphNode.transaction(tx));
 
         // ── 2. Senders ──
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> senders =
-                (List<Map<String, Object>>) raw.get("senders");
-
-        if (senders != null) {
-            for (Map<String, Object> sender : senders) {
-                String senderUserId = (String) sender.get("userId");
-                if (!added.contains(senderUserId)) {
-                    nodes.add(Map.of("id", senderUserId, "label", sender.get("name"), "type", "user"));
-                    added.add(senderUserId);
-                }
-                edges.add(Map.of(
-                        "id", senderUserId + "_" + mainTxId + "_SENT",
-                        "source", senderUserId,
-                        "target", mainTxId,
-                        "type", "SENT"
-                ));
-            }
+        for (Map<String, Object> sender : senders) {
+            String senderUserId = (String) sender.get("userId");
+            graph.addNode(GraphNode.user(senderUserId, sender.get("name")));
+            graph.addEdge(new GraphEdge(senderUserId, mainTxId, GraphEdge.SENT));
         }
 
         // ── 3. Receivers ──
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> receivers =
-                (List<Map<String, Object>>) raw.get("receivers");
-
-        if (receivers != null) {
-            for (Map<String, Object> receiver : receivers) {
-                String receiverUserId = (String) receiver.get("userId");
-                if (!added.contains(receiverUserId)) {
-                    nodes.add(Map.of("id", receiverUserId, "label", receiver.get("name"), "type", "user"));
-                    added.add(receiverUserId);
-                }
-                edges.add(Map.of(
-                        "id", mainTxId + "_" + receiverUserId + "_RECEIVED_BY",
-                        "source", mainTxId,
-                        "target", receiverUserId,
-                        "type", "RECEIVED_BY"
-                ));
-            }
+        for (Map<String, Object> receiver : receivers) {
+            String receiverUserId = (String) receiver.get("userId");
+            graph.addNode(GraphNode.user(receiverUserId, receiver.get("name")));
+            graph.addEdge(new GraphEdge(mainTxId, receiverUserId, GraphEdge.RECEIVED_BY));
         }
 
-        // ── 4. Same IP Transactions (enriched) ──
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> sameIp =
-                (List<Map<String, Object>>) raw.get("sameIpTransactions");
-
-        if (sameIp != null) {
-            for (Map<String, Object> other : sameIp) {
-                if (other == null || other.get("transactionId") == null) continue;
-                String otherId = (String) other.get("transactionId");
+        // ── 4/5. Same IP / Same Device Transactions (sampled, remainder optionally clustered) ──
+        Map<String, Object> peerSummary = new LinkedHashMap<>();
+        peerSummary.put(GraphEdge.SAME_IP, addPeers(raw, "sameIp", GraphEdge.SAME_IP, mainTxId, cluster, graph));
+        peerSummary.put(GraphEdge.SAME_DEVICE, addPeers(raw, "sameDevice", GraphEdge.SAME_DEVICE, mainTxId, cluster, graph));
 
-                if (!added.contains(otherId)) {
-                    nodes.add(buildTxNode(other));
-                    added.add(otherId);
-                }
+        // Invalidation tags: every node shown in the graph
+        return new GraphNeighborhoodCache.Loaded(
+                Map.of("nodes", graph.nodes(), "edges", graph.edges(), "peerSummary", peerSummary),
+                graph.nodeIds());
+    }
 
-                edges.add(Map.of(
-                        "id", mainTxId + "_" + otherId + "_SAME_IP",
-                        "source", mainTxId,
-                        "target", otherId,
-                        "type", "SAME_IP"
-                ));
-            }
+    /**
+     * Adds the sampled peers of one category and, when some were left out and
+     * {@code cluster} is set, a pseudo-node standing for the rest.
+     *
+     * @return summary of the category: totals, what was shown and aggregates of the hidden peers
+     */
+    private static Map<String, Object> addPeers(Map<String, Object> raw, String prefix, String relType,
+                                                String mainTxId, boolean cluster, GraphBuilder graph) {
+        PeerTally tally = new PeerTally(relType);
+        if (raw.get(prefix + "Total") != null) tally.total(((Number) raw.get(prefix + "Total")).longValue());
+        for (Map<String, Object> row : maps(raw.get(prefix + "Window"))) {
+            tally.window(row.get("status"),
+                    ((Number) row.get("count")).longValue(),
+                    ((Number) row.get("amount")).doubleValue());
         }
 
-        // ── 5. Same Device Transactions (enriched) ──
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> sameDevice =
-                (List<Map<String, Object>>) raw.get("sameDeviceTransactions");
-
-        if (sameDevice != null) {
-            for (Map<String, Object> other : sameDevice) {
-                if (other == null || other.get("transactionId") == null) continue;
-                String otherId = (String) other.get("transactionId");
-
-                if (!added.contains(otherId)) {
-                    nodes.add(buildTxNode(other));
-                    added.add(otherId);
-                }
+        for (Map<String, Object> other : maps(raw.get(prefix + "Transactions"))) {
+            if (other == null || other.get("transactionId") == null) continue;
+            String otherId = (String) other.get("transactionId");
 
-                // Only add if not already added from sameIp
-                String edgeId = mainTxId + "_" + otherId + "_SAME_DEVICE";
-                edges.add(Map.of(
-                        "id", edgeId,
-                        "source", mainTxId,
-                        "target", otherId,
-                        "type", "SAME_DEVICE"
-                ));
-            }
+            graph.addNode(GraphNode.transaction(other));
+            graph.addEdge(new GraphEdge(mainTxId, otherId, relType));
+            tally.shown(other.get("status"), other.get("amount"));
         }
 
-        return Map.of("nodes", nodes, "edges", edges);
-    }
-
-    /**
-     * Build an enriched transaction node map from raw Cypher result.
-     * Reusable for main tx and related txs.
-     */
-    private Map<String, Object> buildTxNode(Map<String, Object> tx) {
-        Map<String, Object> node = new HashMap<>();
-        String txId = (String) tx.get("transactionId");
-
-        node.put("id", txId);
-        node.put("type", "transaction");
-        node.put("transactionId", txId);
-
-        Object amount = tx.get("amount");
-        Object currency = tx.get("currency");
-        String currStr = currency != null ? currency.toString() : "$";
-        if (amount != null) {
-            node.put("label", String.format("%s%.2f", currStr, ((Number) amount).doubleValue()));
-        } else {
-            node.put("label", txId);
+        Map<String, Object> summary = tally.summary();
+        if (cluster && tally.hidden() > 0) {
+            GraphNode.Cluster clusterNode = tally.clusterNode(mainTxId);
+            graph.addNode(clusterNode);
+            graph.addEdge(tally.clusterEdge(mainTxId));
+            summary.put("clusterNodeId", clusterNode.id());
         }
 
-        if (amount != null)                     node.put("amount", amount);
-        if (currency != null)                   node.put("currency", currency);
-        if (tx.get("timestamp") != null)        node.put("timestamp", tx.get("timestamp").toString());
-        if (tx.get("ip") != null)               node.put("ip", tx.get("ip"));
-        if (tx.get("deviceId") != null)         node.put("deviceId", tx.get("deviceId"));
-        if (tx.get("status") != null)           node.put("status", tx.get("status"));
-        if (tx.get("paymentMethod") != null)    node.put("paymentMethod", tx.get("paymentMethod"));
+        return summary;
+    }
 
-        return node;
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> maps(Object value) {
+        return value != null ? (List<Map<String, Object>>) value : List.of();
     }
-}
\ No newline at end of file
+}
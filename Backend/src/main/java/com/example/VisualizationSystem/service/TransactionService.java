@@ -1,79 +1,237 @@
 package com.example.VisualizationSystem.service;
 
 import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.dto.TransactionFilter;
 import com.example.VisualizationSystem.dto.TransactionRequest;
+import com.example.VisualizationSystem.event.TransactionWrittenEvent;
 import com.example.VisualizationSystem.model.Transaction;
-import com.example.VisualizationSystem.repository.TransactionGraphRelationshipRepository;
 import com.example.VisualizationSystem.repository.TransactionRepository;
+import com.example.VisualizationSystem.rules.RuleEngine;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
-    private final TransactionRepository transactionRepository;
-    private final TransactionGraphRelationshipRepository graphRelationshipRepository;
+    // Recomputes the TRANSFERRED_TO aggregates and day / month buckets of
+    // (sender)-[flow]->(receiver) from the pair's transactions; expects all three in scope
+    // and leaves txnCount bound.
+    private static final String FLOW_REFRESH = """
+                CALL (sender, receiver) {
+                    MATCH (sender)-[:SENT]->(x:Transaction)-[:RECEIVED_BY]->(receiver)
+                    RETURN sum(x.amount) AS totalAmount, count(x) AS txnCount,
+                           min(x.timestamp) AS firstAt, max(x.timestamp) AS lastAt
+                }
+                CALL (sender, receiver) {
+                    MATCH (sender)-[:SENT]->(x:Transaction)-[:RECEIVED_BY]->(receiver)
+                    WHERE x.timestamp IS NOT NULL
+                    WITH x.timestamp.year * 10000 + x.timestamp.month * 100 + x.timestamp.day AS day,
+                         sum(x.amount) AS amount, count(x) AS txns
+                    ORDER BY day
+                    RETURN collect(day) AS dayBuckets, collect(amount) AS dayAmounts, collect(txns) AS dayCounts
+                }
+                CALL (sender, receiver) {
+                    MATCH (sender)-[:SENT]->(x:Transaction)-[:RECEIVED_BY]->(receiver)
+                    WHERE x.timestamp IS NOT NULL
+                    WITH x.timestamp.year * 100 + x.timestamp.month AS month,
+                         sum(x.amount) AS amount, count(x) AS txns
+                    ORDER BY month
+                    RETURN collect(month) AS monthBuckets, collect(amount) AS monthAmounts, collect(txns) AS monthCounts
+                }
+                SET flow.totalAmount = totalAmount,
+                    flow.txnCount = txnCount,
+                    flow.firstAt = firstAt,
+                    flow.lastAt = lastAt,
+                    flow.dayBuckets = dayBuckets,
+                    flow.dayAmounts = dayAmounts,
+                    flow.dayCounts = dayCounts,
+                    flow.monthBuckets = monthBuckets,
+                    flow.monthAmounts = monthAmounts,
+                    flow.monthCounts = monthCounts
+            """;
 
-    public Transaction createOrUpdate(TransactionRequest request) {
-        Transaction existing =
-                transactionRepository.findById(request.getTransactionId()).orElse(null);
-
-        Transaction saved = transactionRepository.upsertTransaction(
-                request.getTransactionId(),
-                request.getAmount(),
-                request.getCurrency(),
-                request.getIp(),
-                request.getDeviceId(),
-                request.getStatus(),
-                request.getPaymentMethod()
-        );
+    // Upserts the transaction and relinks it in one statement, so a failure leaves nothing
+    // half-linked. SAME_IP / SAME_DEVICE links are rebuilt only when the stored ip / device
+    // changed; TRANSFERRED_TO aggregates and day / month buckets are recomputed from the
+    // pair's transactions, so saving the same transaction twice does not count it twice.
+    // Returns the stored values before the write (null for a new transaction), the saved
+    // node and the transactions whose links were added or removed.
+    private static final String UPSERT_QUERY = """
+            OPTIONAL MATCH (prev:Transaction {transactionId: $transactionId})
+            WITH prev {.*} AS before
+            MERGE (t:Transaction {transactionId: $transactionId})
+            ON CREATE SET
+                t.amount = $amount,
+                t.currency = coalesce($currency, 'USD'),
+                t.ip = $ip,
+                t.deviceId = $deviceId,
+                t.status = coalesce($status, 'PENDING'),
+                t.paymentMethod = $paymentMethod,
+                t.flagReasons = $flagReasons,
+                t.timestamp = localdatetime()
+            ON MATCH SET
+                t.amount = coalesce($amount, t.amount),
+                t.currency = coalesce($currency, t.currency),
+                t.ip = CASE WHEN $ip IS NOT NULL AND $ip <> '' THEN $ip ELSE t.ip END,
+                t.deviceId = CASE WHEN $deviceId IS NOT NULL AND $deviceId <> '' THEN $deviceId ELSE t.deviceId END,
+                t.status = coalesce($status, t.status),
+                t.paymentMethod = coalesce($paymentMethod, t.paymentMethod)
+            WITH t, before,
+                 before IS NULL OR NOT coalesce(before.ip = t.ip, before.ip IS NULL AND t.ip IS NULL) AS ipChanged,
+                 before IS NULL OR NOT coalesce(before.deviceId = t.deviceId,
+                                                before.deviceId IS NULL AND t.deviceId IS NULL) AS deviceChanged
 
-        // ── SAME_IP linking ──
-        if (existing == null || !Objects.equals(existing.getIp(), saved.getIp())) {
-            graphRelationshipRepository.deleteSameIpLinks(saved.getTransactionId());
-            if (saved.getIp() != null) {
-                graphRelationshipRepository.linkTransactionsByIp(
-                        saved.getTransactionId(), saved.getIp());
+            CALL (t, ipChanged) {
+                OPTIONAL MATCH (t)-[r:SAME_IP]-(other)
+                WHERE ipChanged
+                DELETE r
+                RETURN collect(other.transactionId) AS unlinkedByIp
+            }
+            CALL (t, ipChanged) {
+                WITH t WHERE ipChanged AND t.ip IS NOT NULL
+                MATCH (other:Transaction {ip: t.ip})
+                WHERE other <> t
+                MERGE (t)-[:SAME_IP]->(other)
+                RETURN collect(other.transactionId) AS linkedByIp
+            }
+            CALL (t, deviceChanged) {
+                OPTIONAL MATCH (t)-[r:SAME_DEVICE]-(other)
+                WHERE deviceChanged
+                DELETE r
+                RETURN collect(other.transactionId) AS unlinkedByDevice
+            }
+            CALL (t, deviceChanged) {
+                WITH t WHERE deviceChanged AND t.deviceId IS NOT NULL
+                MATCH (other:Transaction {deviceId: t.deviceId})
+                WHERE other <> t
+                MERGE (t)-[:SAME_DEVICE]->(other)
+                RETURN collect(other.transactionId) AS linkedByDevice
             }
-        }
 
-        // ── SAME_DEVICE linking ──
-        if (existing == null || !Objects.equals(existing.getDeviceId(), saved.getDeviceId())) {
-            graphRelationshipRepository.deleteSameDeviceLinks(saved.getTransactionId());
-            if (saved.getDeviceId() != null) {
-                graphRelationshipRepository.linkTransactionsByDevice(
-                        saved.getTransactionId(), saved.getDeviceId());
+            CALL (t) {
+                MATCH (sender:User {userId: $senderId})
+                MATCH (receiver:User {userId: $receiverId})
+                MERGE (sender)-[:SENT]->(t)
+                MERGE (t)-[:RECEIVED_BY]->(receiver)
+                MERGE (sender)-[flow:TRANSFERRED_TO]->(receiver)
+                WITH sender, receiver, flow
+            """ + FLOW_REFRESH + """
             }
+
+            RETURN before, t {.*} AS saved,
+                   unlinkedByIp + linkedByIp + unlinkedByDevice + linkedByDevice AS affected
+            """;
+
+    // Reads the transaction, its sender and receiver and its SAME_IP / SAME_DEVICE peers,
+    // then detaches and deletes it, so the delete event can name everything it touched.
+    // The pair's TRANSFERRED_TO flow is recomputed without it, and removed once the pair
+    // has no transactions left.
+    private static final String DELETE_QUERY = """
+            MATCH (t:Transaction {transactionId: $transactionId})
+            WITH t, t {.*} AS before,
+                 [(s:User)-[:SENT]->(t) | s][0] AS sender,
+                 [(t)-[:RECEIVED_BY]->(r:User) | r][0] AS receiver,
+                 [(t)-[:SAME_IP|SAME_DEVICE]-(o:Transaction) | o.transactionId] AS affected
+            DETACH DELETE t
+            WITH before, sender, receiver, affected
+
+            CALL (sender, receiver) {
+                MATCH (sender)-[flow:TRANSFERRED_TO]->(receiver)
+                WITH sender, receiver, flow
+            """ + FLOW_REFRESH + """
+                WITH flow, txnCount
+                WHERE txnCount = 0
+                DELETE flow
+            }
+
+            RETURN before, sender.userId AS senderId, receiver.userId AS receiverId, affected
+            """;
+
+    private final Neo4jClient neo4jClient;
+    private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VelocityService velocity;
+    private final RuleEngine ruleEngine;
+    private final LeaderboardService leaderboards;
+
+    public Transaction createOrUpdate(TransactionRequest request) {
+        // New transactions are screened before the write so a flag lands with the node
+        String status = request.getStatus();
+        List<String> flagReasons = null;
+        if (ruleEngine.isEnabled() && !transactionRepository.existsById(request.getTransactionId())) {
+            RuleEngine.Screening screening = ruleEngine.screen(
+                    request.getSenderId(), request.getIp(), request.getDeviceId(), request.getAmount());
+            status = RuleEngine.statusFor(status != null ? status : "PENDING", screening);
+            flagReasons = screening.reasonsOrNull();
         }
 
-        // ── SENT / RECEIVED_BY flow ──
-        graphRelationshipRepository.linkTransactionFlow(
-                request.getSenderId(),
-                request.getReceiverId(),
-                request.getTransactionId()
-        );
+        Map<String, Object> params = new HashMap<>();
+        params.put("transactionId", request.getTransactionId());
+        params.put("amount", request.getAmount());
+        params.put("currency", request.getCurrency());
+        params.put("ip", request.getIp());
+        params.put("deviceId", request.getDeviceId());
+        params.put("status", status);
+        params.put("paymentMethod", request.getPaymentMethod());
+        params.put("flagReasons", flagReasons);
+        params.put("senderId", request.getSenderId());
+        params.put("receiverId", request.getReceiverId());
+
+        Map<String, Object> row = neo4jClient.query(UPSERT_QUERY)
+                .bindAll(params)
+                .fetch()
+                .one()
+                .orElseThrow();
 
+        Transaction existing = toTransaction(row.get("before"));
+        Transaction saved = toTransaction(row.get("saved"));
+        // transactions whose SAME_IP / SAME_DEVICE links to this one were added or removed
+        Set<String> affected = new HashSet<>();
+        for (Object id : (List<?>) row.get("affected")) {
+            affected.add((String) id);
+        }
+
+        if (existing == null) {
+            velocity.record(saved, request.getSenderId(), request.getReceiverId());
+        }
+        // only now that the write went through does the transaction count as rule history
+        ruleEngine.record(request.getSenderId(), saved.getIp(), saved.getDeviceId());
+        leaderboards.record(existing, saved, request.getSenderId(), request.getReceiverId());
+
+        eventPublisher.publishEvent(new TransactionWrittenEvent(
+                saved.getTransactionId(), request.getSenderId(), request.getReceiverId(), affected, false));
         return saved;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Transaction toTransaction(Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+        Map<String, Object> t = (Map<String, Object>) map;
+        return Transaction.builder()
+                .transactionId((String) t.get("transactionId"))
+                .amount(t.get("amount") instanceof Number n ? n.doubleValue() : null)
+                .currency((String) t.get("currency"))
+                .timestamp((LocalDateTime) t.get("timestamp"))
+                .ip((String) t.get("ip"))
+                .deviceId((String) t.get("deviceId"))
+                .status((String) t.get("status"))
+                .paymentMethod((String) t.get("paymentMethod"))
+                .flagReasons(t.get("flagReasons") instanceof List<?> l ? l.stream().map(String::valueOf).toList() : null)
+                .build();
+    }
+
     public List<Transaction> getAll() {
         return transactionRepository.findAll();
     }
 
     public PageResponse<Transaction> getTransactionsPaged(
-            String search,
-            String ip,
-            String deviceId,
-            Double minAmount,
-            Double maxAmount,
-            String status,
-            String paymentMethod,
+            TransactionFilter filter,
             int page,
             int size,
             String sortBy,
@@ -90,7 +248,10 @@ public class TransactionService {
         sortDir = "asc".equalsIgnoreCase(sortDir) ? "ASC" : "DESC";
 
         long total = transactionRepository.countTransactions(
-                search, ip, deviceId, minAmount, maxAmount, status, paymentMethod);
+                filter.search(), filter.ip(), filter.deviceId(),
+                filter.minAmount(), filter.maxAmount(),
+                filter.status(), filter.paymentMethod(),
+                filter.from(), filter.to());
 
         long skip = (long) page * size;
 
@@ -100,8 +261,11 @@ public class TransactionService {
         }
 
         List<Transaction> txs = transactionRepository.findTransactionsPaged(
-                search, ip, deviceId, minAmount, maxAmount,
-                status, paymentMethod, skip, size, sortBy, sortDir
+                filter.search(), filter.ip(), filter.deviceId(),
+                filter.minAmount(), filter.maxAmount(),
+                filter.status(), filter.paymentMethod(),
+                filter.from(), filter.to(),
+                skip, size, sortBy, sortDir
         );
 
         return new PageResponse<>(txs, total, page, size);
@@ -112,7 +276,22 @@ public class TransactionService {
     }
 
     public void deleteById(String id) {
-        transactionRepository.deleteById(id);
+        Optional<Map<String, Object>> row = neo4jClient.query(DELETE_QUERY)
+                .bind(id).to("transactionId")
+                .fetch()
+                .one();
+        if (row.isEmpty()) return;
+
+        Transaction deleted = toTransaction(row.get().get("before"));
+        String senderId = (String) row.get().get("senderId");
+        String receiverId = (String) row.get().get("receiverId");
+        Set<String> affected = new HashSet<>();
+        for (Object peer : (List<?>) row.get().get("affected")) {
+            affected.add((String) peer);
+        }
+
+        leaderboards.remove(deleted, senderId, receiverId);
+        eventPublisher.publishEvent(new TransactionWrittenEvent(id, senderId, receiverId, affected, true));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.dto.TransferWindowResponse;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.TransferBuckets;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * How much a user sent to / received from each counterparty within a window of days.
+ * <p>
+ * Answered from the day and month buckets on TRANSFERRED_TO (see {@link TransferBuckets})
+ * without touching transaction nodes: whole months strictly inside the window come from
+ * the month buckets, the partial months at either end from the day buckets. Pairs whose
+ * first..last transfer interval misses the window are skipped before their buckets are
+ * read. Relationships written before the buckets existed count as empty until the next
+ * pipeline run or a new transaction for the pair.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferWindowService {
+
+    private static final int OPEN_START = 0;
+    private static final int OPEN_END = 99_999_999;
+
+    private final Neo4jClient neo4jClient;
+
+    public TransferWindowResponse getTransfers(String userId, String counterpartyId, String direction,
+                                               LocalDate since, LocalDate until, int limit) {
+        long start = System.nanoTime();
+
+        int fromDay = since != null ? TransferBuckets.dayKey(since) : OPEN_START;
+        int toDay = until != null ? TransferBuckets.dayKey(until) : OPEN_END;
+
+        Map<String, Object> row = neo4jClient.query("""
+                        MATCH (u:User {userId: $userId})
+                        CALL (u) {
+                            CALL (u) {
+                                MATCH (u)-[r:TRANSFERRED_TO]->(o:User)
+                                WHERE $outgoing
+                                RETURN r, u AS source, o AS target, o AS other
+                                UNION ALL
+                                MATCH (u)<-[r:TRANSFERRED_TO]-(o:User)
+                                WHERE $incoming
+                                RETURN r, o AS source, u AS target, o AS other
+                            }
+                            WITH source, target, other, r
+                            WHERE ($counterpartyId IS NULL OR other.userId = $counterpartyId)
+                              AND ($sinceAt IS NULL OR r.lastAt >= $sinceAt)
+                              AND ($untilAt IS NULL OR r.firstAt < $untilAt)
+                            WITH source, target, r,
+                                 coalesce(r.monthBuckets, []) AS mk, coalesce(r.dayBuckets, []) AS dk
+                            WITH source, target, r,
+                                 [i IN range(0, size(mk) - 1) WHERE mk[i] > $fromDay / 100 AND mk[i] < $toDay / 100] AS months,
+                                 [i IN range(0, size(dk) - 1) WHERE dk[i] >= $fromDay AND dk[i] <= $toDay
+                                      AND (dk[i] / 100 = $fromDay / 100 OR dk[i] / 100 = $toDay / 100)] AS days
+                            WITH source, target,
+                                 reduce(s = 0.0, i IN months | s + r.monthAmounts[i])
+                                   + reduce(s = 0.0, i IN days | s + r.dayAmounts[i]) AS amount,
+                                 reduce(s = 0, i IN months | s + r.monthCounts[i])
+                                   + reduce(s = 0, i IN days | s + r.dayCounts[i]) AS txns
+                            WHERE txns > 0
+                            ORDER BY amount DESC
+                            // aggregates without a grouping key: one row even when nothing matched
+                            RETURN collect({
+                                       source: source.userId, sourceName: source.name,
+                                       target: target.userId, targetName: target.name,
+                                       amount: amount, txnCount: txns
+                                   }) AS transfers,
+                                   sum(amount) AS totalAmount, sum(txns) AS txnCount
+                        }
+                        RETURN transfers[0..$limit] AS transfers, size(transfers) AS counterparties,
+                               totalAmount, txnCount
+                        """)
+                .bind(userId).to("userId")
+                .bind(counterpartyId).to("counterpartyId")
+                .bind(!"in".equals(direction)).to("outgoing")
+                .bind(!"out".equals(direction)).to("incoming")
+                .bind(since != null ? since.atStartOfDay() : null).to("sinceAt")
+                .bind(until != null ? until.plusDays(1).atStartOfDay() : null).to("untilAt")
+                .bind(fromDay).to("fromDay")
+                .bind(toDay).to("toDay")
+                .bind(limit).to("limit")
+                .fetch()
+                .one()
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        GraphBuilder graph = new GraphBuilder();
+        List<TransferWindowResponse.Transfer> transfers = new ArrayList<>();
+        for (Map<String, Object> t : maps(row.get("transfers"))) {
+            String source = (String) t.get("source");
+            String target = (String) t.get("target");
+            graph.addNode(GraphNode.user(source, t.get("sourceName")));
+            graph.addNode(GraphNode.user(target, t.get("targetName")));
+            graph.addEdge(new GraphEdge(source, target, GraphEdge.TRANSFERRED_TO));
+            transfers.add(new TransferWindowResponse.Transfer(source, target,
+                    ((Number) t.get("amount")).doubleValue(), ((Number) t.get("txnCount")).longValue()));
+        }
+
+        TransferWindowResponse response = TransferWindowResponse.builder()
+                .userId(userId)
+                .counterpartyId(counterpartyId)
+                .direction(direction)
+                .since(since)
+                .until(until)
+                .totalAmount(((Number) row.get("totalAmount")).doubleValue())
+                .txnCount(((Number) row.get("txnCount")).longValue())
+                .counterparties(((Number) row.get("counterparties")).intValue())
+                .transfers(transfers)
+                .nodes(graph.nodes())
+                .edges(graph.edges())
+                .build();
+
+        log.info("Transfers of {} ({}, {}..{}): {} counterparties in {} µs",
+                userId, direction, since, until, response.getCounterparties(), (System.nanoTime() - start) / 1_000);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> maps(Object value) {
+        return value != null ? (List<Map<String, Object>>) value : List.of();
+    }
+}
@@ -1,21 +1,118 @@
 package com.example.VisualizationSystem.service;
 
+import com.example.VisualizationSystem.dto.GraphEdge;
+import com.example.VisualizationSystem.dto.GraphNode;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.exception.ResourceNotFoundException;
+import com.example.VisualizationSystem.graph.GraphProjectionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserRelationshipService {
 
     private final Neo4jClient neo4jClient;
+    private final GraphNeighborhoodCache graphCache;
+    private final GraphProjectionService graphProjection;
+    private final GraphLayoutService graphLayout;
 
     private static final int MAX_PAYMENT_PEER_NODES = 50;
 
     public Map<String, Object> getUserGraph(String userId) {
+        return graphCache.get(GraphNeighborhoodCache.key("user", userId), () -> loadUserGraph(userId));
+    }
+
+    /**
+     * The user graph, summarized into cluster nodes when it has more than {@code maxNodes}
+     * nodes; see {@link GraphSummarizer}. The full graph stays cached either way.
+     */
+    public Map<String, Object> getUserGraph(String userId, int maxNodes) {
+        return GraphSummarizer.summarize(userId, getUserGraph(userId), maxNodes);
+    }
+
+    /**
+     * The user graph (summarized above {@code maxNodes} when that is positive) with node
+     * positions; see {@link GraphLayoutService}.
+     */
+    public Map<String, Object> getUserGraphWithLayout(String userId, int maxNodes) {
+        return graphLayout.withLayout(GraphNeighborhoodCache.key("user", userId),
+                GraphNeighborhoodCache.key("user", userId, "layout", maxNodes),
+                () -> maxNodes > 0 ? getUserGraph(userId, maxNodes) : getUserGraph(userId));
+    }
+
+    /**
+     * The members of one cluster of a summarized user graph, at most {@code limit}; the
+     * rest come back as a smaller cluster with the same id.
+     */
+    public Map<String, Object> expandCluster(String userId, String groupBy, String key, int limit) {
+        Optional<Map<String, Object>> expansion = groupBy.equals(GraphSummarizer.BY_PAYMENT_METHOD)
+                ? expandPaymentPeers(userId, key, limit)
+                : GraphSummarizer.expand(userId, getUserGraph(userId), groupBy, key, limit);
+        return expansion.orElseThrow(() -> new ResourceNotFoundException(
+                "No " + groupBy + " '" + key + "' group in the graph of user '" + userId + "'"));
+    }
+
+    private Optional<Map<String, Object>> expandPaymentPeers(String userId, String method, int limit) {
+        return neo4jClient.query("""
+                        MATCH (u:User {userId: $userId})-[:USES_PAYMENT]->(pm:PaymentMethod {name: $method})
+                        CALL (u, pm) {
+                            MATCH (pm)<-[:USES_PAYMENT]-(peer:User)
+                            WHERE peer <> u
+                            RETURN count(DISTINCT peer) AS total
+                        }
+                        CALL (u, pm) {
+                            MATCH (pm)<-[:USES_PAYMENT]-(peer:User)
+                            WHERE peer <> u
+                            WITH DISTINCT peer
+                            ORDER BY peer.userId
+                            LIMIT $limit
+                            RETURN collect(peer { .userId, .name }) AS peers
+                        }
+                        RETURN u.name AS name, total, peers
+                        """)
+                .bind(userId).to("userId")
+                .bind(method).to("method")
+                .bind(limit).to("limit")
+                .fetch()
+                .one()
+                .map(row -> {
+                    List<Map<String, Object>> peers = maps(row.get("peers"));
+                    long total = ((Number) row.get("total")).longValue();
+
+                    GraphBuilder graph = new GraphBuilder(peers.size() + 2);
+                    graph.addNode(GraphNode.user(userId, row.get("name")));
+                    for (Map<String, Object> peer : peers) {
+                        String peerId = (String) peer.get("userId");
+                        graph.addNode(GraphNode.user(peerId, peer.get("name")));
+                        graph.addEdge(new GraphEdge(userId, peerId, GraphEdge.SAME_PAYMENT, method));
+                    }
+                    String clusterId = GraphSummarizer.clusterId(GraphEdge.SAME_PAYMENT, userId, method);
+                    long remaining = total - peers.size();
+                    if (remaining > 0) {
+                        graph.addNode(new GraphNode.Cluster(clusterId, remaining + " more via " + method,
+                                GraphEdge.SAME_PAYMENT, remaining, 0, Map.of(), true,
+                                GraphSummarizer.BY_PAYMENT_METHOD, method));
+                        graph.addEdge(new GraphEdge(userId, clusterId, GraphEdge.SAME_PAYMENT, method));
+                    }
+                    return GraphSummarizer.expansion(graph, clusterId, GraphSummarizer.BY_PAYMENT_METHOD,
+                            method, total, peers.size());
+                });
+    }
+
+    private GraphNeighborhoodCache.Loaded loadUserGraph(String userId) {
+        Map<String, Object> raw = graphProjection.userNeighborhood(userId, MAX_PAYMENT_PEER_NODES)
+                .orElseGet(() -> fetchRaw(userId));
+        return assemble(userId, raw);
+    }
+
+    /**
+     * Runs the neighbourhood query against Neo4j; the projection returns the same shape.
+     */
+    private Map<String, Object> fetchRaw(String userId) {
 
         String query = """
                 MATCH (u:User {userId: $userId})
@@ -68,125 +165,70 @@ public class UserRelationshipService {
                        receivers
                 """;
 
-        Map<String, Object> raw = neo4jClient.query(query)
+        return neo4jClient.query(query)
                 .bind(userId).to("userId")
                 .fetch()
                 .one()
                 .orElse(Map.of());
+    }
 
+    static GraphNeighborhoodCache.Loaded assemble(String userId, Map<String, Object> raw) {
         if (raw.isEmpty()) {
-            return Map.of(
+            return new GraphNeighborhoodCache.Loaded(Map.of(
                     "nodes", List.of(),
                     "edges", List.of(),
                     "paymentSummary", List.of(),
                     "userPaymentMethods", List.of()
-            );
+            ), Set.of(userId));
         }
 
-        List<Map<String, Object>> nodes = new ArrayList<>();
-        List<Map<String, Object>> edges = new ArrayList<>();
-        Set<String> addedNodeIds = new HashSet<>();
-        Set<String> addedEdgeKeys = new HashSet<>();
+        List<Map<String, Object>> connectedUsers = maps(raw.get("connectedUsers"));
+        List<Map<String, Object>> transactions = maps(raw.get("transactions"));
+        List<Map<String, Object>> receivers = maps(raw.get("receivers"));
+
+        GraphBuilder graph = new GraphBuilder(1 + connectedUsers.size() + 2 * transactions.size()
+                + MAX_PAYMENT_PEER_NODES);
 
         // ─────────────────────────────────────────────
         // 1️⃣ Main User Node
         // ─────────────────────────────────────────────
-        @SuppressWarnings("unchecked")
-        Map<String, Object> user = (Map<String, Object>) raw.get("user");
+        Map<String, Object> user = map(raw.get("user"));
         String mainUserId = (String) user.get("userId");
 
-        Map<String, Object> mainUserNode = new HashMap<>();
-        mainUserNode.put("id", mainUserId);
-        mainUserNode.put("label", user.get("name"));
-        mainUserNode.put("type", "user");
-        if (user.get("email") != null) mainUserNode.put("email", user.get("email"));
-        if (user.get("paymentMethods") != null) mainUserNode.put("paymentMethods", user.get("paymentMethods"));
-
-        nodes.add(mainUserNode);
-        addedNodeIds.add(mainUserId);
+        Object name = user.get("name");
+        graph.addNode(new GraphNode.User(
+                mainUserId,
+                name != null ? name.toString() : mainUserId,
+                (String) user.get("email"),
+                strings(user.get("paymentMethods")),
+                null));
 
         // ─────────────────────────────────────────────
         // 2️⃣ Connected Users (SAME_EMAIL / PHONE / ADDRESS)
         // ─────────────────────────────────────────────
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> connectedUsers =
-                (List<Map<String, Object>>) raw.get("connectedUsers");
-
-        if (connectedUsers != null) {
-            for (Map<String, Object> cu : connectedUsers) {
-                String id = (String) cu.get("userId");
-                if (!addedNodeIds.contains(id)) {
-                    nodes.add(Map.of("id", id, "label", cu.get("name"), "type", "user"));
-                    addedNodeIds.add(id);
-                }
-                String edgeKey = mainUserId + "|" + cu.get("relType") + "|" + id;
-                if (addedEdgeKeys.add(edgeKey)) {
-                    edges.add(Map.of(
-                            "source", mainUserId,
-                            "target", id,
-                            "type", cu.get("relType")
-                    ));
-                }
-            }
+        for (Map<String, Object> cu : connectedUsers) {
+            String id = (String) cu.get("userId");
+            graph.addNode(GraphNode.user(id, cu.get("name")));
+            graph.addEdge(new GraphEdge(mainUserId, id, GraphEdge.relType((String) cu.get("relType"))));
         }
 
         // ─────────────────────────────────────────────
-        // 3️⃣ Enriched Transactions
+        // 3️⃣ Enriched Transactions + 4️⃣ Receivers (parallel lists)
         // ─────────────────────────────────────────────
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> transactions =
-                (List<Map<String, Object>>) raw.get("transactions");
-
-        if (transactions != null) {
-            for (Map<String, Object> tx : transactions) {
-                if (tx == null || tx.get("transactionId") == null) continue;
-                String txId = (String) tx.get("transactionId");
-
-                if (!addedNodeIds.contains(txId)) {
-                    nodes.add(buildTxNode(tx));
-                    addedNodeIds.add(txId);
-                }
+        for (int i = 0; i < transactions.size(); i++) {
+            Map<String, Object> tx = transactions.get(i);
+            if (tx == null || tx.get("transactionId") == null) continue;
+            String txId = (String) tx.get("transactionId");
 
-                edges.add(Map.of(
-                        "id", mainUserId + "_" + txId + "_SENT",
-                        "source", mainUserId,
-                        "target", txId,
-                        "type", "SENT"
-                ));
-            }
-        }
+            graph.addNode(GraphNode.transaction(tx));
+            graph.addEdge(new GraphEdge(mainUserId, txId, GraphEdge.SENT));
 
-        // ─────────────────────────────────────────────
-        // 4️⃣ Receivers
-        // ─────────────────────────────────────────────
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> receivers =
-                (List<Map<String, Object>>) raw.get("receivers");
-
-        if (transactions != null && receivers != null) {
-            for (int i = 0; i < transactions.size(); i++) {
-                Map<String, Object> txMap = transactions.get(i);
-                if (txMap == null || txMap.get("transactionId") == null) continue;
-                String txId = (String) txMap.get("transactionId");
-
-                if (i < receivers.size()) {
-                    Map<String, Object> receiver = receivers.get(i);
-                    if (receiver == null || receiver.get("userId") == null) continue;
-                    String receiverId = (String) receiver.get("userId");
-
-                    if (!addedNodeIds.contains(receiverId)) {
-                        nodes.add(Map.of("id", receiverId, "label", receiver.get("name"), "type", "user"));
-                        addedNodeIds.add(receiverId);
-                    }
+            Map<String, Object> receiver = i < receivers.size() ? receivers.get(i) : null;
+            if (receiver == null || receiver.get("userId") == null) continue;
+            String receiverId = (String) receiver.get("userId");
 
-                    edges.add(Map.of(
-                            "id", txId + "_" + receiverId + "_RECEIVED_BY",
-                            "source", txId,
-                            "target", receiverId,
-                            "type", "RECEIVED_BY"
-                    ));
-                }
-            }
+            graph.addNode(GraphNode.user(receiverId, receiver.get("name")));
+            graph.addEdge(new GraphEdge(txId, receiverId, GraphEdge.RECEIVED_BY));
         }
 
         // ─────────────────────────────────────────────
@@ -194,68 +236,32 @@ public class UserRelationshipService {
         // ─────────────────────────────────────────────
 
         // 5a. Flat list of method names this user has
-        @SuppressWarnings("unchecked")
-        List<String> userPaymentMethods =
-                (List<String>) raw.get("userPaymentMethods");
-
-        List<String> cleanMethods = userPaymentMethods != null
-                ? userPaymentMethods.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList())
+        List<String> cleanMethods = strings(raw.get("userPaymentMethods"));
+        cleanMethods = cleanMethods != null
+                ? cleanMethods.stream().filter(Objects::nonNull).toList()
                 : List.of();
 
         // 5b. Grouped summary with peers
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> paymentSummary =
-                (List<Map<String, Object>>) raw.get("paymentSummary");
-
-        List<Map<String, Object>> cleanSummary = paymentSummary != null
-                ? paymentSummary.stream()
+        List<Map<String, Object>> cleanSummary = maps(raw.get("paymentSummary")).stream()
                 .filter(ps -> ps != null && ps.get("method") != null)
-                .collect(Collectors.toList())
-                : List.of();
+                .toList();
 
-        // 5c. ★ NEW: Add payment peer NODES and SAME_PAYMENT edges to the graph
-        //     Cap total unique payment peers at MAX_PAYMENT_PEER_NODES
+        // 5c. Payment peer nodes and SAME_PAYMENT edges, capped at MAX_PAYMENT_PEER_NODES unique peers
         int paymentPeerCount = 0;
         for (Map<String, Object> methodEntry : cleanSummary) {
             if (paymentPeerCount >= MAX_PAYMENT_PEER_NODES) break;
-
             String method = (String) methodEntry.get("method");
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> peers = (List<Map<String, Object>>) methodEntry.get("peers");
 
-            if (peers == null || method == null) continue;
-
-            for (Map<String, Object> peer : peers) {
+            for (Map<String, Object> peer : maps(methodEntry.get("peers"))) {
                 if (paymentPeerCount >= MAX_PAYMENT_PEER_NODES) break;
 
                 String peerId = (String) peer.get("userId");
-                String peerName = (String) peer.get("name");
                 if (peerId == null) continue;
 
-                // Add peer as a user node if not already present
-                if (!addedNodeIds.contains(peerId)) {
-                    Map<String, Object> peerNode = new HashMap<>();
-                    peerNode.put("id", peerId);
-                    peerNode.put("label", peerName != null ? peerName : peerId);
-                    peerNode.put("type", "user");
-                    nodes.add(peerNode);
-                    addedNodeIds.add(peerId);
+                if (graph.addNode(GraphNode.user(peerId, peer.get("name")))) {
                     paymentPeerCount++;
                 }
-
-                // Add SAME_PAYMENT edge (deduplicated per method+peer combo)
-                String edgeKey = mainUserId + "|SAME_PAYMENT|" + peerId + "|" + method;
-                if (addedEdgeKeys.add(edgeKey)) {
-                    Map<String, Object> edge = new HashMap<>();
-                    edge.put("id", mainUserId + "_" + peerId + "_SAME_PAYMENT_" + method);
-                    edge.put("source", mainUserId);
-                    edge.put("target", peerId);
-                    edge.put("type", "SAME_PAYMENT");
-                    edge.put("method", method);  // extra metadata for tooltip
-                    edges.add(edge);
-                }
+                graph.addEdge(new GraphEdge(mainUserId, peerId, GraphEdge.SAME_PAYMENT, method));
             }
         }
 
@@ -263,42 +269,31 @@ public class UserRelationshipService {
         // 6️⃣ Build Response
         // ─────────────────────────────────────────────
         Map<String, Object> result = new HashMap<>();
-        result.put("nodes", nodes);
-        result.put("edges", edges);
+        result.put("nodes", graph.nodes());
+        result.put("edges", graph.edges());
         result.put("userPaymentMethods", cleanMethods);
         result.put("paymentSummary", cleanSummary);
 
-        return result;
+        // Invalidation tags: every node shown, plus each payment group the peers came from
+        Set<String> tags = new HashSet<>(graph.nodeIds());
+        cleanMethods.forEach(m -> tags.add(UserWrittenEvent.PAYMENT_TAG_PREFIX + m));
+
+        return new GraphNeighborhoodCache.Loaded(result, tags);
     }
 
-    /**
-     * Build an enriched transaction node map from raw Cypher result.
-     */
-    private Map<String, Object> buildTxNode(Map<String, Object> tx) {
-        Map<String, Object> node = new HashMap<>();
-        String txId = (String) tx.get("transactionId");
-
-        node.put("id", txId);
-        node.put("type", "transaction");
-        node.put("transactionId", txId);
-
-        Object amount = tx.get("amount");
-        Object currency = tx.get("currency");
-        String currStr = currency != null ? currency.toString() : "$";
-        if (amount != null) {
-            node.put("label", String.format("%s%.2f", currStr, ((Number) amount).doubleValue()));
-        } else {
-            node.put("label", txId);
-        }
+    // Raw rows come from Cypher maps or the projection; both use these shapes
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return (Map<String, Object>) value;
+    }
 
-        if (amount != null)                     node.put("amount", amount);
-        if (currency != null)                   node.put("currency", currency);
-        if (tx.get("timestamp") != null)        node.put("timestamp", tx.get("timestamp").toString());
-        if (tx.get("ip") != null)               node.put("ip", tx.get("ip"));
-        if (tx.get("deviceId") != null)         node.put("deviceId", tx.get("deviceId"));
-        if (tx.get("status") != null)           node.put("status", tx.get("status"));
-        if (tx.get("paymentMethod") != null)    node.put("paymentMethod", tx.get("paymentMethod"));
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> maps(Object value) {
+        return value != null ? (List<Map<String, Object>>) value : List.of();
+    }
 
-        return node;
+    @SuppressWarnings("unchecked")
+    private static List<String> strings(Object value) {
+        return (List<String>) value;
     }
-}
\ No newline at end of file
+}
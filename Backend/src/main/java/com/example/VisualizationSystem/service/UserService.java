@@ -1,60 +1,171 @@
 package com.example.VisualizationSystem.service;
 
+import com.example.VisualizationSystem.dto.CursorPageResponse;
 import com.example.VisualizationSystem.dto.PageResponse;
+import com.example.VisualizationSystem.dto.TransactionFilter;
 import com.example.VisualizationSystem.dto.UserRequest;
 import com.example.VisualizationSystem.dto.UserResponse;
+import com.example.VisualizationSystem.event.UserWrittenEvent;
+import com.example.VisualizationSystem.exception.BadRequestException;
 import com.example.VisualizationSystem.model.User;
-import com.example.VisualizationSystem.repository.UserGraphRelationshipRepository;
 import com.example.VisualizationSystem.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
-    private final UserRepository userRepository;
-    private final UserGraphRelationshipRepository graphRepo;
+    // Upserts the user and relinks it in one statement, so a failure leaves nothing
+    // half-linked. SAME_EMAIL / SAME_PHONE / SAME_ADDRESS links are rebuilt only when that
+    // attribute changed, and only the USES_PAYMENT edges of methods joined or left are
+    // touched. Returns the stored values before the write (null for a new user), the saved
+    // node and the users whose links were added or removed.
+    private static final String UPSERT_QUERY = """
+            OPTIONAL MATCH (prev:User {userId: $userId})
+            WITH prev {.*} AS before
+            MERGE (u:User {userId: $userId})
+            ON CREATE SET
+                u.name = $name,
+                u.email = $email,
+                u.phone = $phone,
+                u.address = $address,
+                u.paymentMethods = $paymentMethods,
+                u.createdAt = localdatetime()
+            ON MATCH SET
+                u.name = coalesce($name, u.name),
+                u.email = coalesce($email, u.email),
+                u.phone = coalesce($phone, u.phone),
+                u.address = coalesce($address, u.address),
+                u.paymentMethods = coalesce($paymentMethods, u.paymentMethods)
+            WITH u, before,
+                 before IS NULL OR NOT coalesce(before.email = u.email, before.email IS NULL AND u.email IS NULL) AS emailChanged,
+                 before IS NULL OR NOT coalesce(before.phone = u.phone, before.phone IS NULL AND u.phone IS NULL) AS phoneChanged,
+                 before IS NULL OR NOT coalesce(before.address = u.address,
+                                                before.address IS NULL AND u.address IS NULL) AS addressChanged
 
-    public UserResponse createOrUpdate(UserRequest request) {
-        User existing = userRepository.findById(request.getUserId()).orElse(null);
-
-        User saved = userRepository.upsertUser(
-                request.getUserId(),
-                request.getName(),
-                request.getEmail(),
-                request.getPhone(),
-                request.getAddress(),
-                request.getPaymentMethods()
-        );
-
-        // ── email ──
-        if (existing == null || !Objects.equals(existing.getEmail(), saved.getEmail())) {
-            graphRepo.deleteSameEmailLinks(saved.getUserId());
-            if (saved.getEmail() != null) {
-                graphRepo.linkUsersByEmail(saved.getUserId(), saved.getEmail());
+            CALL (u, emailChanged) {
+                OPTIONAL MATCH (u)-[r:SAME_EMAIL]-(other)
+                WHERE emailChanged
+                DELETE r
+                RETURN collect(other.userId) AS unlinkedByEmail
+            }
+            CALL (u, emailChanged) {
+                WITH u WHERE emailChanged AND u.email IS NOT NULL
+                MATCH (other:User {email: u.email})
+                WHERE other <> u
+                MERGE (u)-[:SAME_EMAIL]->(other)
+                RETURN collect(other.userId) AS linkedByEmail
+            }
+            CALL (u, phoneChanged) {
+                OPTIONAL MATCH (u)-[r:SAME_PHONE]-(other)
+                WHERE phoneChanged
+                DELETE r
+                RETURN collect(other.userId) AS unlinkedByPhone
+            }
+            CALL (u, phoneChanged) {
+                WITH u WHERE phoneChanged AND u.phone IS NOT NULL
+                MATCH (other:User {phone: u.phone})
+                WHERE other <> u
+                MERGE (u)-[:SAME_PHONE]->(other)
+                RETURN collect(other.userId) AS linkedByPhone
+            }
+            CALL (u, addressChanged) {
+                OPTIONAL MATCH (u)-[r:SAME_ADDRESS]-(other)
+                WHERE addressChanged
+                DELETE r
+                RETURN collect(other.userId) AS unlinkedByAddress
+            }
+            CALL (u, addressChanged) {
+                WITH u WHERE addressChanged AND u.address IS NOT NULL
+                MATCH (other:User {address: u.address})
+                WHERE other <> u
+                MERGE (u)-[:SAME_ADDRESS]->(other)
+                RETURN collect(other.userId) AS linkedByAddress
             }
-        }
 
-        // ── phone ──
-        if (existing == null || !Objects.equals(existing.getPhone(), saved.getPhone())) {
-            graphRepo.deleteSamePhoneLinks(saved.getUserId());
-            if (saved.getPhone() != null) {
-                graphRepo.linkUsersByPhone(saved.getUserId(), saved.getPhone());
+            // Hub-and-spoke USES_PAYMENT: drop methods left, add methods joined
+            CALL (u) {
+                MATCH (u)-[r:USES_PAYMENT]->(p:PaymentMethod)
+                WHERE NOT p.name IN coalesce(u.paymentMethods, [])
+                DELETE r
             }
-        }
+            CALL (u) {
+                UNWIND coalesce(u.paymentMethods, []) AS pm
+                MERGE (p:PaymentMethod {name: pm})
+                MERGE (u)-[:USES_PAYMENT]->(p)
+            }
+
+            RETURN before, u {.*} AS saved,
+                   unlinkedByEmail + linkedByEmail + unlinkedByPhone + linkedByPhone
+                       + unlinkedByAddress + linkedByAddress AS affected
+            """;
+
+    // Users stored before createdAt was written have none, and the createdAt-ordered
+    // listings only read users from user_created_idx. They take the time of their first
+    // transaction, or the epoch when they have none, so they list as the oldest users.
+    private static final String BACKFILL_CREATED_AT_QUERY = """
+            MATCH (u:User)
+            WHERE u.createdAt IS NULL
+            OPTIONAL MATCH (u)-[:SENT|RECEIVED_BY]-(t:Transaction)
+            WITH u, min(t.timestamp) AS firstSeen
+            SET u.createdAt = coalesce(firstSeen, localdatetime('1970-01-01T00:00'))
+            RETURN count(u) AS backfilled
+            """;
 
-        // ── address ──
-        if (existing == null || !Objects.equals(existing.getAddress(), saved.getAddress())) {
-            graphRepo.deleteSameAddressLinks(saved.getUserId());
-            if (saved.getAddress() != null) {
-                graphRepo.linkUsersByAddress(saved.getUserId(), saved.getAddress());
+    private final Neo4jClient neo4jClient;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreatedAt() {
+        try {
+            long backfilled = neo4jClient.query(BACKFILL_CREATED_AT_QUERY)
+                    .fetchAs(Long.class)
+                    .one()
+                    .orElse(0L);
+            if (backfilled > 0) {
+                log.info("Backfilled createdAt on {} users", backfilled);
             }
+        } catch (RuntimeException e) {
+            log.warn("createdAt backfill failed; users without it stay out of the listings", e);
+        }
+    }
+
+    public UserResponse createOrUpdate(UserRequest request) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", request.getUserId());
+        params.put("name", request.getName());
+        params.put("email", request.getEmail());
+        params.put("phone", request.getPhone());
+        params.put("address", request.getAddress());
+        params.put("paymentMethods", request.getPaymentMethods());
+
+        Map<String, Object> row = neo4jClient.query(UPSERT_QUERY)
+                .bindAll(params)
+                .fetch()
+                .one()
+                .orElseThrow();
+
+        User existing = toUser(row.get("before"));
+        User saved = toUser(row.get("saved"));
+        // users whose shared-attribute links to this one were added or removed
+        Set<String> affected = new HashSet<>();
+        for (Object id : (List<?>) row.get("affected")) {
+            affected.add((String) id);
         }
 
-        // ── payment methods (hub-and-spoke) ──
         Set<String> oldMethods = existing != null && existing.getPaymentMethods() != null
                 ? new HashSet<>(existing.getPaymentMethods())
                 : Collections.emptySet();
@@ -62,14 +173,17 @@ public class UserService {
                 ? new HashSet<>(saved.getPaymentMethods())
                 : Collections.emptySet();
 
-        if (existing == null || !oldMethods.equals(newMethods)) {
-            graphRepo.deletePaymentLinks(saved.getUserId());
-            if (!newMethods.isEmpty()) {
-                graphRepo.linkUserPaymentMethods(
-                        saved.getUserId(), saved.getPaymentMethods());
-            }
+        // methods joined or left change the peer lists of everyone else on them
+        Set<String> changedMethods = new HashSet<>(oldMethods);
+        changedMethods.addAll(newMethods);
+        if (existing != null) {
+            Set<String> unchanged = new HashSet<>(oldMethods);
+            unchanged.retainAll(newMethods);
+            changedMethods.removeAll(unchanged);
         }
 
+        eventPublisher.publishEvent(
+                new UserWrittenEvent(saved.getUserId(), affected, changedMethods, false));
         return UserResponse.builder()
                 .name(saved.getName())
                 .email(saved.getEmail())
@@ -80,6 +194,23 @@ public class UserService {
                 .build();
     }
 
+    @SuppressWarnings("unchecked")
+    private static User toUser(Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+        Map<String, Object> u = (Map<String, Object>) map;
+        return User.builder()
+                .userId((String) u.get("userId"))
+                .name((String) u.get("name"))
+                .email((String) u.get("email"))
+                .phone((String) u.get("phone"))
+                .address((String) u.get("address"))
+                .paymentMethods(u.get("paymentMethods") instanceof List<?> l
+                        ? l.stream().map(String::valueOf).toList() : null)
+                .createdAt((LocalDateTime) u.get("createdAt"))
+                .riskScore(u.get("riskScore") instanceof Number n ? n.doubleValue() : null)
+                .build();
+    }
+
     public List<UserResponse> getAll() {
         return userRepository.findAllUserDtos();
     }
@@ -89,10 +220,13 @@ public class UserService {
             String email,
             String phone,
             String paymentMethod,
+            boolean byRisk,
             int page,
             int size
     ) {
-        long total = userRepository.countUsers(search, email, phone, paymentMethod);
+        long total = byRisk
+                ? userRepository.countScoredUsers(search, email, phone, paymentMethod)
+                : userRepository.countUsers(search, email, phone, paymentMethod);
         long skip = (long) page * size;
 
         if (skip >= total && total > 0) {
@@ -100,11 +234,66 @@ public class UserService {
             skip = 0;
         }
 
-        List<User> users = userRepository.findUsersPaged(
-                search, email, phone, paymentMethod, skip, size);
+        List<User> users = byRisk
+                ? userRepository.findUsersPagedByRisk(search, email, phone, paymentMethod, skip, size)
+                : userRepository.findUsersPaged(search, email, phone, paymentMethod, skip, size);
         return new PageResponse<>(users, total, page, size);
     }
 
+    /**
+     * Keyset page of users ordered by (createdAt, userId) descending.
+     * The cursor is opaque to clients; pass the previous page's nextCursor to continue.
+     */
+    public CursorPageResponse<User> scrollUsers(
+            String search,
+            String email,
+            String phone,
+            String paymentMethod,
+            String cursor,
+            int size
+    ) {
+        LocalDateTime afterCreatedAt = TransactionFilter.MAX_TIMESTAMP;
+        String afterUserId = "";
+
+        if (cursor != null) {
+            String decoded;
+            try {
+                decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            int sep = decoded.indexOf('|');
+            if (sep < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            try {
+                afterCreatedAt = LocalDateTime.parse(decoded.substring(0, sep));
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            afterUserId = decoded.substring(sep + 1);
+        }
+
+        // fetch one extra row to learn whether another page exists
+        List<User> users = new ArrayList<>(userRepository.findUsersAfter(
+                search, email, phone, paymentMethod, afterCreatedAt, afterUserId, size + 1L));
+
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users.remove(users.size() - 1);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            User last = users.get(users.size() - 1);
+            String raw = last.getCreatedAt() + "|" + last.getUserId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new CursorPageResponse<>(users, size, nextCursor, hasMore);
+    }
+
     public Optional<User> findById(String id) {
         return (userRepository.findById(id));
     }
@@ -114,7 +303,13 @@ public class UserService {
 //    }
 
     public void deleteById(String id) {
+        User existing = userRepository.findById(id).orElse(null);
         userRepository.deleteById(id);
+
+        Set<String> methods = existing != null && existing.getPaymentMethods() != null
+                ? new HashSet<>(existing.getPaymentMethods())
+                : Collections.emptySet();
+        eventPublisher.publishEvent(new UserWrittenEvent(id, Collections.emptySet(), methods, true));
     }
 
     public UserResponse partialUpdate(String id, UserRequest request) {
@@ -0,0 +1,231 @@
+package com.example.VisualizationSystem.service;
+
+import com.example.VisualizationSystem.config.VelocityProperties;
+import com.example.VisualizationSystem.dto.TransactionEdgeData;
+import com.example.VisualizationSystem.dto.VelocityResponse;
+import com.example.VisualizationSystem.dto.VelocityStatsResponse;
+import com.example.VisualizationSystem.exception.BadRequestException;
+import com.example.VisualizationSystem.graph.GraphProjection;
+import com.example.VisualizationSystem.graph.GraphWorkers;
+import com.example.VisualizationSystem.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory transaction velocity: how many transactions (and how much money) a sender,
+ * receiver, IP or device was involved in over the last minutes, without asking Neo4j.
+ * <p>
+ * Fed by single writes and bulk ingest; each key keeps a {@link VelocityWindow} of the
+ * last hour. Transaction times are wall-clock times read as UTC, the same convention as
+ * the graph projection. Updates and deletes of existing transactions are not reflected.
+ * <p>
+ * Each dimension holds at most {@code maxKeysPerDimension} keys. Keys idle for an hour are
+ * dropped by a periodic sweep; going over the cap triggers an extra sweep that also evicts
+ * the least recently active keys.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VelocityService {
+
+    public enum Dimension {
+        SENDER, RECEIVER, IP, DEVICE;
+
+        public static Dimension parse(String value) {
+            for (Dimension d : values()) {
+                if (d.name().equalsIgnoreCase(value)) return d;
+            }
+            throw new BadRequestException("dimension must be one of: sender, receiver, ip, device");
+        }
+    }
+
+    private final VelocityProperties props;
+    private final GraphWorkers workers;
+
+    private final Map<Dimension, ConcurrentHashMap<String, VelocityWindow>> windows = emptyWindows();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        workers.scheduler().scheduleWithFixedDelay(() -> workers.pool().execute(this::sweep),
+                props.getSweepIntervalMs(), props.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  WRITES
+    // ════════════════════════════════════════════════════════════════
+
+    /** Counts one new transaction under each of its non-null keys. */
+    public void record(Transaction tx, String senderId, String receiverId) {
+        long now = nowMinute();
+        long minute = tx.getTimestamp() != null ? minuteOf(tx.getTimestamp()) : now;
+        double amount = tx.getAmount() != null ? tx.getAmount() : 0;
+
+        if (minute <= now - VelocityWindow.MINUTES) {
+            late.increment();
+            return;
+        }
+        record(Dimension.SENDER, senderId, minute, amount, now);
+        record(Dimension.RECEIVER, receiverId, minute, amount, now);
+        record(Dimension.IP, tx.getIp(), minute, amount, now);
+        record(Dimension.DEVICE, tx.getDeviceId(), minute, amount, now);
+        recorded.increment();
+    }
+
+    public void recordAll(List<TransactionEdgeData> edges) {
+        long start = System.nanoTime();
+        long before = recorded.sum();
+        for (TransactionEdgeData e : edges) {
+            record(e.getTransaction(), e.getSenderId(), e.getReceiverId());
+        }
+        log.info("Velocity: {} of {} ingested transactions fall in the last {} minutes ({} ms)",
+                recorded.sum() - before, edges.size(), VelocityWindow.MINUTES,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void record(Dimension dimension, String key, long minute, double amount, long now) {
+        if (key == null) return;
+        ConcurrentHashMap<String, VelocityWindow> keys = windows.get(dimension);
+        VelocityWindow window = keys.get(key);
+        if (window == null) {
+            window = keys.computeIfAbsent(key, k -> new VelocityWindow(minute));
+            if (keys.size() > props.getMaxKeysPerDimension() && sweepQueued.compareAndSet(false, true)) {
+                workers.pool().execute(this::sweep);
+            }
+        }
+        window.record(minute, amount, now);
+    }
+
+    public void clear() {
+        windows.values().forEach(Map::clear);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  READS
+    // ════════════════════════════════════════════════════════════════
+
+    /**
+     * Totals of one key over each window.
+     *
+     * @param windowMinutes window lengths in minutes, each 1..{@value VelocityWindow#MINUTES}
+     */
+    public VelocityResponse lookup(Dimension dimension, String key, int[] windowMinutes) {
+        long start = System.nanoTime();
+        long[] counts = new long[windowMinutes.length];
+        double[] amounts = new double[windowMinutes.length];
+
+        VelocityWindow window = windows.get(dimension).get(key);
+        if (window != null) {
+            window.sum(nowMinute(), windowMinutes, counts, amounts);
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        List<VelocityResponse.Window> result = new ArrayList<>(windowMinutes.length);
+        for (int i = 0; i < windowMinutes.length; i++) {
+            result.add(new VelocityResponse.Window(windowMinutes[i], counts[i], amounts[i]));
+        }
+        return VelocityResponse.builder()
+                .dimension(dimension.name().toLowerCase())
+                .key(key)
+                .tracked(window != null)
+                .windows(result)
+                .lookupNanos(lookupNanos)
+                .build();
+    }
+
+    /**
+     * Allocation-free form of {@link #lookup} for callers on the write path: adds the
+     * totals of each window into {@code counts} / {@code amounts}.
+     *
+     * @return {@code false} when the key is not tracked
+     */
+    public boolean totals(Dimension dimension, String key, int[] windowMinutes, long[] counts, double[] amounts) {
+        VelocityWindow window = key != null ? windows.get(dimension).get(key) : null;
+        if (window == null) return false;
+        window.sum(nowMinute(), windowMinutes, counts, amounts);
+        return true;
+    }
+
+    public VelocityStatsResponse stats() {
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        windows.forEach((d, m) -> keys.put(d.name().toLowerCase(), m.size()));
+        return VelocityStatsResponse.builder()
+                .windowMinutes(VelocityWindow.MINUTES)
+                .maxKeysPerDimension(props.getMaxKeysPerDimension())
+                .keys(keys)
+                .recorded(recorded.sum())
+                .late(late.sum())
+                .expired(expired.sum())
+                .evicted(evicted.sum())
+                .build();
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  EVICTION
+    // ════════════════════════════════════════════════════════════════
+
+    private void sweep() {
+        sweepQueued.set(false);
+        try {
+            long now = nowMinute();
+            for (ConcurrentHashMap<String, VelocityWindow> keys : windows.values()) {
+                sweep(keys, now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Velocity sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void sweep(ConcurrentHashMap<String, VelocityWindow> keys, long now) {
+        int before = keys.size();
+        keys.values().removeIf(w -> w.lastMinute() <= now - VelocityWindow.MINUTES);
+        expired.add(before - keys.size());
+
+        int max = props.getMaxKeysPerDimension();
+        if (keys.size() <= max) return;
+
+        // Back to 90% of the cap, dropping the keys whose last transaction is oldest
+        int target = max - max / 10;
+        long[] last = keys.values().stream().mapToLong(VelocityWindow::lastMinute).toArray();
+        if (last.length <= target) return;
+        Arrays.sort(last);
+        long cutoff = last[last.length - target];
+        int size = keys.size();
+        keys.values().removeIf(w -> w.lastMinute() < cutoff);
+        evicted.add(size - keys.size());
+    }
+
+    private static Map<Dimension, ConcurrentHashMap<String, VelocityWindow>> emptyWindows() {
+        Map<Dimension, ConcurrentHashMap<String, VelocityWindow>> windows = new EnumMap<>(Dimension.class);
+        for (Dimension d : Dimension.values()) {
+            windows.put(d, new ConcurrentHashMap<>());
+        }
+        return windows;
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  TIME
+    // ════════════════════════════════════════════════════════════════
+
+    private static long nowMinute() {
+        return minuteOf(LocalDateTime.now());
+    }
+
+    private static long minuteOf(LocalDateTime timestamp) {
+        return Math.floorDiv(GraphProjection.toEpochMillis(timestamp), 60_000L);
+    }
+}
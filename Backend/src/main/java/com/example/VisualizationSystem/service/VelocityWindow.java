@@ -0,0 +1,86 @@
+package com.example.VisualizationSystem.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transaction count and amount of one key over the last {@link #MINUTES} minutes, in
+ * one-minute buckets on a ring.
+ * <p>
+ * A slot is taken over by compare-and-set when its minute comes round again; within a
+ * minute, writers only add to the bucket's {@link LongAdder} / {@link DoubleAdder}, so a
+ * hot key spreads concurrent writes over striped cells instead of one contended word.
+ * Reads sum the live buckets without locking and may miss writes still in flight.
+ */
+final class VelocityWindow {
+
+    static final int MINUTES = 60;
+
+    private static final class Bucket {
+        final long minute;
+        final LongAdder count = new LongAdder();
+        final DoubleAdder amount = new DoubleAdder();
+
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(MINUTES);
+
+    // Latest minute written; a racing older write may win, which only makes eviction a little early
+    private volatile long lastMinute;
+
+    VelocityWindow(long minute) {
+        this.lastMinute = minute;
+    }
+
+    /**
+     * @param minute    epoch minute of the transaction; later than {@code nowMinute} counts as now
+     * @return {@code false} when the minute has already left the ring
+     */
+    boolean record(long minute, double amount, long nowMinute) {
+        minute = Math.min(minute, nowMinute);
+        if (minute <= nowMinute - MINUTES) return false;
+
+        int slot = (int) Math.floorMod(minute, MINUTES);
+        while (true) {
+            Bucket b = buckets.get(slot);
+            if (b != null && b.minute == minute) {
+                b.count.increment();
+                b.amount.add(amount);
+                break;
+            }
+            if (b != null && b.minute > minute) return false;    // slot already holds a newer minute
+            buckets.compareAndSet(slot, b, new Bucket(minute));  // lost races re-read the winner
+        }
+        if (minute > lastMinute) lastMinute = minute;
+        return true;
+    }
+
+    /**
+     * Adds the totals of the last {@code windows[i]} minutes (counting the current one)
+     * into {@code counts[i]} / {@code amounts[i]}.
+     */
+    void sum(long nowMinute, int[] windows, long[] counts, double[] amounts) {
+        for (int slot = 0; slot < MINUTES; slot++) {
+            Bucket b = buckets.get(slot);
+            if (b == null) continue;
+            long age = nowMinute - b.minute;
+            if (age < 0 || age >= MINUTES) continue;
+            long count = b.count.sum();
+            double amount = b.amount.sum();
+            for (int i = 0; i < windows.length; i++) {
+                if (age < windows[i]) {
+                    counts[i] += count;
+                    amounts[i] += amount;
+                }
+            }
+        }
+    }
+
+    long lastMinute() {
+        return lastMinute;
+    }
+}
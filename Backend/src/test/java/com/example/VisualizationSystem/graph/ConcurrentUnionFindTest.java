@@ -0,0 +1,88 @@
+package com.example.VisualizationSystem.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentUnionFindTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentUnionsMatchSequentialComponents() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            Random random = new Random(5);
+            for (int trial = 0; trial < 50; trial++) {
+                // Few vertices and many unions, so threads keep racing on the same roots
+                int n = 50 + random.nextInt(2_000);
+                int unions = n / 2 + random.nextInt(n);
+                int[][] pairs = new int[unions][];
+                for (int i = 0; i < unions; i++) {
+                    pairs[i] = new int[]{random.nextInt(n), random.nextInt(n)};
+                }
+
+                ConcurrentUnionFind uf = new ConcurrentUnionFind(n);
+                CyclicBarrier start = new CyclicBarrier(THREADS);
+                Future<?>[] workers = new Future<?>[THREADS];
+                for (int t = 0; t < THREADS; t++) {
+                    int offset = t;
+                    workers[t] = pool.submit(() -> {
+                        start.await();
+                        for (int i = offset; i < unions; i += THREADS) {
+                            uf.union(pairs[i][0], pairs[i][1]);
+                            uf.find(pairs[(i * 31) % unions][1]);    // path halving alongside the unions
+                        }
+                        return null;
+                    });
+                }
+                for (Future<?> worker : workers) worker.get(30, TimeUnit.SECONDS);
+
+                int[] expected = sequentialRoots(n, pairs);
+                for (int a = 0; a < n; a++) {
+                    int root = uf.find(a);
+                    // the smallest member is always the root
+                    assertEquals(expected[a], root, "trial " + trial + ", vertex " + a);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rootsAreSmallestMembers() {
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(6);
+        uf.union(5, 3);
+        uf.union(4, 5);
+        uf.union(2, 1);
+
+        assertEquals(3, uf.find(4));
+        assertEquals(3, uf.find(5));
+        assertEquals(1, uf.find(2));
+        assertEquals(0, uf.find(0));
+        assertEquals(6, uf.size());
+    }
+
+    /** Plain union-find; returns the smallest member of each vertex's component. */
+    private static int[] sequentialRoots(int n, int[][] pairs) {
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        for (int[] pair : pairs) {
+            int a = root(parent, pair[0]);
+            int b = root(parent, pair[1]);
+            if (a != b) parent[Math.max(a, b)] = Math.min(a, b);
+        }
+        int[] roots = new int[n];
+        for (int i = 0; i < n; i++) roots[i] = root(parent, i);
+        return roots;
+    }
+
+    private static int root(int[] parent, int x) {
+        while (parent[x] != x) x = parent[x];
+        return x;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.VisualizationSystem.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.example.VisualizationSystem.graph.TransferPathSearchTest.projection;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferCycleSearchTest {
+
+    private static final TransferPathSearch.Constraints MIN_AMOUNT =
+            new TransferPathSearch.Constraints(10, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    /**
+     * 0 ⇄ 1 with a parallel 0 → 1, the triangle 2 → 3 → 4 → 2, the square 4 → 5 → 6 → 7 → 4,
+     * and 5 → 2 carrying too little for {@link #MIN_AMOUNT}, which would close 2 → 3 → 4 → 5 → 2.
+     */
+    private static final GraphProjection HAND_BUILT = projection(8, new double[][]{
+            {0, 1, 50, 0, 0}, {1, 0, 50, 0, 0}, {0, 1, 20, 0, 0},
+            {2, 3, 50, 0, 0}, {3, 4, 50, 0, 0}, {4, 2, 50, 0, 0},
+            {4, 5, 50, 0, 0}, {5, 6, 50, 0, 0}, {6, 7, 50, 0, 0}, {7, 4, 50, 0, 0},
+            {5, 2, 5, 0, 0}});
+
+    @Test
+    void reportsEachCycleOnceFromItsSmallestUser() {
+        assertEquals(List.of("[0, 1]", "[2, 3, 4]", "[4, 5, 6, 7]"),
+                cycles(search(HAND_BUILT, 4, MIN_AMOUNT, 100, () -> false)));
+        assertEquals(List.of("[0, 1]", "[2, 3, 4]"),
+                cycles(search(HAND_BUILT, 3, MIN_AMOUNT, 100, () -> false)));
+        assertEquals(List.of("[0, 1]"),
+                cycles(search(HAND_BUILT, 2, MIN_AMOUNT, 100, () -> false)));
+    }
+
+    @Test
+    void unfilteredEdgeClosesAnotherCycle() {
+        assertEquals(List.of("[0, 1]", "[2, 3, 4, 5]", "[2, 3, 4]", "[4, 5, 6, 7]"),
+                cycles(search(HAND_BUILT, 4, TransferPathSearch.Constraints.NONE, 100, () -> false)));
+    }
+
+    @Test
+    void cycleEdgesMatchItsUsers() {
+        TransferCycleSearch.Result result = search(HAND_BUILT, 4, MIN_AMOUNT, 100, () -> false);
+        Csr out = HAND_BUILT.getTransfers();
+        for (TransferCycleSearch.Cycle cycle : result.cycles()) {
+            int[] users = cycle.users();
+            for (int i = 0; i < users.length; i++) {
+                int e = cycle.edges()[i];
+                assertTrue(e >= out.start(users[i]) && e < out.end(users[i]));
+                assertEquals(users[(i + 1) % users.length], out.target(e));
+                assertTrue(MIN_AMOUNT.allows(out, e));
+            }
+        }
+    }
+
+    @Test
+    void matchesBruteForceOnRandomGraphs() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 5 + random.nextInt(5);
+            List<double[]> edges = new ArrayList<>();
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    if (u == v || random.nextDouble() >= 0.3) continue;
+                    edges.add(new double[]{u, v, 1 + random.nextInt(20), 0, 0});
+                    if (random.nextInt(5) == 0) edges.add(new double[]{u, v, 1 + random.nextInt(20), 0, 0});
+                }
+            }
+            GraphProjection p = projection(n, edges.toArray(double[][]::new));
+            int maxLength = 2 + random.nextInt(4);
+
+            List<String> expected = bruteForce(p, maxLength, MIN_AMOUNT);
+            assertEquals(expected, cycles(search(p, maxLength, MIN_AMOUNT, Integer.MAX_VALUE, () -> false)),
+                    "trial " + trial);
+        }
+    }
+
+    @Test
+    void stopsAtMaxCycles() {
+        TransferCycleSearch.Result truncated = search(HAND_BUILT, 4, MIN_AMOUNT, 2, () -> false);
+        assertEquals(2, truncated.cycles().size());
+        assertTrue(truncated.truncated());
+
+        TransferCycleSearch.Result exact = search(HAND_BUILT, 4, MIN_AMOUNT, 3, () -> false);
+        assertEquals(3, exact.cycles().size());
+        assertFalse(exact.truncated());
+    }
+
+    @Test
+    void cancellationStopsTheSearch() {
+        // Every user on one ring with chords, so each start has work to do
+        int n = 2_000;
+        List<double[]> edges = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            edges.add(new double[]{u, (u + 1) % n, 50, 0, 0});
+            edges.add(new double[]{u, (u + 7) % n, 50, 0, 0});
+            edges.add(new double[]{(u + 3) % n, u, 50, 0, 0});
+        }
+        GraphProjection p = projection(n, edges.toArray(double[][]::new));
+
+        AtomicInteger polls = new AtomicInteger();
+        TransferCycleSearch.Result result = search(p, 6, TransferPathSearch.Constraints.NONE, Integer.MAX_VALUE,
+                () -> polls.incrementAndGet() > 100);
+        assertTrue(result.cancelled());
+        assertFalse(result.truncated());
+        assertTrue(result.startsDone() < n);
+
+        TransferCycleSearch.Result before = search(p, 6, TransferPathSearch.Constraints.NONE, Integer.MAX_VALUE,
+                () -> true);
+        assertTrue(before.cancelled());
+        assertEquals(0, before.startsDone());
+        assertTrue(before.cycles().isEmpty());
+    }
+
+    private static TransferCycleSearch.Result search(GraphProjection p, int maxLength,
+                                                     TransferPathSearch.Constraints constraints, int maxCycles,
+                                                     BooleanSupplier cancelled) {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            return new TransferCycleSearch(p, maxLength, constraints, maxCycles, Integer.MAX_VALUE, cancelled)
+                    .run(pool, 3);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Sorted user sequences; a duplicate report shows up as a repeated entry. */
+    private static List<String> cycles(TransferCycleSearch.Result result) {
+        List<String> cycles = new ArrayList<>();
+        for (TransferCycleSearch.Cycle cycle : result.cycles()) cycles.add(Arrays.toString(cycle.users()));
+        Collections.sort(cycles);
+        return cycles;
+    }
+
+    /** Every simple cycle as a user sequence rotated to start at its smallest user. */
+    private static List<String> bruteForce(GraphProjection p, int maxLength, TransferPathSearch.Constraints constraints) {
+        Set<String> found = new TreeSet<>();
+        int n = p.getUsers().size();
+        for (int s = 0; s < n; s++) {
+            walk(p.getTransfers(), new ArrayList<>(List.of(s)), maxLength, constraints, found);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static void walk(Csr out, List<Integer> path, int maxLength, TransferPathSearch.Constraints constraints,
+                             Set<String> found) {
+        int v = path.get(path.size() - 1);
+        for (int e = out.start(v); e < out.end(v); e++) {
+            if (!constraints.allows(out, e)) continue;
+            int w = out.target(e);
+            if (w == path.get(0) && path.size() >= 2) {
+                int min = path.indexOf(Collections.min(path));
+                List<Integer> rotated = new ArrayList<>(path.subList(min, path.size()));
+                rotated.addAll(path.subList(0, min));
+                found.add(rotated.toString());
+            } else if (!path.contains(w) && path.size() < maxLength) {
+                path.add(w);
+                walk(out, path, maxLength, constraints, found);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+}
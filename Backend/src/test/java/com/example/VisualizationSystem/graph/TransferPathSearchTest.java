@@ -0,0 +1,216 @@
+package com.example.VisualizationSystem.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link TransferPathSearch} against brute-force enumeration of every simple path on small
+ * random projections, with integer amounts so that ties in the ranking are common.
+ */
+class TransferPathSearchTest {
+
+    private static final TransferPathSearch.Constraints MIN_AMOUNT =
+            new TransferPathSearch.Constraints(8, Long.MIN_VALUE, Long.MAX_VALUE);
+    private static final TransferPathSearch.Constraints WINDOW =
+            new TransferPathSearch.Constraints(0, 40, 70);
+
+    @Test
+    void matchesBruteForceInBothModes() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 400; trial++) {
+            GraphProjection p = randomProjection(random, 6 + random.nextInt(5), 0.35);
+            int n = p.getUsers().size();
+            int source = random.nextInt(n);
+            int target = (source + 1 + random.nextInt(n - 1)) % n;
+            int maxHops = 1 + random.nextInt(5);
+            int k = 1 + random.nextInt(6);
+            TransferPathSearch.Constraints constraints = switch (trial % 3) {
+                case 0 -> TransferPathSearch.Constraints.NONE;
+                case 1 -> MIN_AMOUNT;
+                default -> WINDOW;
+            };
+
+            List<TransferPathSearch.Path> all = enumerate(p, source, target, maxHops, constraints);
+            for (TransferPathSearch.Mode mode : TransferPathSearch.Mode.values()) {
+                TransferPathSearch.Result result = new TransferPathSearch(p, v -> false, source, target,
+                        maxHops, k, mode, constraints, Integer.MAX_VALUE).run();
+                String context = "trial " + trial + " " + mode;
+
+                assertFalse(result.budgetExhausted(), context);
+                assertFalse(result.stale(), context);
+                for (TransferPathSearch.Path path : result.paths()) {
+                    assertValid(p, path, source, target, maxHops, constraints, context);
+                }
+                assertEquals(keys(top(all, mode, k)), keys(result.paths()), context);
+            }
+        }
+    }
+
+    @Test
+    void respectsHopLimit() {
+        // 0 → 1 → 2 → 3 → 4 and a direct 0 → 4 carrying less
+        GraphProjection p = projection(5, new double[][]{
+                {0, 1, 50, 10, 10}, {1, 2, 50, 10, 10}, {2, 3, 50, 10, 10}, {3, 4, 50, 10, 10},
+                {0, 4, 5, 10, 10}});
+
+        for (int maxHops = 1; maxHops <= 5; maxHops++) {
+            TransferPathSearch.Result result = new TransferPathSearch(p, v -> false, 0, 4, maxHops, 5,
+                    TransferPathSearch.Mode.HEAVIEST, TransferPathSearch.Constraints.NONE, Integer.MAX_VALUE).run();
+            int expected = maxHops >= 4 ? 2 : 1;
+            assertEquals(expected, result.paths().size(), "maxHops " + maxHops);
+            assertTrue(result.paths().stream().allMatch(path -> path.hops() <= 4));
+            if (maxHops >= 4) {
+                assertEquals(50, result.paths().get(0).bottleneck());
+            }
+        }
+    }
+
+    @Test
+    void stopsWhenBudgetRunsOut() {
+        Random random = new Random(11);
+        int exhaustedRuns = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            GraphProjection p = randomProjection(random, 10, 0.5);
+            int budget = 1 + random.nextInt(20);
+            List<TransferPathSearch.Path> all = enumerate(p, 0, 9, 5, TransferPathSearch.Constraints.NONE);
+            Set<String> reachable = new HashSet<>();
+            for (TransferPathSearch.Path path : all) reachable.add(Arrays.toString(path.users()));
+
+            for (TransferPathSearch.Mode mode : TransferPathSearch.Mode.values()) {
+                TransferPathSearch.Result result = new TransferPathSearch(p, v -> false, 0, 9, 5, 3, mode,
+                        TransferPathSearch.Constraints.NONE, budget).run();
+                assertTrue(result.visited() <= budget);
+                for (TransferPathSearch.Path path : result.paths()) {
+                    assertTrue(reachable.contains(Arrays.toString(path.users())));
+                }
+                if (result.budgetExhausted()) exhaustedRuns++;
+            }
+        }
+        assertTrue(exhaustedRuns > 0);
+    }
+
+    @Test
+    void reportsStaleWhenDirtyUserIsReached() {
+        GraphProjection p = projection(3, new double[][]{{0, 1, 10, 0, 0}, {1, 2, 10, 0, 0}});
+
+        TransferPathSearch.Result result = new TransferPathSearch(p, v -> v == 1, 0, 2, 3, 1,
+                TransferPathSearch.Mode.SHORTEST, TransferPathSearch.Constraints.NONE, Integer.MAX_VALUE).run();
+
+        assertTrue(result.stale());
+    }
+
+    // ─────────────────────────────────────────────
+    // Brute force
+    // ─────────────────────────────────────────────
+
+    private static List<TransferPathSearch.Path> enumerate(GraphProjection p, int source, int target, int maxHops,
+                                                           TransferPathSearch.Constraints constraints) {
+        List<TransferPathSearch.Path> paths = new ArrayList<>();
+        Deque<Integer> users = new ArrayDeque<>(List.of(source));
+        extend(p.getTransfers(), users, new ArrayDeque<>(), target, maxHops, constraints, paths);
+        return paths;
+    }
+
+    private static void extend(Csr out, Deque<Integer> users, Deque<Integer> edges, int target, int maxHops,
+                               TransferPathSearch.Constraints constraints, List<TransferPathSearch.Path> paths) {
+        int v = users.peekLast();
+        if (v == target) {
+            int[] u = users.stream().mapToInt(Integer::intValue).toArray();
+            int[] e = edges.stream().mapToInt(Integer::intValue).toArray();
+            paths.add(new TransferPathSearch.Path(u, e, bottleneck(out, e), total(out, e)));
+            return;
+        }
+        if (edges.size() == maxHops) return;
+        for (int e = out.start(v); e < out.end(v); e++) {
+            int w = out.target(e);
+            if (!constraints.allows(out, e) || users.contains(w)) continue;
+            users.addLast(w);
+            edges.addLast(e);
+            extend(out, users, edges, target, maxHops, constraints, paths);
+            users.removeLast();
+            edges.removeLast();
+        }
+    }
+
+    private static List<TransferPathSearch.Path> top(List<TransferPathSearch.Path> all, TransferPathSearch.Mode mode,
+                                                    int k) {
+        Comparator<TransferPathSearch.Path> byHops = Comparator.comparingInt(TransferPathSearch.Path::hops);
+        Comparator<TransferPathSearch.Path> byAmount =
+                Comparator.comparingDouble(TransferPathSearch.Path::bottleneck).reversed();
+        List<TransferPathSearch.Path> sorted = new ArrayList<>(all);
+        sorted.sort(mode == TransferPathSearch.Mode.SHORTEST
+                ? byHops.thenComparing(byAmount) : byAmount.thenComparing(byHops));
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    /** Ranking keys only: paths tied on both are interchangeable. */
+    private static List<String> keys(List<TransferPathSearch.Path> paths) {
+        List<String> keys = new ArrayList<>(paths.size());
+        for (TransferPathSearch.Path path : paths) keys.add(path.hops() + "@" + path.bottleneck());
+        return keys;
+    }
+
+    private static void assertValid(GraphProjection p, TransferPathSearch.Path path, int source, int target,
+                                    int maxHops, TransferPathSearch.Constraints constraints, String context) {
+        Csr out = p.getTransfers();
+        int[] users = path.users();
+        assertEquals(source, users[0], context);
+        assertEquals(target, users[users.length - 1], context);
+        assertTrue(path.hops() <= maxHops, context);
+        assertEquals(users.length, Arrays.stream(users).distinct().count(), context);
+        for (int i = 0; i < path.edges().length; i++) {
+            int e = path.edges()[i];
+            assertTrue(e >= out.start(users[i]) && e < out.end(users[i]), context);
+            assertEquals(users[i + 1], out.target(e), context);
+            assertTrue(constraints.allows(out, e), context);
+        }
+        assertEquals(bottleneck(out, path.edges()), path.bottleneck(), context);
+        assertEquals(total(out, path.edges()), path.totalAmount(), 1e-9, context);
+    }
+
+    private static double bottleneck(Csr out, int[] edges) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int e : edges) min = Math.min(min, out.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e));
+        return min;
+    }
+
+    private static double total(Csr out, int[] edges) {
+        double sum = 0;
+        for (int e : edges) sum += out.weight(GraphProjection.TRANSFER_TOTAL_AMOUNT, e);
+        return sum;
+    }
+
+    // ─────────────────────────────────────────────
+    // Projections
+    // ─────────────────────────────────────────────
+
+    private static GraphProjection randomProjection(Random random, int n, double density) {
+        List<double[]> edges = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) {
+                if (u == v || random.nextDouble() >= density) continue;
+                long first = random.nextInt(100);
+                edges.add(new double[]{u, v, 1 + random.nextInt(12), first, first + random.nextInt(30)});
+            }
+        }
+        return projection(n, edges.toArray(double[][]::new));
+    }
+
+    /** Users {@code U0..U(n-1)} and transfers given as {from, to, totalAmount, firstAt, lastAt}. */
+    static GraphProjection projection(int n, double[][] edges) {
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) ids.add("U" + i);
+        Csr.Builder transfers = new Csr.Builder(4);
+        for (double[] edge : edges) {
+            transfers.add((int) edge[0], (int) edge[1], edge[2], 1, edge[3], edge[4]);
+        }
+        return GraphProjection.builder()
+                .users(IdIndex.of(ids))
+                .transfers(transfers.build(n))
+                .transfersIn(transfers.buildReverse(n))
+                .build();
+    }
+}
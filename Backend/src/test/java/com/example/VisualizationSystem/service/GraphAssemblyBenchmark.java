@@ -0,0 +1,204 @@
+package com.example.VisualizationSystem.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly cost of one user relationship graph: the typed {@link GraphBuilder} path
+ * against the map-per-element assembly it replaced, with and without writing the JSON.
+ * <p>
+ * Run {@link #main} and compare {@code gc.alloc.rate.norm} (bytes per graph) next to
+ * the average time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphAssemblyBenchmark {
+
+    @Param({"50", "500"})
+    int transactions;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private Map<String, Object> raw;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Map<String, Object>> txs = new ArrayList<>();
+        List<Map<String, Object>> receivers = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            Map<String, Object> tx = new HashMap<>();
+            tx.put("transactionId", "TX" + i);
+            tx.put("amount", Math.round(random.nextDouble() * 1_000_000) / 100.0);
+            tx.put("currency", "USD");
+            tx.put("timestamp", "2024-01-01T00:00:" + (i % 60));
+            tx.put("ip", "10.0.0." + (i % 32));
+            tx.put("deviceId", "D" + (i % 16));
+            tx.put("status", i % 7 == 0 ? "FLAGGED" : "COMPLETED");
+            tx.put("paymentMethod", "CARD");
+            txs.add(tx);
+            // Receivers repeat, as they do for real senders
+            receivers.add(Map.of("userId", "U" + (i % (transactions / 4 + 1)), "name", "Receiver " + i));
+        }
+
+        List<Map<String, Object>> connected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            connected.add(Map.of("userId", "C" + i, "name", "Connected " + i,
+                    "relType", i % 2 == 0 ? "SAME_EMAIL" : "SAME_PHONE"));
+        }
+
+        List<Map<String, Object>> summary = new ArrayList<>();
+        for (String method : List.of("CARD", "WALLET")) {
+            List<Map<String, Object>> peers = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                peers.add(Map.of("userId", "P" + i, "name", "Peer " + i));
+            }
+            summary.add(Map.of("method", method, "peers", peers));
+        }
+
+        raw = Map.of(
+                "user", Map.of("userId", "U-main", "name", "Main", "email", "main@example.com",
+                        "paymentMethods", List.of("CARD", "WALLET")),
+                "connectedUsers", connected,
+                "transactions", txs,
+                "receivers", receivers,
+                "userPaymentMethods", List.of("CARD", "WALLET"),
+                "paymentSummary", summary);
+    }
+
+    @Benchmark
+    public GraphNeighborhoodCache.Loaded typed() {
+        return UserRelationshipService.assemble("U-main", raw);
+    }
+
+    @Benchmark
+    public GraphNeighborhoodCache.Loaded legacy() {
+        return legacyAssemble(raw);
+    }
+
+    @Benchmark
+    public byte[] typedWritten() {
+        return jsonMapper.writeValueAsBytes(UserRelationshipService.assemble("U-main", raw).graph());
+    }
+
+    @Benchmark
+    public byte[] legacyWritten() {
+        return jsonMapper.writeValueAsBytes(legacyAssemble(raw).graph());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GraphAssemblyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    // ─────────────────────────────────────────────
+    // Previous assembly: one HashMap per element, string edge keys, String.format labels
+    // ─────────────────────────────────────────────
+
+    @SuppressWarnings("unchecked")
+    private static GraphNeighborhoodCache.Loaded legacyAssemble(Map<String, Object> raw) {
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        List<Map<String, Object>> edges = new ArrayList<>();
+        Set<String> addedNodeIds = new HashSet<>();
+        Set<String> addedEdgeKeys = new HashSet<>();
+
+        Map<String, Object> user = (Map<String, Object>) raw.get("user");
+        String mainUserId = (String) user.get("userId");
+        Map<String, Object> mainUserNode = new HashMap<>();
+        mainUserNode.put("id", mainUserId);
+        mainUserNode.put("label", user.get("name"));
+        mainUserNode.put("type", "user");
+        mainUserNode.put("email", user.get("email"));
+        mainUserNode.put("paymentMethods", user.get("paymentMethods"));
+        nodes.add(mainUserNode);
+        addedNodeIds.add(mainUserId);
+
+        for (Map<String, Object> cu : (List<Map<String, Object>>) raw.get("connectedUsers")) {
+            String id = (String) cu.get("userId");
+            if (addedNodeIds.add(id)) {
+                nodes.add(Map.of("id", id, "label", cu.get("name"), "type", "user"));
+            }
+            if (addedEdgeKeys.add(mainUserId + "|" + cu.get("relType") + "|" + id)) {
+                edges.add(Map.of("source", mainUserId, "target", id, "type", cu.get("relType")));
+            }
+        }
+
+        List<Map<String, Object>> transactions = (List<Map<String, Object>>) raw.get("transactions");
+        List<Map<String, Object>> receivers = (List<Map<String, Object>>) raw.get("receivers");
+        for (int i = 0; i < transactions.size(); i++) {
+            Map<String, Object> tx = transactions.get(i);
+            String txId = (String) tx.get("transactionId");
+            if (addedNodeIds.add(txId)) {
+                nodes.add(legacyTxNode(tx));
+            }
+            edges.add(Map.of("id", mainUserId + "_" + txId + "_SENT",
+                    "source", mainUserId, "target", txId, "type", "SENT"));
+
+            Map<String, Object> receiver = receivers.get(i);
+            String receiverId = (String) receiver.get("userId");
+            if (addedNodeIds.add(receiverId)) {
+                nodes.add(Map.of("id", receiverId, "label", receiver.get("name"), "type", "user"));
+            }
+            edges.add(Map.of("id", txId + "_" + receiverId + "_RECEIVED_BY",
+                    "source", txId, "target", receiverId, "type", "RECEIVED_BY"));
+        }
+
+        int paymentPeerCount = 0;
+        for (Map<String, Object> methodEntry : (List<Map<String, Object>>) raw.get("paymentSummary")) {
+            String method = (String) methodEntry.get("method");
+            for (Map<String, Object> peer : (List<Map<String, Object>>) methodEntry.get("peers")) {
+                if (paymentPeerCount >= 50) break;
+                String peerId = (String) peer.get("userId");
+                if (addedNodeIds.add(peerId)) {
+                    Map<String, Object> peerNode = new HashMap<>();
+                    peerNode.put("id", peerId);
+                    peerNode.put("label", peer.get("name"));
+                    peerNode.put("type", "user");
+                    nodes.add(peerNode);
+                    paymentPeerCount++;
+                }
+                if (addedEdgeKeys.add(mainUserId + "|SAME_PAYMENT|" + peerId + "|" + method)) {
+                    Map<String, Object> edge = new HashMap<>();
+                    edge.put("id", mainUserId + "_" + peerId + "_SAME_PAYMENT_" + method);
+                    edge.put("source", mainUserId);
+                    edge.put("target", peerId);
+                    edge.put("type", "SAME_PAYMENT");
+                    edge.put("method", method);
+                    edges.add(edge);
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("userPaymentMethods", raw.get("userPaymentMethods"));
+        result.put("paymentSummary", raw.get("paymentSummary"));
+        return new GraphNeighborhoodCache.Loaded(result, new HashSet<>(addedNodeIds));
+    }
+
+    private static Map<String, Object> legacyTxNode(Map<String, Object> tx) {
+        Map<String, Object> node = new HashMap<>();
+        String txId = (String) tx.get("transactionId");
+        node.put("id", txId);
+        node.put("type", "transaction");
+        node.put("transactionId", txId);
+        node.put("label", String.format("%s%.2f", tx.get("currency"), ((Number) tx.get("amount")).doubleValue()));
+        for (String key : List.of("amount", "currency", "timestamp", "ip", "deviceId", "status", "paymentMethod")) {
+            node.put(key, tx.get(key));
+        }
+        return node;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.VisualizationSystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexTest {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void incrementalPutsGiveTheSameCandidatesAsBuild() {
+        List<MinHashIndex.Features> users = randomUsers(new Random(17), 3_000);
+
+        MinHashIndex built = MinHashIndex.build(users, BANDS, ROWS, pool);
+        MinHashIndex incremental = new MinHashIndex(BANDS, ROWS);
+        for (MinHashIndex.Features user : users) incremental.put(user);
+
+        assertSameIndex(built, incremental, ids(users));
+    }
+
+    @Test
+    void putAndRemoveKeepBucketsConsistent() {
+        Random random = new Random(29);
+        Map<String, MinHashIndex.Features> current = new LinkedHashMap<>();
+        for (MinHashIndex.Features user : randomUsers(random, 2_000)) current.put(user.userId(), user);
+        MinHashIndex index = MinHashIndex.build(new ArrayList<>(current.values()), BANDS, ROWS, pool);
+
+        Set<String> removed = new HashSet<>();
+        List<String> ids = new ArrayList<>(current.keySet());
+        for (int i = 0; i < 3_000; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                current.remove(id);
+                removed.add(id);
+            } else {
+                // rewrite, sometimes to features in other users' buckets, sometimes to none
+                MinHashIndex.Features changed = new MinHashIndex.Features(id, "renamed",
+                        random.nextInt(10) == 0 ? Set.of() : features(random));
+                index.put(changed);
+                current.put(id, changed);
+                removed.remove(id);
+            }
+        }
+
+        assertEquals(current.size(), index.size());
+        for (String id : removed) assertNull(index.get(id));
+        // the same users built from scratch land in exactly the same buckets
+        MinHashIndex rebuilt = MinHashIndex.build(new ArrayList<>(current.values()), BANDS, ROWS, pool);
+        assertSameIndex(rebuilt, index, current.keySet());
+        for (String id : current.keySet()) {
+            Set<String> candidates = index.candidates(id, index.get(id), Integer.MAX_VALUE);
+            assertTrue(Collections.disjoint(candidates, removed), id);
+        }
+    }
+
+    @Test
+    void identicalUsersAreCandidatesAndDisjointOnesAreNot() {
+        MinHashIndex index = new MinHashIndex(BANDS, ROWS);
+        Set<String> shared = Set.of("device:d1", "ip:10.0.0.1", "email:a@x.io");
+        index.put(new MinHashIndex.Features("u1", "A", shared));
+        index.put(new MinHashIndex.Features("u2", "B", shared));
+        index.put(new MinHashIndex.Features("u3", "C", Set.of("device:d9", "phone:555")));
+        index.put(new MinHashIndex.Features("u4", "D", Set.of()));
+
+        assertEquals(Set.of("u2"), index.candidates("u1", index.get("u1"), 10));
+        assertEquals(Set.of(), index.candidates("u3", index.get("u3"), 10));
+        assertEquals(Set.of(), index.candidates("u4", index.get("u4"), 10));
+        assertEquals(1.0, MinHashIndex.estimate(index.get("u1"), index.get("u2")));
+
+        index.put(new MinHashIndex.Features("u2", "B", Set.of("device:d9", "phone:555")));
+        assertEquals(Set.of(), index.candidates("u1", index.get("u1"), 10));
+        assertEquals(Set.of("u2"), index.candidates("u3", index.get("u3"), 10));
+
+        index.remove("u2");
+        assertEquals(Set.of(), index.candidates("u3", index.get("u3"), 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void candidatesAreCappedAtMax() {
+        MinHashIndex index = new MinHashIndex(BANDS, ROWS);
+        for (int i = 0; i < 50; i++) {
+            index.put(new MinHashIndex.Features("u" + i, null, Set.of("ip:shared")));
+        }
+        assertEquals(10, index.candidates("u0", index.get("u0"), 10).size());
+        assertFalse(index.candidates("u0", index.get("u0"), 100).contains("u0"));
+    }
+
+    private static void assertSameIndex(MinHashIndex expected, MinHashIndex actual, Collection<String> ids) {
+        assertEquals(expected.size(), actual.size());
+        for (String id : ids) {
+            MinHashIndex.Entry a = expected.get(id);
+            MinHashIndex.Entry b = actual.get(id);
+            assertArrayEquals(a.signature(), b.signature(), id);
+            assertEquals(expected.candidates(id, a, Integer.MAX_VALUE), actual.candidates(id, b, Integer.MAX_VALUE), id);
+        }
+    }
+
+    private static List<String> ids(List<MinHashIndex.Features> users) {
+        return users.stream().map(MinHashIndex.Features::userId).toList();
+    }
+
+    private static List<MinHashIndex.Features> randomUsers(Random random, int n) {
+        List<MinHashIndex.Features> users = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            users.add(new MinHashIndex.Features("u" + i, "User " + i, features(random)));
+        }
+        return users;
+    }
+
+    /** A few tokens from small pools, so many users share buckets. */
+    private static Set<String> features(Random random) {
+        Set<String> tokens = new HashSet<>();
+        for (int j = 0, k = 1 + random.nextInt(4); j < k; j++) tokens.add("device:d" + random.nextInt(300));
+        for (int j = 0, k = random.nextInt(3); j < k; j++) tokens.add("ip:10.0." + random.nextInt(200));
+        if (random.nextBoolean()) tokens.add("address:" + random.nextInt(100) + " main st");
+        return tokens;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.VisualizationSystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKSketchTest {
+
+    @Test
+    void exactWhileEveryKeyFits() {
+        TopKSketch sketch = new TopKSketch(10);
+        sketch.add("a", 5);
+        sketch.add("b", 7);
+        sketch.add("a", 3);
+        sketch.add("c", 8);
+        sketch.add(null, 100);
+        sketch.add("d", 0);
+
+        assertTrue(sketch.exact());
+        assertEquals(3, sketch.size());
+        // ties broken by key
+        assertEquals(List.of(new TopKSketch.Entry("a", 8, 0), new TopKSketch.Entry("c", 8, 0),
+                new TopKSketch.Entry("b", 7, 0)), sketch.top(10));
+        assertEquals(2, sketch.top(2).size());
+    }
+
+    @Test
+    void evictionKeepsTheErrorBound() {
+        Random random = new Random(13);
+        int capacity = 50;
+        TopKSketch sketch = new TopKSketch(capacity);
+        Map<String, Double> truth = new HashMap<>();
+        double total = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // Zipf-like keys: a few heavy ones and a long tail
+            String key = "k" + (int) Math.floor(Math.pow(2_000, random.nextDouble()));
+            double weight = 1 + random.nextInt(10);
+            sketch.add(key, weight);
+            truth.merge(key, weight, Double::sum);
+            total += weight;
+        }
+
+        assertFalse(sketch.exact());
+        assertEquals(capacity, sketch.size());
+        List<TopKSketch.Entry> board = sketch.top(capacity);
+        Set<String> onBoard = new HashSet<>();
+        for (TopKSketch.Entry entry : board) {
+            double actual = truth.get(entry.key());
+            assertTrue(entry.value() - entry.error() <= actual + 1e-6, entry.toString());
+            assertTrue(actual <= entry.value() + 1e-6, entry.toString());
+            onBoard.add(entry.key());
+        }
+        // Space-saving guarantee: any key heavier than total / capacity is on the board
+        for (Map.Entry<String, Double> e : truth.entrySet()) {
+            if (e.getValue() > total / capacity) {
+                assertTrue(onBoard.contains(e.getKey()), e.getKey());
+            }
+        }
+    }
+
+    @Test
+    void evictedSlotInheritsTheSmallestWeight() {
+        TopKSketch sketch = new TopKSketch(2);
+        sketch.add("a", 10);
+        sketch.add("b", 4);
+        sketch.add("c", 1);
+
+        assertFalse(sketch.exact());
+        assertEquals(List.of(new TopKSketch.Entry("a", 10, 0), new TopKSketch.Entry("c", 5, 4)), sketch.top(5));
+    }
+
+    @Test
+    void negativeUpdatesOnlyReachKeysOnTheBoard() {
+        TopKSketch sketch = new TopKSketch(3);
+        sketch.add("a", 10);
+        sketch.add("b", 6);
+
+        sketch.add("a", -4);
+        sketch.add("x", -5);
+        assertEquals(List.of(new TopKSketch.Entry("a", 6, 0), new TopKSketch.Entry("b", 6, 0)), sketch.top(3));
+
+        sketch.add("b", -6);
+        assertEquals(1, sketch.size());
+        assertEquals(List.of(new TopKSketch.Entry("a", 6, 0)), sketch.top(3));
+        assertTrue(sketch.exact());
+    }
+
+    @Test
+    void truncatedBoardIsNotExact() {
+        TopKSketch sketch = new TopKSketch(3);
+        sketch.add("a", 10);
+        sketch.truncated(2);
+        sketch.add("b", 1);
+
+        assertFalse(sketch.exact());
+        // a newcomer may already have weighed up to the floor
+        assertEquals(new TopKSketch.Entry("b", 3, 2), sketch.top(3).get(1));
+    }
+}